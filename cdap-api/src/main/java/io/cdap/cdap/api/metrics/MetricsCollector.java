@@ -37,4 +37,14 @@ public interface MetricsCollector {
    * @param value value of the metric.
    */
   void gauge(String metricName, long value);
+
+  /**
+   * Record a value in the distribution of a metric at the current time, from which percentiles of the recorded
+   * values can be queried. Collectors that don't support distributions ignore the value.
+   * @param metricName Name of the metric.
+   * @param value value to record, negative values are recorded as 0.
+   */
+  default void record(String metricName, long value) {
+    // no-op
+  }
 }
@@ -476,6 +476,16 @@ public interface Store {
    */
   Set<RunId> getRunningInRange(long startTimeInSecs, long endTimeInSecs);
 
+  /**
+   * Adds a batch of completed run records that were written before the run record time index existed to the index.
+   * The time index is only used by {@link #getRunningInRange(long, long)} and
+   * {@link #getHistoricalRuns(Set, long, long, int)} once all batches have been indexed.
+   *
+   * @param batchSize maximum number of run records to index
+   * @return {@code true} if all completed run records are indexed, {@code false} if there are more to index
+   */
+  boolean backfillRunRecordTimeIndex(int batchSize);
+
   /**
    * Get the run count of the given program.
    *
@@ -31,8 +31,8 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * ClassLoader that implements bundle jar feature, in which the application jar contains
@@ -42,6 +42,10 @@ public class ProgramClassLoader extends DirectoryClassLoader {
 
   private static final Logger LOG = LoggerFactory.getLogger(ProgramClassLoader.class);
 
+  static {
+    registerAsParallelCapable();
+  }
+
   private final File dir;
   private final Function<String, URL> classResourceLookup;
   private final Map<String, Boolean> datasetClassCache;
@@ -62,7 +66,7 @@ public class ProgramClassLoader extends DirectoryClassLoader {
     super(dir, cConf.get(Constants.AppFabric.PROGRAM_EXTRA_CLASSPATH), parent, "lib");
     this.dir = dir;
     this.classResourceLookup = ClassLoaders.createClassResourceLookup(this);
-    this.datasetClassCache = new HashMap<>();
+    this.datasetClassCache = new ConcurrentHashMap<>();
     this.datasetClassRewriter = new DatasetClassRewriter();
   }
 
@@ -467,50 +467,16 @@ class RemoteExecutionTwillPreparer implements TwillPreparer {
   }
 
   /**
-   * Localize files to the target host.
+   * Localize files to the target host through the {@link RemoteLocalizationCache} on the host.
    */
   private void localizeFiles(SSHSession session, Map<String, LocalFile> localFiles,
-                             String targetPath, RuntimeSpecification runtimeSpec) throws IOException {
-
-    // A map to remember what URI has already been uploaded to what target path.
-    // This helps reducing the bandwidth when same file is uploaded to different target path.
-    Map<URI, String> localizedFiles = new HashMap<>();
-    String localizedDir = targetPath + "/.localized";
-    session.executeAndWait("mkdir -p " + localizedDir);
-
-    for (LocalFile localFile : Iterables.concat(localFiles.values(), runtimeSpec.getLocalFiles())) {
-      URI uri = localFile.getURI();
-
-      // If not yet uploaded, upload it
-      String localizedFile = localizedFiles.get(uri);
-      if (localizedFile == null) {
-        String fileName = Hashing.md5().hashString(uri.toString()).toString() + "-" + getFileName(uri);
-        localizedFile = localizedDir + "/" + fileName;
-        try (InputStream inputStream = openURI(uri)) {
-          LOG.debug("Upload file {} to {}@{}:{}", uri, session.getUsername(), session.getAddress(), localizedFile);
-          //noinspection OctalInteger
-          session.copy(inputStream, localizedDir, fileName, localFile.getSize(), 0644,
-                       localFile.getLastModified(), localFile.getLastModified());
-        }
-        localizedFiles.put(uri, localizedFile);
-      }
-
-      // If it is an archive, expand it. If is a file, create a hardlink.
-      if (localFile.isArchive()) {
-        String expandedDir = targetPath + "/" + localFile.getName();
-        LOG.debug("Expanding archive {} on host {} to {}",
-                  localizedFile, session.getAddress().getHostName(), expandedDir);
-        session.executeAndWait(
-          "mkdir -p " + expandedDir,
-          "cd " + expandedDir,
-          String.format("jar xf %s", localizedFile)
-        );
-      } else {
-        LOG.debug("Create hardlink {} on host {} to {}/{}",
-                  localizedFile, session.getAddress().getHostName(), targetPath, localFile.getName());
-        session.executeAndWait(String.format("ln %s %s/%s", localizedFile, targetPath, localFile.getName()));
-      }
-    }
+                             String targetPath, RuntimeSpecification runtimeSpec) throws Exception {
+    RemoteLocalizationCache cache = new RemoteLocalizationCache(
+      session, cConf.get(io.cdap.cdap.common.conf.Constants.AppFabric.REMOTE_LOCALIZATION_CACHE_DIR),
+      cConf.getLong(io.cdap.cdap.common.conf.Constants.AppFabric.REMOTE_LOCALIZATION_CACHE_MAX_SIZE_MB),
+      cConf.getInt(io.cdap.cdap.common.conf.Constants.AppFabric.REMOTE_LOCALIZATION_UPLOAD_THREADS),
+      programRunId.getRun(), this::openURI);
+    cache.localize(Iterables.concat(localFiles.values(), runtimeSpec.getLocalFiles()), targetPath);
   }
 
   /**
@@ -863,15 +829,6 @@ class RemoteExecutionTwillPreparer implements TwillPreparer {
     return uri.toURL().openStream();
   }
 
-  /**
-   * Returns the file name of a given {@link URI}. The file name is the last part of the path, separated by {@code /}.
-   */
-  private String getFileName(URI uri) {
-    String path = uri.getPath();
-    int idx = path.lastIndexOf('/');
-    return idx >= 0 ? path.substring(idx + 1) : path;
-  }
-
   /**
    * Generates the shell script for launching the JVM process of the runnable that will run on the remote host.
    */
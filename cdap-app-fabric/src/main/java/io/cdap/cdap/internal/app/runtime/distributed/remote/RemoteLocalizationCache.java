@@ -0,0 +1,284 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.runtime.distributed.remote;
+
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.cdap.cdap.common.lang.FunctionWithException;
+import io.cdap.cdap.runtime.spi.ssh.SSHSession;
+import org.apache.twill.api.LocalFile;
+import org.apache.twill.common.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A content-addressed cache of localized files on a remote host, shared by all program runs launched on that host
+ * through SSH. Files are stored in the cache directory under the SHA-256 of their content and archives are
+ * expanded once next to them, so that each launch only uploads files that are not in the cache yet and
+ * creates hard links from the cache to the run directory. Entries are made read-only once they are complete, so
+ * that a program run cannot modify the cached content through its hard links. Entries are touched on every use and
+ * the least recently used entries are removed when the cache grows beyond the maximum size.
+ */
+final class RemoteLocalizationCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RemoteLocalizationCache.class);
+
+  // Content hashes of files, keyed by URI, size and last modified time, so that unchanged files,
+  // such as the CDAP and artifact jars, are not hashed again on every launch
+  private static final Cache<String, String> CONTENT_HASHES = CacheBuilder.newBuilder().maximumSize(1000).build();
+
+  // Suffix of an expanded archive entry in the cache directory
+  private static final String EXPANDED_SUFFIX = ".dir";
+  // Entries used within this period are never evicted, since a concurrent launch may be about to link them
+  private static final int MIN_EVICTION_AGE_MINUTES = 30;
+  // Temporary files left behind by failed launches older than this period are removed
+  private static final int STALE_TEMP_AGE_MINUTES = 60;
+
+  private final SSHSession session;
+  private final String cacheDir;
+  private final long maxSizeMB;
+  private final int uploadThreads;
+  private final String tempSuffix;
+  private final FunctionWithException<URI, InputStream, IOException> uriOpener;
+
+  /**
+   * Creates a new instance.
+   *
+   * @param session the {@link SSHSession} to the remote host
+   * @param cacheDir the cache directory on the remote host. A relative path is relative to the home directory.
+   * @param maxSizeMB maximum size of the cache directory in MB
+   * @param uploadThreads maximum number of concurrent uploads
+   * @param runId the id of the program run that is being launched
+   * @param uriOpener a function to open {@link InputStream} for reading the content of a {@link URI}
+   */
+  RemoteLocalizationCache(SSHSession session, String cacheDir, long maxSizeMB, int uploadThreads,
+                          String runId, FunctionWithException<URI, InputStream, IOException> uriOpener) {
+    this.session = session;
+    this.cacheDir = cacheDir;
+    this.maxSizeMB = maxSizeMB;
+    this.uploadThreads = Math.max(1, uploadThreads);
+    this.tempSuffix = ".tmp." + runId;
+    this.uriOpener = uriOpener;
+  }
+
+  /**
+   * Localizes the given files into the target directory on the remote host. Archives are expanded into a
+   * directory named by the {@link LocalFile#getName()}, while other files are linked with that name.
+   *
+   * @param localFiles the files to localize
+   * @param targetPath the absolute path of the target directory on the remote host
+   */
+  void localize(Iterable<LocalFile> localFiles, String targetPath) throws Exception {
+    // Compute content hashes of all distinct URIs and what forms of cache entries are needed
+    Map<URI, String> hashes = new LinkedHashMap<>();
+    Map<String, LocalFile> files = new LinkedHashMap<>();
+    Set<String> neededFiles = new HashSet<>();
+    Set<String> neededExpanded = new HashSet<>();
+    for (LocalFile localFile : localFiles) {
+      String hash = hashes.get(localFile.getURI());
+      if (hash == null) {
+        hash = getContentHash(localFile);
+        hashes.put(localFile.getURI(), hash);
+        files.putIfAbsent(hash, localFile);
+      }
+      if (localFile.isArchive()) {
+        neededExpanded.add(hash);
+      } else {
+        neededFiles.add(hash);
+      }
+    }
+
+    // Find out the existing entries and mark them as recently used with one remote command
+    StringBuilder checkCommand = new StringBuilder();
+    checkCommand.append(String.format("mkdir -p %s && cd %s && pwd && for e in", cacheDir, cacheDir));
+    for (String hash : files.keySet()) {
+      checkCommand.append(' ').append(hash);
+      if (neededExpanded.contains(hash)) {
+        checkCommand.append(' ').append(hash).append(EXPANDED_SUFFIX);
+      }
+    }
+    checkCommand.append("; do if [ -e $e ]; then touch $e; echo $e; fi; done");
+
+    Iterator<String> output = Splitter.on('\n').omitEmptyStrings().trimResults()
+      .split(session.executeAndWait(checkCommand.toString())).iterator();
+    String cachePath = output.next();
+    Set<String> existing = new HashSet<>();
+    output.forEachRemaining(existing::add);
+
+    // Upload the files that are needed, either directly or for expansion, but not in the cache
+    Set<String> missingExpanded = new HashSet<>();
+    for (String hash : neededExpanded) {
+      if (!existing.contains(hash + EXPANDED_SUFFIX)) {
+        missingExpanded.add(hash);
+      }
+    }
+    List<String> uploads = new ArrayList<>();
+    for (String hash : files.keySet()) {
+      if ((neededFiles.contains(hash) || missingExpanded.contains(hash)) && !existing.contains(hash)) {
+        uploads.add(hash);
+      }
+    }
+    LOG.debug("Localization cache {}@{}:{} has {} out of {} files. Uploading {} files.",
+              session.getUsername(), session.getAddress(), cachePath,
+              files.size() - uploads.size(), files.size(), uploads.size());
+    upload(uploads, files, cachePath);
+
+    // Expand archives that are not in the cache yet and then link all files into the target directory
+    List<String> commands = new ArrayList<>();
+    commands.add("set -e");
+    commands.add("cd " + cachePath);
+    for (String hash : missingExpanded) {
+      // Expand to a temporary directory and move it to the final name, so that a concurrent launch never sees a
+      // partially expanded archive. If the move failed, it was expanded by another launch already.
+      String tempDir = hash + EXPANDED_SUFFIX + tempSuffix;
+      String expandedDir = hash + EXPANDED_SUFFIX;
+      commands.add(String.format("rm -rf %s && mkdir %s && (cd %s && jar xf ../%s)", tempDir, tempDir, tempDir, hash));
+      commands.add(String.format("if mv -T %s %s 2>/dev/null; then chmod -R a-w %s; else rm -rf %s; fi",
+                                 tempDir, expandedDir, expandedDir, tempDir));
+    }
+    for (LocalFile localFile : localFiles) {
+      String hash = hashes.get(localFile.getURI());
+      String target = targetPath + "/" + localFile.getName();
+      if (localFile.isArchive()) {
+        // Hard link the expanded files. Fallback to copy if the cache is on a different file system.
+        // The copied directories are made writable again, so that the run directory can be modified and removed.
+        commands.add(String.format("cp -al %s/%s%s %s 2>/dev/null || cp -r %s/%s%s %s",
+                                   cachePath, hash, EXPANDED_SUFFIX, target, cachePath, hash, EXPANDED_SUFFIX, target));
+        commands.add(String.format("find %s -type d -exec chmod u+w {} +", target));
+      } else {
+        commands.add(String.format("ln -f %s/%s %s 2>/dev/null || cp -f %s/%s %s",
+                                   cachePath, hash, target, cachePath, hash, target));
+      }
+    }
+    session.executeAndWait(commands);
+
+    cleanup(cachePath);
+  }
+
+  /**
+   * Uploads files to the cache directory in parallel.
+   */
+  private void upload(List<String> uploads, Map<String, LocalFile> files, String cachePath) throws Exception {
+    if (uploads.isEmpty()) {
+      return;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(uploadThreads, uploads.size()),
+                                                            Threads.createDaemonThreadFactory("localize-upload-%d"));
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (String hash : uploads) {
+        LocalFile localFile = files.get(hash);
+        futures.add(executor.submit(() -> {
+          LOG.debug("Upload file {} to {}@{}:{}/{}",
+                    localFile.getURI(), session.getUsername(), session.getAddress(), cachePath, hash);
+          try (InputStream inputStream = uriOpener.apply(localFile.getURI())) {
+            //noinspection OctalInteger
+            session.copy(inputStream, cachePath, hash + tempSuffix, localFile.getSize(), 0644,
+                         localFile.getLastModified(), localFile.getLastModified());
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // Atomically move the uploaded files to their final names and make them read-only
+    List<String> commands = new ArrayList<>();
+    commands.add("set -e");
+    commands.add("cd " + cachePath);
+    for (String hash : uploads) {
+      commands.add(String.format("mv -f %s%s %s && chmod a-w %s", hash, tempSuffix, hash, hash));
+    }
+    session.executeAndWait(commands);
+  }
+
+  /**
+   * Removes the least recently used entries from the cache until it is within the maximum size.
+   * Entries are made writable before removal, since the content of read-only directories cannot be removed.
+   */
+  private void cleanup(String cachePath) {
+    long maxSizeKB = maxSizeMB * 1024;
+    try {
+      session.executeAndWait(
+        "cd " + cachePath,
+        String.format("find . -mindepth 1 -maxdepth 1 -name '*.tmp.*' -mmin +%d -exec rm -rf {} +",
+                      STALE_TEMP_AGE_MINUTES),
+        "total=$(du -sk . | cut -f1)",
+        String.format("find . -mindepth 1 -maxdepth 1 ! -name '*.tmp.*' -mmin +%d -printf '%%T@ %%f\\n' | sort -n | "
+                        + "while read t e; do "
+                        + "if [ $total -le %d ]; then break; fi; "
+                        + "s=$(du -sk $e | cut -f1); chmod -R u+w $e; rm -rf $e; total=$((total - s)); "
+                        + "done",
+                      MIN_EVICTION_AGE_MINUTES, maxSizeKB)
+      );
+    } catch (Exception e) {
+      // Failure to cleanup shouldn't fail the launch
+      LOG.warn("Failed to cleanup localization cache {} on host {}", cachePath, session.getAddress(), e);
+    }
+  }
+
+  /**
+   * Returns the SHA-256 of the content of the given {@link LocalFile}.
+   */
+  private String getContentHash(LocalFile localFile) throws IOException {
+    URI uri = localFile.getURI();
+    String key = uri + ":" + localFile.getSize() + ":" + localFile.getLastModified();
+    String hash = CONTENT_HASHES.getIfPresent(key);
+    if (hash != null) {
+      return hash;
+    }
+
+    Hasher hasher = Hashing.sha256().newHasher();
+    byte[] buffer = new byte[64 * 1024];
+    try (InputStream is = uriOpener.apply(uri)) {
+      int len = is.read(buffer);
+      while (len >= 0) {
+        hasher.putBytes(buffer, 0, len);
+        len = is.read(buffer);
+      }
+    }
+    hash = hasher.hash().toString();
+    CONTENT_HASHES.put(key, hash);
+    return hash;
+  }
+}
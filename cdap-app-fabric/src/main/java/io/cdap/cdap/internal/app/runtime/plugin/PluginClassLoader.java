@@ -52,6 +52,11 @@ import java.util.jar.Manifest;
  * ClassLoader as the Combine ClassLoader.
  */
 public class PluginClassLoader extends DirectoryClassLoader {
+
+  static {
+    registerAsParallelCapable();
+  }
+
   private final ArtifactId artifactId;
   private final Set<String> exportPackages;
 
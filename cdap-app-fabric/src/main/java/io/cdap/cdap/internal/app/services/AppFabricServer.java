@@ -71,6 +71,7 @@ public class AppFabricServer extends AbstractIdleService {
   private final Set<String> handlerHookNames;
   private final ProgramNotificationSubscriberService programNotificationSubscriberService;
   private final RunRecordCorrectorService runRecordCorrectorService;
+  private final RunRecordTimeIndexBackfillService runRecordTimeIndexBackfillService;
   private final PluginService pluginService;
   private final CoreSchedulerService coreSchedulerService;
   private final ProvisioningService provisioningService;
@@ -94,6 +95,7 @@ public class AppFabricServer extends AbstractIdleService {
                          @Nullable MetricsCollectionService metricsCollectionService,
                          ProgramRuntimeService programRuntimeService,
                          RunRecordCorrectorService runRecordCorrectorService,
+                         RunRecordTimeIndexBackfillService runRecordTimeIndexBackfillService,
                          ApplicationLifecycleService applicationLifecycleService,
                          ProgramNotificationSubscriberService programNotificationSubscriberService,
                          @Named("appfabric.services.names") Set<String> servicesNames,
@@ -114,6 +116,7 @@ public class AppFabricServer extends AbstractIdleService {
     this.applicationLifecycleService = applicationLifecycleService;
     this.programNotificationSubscriberService = programNotificationSubscriberService;
     this.runRecordCorrectorService = runRecordCorrectorService;
+    this.runRecordTimeIndexBackfillService = runRecordTimeIndexBackfillService;
     this.pluginService = pluginService;
     this.sslEnabled = cConf.getBoolean(Constants.Security.SSL.INTERNAL_ENABLED);
     this.coreSchedulerService = coreSchedulerService;
@@ -137,6 +140,7 @@ public class AppFabricServer extends AbstractIdleService {
         programRuntimeService.start(),
         programNotificationSubscriberService.start(),
         runRecordCorrectorService.start(),
+        runRecordTimeIndexBackfillService.start(),
         pluginService.start(),
         coreSchedulerService.start()
       )
@@ -184,6 +188,7 @@ public class AppFabricServer extends AbstractIdleService {
     applicationLifecycleService.stopAndWait();
     programNotificationSubscriberService.stopAndWait();
     runRecordCorrectorService.stopAndWait();
+    runRecordTimeIndexBackfillService.stopAndWait();
     pluginService.stopAndWait();
     provisioningService.stopAndWait();
   }
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.services;
+
+import com.google.common.util.concurrent.AbstractExecutionThreadService;
+import com.google.inject.Inject;
+import io.cdap.cdap.app.store.Store;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service that adds the completed run records written before the run record time index existed to the index.
+ * It runs until all of them are indexed, one batch per transaction, and does nothing once the backfill is complete.
+ */
+public class RunRecordTimeIndexBackfillService extends AbstractExecutionThreadService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RunRecordTimeIndexBackfillService.class);
+  private static final long RETRY_DELAY_SECONDS = 10L;
+
+  private final Store store;
+  private final int batchSize;
+  private volatile Thread runThread;
+
+  @Inject
+  RunRecordTimeIndexBackfillService(CConfiguration cConf, Store store) {
+    this.store = store;
+    this.batchSize = cConf.getInt(Constants.AppFabric.RUN_RECORD_TIME_INDEX_BACKFILL_BATCH_SIZE);
+  }
+
+  @Override
+  protected void startUp() {
+    runThread = Thread.currentThread();
+  }
+
+  @Override
+  protected void run() {
+    int batches = 0;
+    while (isRunning()) {
+      try {
+        if (store.backfillRunRecordTimeIndex(batchSize)) {
+          LOG.info("Run record time index is complete after indexing {} batches of run records", batches);
+          return;
+        }
+        batches++;
+      } catch (Exception e) {
+        if (!isRunning()) {
+          break;
+        }
+        LOG.warn("Failed to add run records to the run record time index. Will be retried in {} seconds.",
+                 RETRY_DELAY_SECONDS, e);
+        try {
+          TimeUnit.SECONDS.sleep(RETRY_DELAY_SECONDS);
+        } catch (InterruptedException ie) {
+          // Expected on stopping. So just break the loop
+          break;
+        }
+      }
+    }
+  }
+
+  @Override
+  protected void triggerShutdown() {
+    Thread thread = runThread;
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  @Override
+  protected Executor executor() {
+    String name = getClass().getSimpleName();
+    return command -> {
+      Thread thread = new Thread(command, name);
+      thread.setDaemon(true);
+      thread.start();
+    };
+  }
+}
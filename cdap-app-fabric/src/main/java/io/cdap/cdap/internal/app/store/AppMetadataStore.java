@@ -20,6 +20,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.reflect.TypeToken;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -65,6 +66,7 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -96,6 +98,16 @@ import javax.annotation.Nullable;
  *
  * Workflow node state is updated whenever program state is updated
  * and we notice that the program belongs to a workflow.
+ *
+ * Completed run records are also indexed by time, with one row for every hour bucket during which the run was active:
+ *
+ * time bucket|namespace|app|version|programtype|program|runid
+ *
+ * Runs that were active for more than a week are indexed once, under a separate bucket that every query reads.
+ *
+ * The index is written in the same transaction as the completed run record and is used to answer time range
+ * queries without scanning all completed run records, once the backfill of the run records written before the
+ * index existed has finished.
  */
 public class AppMetadataStore {
 
@@ -113,6 +125,19 @@ public class AppMetadataStore {
   private static final String TYPE_RUN_RECORD_UPGRADE_COUNT = "runRecordUpgradeCount";
   private static final String SMALLEST_POSSIBLE_STRING = "";
 
+  // Size of the time buckets of the run record time index
+  private static final long RUN_TIME_BUCKET_SECONDS = TimeUnit.HOURS.toSeconds(1);
+  // Runs active in more time buckets than this are indexed once under the long runs bucket, which every query reads
+  private static final long MAX_RUN_TIME_BUCKETS = TimeUnit.DAYS.toHours(7);
+  // Beyond the bucket of any time in seconds
+  private static final long LONG_RUNS_TIME_BUCKET = Long.MAX_VALUE;
+  // Maximum number of run records read with one multi read when resolving the run record time index
+  private static final int RUN_TIME_INDEX_READ_BATCH_SIZE = 1000;
+  // The progress of the run record time index backfill is kept in the subscriber state table under this key
+  private static final String RUN_TIME_INDEX_BACKFILL_TOPIC = "run.records.time.index";
+  private static final String RUN_TIME_INDEX_BACKFILL_SUBSCRIBER = "backfill";
+  private static final String RUN_TIME_INDEX_BACKFILL_DONE = "done";
+
   private static final Map<ProgramRunStatus, String> STATUS_TYPE_MAP = ImmutableMap.<ProgramRunStatus, String>builder()
     .put(ProgramRunStatus.PENDING, TYPE_RUN_RECORD_ACTIVE)
     .put(ProgramRunStatus.STARTING, TYPE_RUN_RECORD_ACTIVE)
@@ -129,6 +154,7 @@ public class AppMetadataStore {
   private StructuredTable applicationSpecificationTable;
   private StructuredTable workflowNodeStateTable;
   private StructuredTable runRecordsTable;
+  private StructuredTable runRecordsTimeIndexTable;
   private StructuredTable workflowsTable;
   private StructuredTable programCountsTable;
   private StructuredTable subscriberStateTable;
@@ -177,6 +203,17 @@ public class AppMetadataStore {
     return runRecordsTable;
   }
 
+  private StructuredTable getRunRecordsTimeIndexTable() {
+    try {
+      if (runRecordsTimeIndexTable == null) {
+        runRecordsTimeIndexTable = context.getTable(StoreDefinition.AppMetadataStore.RUN_RECORDS_TIME_INDEX);
+      }
+    } catch (TableNotFoundException e) {
+      throw new RuntimeException(e);
+    }
+    return runRecordsTimeIndexTable;
+  }
+
   private StructuredTable getWorkflowsTable() {
     try {
       if (workflowsTable == null) {
@@ -265,12 +302,18 @@ public class AppMetadataStore {
 
   public Map<ApplicationId, ApplicationMeta> getApplicationsForAppIds(Collection<ApplicationId> appIds)
     throws IOException {
+    List<List<Field<?>>> multiKeys = new ArrayList<>(appIds.size());
+    for (ApplicationId appId : appIds) {
+      multiKeys.add(getApplicationPrimaryKeys(appId.getNamespace(), appId.getApplication(), appId.getVersion()));
+    }
+
     Map<ApplicationId, ApplicationMeta> result = new HashMap<>();
-    for (ApplicationId appId: appIds) {
-      ApplicationMeta applicationMeta = getApplication(appId);
-      if (applicationMeta != null) {
-        result.put(appId, getApplication(appId));
-      }
+    for (StructuredRow row : getApplicationSpecificationTable().multiRead(multiKeys)) {
+      ApplicationId appId = new NamespaceId(row.getString(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD))
+        .app(row.getString(StoreDefinition.AppMetadataStore.APPLICATION_FIELD),
+             row.getString(StoreDefinition.AppMetadataStore.VERSION_FIELD));
+      result.put(appId, GSON.fromJson(row.getString(StoreDefinition.AppMetadataStore.APPLICATION_DATA_FIELD),
+                                      ApplicationMeta.class));
     }
     return result;
   }
@@ -645,6 +688,7 @@ public class AppMetadataStore {
     List<Field<?>> fields = getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_COMPLETED, programRunId, startTs);
     writeToStructuredTableWithPrimaryKeys(
       fields, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    addToRunTimeIndex(meta);
     List<Field<?>> countKey = getProgramCountPrimaryKeys(TYPE_COUNT, programRunId.getParent());
     getProgramCountsTable().increment(countKey, StoreDefinition.AppMetadataStore.COUNTS, 1L);
     LOG.trace("Recorded {} for program {}", ProgramRunStatus.REJECTED, programRunId);
@@ -862,6 +906,7 @@ public class AppMetadataStore {
       .build();
     writeToStructuredTableWithPrimaryKeys(
       key, meta, getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_RECORD_DATA);
+    addToRunTimeIndex(meta);
     LOG.trace("Recorded {} for program {}", runStatus, programRunId);
     return meta;
   }
@@ -930,10 +975,19 @@ public class AppMetadataStore {
    */
   public Map<ProgramRunId, RunRecordMeta> getActiveRuns(Set<NamespaceId> namespaces, Predicate<RunRecordMeta> filter)
     throws IOException {
-    Map<ProgramRunId, RunRecordMeta> result = new HashMap<>();
+    // Scan the active runs of all namespaces with a single multi-range scan
+    List<Range> ranges = new ArrayList<>(namespaces.size());
     for (NamespaceId namespaceId : namespaces) {
-      List<Field<?>> prefix = getRunRecordNamespacePrefix(TYPE_RUN_RECORD_ACTIVE, namespaceId);
-      result.putAll(getProgramRunIdMap(Range.singleton(prefix), filter));
+      ranges.add(Range.singleton(getRunRecordNamespacePrefix(TYPE_RUN_RECORD_ACTIVE, namespaceId)));
+    }
+    Map<ProgramRunId, RunRecordMeta> result = new HashMap<>();
+    try (CloseableIterator<StructuredRow> iterator = getRunRecordsTable().multiScan(ranges, Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        RunRecordMeta meta = deserializeRunRecordMeta(iterator.next());
+        if (filter.test(meta)) {
+          result.put(meta.getProgramRunId(), meta);
+        }
+      }
     }
     return result;
   }
@@ -1162,16 +1216,33 @@ public class AppMetadataStore {
                                                             final long earliestStopTime, final long latestStartTime,
                                                             final int limit)
     throws IOException {
+    Predicate<RunRecordMeta> timeFilter = meta -> meta.getStopTs() != null && meta.getStopTs() >= earliestStopTime
+      && meta.getStartTs() < latestStartTime;
     Map<ProgramRunId, RunRecordMeta> result = new HashMap<>();
+
+    if (isRunTimeIndexReady()) {
+      Set<String> namespaceNames = namespaces.stream().map(NamespaceId::getNamespace).collect(Collectors.toSet());
+      Map<String, AtomicInteger> counts = new HashMap<>();
+      enumerateCompletedRunsInRange(
+        earliestStopTime, latestStartTime,
+        row -> namespaceNames.contains(row.getString(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD)),
+        timeFilter, meta -> {
+          AtomicInteger count = counts.computeIfAbsent(meta.getProgramRunId().getNamespace(), k -> new AtomicInteger());
+          if (count.get() < limit) {
+            count.incrementAndGet();
+            result.put(meta.getProgramRunId(), meta);
+          }
+        });
+      return result;
+    }
+
     for (NamespaceId namespaceId : namespaces) {
       // get active runs in a time window with range [earliestStopTime, latestStartTime),
       // which excludes program run records that stopped before earliestStopTime and
       // program run records that started after latestStartTime, all remaining records are active
       // at some point within the time window and will be returned
       result.putAll(getProgramRunIdMap(Range.singleton(
-        getRunRecordNamespacePrefix(TYPE_RUN_RECORD_COMPLETED, namespaceId)),
-                                       meta -> meta.getStopTs() != null && meta.getStopTs() >= earliestStopTime
-                                         && meta.getStartTs() < latestStartTime, null, limit));
+        getRunRecordNamespacePrefix(TYPE_RUN_RECORD_COMPLETED, namespaceId)), timeFilter, null, limit));
     }
     return result;
   }
@@ -1240,20 +1311,23 @@ public class AppMetadataStore {
   public void deleteProgramHistory(String namespaceId, String appId, String versionId)
     throws IOException {
     ApplicationId applicationId = new ApplicationId(namespaceId, appId, versionId);
+    Range completedRange = Range.singleton(getRunRecordApplicationPrefix(TYPE_RUN_RECORD_COMPLETED, applicationId));
+    deleteFromRunTimeIndex(completedRange);
     getRunRecordsTable()
       .deleteAll(Range.singleton(getRunRecordApplicationPrefix(TYPE_RUN_RECORD_ACTIVE, applicationId)));
-    getRunRecordsTable()
-      .deleteAll(Range.singleton(getRunRecordApplicationPrefix(TYPE_RUN_RECORD_COMPLETED, applicationId)));
+    getRunRecordsTable().deleteAll(completedRange);
     getProgramCountsTable().deleteAll(Range.singleton(getCountApplicationPrefix(TYPE_COUNT, applicationId)));
     getProgramCountsTable().deleteAll(
       Range.singleton(getCountApplicationPrefix(TYPE_RUN_RECORD_UPGRADE_COUNT, applicationId)));
   }
 
   public void deleteProgramHistory(String namespaceId) throws IOException {
+    Range completedRange = Range.singleton(getRunRecordNamespacePrefixWithString(TYPE_RUN_RECORD_COMPLETED,
+                                                                                 namespaceId));
+    deleteFromRunTimeIndex(completedRange);
     getRunRecordsTable().deleteAll(
       Range.singleton(getRunRecordNamespacePrefixWithString(TYPE_RUN_RECORD_ACTIVE, namespaceId)));
-    getRunRecordsTable().deleteAll(Range.singleton(
-      getRunRecordNamespacePrefixWithString(TYPE_RUN_RECORD_COMPLETED, namespaceId)));
+    getRunRecordsTable().deleteAll(completedRange);
     getProgramCountsTable().deleteAll(Range.singleton(getCountNamespacePrefix(TYPE_COUNT, namespaceId)));
     getProgramCountsTable().deleteAll(Range.singleton(
       getCountNamespacePrefix(TYPE_RUN_RECORD_UPGRADE_COUNT, namespaceId)));
@@ -1296,10 +1370,17 @@ public class AppMetadataStore {
    */
   public Set<RunId> getRunningInRangeCompleted(long startTimeInSecs, long endTimeInSecs)
     throws IOException {
-    // This method scans a large amount of data and may timeout. However, the previous implementation would
-    // simply return incomplete data. We have doubled the amount of time each transaction can take by using two
-    // transactions - and can further get all namespaces from the smaller app spec table and do one transaction per
-    // namespace if necessary.
+    if (isRunTimeIndexReady()) {
+      Set<RunId> result = new HashSet<>();
+      enumerateCompletedRunsInRange(startTimeInSecs, endTimeInSecs, null,
+                                    getRunningInRangePredicate(startTimeInSecs, endTimeInSecs),
+                                    meta -> result.add(RunIds.fromString(meta.getPid())));
+      return result;
+    }
+    // Until the time index is backfilled, this method scans a large amount of data and may timeout.
+    // However, the previous implementation would simply return incomplete data. We have doubled the amount of time
+    // each transaction can take by using two transactions - and can further get all namespaces from the smaller app
+    // spec table and do one transaction per namespace if necessary.
     return getRunningInRangeForStatus(TYPE_RUN_RECORD_COMPLETED, startTimeInSecs, endTimeInSecs);
   }
 
@@ -1340,10 +1421,19 @@ public class AppMetadataStore {
       throw new BadRequestException(String.format("%d programs found, the maximum number supported is 100",
                                                   programIds.size()));
     }
+    List<List<Field<?>>> multiKeys = new ArrayList<>(programIds.size());
     for (ProgramId programId : programIds) {
-      List<Field<?>> countKey = getProgramCountPrimaryKeys(TYPE_COUNT, programId);
-      Optional<StructuredRow> row = getProgramCountsTable().read(countKey);
-      result.put(programId, row.isPresent() ? row.get().getLong(StoreDefinition.AppMetadataStore.COUNTS) : 0);
+      // Programs without any run have zero count
+      result.put(programId, 0L);
+      multiKeys.add(getProgramCountPrimaryKeys(TYPE_COUNT, programId));
+    }
+    for (StructuredRow row : getProgramCountsTable().multiRead(multiKeys)) {
+      ProgramId programId = new ApplicationId(row.getString(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD),
+                                              row.getString(StoreDefinition.AppMetadataStore.APPLICATION_FIELD),
+                                              row.getString(StoreDefinition.AppMetadataStore.VERSION_FIELD))
+        .program(ProgramType.valueOf(row.getString(StoreDefinition.AppMetadataStore.PROGRAM_TYPE_FIELD)),
+                 row.getString(StoreDefinition.AppMetadataStore.PROGRAM_FIELD));
+      result.put(programId, row.getLong(StoreDefinition.AppMetadataStore.COUNTS));
     }
     return result;
   }
@@ -1394,9 +1484,7 @@ public class AppMetadataStore {
   Set<RunId> getRunningInRangeForStatus(String statusKey, final long startTimeInSecs,
                                         final long endTimeInSecs) throws IOException {
     // Create time filter to get running programs between start and end time
-    Predicate<RunRecordMeta> timeFilter = (runRecordMeta) ->
-      runRecordMeta.getStartTs() < endTimeInSecs &&
-        (runRecordMeta.getStopTs() == null || runRecordMeta.getStopTs() >= startTimeInSecs);
+    Predicate<RunRecordMeta> timeFilter = getRunningInRangePredicate(startTimeInSecs, endTimeInSecs);
 
     List<Field<?>> prefix = getRunRecordStatusPrefix(statusKey);
     return
@@ -1406,12 +1494,207 @@ public class AppMetadataStore {
         .collect(Collectors.toSet());
   }
 
+  private Predicate<RunRecordMeta> getRunningInRangePredicate(long startTimeInSecs, long endTimeInSecs) {
+    return (runRecordMeta) ->
+      runRecordMeta.getStartTs() < endTimeInSecs &&
+        (runRecordMeta.getStopTs() == null || runRecordMeta.getStopTs() >= startTimeInSecs);
+  }
+
+  /**
+   * Adds the run records that completed before the run record time index existed to the index, one batch at a time.
+   * The progress is persisted, so that each call continues from where the previous call stopped.
+   *
+   * @param batchSize maximum number of completed run records to index in this call
+   * @return {@code true} if all completed run records have been indexed, {@code false} if there are more to index
+   */
+  public boolean backfillRunTimeIndex(int batchSize) throws IOException {
+    String state = retrieveSubscriberState(RUN_TIME_INDEX_BACKFILL_TOPIC, RUN_TIME_INDEX_BACKFILL_SUBSCRIBER);
+    if (RUN_TIME_INDEX_BACKFILL_DONE.equals(state)) {
+      return true;
+    }
+
+    List<Field<?>> prefix = getRunRecordStatusPrefix(TYPE_RUN_RECORD_COMPLETED);
+    Range range = Range.singleton(prefix);
+    if (state != null) {
+      BackfillCursor cursor = GSON.fromJson(state, BackfillCursor.class);
+      range = Range.create(getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_COMPLETED, cursor.programRunId,
+                                                        cursor.startTs),
+                           Range.Bound.EXCLUSIVE, prefix, Range.Bound.INCLUSIVE);
+    }
+
+    RunRecordMeta last = null;
+    int count = 0;
+    try (CloseableIterator<StructuredRow> iterator = getRunRecordsTable().scan(range, batchSize)) {
+      while (iterator.hasNext()) {
+        last = deserializeRunRecordMeta(iterator.next());
+        addToRunTimeIndex(last);
+        count++;
+      }
+    }
+
+    if (count < batchSize) {
+      persistSubscriberState(RUN_TIME_INDEX_BACKFILL_TOPIC, RUN_TIME_INDEX_BACKFILL_SUBSCRIBER,
+                             RUN_TIME_INDEX_BACKFILL_DONE);
+      return true;
+    }
+    persistSubscriberState(RUN_TIME_INDEX_BACKFILL_TOPIC, RUN_TIME_INDEX_BACKFILL_SUBSCRIBER,
+                           GSON.toJson(new BackfillCursor(last.getProgramRunId(), last.getStartTs())));
+    return false;
+  }
+
+  /**
+   * Returns whether the run record time index contains all completed run records, hence can be used for queries.
+   */
+  private boolean isRunTimeIndexReady() throws IOException {
+    return RUN_TIME_INDEX_BACKFILL_DONE.equals(retrieveSubscriberState(RUN_TIME_INDEX_BACKFILL_TOPIC,
+                                                                       RUN_TIME_INDEX_BACKFILL_SUBSCRIBER));
+  }
+
+  /**
+   * Adds a completed run record to the run record time index, under every time bucket during which the run was active.
+   */
+  private void addToRunTimeIndex(RunRecordMeta meta) throws IOException {
+    List<List<Field<?>>> rows = getRunTimeIndexKeys(meta);
+    for (List<Field<?>> row : rows) {
+      row.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_START_TIME, meta.getStartTs()));
+    }
+    getRunRecordsTimeIndexTable().multiUpsert(rows);
+  }
+
+  /**
+   * Deletes the run record time index rows of the completed run records in the given range of the run records table.
+   * It must be called before the run records are deleted.
+   */
+  private void deleteFromRunTimeIndex(Range completedRunRecordsRange) throws IOException {
+    List<List<Field<?>>> keys = new ArrayList<>();
+    try (CloseableIterator<StructuredRow> iterator = getRunRecordsTable().scan(completedRunRecordsRange,
+                                                                               Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        keys.addAll(getRunTimeIndexKeys(deserializeRunRecordMeta(iterator.next())));
+        if (keys.size() >= RUN_TIME_INDEX_READ_BATCH_SIZE) {
+          getRunRecordsTimeIndexTable().multiDelete(keys);
+          keys.clear();
+        }
+      }
+    }
+    if (!keys.isEmpty()) {
+      getRunRecordsTimeIndexTable().multiDelete(keys);
+    }
+  }
+
+  /**
+   * Returns the keys of the run record time index rows of the given completed run record, one for every time bucket
+   * during which the run was active, or a single one in the long runs bucket.
+   */
+  private List<List<Field<?>>> getRunTimeIndexKeys(RunRecordMeta meta) {
+    long startTs = meta.getStartTs();
+    Long stopTs = meta.getStopTs();
+    long firstBucket = getRunTimeBucket(startTs);
+    long lastBucket = getRunTimeBucket(stopTs == null ? startTs : Math.max(startTs, stopTs));
+
+    List<List<Field<?>>> keys = new ArrayList<>();
+    if (lastBucket - firstBucket >= MAX_RUN_TIME_BUCKETS) {
+      keys.add(getRunTimeIndexKey(LONG_RUNS_TIME_BUCKET, meta.getProgramRunId()));
+    } else {
+      for (long bucket = firstBucket; bucket <= lastBucket; bucket++) {
+        keys.add(getRunTimeIndexKey(bucket, meta.getProgramRunId()));
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Iterates over the completed run records that may have stopped at or after the given earliest stop time and
+   * started before the given latest start time, using the run record time index. Since a run is indexed under every
+   * time bucket it was active in, it is enough to look at the buckets from the earliest stop time to the latest start
+   * time, plus the long runs bucket.
+   *
+   * @param earliestStopTime earliest stop time in seconds
+   * @param latestStartTime latest start time in seconds, exclusive
+   * @param indexFilter to filter the index rows by. If null, then does not filter.
+   * @param filter to filter the run records by
+   * @param consumer receives each matching run record once
+   */
+  private void enumerateCompletedRunsInRange(long earliestStopTime, long latestStartTime,
+                                             @Nullable Predicate<StructuredRow> indexFilter,
+                                             Predicate<RunRecordMeta> filter,
+                                             Consumer<RunRecordMeta> consumer) throws IOException {
+    long firstBucket = getRunTimeBucket(Math.max(0L, earliestStopTime));
+    long lastBucket = Math.max(firstBucket, getRunTimeBucket(Math.max(0L, latestStartTime - 1)));
+    List<Range> ranges = ImmutableList.of(
+      Range.singleton(ImmutableList.of(Fields.longField(StoreDefinition.AppMetadataStore.RUN_TIME_BUCKET,
+                                                        LONG_RUNS_TIME_BUCKET))),
+      Range.create(
+        ImmutableList.of(Fields.longField(StoreDefinition.AppMetadataStore.RUN_TIME_BUCKET, firstBucket)),
+        Range.Bound.INCLUSIVE,
+        ImmutableList.of(Fields.longField(StoreDefinition.AppMetadataStore.RUN_TIME_BUCKET, lastBucket)),
+        Range.Bound.INCLUSIVE));
+
+    // Runs active in more than one bucket are indexed multiple times
+    Map<ProgramRunId, List<Field<?>>> runKeys = new LinkedHashMap<>();
+    try (CloseableIterator<StructuredRow> iterator =
+           getRunRecordsTimeIndexTable().multiScan(ranges, Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        StructuredRow row = iterator.next();
+        Long startTime = row.getLong(StoreDefinition.AppMetadataStore.RUN_START_TIME);
+        // The NoSQL table returns rows deleted in the current transaction without their values
+        if (startTime == null || (indexFilter != null && !indexFilter.test(row))) {
+          continue;
+        }
+        ProgramRunId programRunId = getProgramRunIdFromRunTimeIndex(row);
+        if (!runKeys.containsKey(programRunId)) {
+          runKeys.put(programRunId, getProgramRunInvertedTimeKey(TYPE_RUN_RECORD_COMPLETED, programRunId, startTime));
+        }
+      }
+    }
+
+    // Index rows whose run records are not found are skipped
+    for (List<List<Field<?>>> keys : Lists.partition(new ArrayList<>(runKeys.values()),
+                                                     RUN_TIME_INDEX_READ_BATCH_SIZE)) {
+      for (StructuredRow row : getRunRecordsTable().multiRead(keys)) {
+        RunRecordMeta meta = deserializeRunRecordMeta(row);
+        if (filter.test(meta)) {
+          consumer.accept(meta);
+        }
+      }
+    }
+  }
+
+  private long getRunTimeBucket(long timeInSecs) {
+    return timeInSecs / RUN_TIME_BUCKET_SECONDS;
+  }
+
+  private List<Field<?>> getRunTimeIndexKey(long bucket, ProgramRunId runId) {
+    ProgramId parent = runId.getParent();
+    List<Field<?>> fields = new ArrayList<>();
+    fields.add(Fields.longField(StoreDefinition.AppMetadataStore.RUN_TIME_BUCKET, bucket));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD, parent.getNamespace()));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.APPLICATION_FIELD, parent.getApplication()));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.VERSION_FIELD, parent.getVersion()));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.PROGRAM_TYPE_FIELD, parent.getType().name()));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.PROGRAM_FIELD, parent.getProgram()));
+    fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.RUN_FIELD, runId.getRun()));
+    return fields;
+  }
+
+  private static ProgramRunId getProgramRunIdFromRunTimeIndex(StructuredRow row) {
+    return new ApplicationId(row.getString(StoreDefinition.AppMetadataStore.NAMESPACE_FIELD),
+                             row.getString(StoreDefinition.AppMetadataStore.APPLICATION_FIELD),
+                             row.getString(StoreDefinition.AppMetadataStore.VERSION_FIELD))
+      .program(ProgramType.valueOf(row.getString(StoreDefinition.AppMetadataStore.PROGRAM_TYPE_FIELD)),
+               row.getString(StoreDefinition.AppMetadataStore.PROGRAM_FIELD))
+      .run(row.getString(StoreDefinition.AppMetadataStore.RUN_FIELD));
+  }
+
   @VisibleForTesting
   // USE ONLY IN TESTS: WILL DELETE ALL METADATA STORE INFO
   public void deleteAllAppMetadataTables() throws IOException {
     deleteTable(getApplicationSpecificationTable(), StoreDefinition.AppMetadataStore.NAMESPACE_FIELD);
     deleteTable(getWorkflowNodeStateTable(), StoreDefinition.AppMetadataStore.NAMESPACE_FIELD);
     deleteTable(getRunRecordsTable(), StoreDefinition.AppMetadataStore.RUN_STATUS);
+    getRunRecordsTimeIndexTable().deleteAll(
+      Range.from(ImmutableList.of(Fields.longField(StoreDefinition.AppMetadataStore.RUN_TIME_BUCKET, 0L)),
+                 Range.Bound.INCLUSIVE));
     deleteTable(getWorkflowsTable(), StoreDefinition.AppMetadataStore.NAMESPACE_FIELD);
     deleteTable(getProgramCountsTable(), StoreDefinition.AppMetadataStore.COUNT_TYPE);
     deleteTable(getSubscriberStateTable(), StoreDefinition.AppMetadataStore.SUBSCRIBER_TOPIC);
@@ -1609,4 +1892,17 @@ public class AppMetadataStore {
     fields.add(Fields.stringField(StoreDefinition.AppMetadataStore.PROGRAM_FIELD, programId.getProgram()));
     return fields;
   }
+
+  /**
+   * The key of the last completed run record indexed by the run record time index backfill.
+   */
+  private static final class BackfillCursor {
+    private final ProgramRunId programRunId;
+    private final long startTs;
+
+    BackfillCursor(ProgramRunId programRunId, long startTs) {
+      this.programRunId = programRunId;
+      this.startTs = startTs;
+    }
+  }
 }
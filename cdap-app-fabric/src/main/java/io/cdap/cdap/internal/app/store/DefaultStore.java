@@ -723,6 +723,13 @@ public class DefaultStore implements Store {
     return runs;
   }
 
+  @Override
+  public boolean backfillRunRecordTimeIndex(int batchSize) {
+    return TransactionRunners.run(transactionRunner, context -> {
+      return getAppMetadataStore(context).backfillRunTimeIndex(batchSize);
+    });
+  }
+
   @Override
   public long getProgramRunCount(ProgramId programId) throws NotFoundException {
     return TransactionRunners.run(transactionRunner, context -> {
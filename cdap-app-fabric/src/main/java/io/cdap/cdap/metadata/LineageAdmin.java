@@ -18,6 +18,8 @@ package io.cdap.cdap.metadata;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Iterables;
@@ -26,10 +28,13 @@ import com.google.common.collect.Multimap;
 import com.google.inject.Inject;
 import io.cdap.cdap.app.store.Store;
 import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.data2.metadata.lineage.AccessType;
 import io.cdap.cdap.data2.metadata.lineage.DefaultLineageStoreReader;
 import io.cdap.cdap.data2.metadata.lineage.Lineage;
 import io.cdap.cdap.data2.metadata.lineage.LineageStoreReader;
+import io.cdap.cdap.data2.metadata.lineage.LineageWriteTracker;
 import io.cdap.cdap.data2.metadata.lineage.Relation;
 import io.cdap.cdap.internal.app.store.RunRecordMeta;
 import io.cdap.cdap.proto.ProgramRunStatus;
@@ -71,13 +76,25 @@ public class LineageAdmin {
       return Collections2.filter(relations, relation -> relation.getAccess() != AccessType.UNKNOWN);
     };
 
+  // Granularity that the scan range of the cached relations is widened to, so that lineage computations for
+  // nearby time periods share the cached relations
+  private static final long RELATIONS_CACHE_GRANULARITY_MILLIS = TimeUnit.HOURS.toMillis(1);
+
   private final LineageStoreReader lineageStoreReader;
   private final Store store;
+  private final LineageWriteTracker lineageWriteTracker;
+  private final Cache<RelationsCacheKey, CachedRelations> relationsCache;
 
   @Inject
-  LineageAdmin(LineageStoreReader lineageStoreReader, Store store) {
+  LineageAdmin(CConfiguration cConf, LineageStoreReader lineageStoreReader, Store store,
+               LineageWriteTracker lineageWriteTracker) {
     this.lineageStoreReader = lineageStoreReader;
     this.store = store;
+    this.lineageWriteTracker = lineageWriteTracker;
+    this.relationsCache = CacheBuilder.newBuilder()
+      .maximumSize(cConf.getLong(Constants.Metadata.LINEAGE_CACHE_SIZE))
+      .expireAfterWrite(cConf.getLong(Constants.Metadata.LINEAGE_CACHE_EXPIRY_SECONDS), TimeUnit.SECONDS)
+      .build();
   }
 
   /**
@@ -231,37 +248,39 @@ public class LineageAdmin {
     toVisitDatasets.add(sourceData);
     for (int i = 0; i < levels; ++i) {
       LOG.trace("Level {}", i);
-      toVisitPrograms.clear();
+      // Fetch the related programs of all the unvisited datasets of this level in one batch
+      Set<DatasetId> datasets = new HashSet<>();
       for (NamespacedEntityId d : toVisitDatasets) {
         if (visitedDatasets.add(d)) {
-          LOG.trace("Visiting dataset {}", d);
-          // Fetch related programs
-          Iterable<Relation> programRelations = getProgramRelations(d, scanRange.getStart(), scanRange.getEnd(),
-                                                                    scanRange.getFilter());
-          LOG.trace("Got program relations {}", programRelations);
-          for (Relation relation : programRelations) {
-            relations.put(new RelationKey(relation), relation);
-          }
-          Iterables.addAll(toVisitPrograms, Iterables.transform(programRelations, RELATION_TO_PROGRAM_FUNCTION));
+          datasets.add(toDatasetId(d));
         }
       }
+      LOG.trace("Visiting datasets {}", datasets);
+      Set<Relation> programRelations = getRelations(datasets, scanRange, lineageStoreReader::getDatasetRelations,
+                                                    RELATION_TO_DATA_FUNCTION);
+      LOG.trace("Got program relations {}", programRelations);
+      for (Relation relation : programRelations) {
+        relations.put(new RelationKey(relation), relation);
+      }
+      toVisitPrograms.clear();
+      Iterables.addAll(toVisitPrograms, Iterables.transform(programRelations, RELATION_TO_PROGRAM_FUNCTION));
 
-      toVisitDatasets.clear();
+      // Fetch the related datasets of all the unvisited programs of this level in one batch
+      Set<ProgramId> programs = new HashSet<>();
       for (ProgramId p : toVisitPrograms) {
         if (visitedPrograms.add(p)) {
-          LOG.trace("Visiting program {}", p);
-          // Fetch related datasets
-          Iterable<Relation> datasetRelations = lineageStoreReader.getRelations(p, scanRange.getStart(),
-                                                                                scanRange.getEnd(),
-                                                                                scanRange.getFilter());
-          LOG.trace("Got data relations {}", datasetRelations);
-          for (Relation relation : datasetRelations) {
-            relations.put(new RelationKey(relation), relation);
-          }
-          Iterables.addAll(toVisitDatasets,
-                           Iterables.transform(datasetRelations, RELATION_TO_DATA_FUNCTION));
+          programs.add(p);
         }
       }
+      LOG.trace("Visiting programs {}", programs);
+      Set<Relation> datasetRelations = getRelations(programs, scanRange, lineageStoreReader::getProgramRelations,
+                                                    RELATION_TO_PROGRAM_FUNCTION);
+      LOG.trace("Got data relations {}", datasetRelations);
+      for (Relation relation : datasetRelations) {
+        relations.put(new RelationKey(relation), relation);
+      }
+      toVisitDatasets.clear();
+      Iterables.addAll(toVisitDatasets, Iterables.transform(datasetRelations, RELATION_TO_DATA_FUNCTION));
     }
 
     if (rollup != null && rollup.contains("workflow")) {
@@ -274,12 +293,80 @@ public class LineageAdmin {
     return lineage;
   }
 
-  private Iterable<Relation> getProgramRelations(NamespacedEntityId data, long start, long end,
-                                                 Predicate<Relation> filter) {
+  /**
+   * Returns the relations of the given datasets or programs that pass the filter of the scan range. The relations
+   * of each entity are read for the scan range widened to {@link #RELATIONS_CACHE_GRANULARITY_MILLIS} and cached
+   * until new lineage is written for that entity, so only the entities without valid cached relations are read
+   * from the lineage store, in one batch.
+   *
+   * @param entities the datasets or programs to get the relations of
+   * @param scanRange the scan range and filter of the relations
+   * @param reader reads the relations of a batch of entities from the lineage store
+   * @param relationToEntity returns the entity from the given entities that a relation belongs to
+   * @return the filtered relations of all the given entities
+   */
+  private <T extends NamespacedEntityId> Set<Relation> getRelations(
+    Set<T> entities, ScanRangeWithFilter scanRange, RelationsReader<T> reader,
+    Function<Relation, ? extends NamespacedEntityId> relationToEntity) {
+
+    Set<Relation> relations = new HashSet<>();
+    if (entities.isEmpty() || scanRange.getStart() >= scanRange.getEnd()) {
+      return relations;
+    }
+
+    long start = scanRange.getStart() - scanRange.getStart() % RELATIONS_CACHE_GRANULARITY_MILLIS;
+    long end = scanRange.getEnd() + RELATIONS_CACHE_GRANULARITY_MILLIS - 1;
+    end -= end % RELATIONS_CACHE_GRANULARITY_MILLIS;
+
+    // Read the generations before reading the relations, so that lineage written in between invalidates the result
+    Set<T> toRead = new HashSet<>();
+    Map<NamespacedEntityId, Long> generations = new HashMap<>();
+    for (T entity : entities) {
+      long generation = lineageWriteTracker.getGeneration(entity);
+      CachedRelations cached = relationsCache.getIfPresent(new RelationsCacheKey(entity, start, end));
+      if (cached != null && cached.generation == generation) {
+        LOG.trace("Using cached relations for {}", entity);
+        addFiltered(cached.relations, scanRange.getFilter(), relations);
+      } else {
+        toRead.add(entity);
+        generations.put(entity, generation);
+      }
+    }
+    if (toRead.isEmpty()) {
+      return relations;
+    }
+
+    Map<NamespacedEntityId, Set<Relation>> readRelations = new HashMap<>();
+    for (T entity : toRead) {
+      readRelations.put(entity, new HashSet<>());
+    }
+    for (Relation relation : reader.read(toRead, start, end, x -> true)) {
+      Set<Relation> entityRelations = readRelations.get(relationToEntity.apply(relation));
+      if (entityRelations != null) {
+        entityRelations.add(relation);
+      }
+    }
+    for (Map.Entry<NamespacedEntityId, Set<Relation>> entry : readRelations.entrySet()) {
+      relationsCache.put(new RelationsCacheKey(entry.getKey(), start, end),
+                         new CachedRelations(generations.get(entry.getKey()), entry.getValue()));
+      addFiltered(entry.getValue(), scanRange.getFilter(), relations);
+    }
+    return relations;
+  }
+
+  private void addFiltered(Set<Relation> relations, Predicate<Relation> filter, Set<Relation> result) {
+    for (Relation relation : relations) {
+      if (filter.test(relation)) {
+        result.add(relation);
+      }
+    }
+  }
+
+  private DatasetId toDatasetId(NamespacedEntityId data) {
     if (!(data instanceof DatasetId)) {
       throw new IllegalStateException("Unknown data type " + data);
     }
-    return lineageStoreReader.getRelations((DatasetId) data, start, end, filter);
+    return (DatasetId) data;
   }
 
   /**
@@ -336,6 +423,63 @@ public class LineageAdmin {
     }
   }
 
+  /**
+   * Reads the relations of a batch of datasets or programs from the lineage store.
+   *
+   * @param <T> type of the entities
+   */
+  private interface RelationsReader<T extends NamespacedEntityId> {
+    Set<Relation> read(Collection<T> entities, long start, long end, Predicate<Relation> filter);
+  }
+
+  /**
+   * Key of the relations cache, identifying the relations of a dataset or program in a scan range.
+   */
+  private static final class RelationsCacheKey {
+    private final NamespacedEntityId entity;
+    private final long start;
+    private final long end;
+
+    private RelationsCacheKey(NamespacedEntityId entity, long start, long end) {
+      this.entity = entity;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      RelationsCacheKey other = (RelationsCacheKey) o;
+      return start == other.start &&
+        end == other.end &&
+        Objects.equals(entity, other.entity);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(entity, start, end);
+    }
+  }
+
+  /**
+   * The unfiltered relations of a dataset or program together with the lineage write generation of that entity
+   * they were read at.
+   */
+  private static final class CachedRelations {
+    private final long generation;
+    private final Set<Relation> relations;
+
+    private CachedRelations(long generation, Set<Relation> relations) {
+      this.generation = generation;
+      this.relations = relations;
+    }
+  }
+
   /**
    * This class helps collapsing access type of {@link Relation} by ignoring the access type in equals and hashCode
    * so that it can be used as the map key for Relations of different access types.
@@ -34,6 +34,7 @@ import io.cdap.cdap.common.service.RetryStrategies;
 import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.data2.dataset2.DatasetFramework;
 import io.cdap.cdap.data2.metadata.lineage.LineageTable;
+import io.cdap.cdap.data2.metadata.lineage.LineageWriteTracker;
 import io.cdap.cdap.data2.metadata.lineage.field.FieldLineageInfo;
 import io.cdap.cdap.data2.metadata.lineage.field.FieldLineageTable;
 import io.cdap.cdap.data2.metadata.writer.DataAccessLineage;
@@ -54,6 +55,7 @@ import io.cdap.cdap.proto.codec.OperationTypeAdapter;
 import io.cdap.cdap.proto.element.EntityType;
 import io.cdap.cdap.proto.id.EntityId;
 import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.NamespacedEntityId;
 import io.cdap.cdap.proto.id.ProgramId;
 import io.cdap.cdap.proto.id.ProgramRunId;
 import io.cdap.cdap.spi.data.StructuredTableContext;
@@ -108,17 +110,20 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
   private final MetadataStorage metadataStorage;
   private final MultiThreadMessagingContext messagingContext;
   private final TransactionRunner transactionRunner;
+  private final LineageWriteTracker lineageWriteTracker;
   private final int maxRetriesOnConflict;
 
   private String conflictMessageId = null;
   private int conflictCount = 0;
+  private final Set<NamespacedEntityId> lineageWrittenEntities = new HashSet<>();
 
   @Inject
   MetadataSubscriberService(CConfiguration cConf, MessagingService messagingService,
                             DatasetFramework datasetFramework,
                             MetricsCollectionService metricsCollectionService,
                             MetadataStorage metadataStorage,
-                            TransactionRunner transactionRunner) {
+                            TransactionRunner transactionRunner,
+                            LineageWriteTracker lineageWriteTracker) {
     super(
       NamespaceId.SYSTEM.topic(cConf.get(Constants.Metadata.MESSAGING_TOPIC)),
       cConf.getInt(Constants.Metadata.MESSAGING_FETCH_SIZE),
@@ -138,6 +143,7 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
     this.datasetFramework = datasetFramework;
     this.metadataStorage = metadataStorage;
     this.transactionRunner = transactionRunner;
+    this.lineageWriteTracker = lineageWriteTracker;
     this.maxRetriesOnConflict = cConf.getInt(Constants.Metadata.MESSAGING_RETRIES_ON_CONFLICT);
   }
 
@@ -170,6 +176,15 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
     appMetadataStore.persistSubscriberState(getTopicId().getTopic(), "metadata.writer", messageId);
   }
 
+  @Override
+  protected void postProcess() {
+    // Only signal after the transaction that recorded the lineage has been committed
+    for (NamespacedEntityId entity : lineageWrittenEntities) {
+      lineageWriteTracker.lineageWritten(entity);
+    }
+    lineageWrittenEntities.clear();
+  }
+
   @Override
   protected boolean shouldRunInSeparateTx(ImmutablePair<String, MetadataMessage> message) {
     // if this message caused a conflict last time we tried, stop here to commit all messages processed so far
@@ -263,6 +278,8 @@ public class MetadataSubscriberService extends AbstractMessagingSubscriberServic
       ProgramRunId programRunId = (ProgramRunId) message.getEntityId();
       LineageTable lineageTable = LineageTable.create(context);
       lineageTable.addAccess(programRunId, lineage.getDatasetId(), lineage.getAccessType(), lineage.getAccessTime());
+      lineageWrittenEntities.add(programRunId.getParent());
+      lineageWrittenEntities.add(lineage.getDatasetId());
     }
   }
 
@@ -0,0 +1,245 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.runtime.distributed.remote;
+
+import com.google.common.io.ByteStreams;
+import io.cdap.cdap.runtime.spi.ssh.PortForwarding;
+import io.cdap.cdap.runtime.spi.ssh.RemotePortForwarding;
+import io.cdap.cdap.runtime.spi.ssh.SSHProcess;
+import io.cdap.cdap.runtime.spi.ssh.SSHSession;
+import org.apache.twill.api.LocalFile;
+import org.apache.twill.internal.DefaultLocalFile;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+
+/**
+ * Unit test for {@link RemoteLocalizationCache}.
+ */
+public class RemoteLocalizationCacheTest {
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  @Test
+  public void testLocalize() throws Exception {
+    File home = TEMP_FOLDER.newFolder();
+    LocalShellSession session = new LocalShellSession(home);
+
+    File plainFile = TEMP_FOLDER.newFile();
+    Files.write(plainFile.toPath(), "plain".getBytes(StandardCharsets.UTF_8));
+    File archiveFile = createJar("a.txt", "archive");
+    List<LocalFile> localFiles = Arrays.asList(createLocalFile("plain.txt", plainFile, false),
+                                               createLocalFile("archive.jar", archiveFile, true),
+                                               createLocalFile("copy.txt", plainFile, false));
+
+    // First launch uploads two distinct files
+    File target1 = localize(session, localFiles, "run1", 1024);
+    Assert.assertEquals(2, session.getCopyCount());
+    assertLocalized(target1);
+
+    // Second launch uploads nothing and links from the cache
+    File target2 = localize(session, localFiles, "run2", 1024);
+    Assert.assertEquals(2, session.getCopyCount());
+    assertLocalized(target2);
+    Assert.assertTrue((Integer) Files.getAttribute(new File(target2, "plain.txt").toPath(), "unix:nlink") > 1);
+
+    // Nothing should be left behind in the cache other than the entries
+    File cacheDir = new File(home, "cache");
+    String[] entries = cacheDir.list();
+    Assert.assertNotNull(entries);
+    Assert.assertEquals(3, entries.length);
+    for (String entry : entries) {
+      Assert.assertFalse(entry.contains(".tmp."));
+    }
+
+    // Cache entries are read-only, while the directories in the run directory stay writable
+    try (Stream<Path> paths = Files.walk(cacheDir.toPath())) {
+      paths.filter(path -> !path.equals(cacheDir.toPath())).forEach(
+        path -> Assert.assertFalse(path.toString(), isWritable(path)));
+    }
+    Assert.assertTrue(isWritable(new File(target2, "archive.jar").toPath()));
+
+    // Age the entries and launch with a different file and an empty cache size.
+    // The old entries should be evicted, while the recently used one is kept.
+    FileTime oldTime = FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2));
+    for (String entry : entries) {
+      Files.setLastModifiedTime(new File(cacheDir, entry).toPath(), oldTime);
+    }
+    File otherFile = TEMP_FOLDER.newFile();
+    Files.write(otherFile.toPath(), "other".getBytes(StandardCharsets.UTF_8));
+    File target3 = localize(session, Arrays.asList(createLocalFile("other.txt", otherFile, false)), "run3", 0);
+    Assert.assertEquals(3, session.getCopyCount());
+    Assert.assertEquals("other", readString(new File(target3, "other.txt")));
+    entries = cacheDir.list();
+    Assert.assertNotNull(entries);
+    Assert.assertEquals(1, entries.length);
+
+    // Files already linked to the run directories are not affected by the eviction
+    assertLocalized(target2);
+  }
+
+  private File localize(SSHSession session, List<LocalFile> localFiles,
+                        String runId, long maxSizeMB) throws Exception {
+    File target = TEMP_FOLDER.newFolder();
+    new RemoteLocalizationCache(session, "cache", maxSizeMB, 2, runId, uri -> new FileInputStream(new File(uri)))
+      .localize(localFiles, target.getAbsolutePath());
+    return target;
+  }
+
+  private void assertLocalized(File target) throws IOException {
+    Assert.assertEquals("plain", readString(new File(target, "plain.txt")));
+    Assert.assertEquals("plain", readString(new File(target, "copy.txt")));
+    Assert.assertEquals("archive", readString(new File(new File(target, "archive.jar"), "a.txt")));
+  }
+
+  private LocalFile createLocalFile(String name, File file, boolean archive) {
+    return new DefaultLocalFile(name, file.toURI(), file.lastModified(), file.length(), archive, null);
+  }
+
+  private File createJar(String entryName, String content) throws IOException {
+    File file = TEMP_FOLDER.newFile();
+    try (JarOutputStream output = new JarOutputStream(new FileOutputStream(file))) {
+      output.putNextEntry(new JarEntry(entryName));
+      output.write(content.getBytes(StandardCharsets.UTF_8));
+      output.closeEntry();
+    }
+    return file;
+  }
+
+  private boolean isWritable(Path path) {
+    try {
+      Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(path);
+      return permissions.contains(PosixFilePermission.OWNER_WRITE)
+        || permissions.contains(PosixFilePermission.GROUP_WRITE)
+        || permissions.contains(PosixFilePermission.OTHERS_WRITE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private String readString(File file) throws IOException {
+    return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * A {@link SSHSession} that executes commands with the local shell, with the given directory as the home.
+   */
+  private static final class LocalShellSession implements SSHSession {
+
+    private final File home;
+    private final AtomicInteger copyCount = new AtomicInteger();
+
+    LocalShellSession(File home) {
+      this.home = home;
+    }
+
+    int getCopyCount() {
+      return copyCount.get();
+    }
+
+    @Override
+    public boolean isAlive() {
+      return true;
+    }
+
+    @Override
+    public InetSocketAddress getAddress() {
+      return InetSocketAddress.createUnresolved("localhost", 22);
+    }
+
+    @Override
+    public String getUsername() {
+      return System.getProperty("user.name");
+    }
+
+    @Override
+    public SSHProcess execute(List<String> commands) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String executeAndWait(List<String> commands) throws IOException {
+      Process process = new ProcessBuilder("bash", "-c", String.join(";", commands))
+        .directory(home).redirectErrorStream(true).start();
+      byte[] output = ByteStreams.toByteArray(process.getInputStream());
+      try {
+        if (process.waitFor() != 0) {
+          throw new IOException("Commands failed: " + commands + "\n" + new String(output, StandardCharsets.UTF_8));
+        }
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+      return new String(output, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void copy(Path sourceFile, String targetPath) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void copy(InputStream input, String targetPath, String targetName, long size, int permission,
+                     @Nullable Long lastAccessTime, @Nullable Long lastModifiedTime) throws IOException {
+      copyCount.incrementAndGet();
+      try (OutputStream output = Files.newOutputStream(Paths.get(targetPath, targetName))) {
+        ByteStreams.copy(input, output);
+      }
+    }
+
+    @Override
+    public PortForwarding createLocalPortForward(String targetHost, int targetPort, int originatePort,
+                                                 PortForwarding.DataConsumer dataConsumer) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public RemotePortForwarding createRemotePortForward(int remotePort, int localPort) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+      // no-op
+    }
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.runtime.monitor;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import io.cdap.cdap.common.logging.ServiceLoggingContext;
+import io.cdap.cdap.logging.appender.LogAppender;
+import io.cdap.cdap.logging.appender.LogMessage;
+import io.cdap.cdap.logging.serialize.LoggingEventSerializer;
+import io.cdap.cdap.proto.id.NamespaceId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit test for {@link LogAppenderLogProcessor}.
+ */
+public class LogAppenderLogProcessorTest {
+
+  @Test
+  public void testSkipCorrupted() {
+    List<LogMessage> messages = new ArrayList<>();
+    LogAppenderLogProcessor processor = new LogAppenderLogProcessor(new LogAppender() {
+      @Override
+      protected void appendEvent(LogMessage logMessage) {
+        messages.add(logMessage);
+      }
+    });
+
+    LoggingEventSerializer serializer = new LoggingEventSerializer();
+    byte[] truncated = serializer.toBytes(createLogMessage("truncated"));
+    processor.process(Arrays.asList(
+      serializer.toBytes(createLogMessage("0")),
+      Arrays.copyOf(truncated, truncated.length / 2),
+      // Valid timestamp, level and empty MDC, followed by an invalid union index for the marker
+      new byte[] { 2, 2, 0, 10 },
+      serializer.toBytes(createLogMessage("1"))
+    ).iterator());
+
+    Assert.assertEquals(2, messages.size());
+    Assert.assertEquals("0", messages.get(0).getMessage());
+    Assert.assertEquals("1", messages.get(1).getMessage());
+  }
+
+  private LogMessage createLogMessage(String message) {
+    LoggingEvent event = new LoggingEvent();
+    event.setLevel(Level.INFO);
+    event.setLoggerName("test.logger");
+    event.setMessage(message);
+    event.setTimeStamp(System.currentTimeMillis());
+    return new LogMessage(event, new ServiceLoggingContext(NamespaceId.SYSTEM.getNamespace(), "test", "service"));
+  }
+}
@@ -21,6 +21,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.internal.AppFabricTestHelper;
 import io.cdap.cdap.internal.app.runtime.SystemArguments;
@@ -31,8 +32,11 @@ import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.ProfileId;
 import io.cdap.cdap.proto.id.ProgramId;
 import io.cdap.cdap.proto.id.ProgramRunId;
+import io.cdap.cdap.spi.data.StructuredRow;
+import io.cdap.cdap.spi.data.table.field.Range;
 import io.cdap.cdap.spi.data.transaction.TransactionRunner;
 import io.cdap.cdap.spi.data.transaction.TransactionRunners;
+import io.cdap.cdap.store.StoreDefinition;
 import org.apache.twill.api.RunId;
 import org.junit.Assert;
 import org.junit.Before;
@@ -329,6 +333,157 @@ public abstract class AppMetadataStoreTest {
 
       Assert.assertEquals(expected, actual);
     });
+
+    // The same runs should be found through the run record time index
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+      Assert.assertTrue(metadataStoreDataset.backfillRunTimeIndex(Integer.MAX_VALUE));
+      Set<Long> actual = new TreeSet<>();
+      Set<RunId> runs = metadataStoreDataset.getRunningInRangeCompleted(startTime, stopTime);
+      Iterables.addAll(actual, Iterables.transform(runs, input -> RunIds.getTime(input, TimeUnit.MILLISECONDS)));
+
+      Assert.assertEquals(expected, actual);
+    });
+  }
+
+  @Test
+  public void testRunTimeIndex() throws Exception {
+    long hour = TimeUnit.HOURS.toSeconds(1);
+    long base = 1000 * hour;
+    NamespaceId otherNamespace = new NamespaceId("other");
+
+    // Runs of different lengths, some spanning multiple hours
+    List<RunRecordMeta> records = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      NamespaceId namespace = i % 2 == 0 ? NamespaceId.DEFAULT : otherNamespace;
+      ProgramId program = namespace.app("app" + i).program(ProgramType.WORKFLOW, "program" + i);
+      long startTs = base + i * hour / 2;
+      records.add(recordStartStop(program, startTs, startTs + i * hour + 10));
+    }
+
+    // Backfill in small batches, which re-indexes the runs written so far and marks the index as complete
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+      Assert.assertFalse(metadataStoreDataset.backfillRunTimeIndex(3));
+      Assert.assertFalse(metadataStoreDataset.backfillRunTimeIndex(3));
+      Assert.assertFalse(metadataStoreDataset.backfillRunTimeIndex(3));
+      Assert.assertTrue(metadataStoreDataset.backfillRunTimeIndex(3));
+      Assert.assertTrue(metadataStoreDataset.backfillRunTimeIndex(3));
+    });
+    // Runs completed after the backfill are indexed when they are recorded
+    for (int i = 10; i < 15; i++) {
+      ProgramId program = NamespaceId.DEFAULT.app("app" + i).program(ProgramType.WORKFLOW, "program" + i);
+      long startTs = base + i * hour;
+      records.add(recordStartStop(program, startTs, startTs + hour));
+    }
+    // A run longer than the time bucket limit
+    records.add(recordStartStop(NamespaceId.DEFAULT.app("long").program(ProgramType.SPARK, "long"),
+                                base + 2 * hour, base + 5000 * hour));
+
+    long[][] ranges = {
+      { 0, Long.MAX_VALUE }, { base, base + 1 }, { base + hour, base + 2 * hour }, { base + 5 * hour, base + 6 * hour },
+      { base + 20 * hour, base + 30 * hour }, { base + 3 * hour, base + 3 * hour }, { base + 4 * hour, base },
+      { base + 4000 * hour, base + 4001 * hour }, { base + 6000 * hour, Long.MAX_VALUE }
+    };
+    for (long[] range : ranges) {
+      long startTime = range[0];
+      long endTime = range[1];
+      Set<String> expected = records.stream()
+        .filter(meta -> meta.getStartTs() < endTime && meta.getStopTs() >= startTime)
+        .map(RunRecordMeta::getPid)
+        .collect(Collectors.toSet());
+      Set<String> expectedDefault = records.stream()
+        .filter(meta -> meta.getProgramRunId().getNamespaceId().equals(NamespaceId.DEFAULT))
+        .filter(meta -> meta.getStartTs() < endTime && meta.getStopTs() >= startTime)
+        .map(RunRecordMeta::getPid)
+        .collect(Collectors.toSet());
+
+      TransactionRunners.run(transactionRunner, context -> {
+        AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+        Assert.assertEquals(expected, metadataStoreDataset.getRunningInRangeCompleted(startTime, endTime).stream()
+          .map(RunId::getId).collect(Collectors.toSet()));
+        Assert.assertEquals(expectedDefault,
+                            metadataStoreDataset.getHistoricalRuns(Collections.singleton(NamespaceId.DEFAULT),
+                                                                   startTime, endTime, Integer.MAX_VALUE)
+                              .keySet().stream().map(ProgramRunId::getRun).collect(Collectors.toSet()));
+      });
+    }
+
+    // Deleted run records are no longer returned
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+      metadataStoreDataset.deleteProgramHistory(otherNamespace.getNamespace());
+      Assert.assertEquals(expectedDefaultRuns(records), metadataStoreDataset.getRunningInRangeCompleted(
+        0, Long.MAX_VALUE).stream().map(RunId::getId).collect(Collectors.toSet()));
+    });
+  }
+
+  @Test
+  public void testDeleteRunTimeIndex() throws Exception {
+    long hour = TimeUnit.HOURS.toSeconds(1);
+    long base = 1000 * hour;
+    ApplicationId deletedApp = NamespaceId.DEFAULT.app("deleted");
+    ApplicationId keptApp = NamespaceId.DEFAULT.app("kept");
+
+    TransactionRunners.run(transactionRunner, context -> {
+      Assert.assertTrue(AppMetadataStore.create(context).backfillRunTimeIndex(Integer.MAX_VALUE));
+    });
+
+    // Runs spanning multiple time buckets and a run longer than the time bucket limit
+    Set<String> keptRuns = new HashSet<>();
+    for (ApplicationId app : Arrays.asList(deletedApp, keptApp)) {
+      ProgramId program = app.program(ProgramType.WORKFLOW, "program");
+      for (int i = 0; i < 5; i++) {
+        RunRecordMeta meta = recordStartStop(program, base + i * hour, base + (i + 3) * hour);
+        if (app.equals(keptApp)) {
+          keptRuns.add(meta.getPid());
+        }
+      }
+      RunRecordMeta meta = recordStartStop(app.program(ProgramType.SPARK, "long"), base, base + 5000 * hour);
+      if (app.equals(keptApp)) {
+        keptRuns.add(meta.getPid());
+      }
+    }
+
+    TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+      metadataStoreDataset.deleteProgramHistory(deletedApp.getNamespace(), deletedApp.getApplication(),
+                                                deletedApp.getVersion());
+      Assert.assertEquals(keptRuns, metadataStoreDataset.getRunningInRangeCompleted(0, Long.MAX_VALUE).stream()
+        .map(RunId::getId).collect(Collectors.toSet()));
+    });
+
+    // The index rows of the deleted application are removed, so that range queries no longer scan them
+    TransactionRunners.run(transactionRunner, context -> {
+      Set<String> indexedApps = new HashSet<>();
+      try (CloseableIterator<StructuredRow> iterator =
+             context.getTable(StoreDefinition.AppMetadataStore.RUN_RECORDS_TIME_INDEX)
+               .scan(Range.all(), Integer.MAX_VALUE)) {
+        while (iterator.hasNext()) {
+          indexedApps.add(iterator.next().getString(StoreDefinition.AppMetadataStore.APPLICATION_FIELD));
+        }
+      }
+      Assert.assertEquals(Collections.singleton(keptApp.getApplication()), indexedApps);
+    });
+  }
+
+  private Set<String> expectedDefaultRuns(List<RunRecordMeta> records) {
+    return records.stream()
+      .filter(meta -> meta.getProgramRunId().getNamespaceId().equals(NamespaceId.DEFAULT))
+      .map(RunRecordMeta::getPid)
+      .collect(Collectors.toSet());
+  }
+
+  private RunRecordMeta recordStartStop(ProgramId program, long startTs, long stopTs) {
+    ProgramRunId programRunId = program.run(RunIds.generate(TimeUnit.SECONDS.toMillis(startTs)));
+    return TransactionRunners.run(transactionRunner, context -> {
+      AppMetadataStore metadataStoreDataset = AppMetadataStore.create(context);
+      recordProvisionAndStart(programRunId, metadataStoreDataset);
+      metadataStoreDataset.recordProgramRunning(programRunId, startTs, null,
+                                                AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+      return metadataStoreDataset.recordProgramStop(programRunId, stopTs, ProgramRunStatus.COMPLETED, null,
+                                                    AppFabricTestHelper.createSourceId(sourceId.incrementAndGet()));
+    });
   }
 
   @Test
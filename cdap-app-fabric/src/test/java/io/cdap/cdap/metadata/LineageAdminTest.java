@@ -21,11 +21,13 @@ import com.google.common.collect.ImmutableSet;
 import io.cdap.cdap.api.artifact.ArtifactId;
 import io.cdap.cdap.app.store.Store;
 import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.data2.metadata.lineage.AccessType;
 import io.cdap.cdap.data2.metadata.lineage.DefaultLineageStoreReader;
 import io.cdap.cdap.data2.metadata.lineage.Lineage;
 import io.cdap.cdap.data2.metadata.lineage.LineageStoreReader;
 import io.cdap.cdap.data2.metadata.lineage.LineageTable;
+import io.cdap.cdap.data2.metadata.lineage.LineageWriteTracker;
 import io.cdap.cdap.data2.metadata.lineage.Relation;
 import io.cdap.cdap.data2.metadata.writer.BasicLineageWriter;
 import io.cdap.cdap.data2.metadata.writer.LineageWriter;
@@ -47,11 +49,13 @@ import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 /**
  * Tests lineage computation.
@@ -100,10 +104,11 @@ public class LineageAdminTest extends AppFabricTestBase {
     // Lineage for D3 -> P2 -> D2 -> P1 -> D1
     TransactionRunner transactionRunner = getInjector().getInstance(TransactionRunner.class);
     LineageStoreReader lineageReader = new DefaultLineageStoreReader(transactionRunner);
-    LineageWriter lineageWriter = new BasicLineageWriter(transactionRunner);
+    LineageWriteTracker lineageWriteTracker = new LineageWriteTracker();
+    LineageWriter lineageWriter = new BasicLineageWriter(transactionRunner, lineageWriteTracker);
 
     Store store = getInjector().getInstance(Store.class);
-    LineageAdmin lineageAdmin = new LineageAdmin(lineageReader, store);
+    LineageAdmin lineageAdmin = new LineageAdmin(CConfiguration.create(), lineageReader, store, lineageWriteTracker);
 
     // Add accesses for D3 -> P2 -> D2 -> P1 -> D1 <-> P3
     // We need to use current time here as metadata store stores access time using current time
@@ -161,6 +166,53 @@ public class LineageAdminTest extends AppFabricTestBase {
                                                     System.currentTimeMillis() + 10000, 100));
   }
 
+  @Test
+  public void testLineageCache() {
+    TransactionRunner transactionRunner = getInjector().getInstance(TransactionRunner.class);
+    CountingLineageStoreReader lineageReader = new CountingLineageStoreReader(transactionRunner);
+    LineageWriteTracker lineageWriteTracker = new LineageWriteTracker();
+    LineageWriter lineageWriter = new BasicLineageWriter(transactionRunner, lineageWriteTracker);
+
+    Store store = getInjector().getInstance(Store.class);
+    LineageAdmin lineageAdmin = new LineageAdmin(CConfiguration.create(), lineageReader, store, lineageWriteTracker);
+
+    ProgramRunId run1 = program1.run(RunIds.generate(System.currentTimeMillis()).getId());
+    ProgramRunId run2 = program2.run(RunIds.generate(System.currentTimeMillis()).getId());
+    ProgramRunId run3 = program3.run(RunIds.generate(System.currentTimeMillis()).getId());
+    addRuns(store, run1, run2, run3);
+
+    lineageWriter.addAccess(run1, dataset1, AccessType.WRITE);
+    lineageWriter.addAccess(run1, dataset2, AccessType.READ);
+
+    Set<Relation> expected = ImmutableSet.of(new Relation(dataset1, program1, AccessType.WRITE, twillRunId(run1)),
+                                             new Relation(dataset2, program1, AccessType.READ, twillRunId(run1)));
+    long end = System.currentTimeMillis() + 10000;
+    Assert.assertEquals(expected, lineageAdmin.computeLineage(dataset1, 500, end, 10).getRelations());
+    Assert.assertTrue(lineageReader.reads > 0);
+
+    // Without new lineage the cached relations should be used, also for a slightly different time period
+    lineageReader.reads = 0;
+    Assert.assertEquals(expected, lineageAdmin.computeLineage(dataset1, 500, end, 10).getRelations());
+    Assert.assertEquals(expected, lineageAdmin.computeLineage(dataset1, 1000, end + 1000, 10).getRelations());
+    Assert.assertEquals(0, lineageReader.reads);
+
+    // New lineage of unrelated datasets and programs does not invalidate the cached relations
+    lineageWriter.addAccess(run3, dataset4, AccessType.WRITE);
+    lineageWriter.addAccess(run3, dataset5, AccessType.READ);
+    Assert.assertEquals(expected, lineageAdmin.computeLineage(dataset1, 500, end, 10).getRelations());
+    Assert.assertEquals(0, lineageReader.reads);
+
+    // New lineage of a dataset in the lineage invalidates its cached relations
+    lineageWriter.addAccess(run2, dataset2, AccessType.WRITE);
+    lineageWriter.addAccess(run2, dataset3, AccessType.READ);
+    Assert.assertEquals(ImmutableSet.of(new Relation(dataset1, program1, AccessType.WRITE, twillRunId(run1)),
+                                        new Relation(dataset2, program1, AccessType.READ, twillRunId(run1)),
+                                        new Relation(dataset2, program2, AccessType.WRITE, twillRunId(run2)),
+                                        new Relation(dataset3, program2, AccessType.READ, twillRunId(run2))),
+                        lineageAdmin.computeLineage(dataset1, 500, end, 10).getRelations());
+    Assert.assertTrue(lineageReader.reads > 0);
+  }
+
   @Test
   public void testSimpleLoopLineage() {
     // Lineage for D1 -> P1 -> D2 -> P2 -> D3 -> P3 -> D4
@@ -171,10 +223,11 @@ public class LineageAdminTest extends AppFabricTestBase {
 
     TransactionRunner transactionRunner = getInjector().getInstance(TransactionRunner.class);
     LineageStoreReader lineageReader = new DefaultLineageStoreReader(transactionRunner);
-    LineageWriter lineageWriter = new BasicLineageWriter(transactionRunner);
+    LineageWriteTracker lineageWriteTracker = new LineageWriteTracker();
+    LineageWriter lineageWriter = new BasicLineageWriter(transactionRunner, lineageWriteTracker);
 
     Store store = getInjector().getInstance(Store.class);
-    LineageAdmin lineageAdmin = new LineageAdmin(lineageReader, store);
+    LineageAdmin lineageAdmin = new LineageAdmin(CConfiguration.create(), lineageReader, store, lineageWriteTracker);
 
     // Add access
     addRuns(store, run1, run2, run3, run4, run5);
@@ -233,10 +286,11 @@ public class LineageAdminTest extends AppFabricTestBase {
     //
     TransactionRunner transactionRunner = getInjector().getInstance(TransactionRunner.class);
     LineageStoreReader lineageReader = new DefaultLineageStoreReader(transactionRunner);
-    LineageWriter lineageWriter = new BasicLineageWriter(transactionRunner);
+    LineageWriteTracker lineageWriteTracker = new LineageWriteTracker();
+    LineageWriter lineageWriter = new BasicLineageWriter(transactionRunner, lineageWriteTracker);
 
     Store store = getInjector().getInstance(Store.class);
-    LineageAdmin lineageAdmin = new LineageAdmin(lineageReader, store);
+    LineageAdmin lineageAdmin = new LineageAdmin(CConfiguration.create(), lineageReader, store, lineageWriteTracker);
 
     // Add accesses
     addRuns(store, run1, run2, run3, run4, run5);
@@ -265,10 +319,11 @@ public class LineageAdminTest extends AppFabricTestBase {
     TransactionRunner transactionRunner = getInjector().getInstance(TransactionRunner.class);
     LineageStoreReader lineageReader =
       new DefaultLineageStoreReader(transactionRunner);
-    LineageWriter lineageWriter = new BasicLineageWriter(transactionRunner);
+    LineageWriteTracker lineageWriteTracker = new LineageWriteTracker();
+    LineageWriter lineageWriter = new BasicLineageWriter(transactionRunner, lineageWriteTracker);
 
     Store store = getInjector().getInstance(Store.class);
-    LineageAdmin lineageAdmin = new LineageAdmin(lineageReader, store);
+    LineageAdmin lineageAdmin = new LineageAdmin(CConfiguration.create(), lineageReader, store, lineageWriteTracker);
 
     // Add accesses
     addRuns(store, run1, run2, run3, run4, run5);
@@ -303,10 +358,11 @@ public class LineageAdminTest extends AppFabricTestBase {
     TransactionRunner transactionRunner = getInjector().getInstance(TransactionRunner.class);
     LineageStoreReader lineageReader =
       new DefaultLineageStoreReader(transactionRunner);
-    LineageWriter lineageWriter = new BasicLineageWriter(transactionRunner);
+    LineageWriteTracker lineageWriteTracker = new LineageWriteTracker();
+    LineageWriter lineageWriter = new BasicLineageWriter(transactionRunner, lineageWriteTracker);
 
     Store store = getInjector().getInstance(Store.class);
-    LineageAdmin lineageAdmin = new LineageAdmin(lineageReader, store);
+    LineageAdmin lineageAdmin = new LineageAdmin(CConfiguration.create(), lineageReader, store, lineageWriteTracker);
 
     // Add accesses
     addRuns(store, run1, run2, run3, run4, run5);
@@ -371,10 +427,11 @@ public class LineageAdminTest extends AppFabricTestBase {
     TransactionRunner transactionRunner = getInjector().getInstance(TransactionRunner.class);
     LineageStoreReader lineageReader =
       new DefaultLineageStoreReader(transactionRunner);
-    LineageWriter lineageWriter = new BasicLineageWriter(transactionRunner);
+    LineageWriteTracker lineageWriteTracker = new LineageWriteTracker();
+    LineageWriter lineageWriter = new BasicLineageWriter(transactionRunner, lineageWriteTracker);
 
     Store store = getInjector().getInstance(Store.class);
-    LineageAdmin lineageAdmin = new LineageAdmin(lineageReader, store);
+    LineageAdmin lineageAdmin = new LineageAdmin(CConfiguration.create(), lineageReader, store, lineageWriteTracker);
 
     // Add accesses
     addRuns(store, run1, run2, run3, run4, run5);
@@ -456,10 +513,11 @@ public class LineageAdminTest extends AppFabricTestBase {
     TransactionRunner transactionRunner = getInjector().getInstance(TransactionRunner.class);
     LineageStoreReader lineageReader =
       new DefaultLineageStoreReader(transactionRunner);
-    LineageWriter lineageWriter = new BasicLineageWriter(transactionRunner);
+    LineageWriteTracker lineageWriteTracker = new LineageWriteTracker();
+    LineageWriter lineageWriter = new BasicLineageWriter(transactionRunner, lineageWriteTracker);
 
     Store store = getInjector().getInstance(Store.class);
-    LineageAdmin lineageAdmin = new LineageAdmin(lineageReader, store);
+    LineageAdmin lineageAdmin = new LineageAdmin(CConfiguration.create(), lineageReader, store, lineageWriteTracker);
 
     // Add accesses for D3 -> P2 -> D2 -> P1 -> D1 <-> P3
     // We need to use current time here as metadata store stores access time using current time
@@ -653,4 +711,29 @@ public class LineageAdminTest extends AppFabricTestBase {
   private RunId twillRunId(ProgramRunId run) {
     return RunIds.fromString(run.getEntityName());
   }
+
+  /**
+   * A {@link DefaultLineageStoreReader} that counts the batched relation reads.
+   */
+  private static final class CountingLineageStoreReader extends DefaultLineageStoreReader {
+    private int reads;
+
+    CountingLineageStoreReader(TransactionRunner transactionRunner) {
+      super(transactionRunner);
+    }
+
+    @Override
+    public Set<Relation> getDatasetRelations(Collection<DatasetId> datasetInstances, long start, long end,
+                                             Predicate<Relation> filter) {
+      reads++;
+      return super.getDatasetRelations(datasetInstances, start, end, filter);
+    }
+
+    @Override
+    public Set<Relation> getProgramRelations(Collection<ProgramId> programs, long start, long end,
+                                             Predicate<Relation> filter) {
+      reads++;
+      return super.getProgramRelations(programs, start, end, filter);
+    }
+  }
 }
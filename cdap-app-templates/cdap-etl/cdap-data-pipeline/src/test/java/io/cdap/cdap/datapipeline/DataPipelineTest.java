@@ -73,6 +73,7 @@ import io.cdap.cdap.etl.mock.batch.MockSink;
 import io.cdap.cdap.etl.mock.batch.MockSource;
 import io.cdap.cdap.etl.mock.batch.NodeStatesAction;
 import io.cdap.cdap.etl.mock.batch.aggregator.FieldCountAggregator;
+import io.cdap.cdap.etl.mock.batch.aggregator.FieldCountReducibleAggregator;
 import io.cdap.cdap.etl.mock.batch.aggregator.GroupFilterAggregator;
 import io.cdap.cdap.etl.mock.batch.aggregator.IdentityAggregator;
 import io.cdap.cdap.etl.mock.batch.joiner.MockJoiner;
@@ -1854,6 +1855,16 @@ public class DataPipelineTest extends HydratorTestBase {
     testParallelAggregators(Engine.SPARK);
   }
 
+  @Test
+  public void testMapRedParallelReducibleAggregators() throws Exception {
+    testParallelAggregators(Engine.MAPREDUCE, true);
+  }
+
+  @Test
+  public void testSparkParallelReducibleAggregators() throws Exception {
+    testParallelAggregators(Engine.SPARK, true);
+  }
+
   private void testSequentialAggregators(Engine engine) throws Exception {
     String sourceName = "linearAggInput-" + engine.name();
     String sinkName = "linearAggOutput-" + engine.name();
@@ -1915,10 +1926,15 @@ public class DataPipelineTest extends HydratorTestBase {
   }
 
   private void testParallelAggregators(Engine engine) throws Exception {
-    String source1Name = "pAggInput1-" + engine.name();
-    String source2Name = "pAggInput2-" + engine.name();
-    String sink1Name = "pAggOutput1-" + engine.name();
-    String sink2Name = "pAggOutput2-" + engine.name();
+    testParallelAggregators(engine, false);
+  }
+
+  private void testParallelAggregators(Engine engine, boolean reducible) throws Exception {
+    String suffix = engine.name() + (reducible ? "-reducible" : "");
+    String source1Name = "pAggInput1-" + suffix;
+    String source2Name = "pAggInput2-" + suffix;
+    String sink1Name = "pAggOutput1-" + suffix;
+    String sink2Name = "pAggOutput2-" + suffix;
     Schema inputSchema = Schema.recordOf(
       "testRecord",
       Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
@@ -1935,8 +1951,10 @@ public class DataPipelineTest extends HydratorTestBase {
       .addStage(new ETLStage("source2", MockSource.getPlugin(source2Name, inputSchema)))
       .addStage(new ETLStage("sink1", MockSink.getPlugin(sink1Name)))
       .addStage(new ETLStage("sink2", MockSink.getPlugin(sink2Name)))
-      .addStage(new ETLStage("agg1", FieldCountAggregator.getPlugin("user", "string")))
-      .addStage(new ETLStage("agg2", FieldCountAggregator.getPlugin("item", "long")))
+      .addStage(new ETLStage("agg1", reducible ? FieldCountReducibleAggregator.getPlugin("user", "string") :
+        FieldCountAggregator.getPlugin("user", "string")))
+      .addStage(new ETLStage("agg2", reducible ? FieldCountReducibleAggregator.getPlugin("item", "long") :
+        FieldCountAggregator.getPlugin("item", "long")))
       .addConnection("source1", "agg1")
       .addConnection("source1", "agg2")
       .addConnection("source2", "agg1")
@@ -1946,7 +1964,7 @@ public class DataPipelineTest extends HydratorTestBase {
       .build();
 
     AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
-    ApplicationId appId = NamespaceId.DEFAULT.app("ParallelAggApp-" + engine);
+    ApplicationId appId = NamespaceId.DEFAULT.app("ParallelAggApp-" + suffix);
     ApplicationManager appManager = deployApplication(appId, appRequest);
 
     // write few records to each source
@@ -2206,7 +2224,17 @@ public class DataPipelineTest extends HydratorTestBase {
     testInnerJoinWithMultiOutput(Engine.SPARK);
   }
 
+  @Test
+  public void testBroadcastInnerJoinSpark() throws Exception {
+    testInnerJoinWithMultiOutput(Engine.SPARK, "t1,t3");
+  }
+
   private void testInnerJoinWithMultiOutput(Engine engine) throws Exception {
+    testInnerJoinWithMultiOutput(engine, "");
+  }
+
+  private void testInnerJoinWithMultiOutput(Engine engine, String broadcastInputs) throws Exception {
+    String suffix = engine + (broadcastInputs.isEmpty() ? "" : "-broadcast");
     Schema inputSchema1 = Schema.recordOf(
       "customerRecord",
       Schema.Field.of("customer_id", Schema.of(Schema.Type.STRING)),
@@ -2228,14 +2256,14 @@ public class DataPipelineTest extends HydratorTestBase {
       Schema.Field.of("c_name", Schema.of(Schema.Type.STRING))
     );
 
-    String input1Name = "source1InnerJoinInput-" + engine;
-    String input2Name = "source2InnerJoinInput-" + engine;
-    String input3Name = "source3InnerJoinInput-" + engine;
-    String outputName = "innerJoinOutput-" + engine;
-    String outputName2 = "innerJoinOutput2-" + engine;
-    String joinerName = "innerJoiner-" + engine;
-    String sinkName = "innerJoinSink-" + engine;
-    String sinkName2 = "innerJoinSink-2" + engine;
+    String input1Name = "source1InnerJoinInput-" + suffix;
+    String input2Name = "source2InnerJoinInput-" + suffix;
+    String input3Name = "source3InnerJoinInput-" + suffix;
+    String outputName = "innerJoinOutput-" + suffix;
+    String outputName2 = "innerJoinOutput2-" + suffix;
+    String joinerName = "innerJoiner-" + suffix;
+    String sinkName = "innerJoinSink-" + suffix;
+    String sinkName2 = "innerJoinSink-2" + suffix;
     ETLBatchConfig etlConfig = ETLBatchConfig.builder()
       .addStage(new ETLStage("source1", MockSource.getPlugin(input1Name, inputSchema1)))
       .addStage(new ETLStage("source2", MockSource.getPlugin(input2Name, inputSchema2)))
@@ -2245,7 +2273,7 @@ public class DataPipelineTest extends HydratorTestBase {
       .addStage(new ETLStage("t3", IdentityTransform.getPlugin()))
       .addStage(new ETLStage(joinerName, MockJoiner.getPlugin("t1.customer_id=t2.cust_id=t3.c_id&" +
                                                                   "t1.customer_name=t2.cust_name=t3.c_name",
-                                                                "t1,t2,t3", "")))
+                                                                "t1,t2,t3", "", broadcastInputs)))
       .addStage(new ETLStage(sinkName, MockSink.getPlugin(outputName)))
       .addStage(new ETLStage(sinkName2, MockSink.getPlugin(outputName2)))
       .addConnection("source1", "t1")
@@ -2260,7 +2288,7 @@ public class DataPipelineTest extends HydratorTestBase {
       .build();
 
     AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
-    ApplicationId appId = NamespaceId.DEFAULT.app("InnerJoinApp-" + engine);
+    ApplicationId appId = NamespaceId.DEFAULT.app("InnerJoinApp-" + suffix);
     ApplicationManager appManager = deployApplication(appId, appRequest);
 
     Schema outSchema = Schema.recordOf(
@@ -2339,7 +2367,17 @@ public class DataPipelineTest extends HydratorTestBase {
     testOuterJoin(Engine.SPARK);
   }
 
+  @Test
+  public void testBroadcastOuterJoinSpark() throws Exception {
+    testOuterJoin(Engine.SPARK, "t2,t3");
+  }
+
   private void testOuterJoin(Engine engine) throws Exception {
+    testOuterJoin(engine, "");
+  }
+
+  private void testOuterJoin(Engine engine, String broadcastInputs) throws Exception {
+    String suffix = engine + (broadcastInputs.isEmpty() ? "" : "-broadcast");
     Schema inputSchema1 = Schema.recordOf(
       "customerRecord",
       Schema.Field.of("customer_id", Schema.of(Schema.Type.STRING)),
@@ -2361,12 +2399,12 @@ public class DataPipelineTest extends HydratorTestBase {
       Schema.Field.of("c_name", Schema.of(Schema.Type.STRING))
     );
 
-    String input1Name = "source1OuterJoinInput-" + engine;
-    String input2Name = "source2OuterJoinInput-" + engine;
-    String input3Name = "source3OuterJoinInput-" + engine;
-    String outputName = "outerJoinOutput-" + engine;
-    String joinerName = "outerJoiner-" + engine;
-    String sinkName = "outerJoinSink-" + engine;
+    String input1Name = "source1OuterJoinInput-" + suffix;
+    String input2Name = "source2OuterJoinInput-" + suffix;
+    String input3Name = "source3OuterJoinInput-" + suffix;
+    String outputName = "outerJoinOutput-" + suffix;
+    String joinerName = "outerJoiner-" + suffix;
+    String sinkName = "outerJoinSink-" + suffix;
     ETLBatchConfig etlConfig = ETLBatchConfig.builder()
       .addStage(new ETLStage("source1", MockSource.getPlugin(input1Name, inputSchema1)))
       .addStage(new ETLStage("source2", MockSource.getPlugin(input2Name, inputSchema2)))
@@ -2375,7 +2413,8 @@ public class DataPipelineTest extends HydratorTestBase {
       .addStage(new ETLStage("t2", IdentityTransform.getPlugin()))
       .addStage(new ETLStage("t3", IdentityTransform.getPlugin()))
       .addStage(new ETLStage(joinerName, MockJoiner.getPlugin("t1.customer_id=t2.cust_id=t3.c_id&" +
-                                                                  "t1.customer_name=t2.cust_name=t3.c_name", "t1", "")))
+                                                                  "t1.customer_name=t2.cust_name=t3.c_name", "t1", "",
+                                                              broadcastInputs)))
       .addStage(new ETLStage(sinkName, MockSink.getPlugin(outputName)))
       .addConnection("source1", "t1")
       .addConnection("source2", "t2")
@@ -2388,7 +2427,7 @@ public class DataPipelineTest extends HydratorTestBase {
       .build();
 
     AppRequest<ETLBatchConfig> appRequest = new AppRequest<>(APP_ARTIFACT, etlConfig);
-    ApplicationId appId = NamespaceId.DEFAULT.app("OuterJoinApp-" + engine);
+    ApplicationId appId = NamespaceId.DEFAULT.app("OuterJoinApp-" + suffix);
     ApplicationManager appManager = deployApplication(appId, appRequest);
 
     Schema outSchema = Schema.recordOf(
@@ -16,11 +16,14 @@
 
 package io.cdap.cdap.etl.api;
 
+import java.util.Collections;
+
 /**
  * Join configuration to hold information about join to be performed
  */
 public class JoinConfig {
   private Iterable<String> requiredInputs;
+  private Iterable<String> broadcastInputs;
 
   /**
    * Creates new instance of {@link JoinConfig}
@@ -30,7 +33,22 @@ public class JoinConfig {
    * meet join criteria.
    */
   public JoinConfig(Iterable<String> requiredInputs) {
+    this(requiredInputs, Collections.<String>emptyList());
+  }
+
+  /**
+   * Creates new instance of {@link JoinConfig}
+   * @param requiredInputs iterable of input stage names. This will be used to find out type of the join.
+   * If required inputs are empty, full outer join will be performed. Otherwise, all records from required inputs
+   * will be joined using inner join and records from non-required inputs will be present in join result only if they
+   * meet join criteria.
+   * @param broadcastInputs iterable of input stage names that are small enough to fit in memory. This is a hint to
+   * the execution engine that it can join these inputs by sending all of their records to every task instead of
+   * shuffling the other inputs. The hint is ignored for full outer joins and by engines that don't support it.
+   */
+  public JoinConfig(Iterable<String> requiredInputs, Iterable<String> broadcastInputs) {
     this.requiredInputs = requiredInputs;
+    this.broadcastInputs = broadcastInputs;
   }
 
   /**
@@ -40,4 +58,13 @@ public class JoinConfig {
   public Iterable<String> getRequiredInputs() {
     return requiredInputs;
   }
+
+  /**
+   * Returns inputs that are small enough to be broadcast to every task performing the join.
+   * @return iterable of broadcast inputs
+   */
+  public Iterable<String> getBroadcastInputs() {
+    // can be null if the config was deserialized from an older version
+    return broadcastInputs == null ? Collections.<String>emptyList() : broadcastInputs;
+  }
 }
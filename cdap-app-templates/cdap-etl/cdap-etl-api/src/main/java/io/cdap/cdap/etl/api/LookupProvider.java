@@ -29,4 +29,21 @@ public interface LookupProvider {
    * @return a {@link Lookup} instance
    */
   <T> Lookup<T> provide(String table, Map<String, String> arguments);
+
+  /**
+   * Provides a {@link Lookup} that may cache the values returned by the underlying table, as specified by the
+   * {@link LookupTableConfig}. When caching is enabled, the cache may be shared by all tasks of the same pipeline run
+   * that are running in the same JVM, hence values may be stale for up to
+   * {@link CacheConfig#getExpirySeconds() expiry seconds}. Implementations that do not support caching
+   * return the same {@link Lookup} as {@link #provide(String, Map)}.
+   *
+   * @param table the name of the {@link Lookup} table
+   * @param arguments arguments for initializing the {@link Lookup} table
+   * @param config the configuration of the {@link Lookup} table
+   * @param <T> the type of value returned by the {@link Lookup}
+   * @return a {@link Lookup} instance
+   */
+  default <T> Lookup<T> provide(String table, Map<String, String> arguments, LookupTableConfig config) {
+    return provide(table, arguments);
+  }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.api;
+
+import io.cdap.cdap.api.annotation.Beta;
+
+/**
+ * Groups all input objects into collections and reduces each group into an aggregate value, which is then used
+ * to emit zero or more output objects. Unlike an {@link Aggregator}, the values of a group don't need to be
+ * collected together. Each value is merged into a partial aggregate value as soon as it is seen, and partial
+ * aggregate values computed on different partitions of the input are merged together afterwards. This allows
+ * the pipeline engine to aggregate before shuffling the data.
+ *
+ * @param <GROUP_KEY> Type of group key
+ * @param <GROUP_VALUE> Type of values to group
+ * @param <AGG_VALUE> Type of the aggregate value
+ * @param <OUT> Type of output object
+ */
+@Beta
+public interface ReducibleAggregator<GROUP_KEY, GROUP_VALUE, AGG_VALUE, OUT> {
+
+  /**
+   * Emit the group key(s) for a given input value. If no group key is emitted, the input value
+   * is filtered out. If multiple group keys are emitted, the input value will be present in multiple groups.
+   *
+   * @param groupValue the value to group
+   * @param emitter the emitter to emit zero or more group keys for the input
+   * @throws Exception if there is some error getting the group
+   */
+  void groupBy(GROUP_VALUE groupValue, Emitter<GROUP_KEY> emitter) throws Exception;
+
+  /**
+   * Create the aggregate value from the first value of a group seen in a partition.
+   *
+   * @param groupValue the first value of a group
+   * @return the aggregate value that contains only the given value
+   * @throws Exception if there is some error creating the aggregate value
+   */
+  AGG_VALUE initializeAggregateValue(GROUP_VALUE groupValue) throws Exception;
+
+  /**
+   * Merge a value of a group into the aggregate value of the group. The given aggregate value can be modified and
+   * returned, instead of creating a new one.
+   *
+   * @param aggValue the aggregate value of the group
+   * @param groupValue the value to merge
+   * @return the aggregate value with the given value merged
+   * @throws Exception if there is some error merging the value
+   */
+  AGG_VALUE mergeValues(AGG_VALUE aggValue, GROUP_VALUE groupValue) throws Exception;
+
+  /**
+   * Merge two partial aggregate values of the same group, which are computed from different partitions of the
+   * input. The first aggregate value can be modified and returned, instead of creating a new one.
+   *
+   * @param value1 the aggregate value from one partition
+   * @param value2 the aggregate value from another partition
+   * @return the aggregate value with both aggregate values merged
+   * @throws Exception if there is some error merging the aggregate values
+   */
+  AGG_VALUE mergePartitions(AGG_VALUE value1, AGG_VALUE value2) throws Exception;
+
+  /**
+   * Emit zero or more output objects from the final aggregate value of a group.
+   *
+   * @param groupKey the key for the group
+   * @param aggValue the aggregate value of all the values in the group
+   * @param emitter the emitter to emit output objects for the group
+   * @throws Exception if there is some error emitting the output
+   */
+  void finalize(GROUP_KEY groupKey, AGG_VALUE aggValue, Emitter<OUT> emitter) throws Exception;
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.api.batch;
+
+import io.cdap.cdap.api.annotation.Beta;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.ReducibleAggregator;
+
+import java.util.Iterator;
+
+/**
+ * A {@link BatchAggregator} that reduces the values of a group into an aggregate value, as defined by
+ * {@link ReducibleAggregator}. Pipeline engines that support it, such as Spark, perform the aggregation before
+ * shuffling the data, so that only one aggregate value per group and partition is shuffled, instead of every value.
+ * Other engines group all the values of a group together and then reduce them with {@link #aggregate}.
+ *
+ * The same type requirements as {@link BatchAggregator} apply to the group key and value.
+ * If the aggregator is being used in spark, the aggregate value must also implement the
+ * {@link java.io.Serializable} interface.
+ *
+ * @param <GROUP_KEY> group key type. Must be a supported type
+ * @param <GROUP_VALUE> group value type. Must be a supported type
+ * @param <AGG_VALUE> aggregate value type
+ * @param <OUT> output object type
+ */
+@Beta
+public abstract class BatchReducibleAggregator<GROUP_KEY, GROUP_VALUE, AGG_VALUE, OUT>
+  extends BatchAggregator<GROUP_KEY, GROUP_VALUE, OUT>
+  implements ReducibleAggregator<GROUP_KEY, GROUP_VALUE, AGG_VALUE, OUT> {
+
+  /**
+   * Aggregate all values of a group by reducing them with {@link #initializeAggregateValue(Object)} and
+   * {@link #mergeValues(Object, Object)}, followed by {@link #finalize(Object, Object, Emitter)}.
+   */
+  @Override
+  public final void aggregate(GROUP_KEY groupKey, Iterator<GROUP_VALUE> groupValues,
+                              Emitter<OUT> emitter) throws Exception {
+    if (!groupValues.hasNext()) {
+      return;
+    }
+    AGG_VALUE aggValue = initializeAggregateValue(groupValues.next());
+    while (groupValues.hasNext()) {
+      aggValue = mergeValues(aggValue, groupValues.next());
+    }
+    finalize(groupKey, aggValue, emitter);
+  }
+}
@@ -16,8 +16,10 @@
 
 package io.cdap.cdap.etl.common;
 
+import io.cdap.cdap.etl.api.CacheConfig;
 import io.cdap.cdap.etl.api.Lookup;
 import io.cdap.cdap.etl.api.LookupProvider;
+import io.cdap.cdap.etl.api.LookupTableConfig;
 import io.cdap.cdap.etl.api.TransformContext;
 import io.cdap.cdap.etl.api.lineage.field.FieldOperation;
 import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
@@ -44,6 +46,17 @@ public abstract class AbstractTransformContext extends AbstractStageContext impl
     return lookup.provide(table, arguments);
   }
 
+  @Override
+  public <T> Lookup<T> provide(String table, Map<String, String> arguments, LookupTableConfig config) {
+    Lookup<T> tableLookup = lookup.provide(table, arguments, config);
+    if (!config.isCacheEnabled()) {
+      return tableLookup;
+    }
+    CacheConfig cacheConfig = config.getCacheConfig() == null ? new CacheConfig() : config.getCacheConfig();
+    return new CachingLookup<>(tableLookup, LookupCaches.get(getNamespace(), getPipelineName(), getLogicalStartTime(),
+                                                              table, arguments, cacheConfig), getMetrics());
+  }
+
   @Override
   public void record(List<FieldOperation> fieldOperations) {
     throw new UnsupportedOperationException("Lineage recording is not supported.");
@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.common;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.etl.api.Lookup;
+import io.cdap.cdap.etl.api.StageMetrics;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Lookup} that caches the values returned by another {@link Lookup}. Keys that have no value are cached as
+ * well, so that repeated lookups of missing keys do not go to the underlying table. For batch lookups, all the keys
+ * that are not cached are fetched with a single batch lookup on the underlying {@link Lookup}.
+ *
+ * @param <T> the type of object that will be returned for a lookup
+ */
+public class CachingLookup<T> implements Lookup<T> {
+
+  private final Lookup<T> delegate;
+  private final Cache<String, Optional<Object>> cache;
+  private final StageMetrics stageMetrics;
+
+  public CachingLookup(Lookup<T> delegate, Cache<String, Optional<Object>> cache, StageMetrics stageMetrics) {
+    this.delegate = delegate;
+    this.cache = cache;
+    this.stageMetrics = stageMetrics;
+  }
+
+  @Nullable
+  @Override
+  public T lookup(String key) {
+    Optional<Object> cached = cache.getIfPresent(key);
+    if (cached != null) {
+      stageMetrics.count(Constants.Metrics.LOOKUP_CACHE_HITS, 1);
+      return cast(cached);
+    }
+    stageMetrics.count(Constants.Metrics.LOOKUP_CACHE_MISSES, 1);
+    T value = delegate.lookup(key);
+    cache.put(key, Optional.<Object>fromNullable(value));
+    return value;
+  }
+
+  @Override
+  public Map<String, T> lookup(String... keys) {
+    return lookup(ImmutableSet.copyOf(keys));
+  }
+
+  @Override
+  public Map<String, T> lookup(Set<String> keys) {
+    Map<String, T> results = new HashMap<>();
+    Set<String> misses = new HashSet<>();
+    for (String key : keys) {
+      Optional<Object> cached = cache.getIfPresent(key);
+      if (cached == null) {
+        misses.add(key);
+      } else if (cached.isPresent()) {
+        results.put(key, cast(cached));
+      }
+    }
+
+    int hits = keys.size() - misses.size();
+    if (hits > 0) {
+      stageMetrics.count(Constants.Metrics.LOOKUP_CACHE_HITS, hits);
+    }
+    if (misses.isEmpty()) {
+      return results;
+    }
+
+    stageMetrics.count(Constants.Metrics.LOOKUP_CACHE_MISSES, misses.size());
+    Map<String, T> fetched = delegate.lookup(misses);
+    for (String key : misses) {
+      T value = fetched.get(key);
+      cache.put(key, Optional.<Object>fromNullable(value));
+      if (value != null) {
+        results.put(key, value);
+      }
+    }
+    return results;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Nullable
+  private T cast(Optional<Object> cached) {
+    return (T) cached.orNull();
+  }
+}
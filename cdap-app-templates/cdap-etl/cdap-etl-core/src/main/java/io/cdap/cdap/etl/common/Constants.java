@@ -63,6 +63,8 @@ public final class Constants {
     public static final String RECORDS_ALERT = "records.alert";
     public static final String AGG_GROUPS = "aggregator.groups";
     public static final String JOIN_KEYS = "joiner.keys";
+    public static final String LOOKUP_CACHE_HITS = "lookup.cache.hits";
+    public static final String LOOKUP_CACHE_MISSES = "lookup.cache.misses";
   }
 
   /**
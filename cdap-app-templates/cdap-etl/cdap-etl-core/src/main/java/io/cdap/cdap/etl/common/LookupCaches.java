@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.common;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.etl.api.CacheConfig;
+import io.cdap.cdap.etl.api.Lookup;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Holds the caches used by {@link CachingLookup}. The caches are kept in a static registry so that they are shared
+ * by all the tasks of a pipeline run executing in the same JVM, such as the tasks of a Spark executor. A cache is
+ * identified by the pipeline run, the lookup table, the table arguments and the {@link CacheConfig}, which means
+ * different stages doing lookups on the same table share the same cache. Caches that are not used for a while are
+ * dropped from the registry, so that caches of finished runs do not stay in memory.
+ */
+final class LookupCaches {
+
+  /**
+   * Maximum number of entries of a cache if the {@link CacheConfig} does not specify one.
+   */
+  static final int DEFAULT_MAX_SIZE = 10000;
+
+  private static final Cache<CacheKey, Cache<String, Optional<Object>>> CACHES = CacheBuilder.newBuilder()
+    .expireAfterAccess(1, TimeUnit.HOURS)
+    .build();
+
+  private LookupCaches() {
+    // no-op
+  }
+
+  /**
+   * Returns the cache for the given lookup table, creating it if there is none.
+   *
+   * @param namespace the namespace of the pipeline
+   * @param pipelineName the name of the pipeline
+   * @param logicalStartTime the logical start time of the pipeline run
+   * @param table the name of the {@link Lookup} table
+   * @param arguments arguments used to initialize the {@link Lookup} table
+   * @param cacheConfig the configuration of the cache
+   * @return the cache for the given lookup table
+   */
+  static Cache<String, Optional<Object>> get(String namespace, String pipelineName, long logicalStartTime,
+                                             String table, @Nullable Map<String, String> arguments,
+                                             final CacheConfig cacheConfig) {
+    CacheKey key = new CacheKey(namespace, pipelineName, logicalStartTime, table,
+                                arguments == null ? ImmutableMap.<String, String>of() : arguments,
+                                cacheConfig.getExpirySeconds(), cacheConfig.getMaxSize());
+    try {
+      return CACHES.get(key, new Callable<Cache<String, Optional<Object>>>() {
+        @Override
+        public Cache<String, Optional<Object>> call() {
+          return createCache(cacheConfig);
+        }
+      });
+    } catch (ExecutionException e) {
+      // Cannot happen since creating a cache doesn't throw checked exceptions
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private static Cache<String, Optional<Object>> createCache(CacheConfig cacheConfig) {
+    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+      .maximumSize(cacheConfig.getMaxSize() > 0 ? cacheConfig.getMaxSize() : DEFAULT_MAX_SIZE);
+    if (cacheConfig.getExpirySeconds() > 0) {
+      builder.expireAfterWrite(cacheConfig.getExpirySeconds(), TimeUnit.SECONDS);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Key of the cache registry.
+   */
+  private static final class CacheKey {
+    private final String namespace;
+    private final String pipelineName;
+    private final long logicalStartTime;
+    private final String table;
+    private final Map<String, String> arguments;
+    private final long expirySeconds;
+    private final int maxSize;
+
+    CacheKey(String namespace, String pipelineName, long logicalStartTime, String table,
+             Map<String, String> arguments, long expirySeconds, int maxSize) {
+      this.namespace = namespace;
+      this.pipelineName = pipelineName;
+      this.logicalStartTime = logicalStartTime;
+      this.table = table;
+      this.arguments = ImmutableMap.copyOf(arguments);
+      this.expirySeconds = expirySeconds;
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      CacheKey that = (CacheKey) o;
+      return logicalStartTime == that.logicalStartTime
+        && expirySeconds == that.expirySeconds
+        && maxSize == that.maxSize
+        && Objects.equal(namespace, that.namespace)
+        && Objects.equal(pipelineName, that.pipelineName)
+        && Objects.equal(table, that.table)
+        && Objects.equal(arguments, that.arguments);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(namespace, pipelineName, logicalStartTime, table, arguments, expirySeconds, maxSize);
+    }
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.common;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.etl.api.CacheConfig;
+import io.cdap.cdap.etl.api.Lookup;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tests for {@link CachingLookup} and {@link LookupCaches}.
+ */
+public class CachingLookupTest {
+
+  @Test
+  public void testSingleLookup() {
+    CountingLookup delegate = new CountingLookup(ImmutableMap.of("k1", "v1", "k2", "v2"));
+    MockMetrics metrics = new MockMetrics();
+    Lookup<String> lookup = new CachingLookup<>(delegate, newCache(), new DefaultStageMetrics(metrics, "stage"));
+
+    Assert.assertEquals("v1", lookup.lookup("k1"));
+    Assert.assertEquals("v1", lookup.lookup("k1"));
+    Assert.assertNull(lookup.lookup("missing"));
+    Assert.assertNull(lookup.lookup("missing"));
+
+    // each key should only go to the underlying lookup once, including missing keys
+    Assert.assertEquals(2, delegate.calls.size());
+    Assert.assertEquals(2, metrics.getCount("stage." + Constants.Metrics.LOOKUP_CACHE_HITS));
+    Assert.assertEquals(2, metrics.getCount("stage." + Constants.Metrics.LOOKUP_CACHE_MISSES));
+  }
+
+  @Test
+  public void testBatchLookup() {
+    CountingLookup delegate = new CountingLookup(ImmutableMap.of("k1", "v1", "k2", "v2", "k3", "v3"));
+    MockMetrics metrics = new MockMetrics();
+    Lookup<String> lookup = new CachingLookup<>(delegate, newCache(), new DefaultStageMetrics(metrics, "stage"));
+
+    Assert.assertEquals("v1", lookup.lookup("k1"));
+    Assert.assertEquals(ImmutableMap.of("k1", "v1", "k2", "v2", "k3", "v3"),
+                        lookup.lookup("k1", "k2", "k3", "missing"));
+    // only the keys not in the cache should be fetched, in a single batch
+    Assert.assertEquals(2, delegate.calls.size());
+    Assert.assertEquals(ImmutableSet.of("k2", "k3", "missing"), delegate.calls.get(1));
+
+    Assert.assertEquals(ImmutableMap.of("k2", "v2", "k3", "v3"), lookup.lookup(ImmutableSet.of("k2", "k3", "missing")));
+    Assert.assertEquals(2, delegate.calls.size());
+    Assert.assertEquals(4, metrics.getCount("stage." + Constants.Metrics.LOOKUP_CACHE_HITS));
+    Assert.assertEquals(4, metrics.getCount("stage." + Constants.Metrics.LOOKUP_CACHE_MISSES));
+  }
+
+  @Test
+  public void testSharedCaches() {
+    CacheConfig config = new CacheConfig(60, 100);
+    Map<String, String> args = ImmutableMap.of("k", "v");
+    Cache<String, Optional<Object>> cache = LookupCaches.get("ns", "pipeline", 1L, "table", args, config);
+
+    Assert.assertSame(cache, LookupCaches.get("ns", "pipeline", 1L, "table", ImmutableMap.of("k", "v"),
+                                              new CacheConfig(60, 100)));
+    Assert.assertNotSame(cache, LookupCaches.get("ns", "pipeline", 2L, "table", args, config));
+    Assert.assertNotSame(cache, LookupCaches.get("ns", "pipeline", 1L, "table2", args, config));
+    Assert.assertNotSame(cache, LookupCaches.get("ns", "pipeline", 1L, "table", null, config));
+    Assert.assertNotSame(cache, LookupCaches.get("ns", "pipeline", 1L, "table", args, new CacheConfig(60, 10)));
+  }
+
+  @Test
+  public void testMaxSize() {
+    CacheConfig config = new CacheConfig(0, 2);
+    Cache<String, Optional<Object>> cache = LookupCaches.get("ns", "maxSize", 1L, "table", null, config);
+    CountingLookup delegate = new CountingLookup(ImmutableMap.of("k1", "v1", "k2", "v2", "k3", "v3"));
+    Lookup<String> lookup = new CachingLookup<>(delegate, cache, new DefaultStageMetrics(new MockMetrics(), "stage"));
+
+    lookup.lookup("k1", "k2", "k3");
+    Assert.assertTrue(cache.size() <= 2);
+  }
+
+  private Cache<String, Optional<Object>> newCache() {
+    return LookupCaches.get("ns", "pipeline", System.nanoTime(), "table", null, new CacheConfig());
+  }
+
+  /**
+   * A {@link Lookup} that records the keys of each call.
+   */
+  private static final class CountingLookup implements Lookup<String> {
+    private final Map<String, String> values;
+    private final List<Set<String>> calls;
+
+    private CountingLookup(Map<String, String> values) {
+      this.values = values;
+      this.calls = new ArrayList<>();
+    }
+
+    @Override
+    public String lookup(String key) {
+      calls.add(ImmutableSet.of(key));
+      return values.get(key);
+    }
+
+    @Override
+    public Map<String, String> lookup(String... keys) {
+      return lookup(ImmutableSet.copyOf(keys));
+    }
+
+    @Override
+    public Map<String, String> lookup(Set<String> keys) {
+      calls.add(ImmutableSet.copyOf(keys));
+      Map<String, String> result = new HashMap<>();
+      for (String key : keys) {
+        if (values.containsKey(key)) {
+          result.put(key, values.get(key));
+        }
+      }
+      return result;
+    }
+  }
+}
@@ -49,6 +49,18 @@ public interface SparkPairCollection<K, V> {
 
   <T> SparkPairCollection<K, Tuple2<Optional<V>, Optional<T>>> fullOuterJoin(SparkPairCollection<K, T> other);
 
+  /**
+   * Same as {@link #join(SparkPairCollection)}, except the other collection is expected to be small enough to be
+   * loaded in memory, which allows implementations to join without shuffling this collection.
+   */
+  <T> SparkPairCollection<K, Tuple2<V, T>> broadcastJoin(SparkPairCollection<K, T> other);
+
+  /**
+   * Same as {@link #leftOuterJoin(SparkPairCollection)}, except the other collection is expected to be small enough
+   * to be loaded in memory, which allows implementations to join without shuffling this collection.
+   */
+  <T> SparkPairCollection<K, Tuple2<V, Optional<T>>> broadcastLeftOuterJoin(SparkPairCollection<K, T> other);
+
   <T> SparkPairCollection<K, Tuple2<Optional<V>, Optional<T>>> fullOuterJoin(SparkPairCollection<K, T> other,
                                                                              int numPartitions);
 }
@@ -17,6 +17,7 @@
 package io.cdap.cdap.etl.spark;
 
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.cdap.cdap.api.macro.MacroEvaluator;
 import io.cdap.cdap.api.plugin.PluginContext;
@@ -25,12 +26,14 @@ import io.cdap.cdap.etl.api.Alert;
 import io.cdap.cdap.etl.api.AlertPublisher;
 import io.cdap.cdap.etl.api.ErrorRecord;
 import io.cdap.cdap.etl.api.ErrorTransform;
+import io.cdap.cdap.etl.api.JoinConfig;
 import io.cdap.cdap.etl.api.JoinElement;
 import io.cdap.cdap.etl.api.SplitterTransform;
 import io.cdap.cdap.etl.api.Transform;
 import io.cdap.cdap.etl.api.batch.BatchAggregator;
 import io.cdap.cdap.etl.api.batch.BatchJoiner;
 import io.cdap.cdap.etl.api.batch.BatchJoinerRuntimeContext;
+import io.cdap.cdap.etl.api.batch.BatchReducibleAggregator;
 import io.cdap.cdap.etl.api.batch.BatchSink;
 import io.cdap.cdap.etl.api.batch.SparkCompute;
 import io.cdap.cdap.etl.api.batch.SparkSink;
@@ -241,7 +244,12 @@ public abstract class SparkPipelineRunner {
       } else if (BatchAggregator.PLUGIN_TYPE.equals(pluginType)) {
 
         Integer partitions = stagePartitions.get(stageName);
-        SparkCollection<RecordInfo<Object>> combinedData = stageData.aggregate(stageSpec, partitions, collector);
+        // Aggregate on the map side if the aggregator can reduce the values of a group
+        Class<?> aggregatorClass = pluginContext.loadPluginClass(stageName);
+        SparkCollection<RecordInfo<Object>> combinedData =
+          BatchReducibleAggregator.class.isAssignableFrom(aggregatorClass) ?
+            stageData.reduceAggregate(stageSpec, partitions, collector) :
+            stageData.aggregate(stageSpec, partitions, collector);
         emittedBuilder = addEmitted(emittedBuilder, pipelinePhase, stageSpec,
                                     combinedData, hasErrorOutput, hasAlertOutput);
 
@@ -263,18 +271,36 @@ public abstract class SparkPipelineRunner {
 
         Integer numPartitions = stagePartitions.get(stageName);
 
+        JoinConfig joinConfig = joiner.getJoinConfig();
+        Set<String> broadcastInputs = ImmutableSet.copyOf(joinConfig.getBroadcastInputs());
+        // join the inputs that are not broadcast first, so that the broadcast ones are joined against them
+        List<String> requiredInputs = new ArrayList<>();
+        List<String> requiredBroadcastInputs = new ArrayList<>();
+        for (String inputStageName : joinConfig.getRequiredInputs()) {
+          if (broadcastInputs.contains(inputStageName)) {
+            requiredBroadcastInputs.add(inputStageName);
+          } else {
+            requiredInputs.add(inputStageName);
+          }
+        }
+        requiredInputs.addAll(requiredBroadcastInputs);
+
         SparkPairCollection<Object, List<JoinElement<Object>>> joinedInputs = null;
         // inner join on required inputs
-        for (final String inputStageName : joiner.getJoinConfig().getRequiredInputs()) {
+        for (final String inputStageName : requiredInputs) {
           SparkPairCollection<Object, Object> preJoinCollection = preJoinStreams.get(inputStageName);
 
           if (joinedInputs == null) {
             joinedInputs = preJoinCollection.mapValues(new InitialJoinFunction<>(inputStageName));
           } else {
             JoinFlattenFunction<Object> joinFlattenFunction = new JoinFlattenFunction<>(inputStageName);
-            joinedInputs = numPartitions == null ?
-              joinedInputs.join(preJoinCollection).mapValues(joinFlattenFunction) :
-              joinedInputs.join(preJoinCollection, numPartitions).mapValues(joinFlattenFunction);
+            if (broadcastInputs.contains(inputStageName)) {
+              joinedInputs = joinedInputs.broadcastJoin(preJoinCollection).mapValues(joinFlattenFunction);
+            } else {
+              joinedInputs = numPartitions == null ?
+                joinedInputs.join(preJoinCollection).mapValues(joinFlattenFunction) :
+                joinedInputs.join(preJoinCollection, numPartitions).mapValues(joinFlattenFunction);
+            }
           }
           remainingInputs.remove(inputStageName);
         }
@@ -296,9 +322,13 @@ public abstract class SparkPipelineRunner {
             } else {
               LeftJoinFlattenFunction<Object> flattenFunction = new LeftJoinFlattenFunction<>(inputStageName);
 
-              joinedInputs = numPartitions == null ?
-                joinedInputs.leftOuterJoin(preJoinStream).mapValues(flattenFunction) :
-                joinedInputs.leftOuterJoin(preJoinStream, numPartitions).mapValues(flattenFunction);
+              if (broadcastInputs.contains(inputStageName)) {
+                joinedInputs = joinedInputs.broadcastLeftOuterJoin(preJoinStream).mapValues(flattenFunction);
+              } else {
+                joinedInputs = numPartitions == null ?
+                  joinedInputs.leftOuterJoin(preJoinStream).mapValues(flattenFunction) :
+                  joinedInputs.leftOuterJoin(preJoinStream, numPartitions).mapValues(flattenFunction);
+              }
             }
           }
         }
@@ -24,6 +24,7 @@ import io.cdap.cdap.api.plugin.PluginContext;
 import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
 import io.cdap.cdap.api.spark.dynamic.SparkInterpreter;
 import io.cdap.cdap.etl.api.Lookup;
+import io.cdap.cdap.etl.api.LookupTableConfig;
 import io.cdap.cdap.etl.api.batch.SparkExecutionPluginContext;
 import io.cdap.cdap.etl.common.AbstractTransformContext;
 import io.cdap.cdap.etl.common.DatasetContextLookupProvider;
@@ -141,4 +142,9 @@ public class BasicSparkExecutionPluginContext extends AbstractTransformContext i
   public <T> Lookup<T> provide(String table, Map<String, String> arguments) {
     throw new UnsupportedOperationException("Lookup not supported in Spark");
   }
+
+  @Override
+  public <T> Lookup<T> provide(String table, Map<String, String> arguments, LookupTableConfig config) {
+    throw new UnsupportedOperationException("Lookup not supported in Spark");
+  }
 }
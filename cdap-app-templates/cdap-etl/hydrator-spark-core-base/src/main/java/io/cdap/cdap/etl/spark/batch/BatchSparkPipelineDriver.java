@@ -50,11 +50,14 @@ import io.cdap.cdap.etl.spark.function.JoinOnFunction;
 import io.cdap.cdap.etl.spark.function.PluginFunctionContext;
 import io.cdap.cdap.internal.io.SchemaTypeAdapter;
 import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.broadcast.Broadcast;
 
 import java.io.BufferedReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -79,11 +82,12 @@ public class BatchSparkPipelineDriver extends SparkPipelineRunner implements Jav
   private transient DatasetContext datasetContext;
   private transient Map<String, Integer> stagePartitions;
   private transient int numOfRecordsPreview;
+  private transient Collection<Broadcast<?>> broadcasts;
 
   @Override
   protected SparkCollection<RecordInfo<Object>> getSource(StageSpec stageSpec, StageStatisticsCollector collector) {
     PluginFunctionContext pluginFunctionContext = new PluginFunctionContext(stageSpec, sec, collector);
-    return new RDDCollection<>(sec, jsc, datasetContext, sinkFactory,
+    return new RDDCollection<>(sec, jsc, datasetContext, sinkFactory, broadcasts,
                                sourceFactory.createRDD(sec, jsc, stageSpec.getName(), Object.class, Object.class)
                                  .flatMap(Compat.convert(new BatchSourceFunction(pluginFunctionContext,
                                                                                  numOfRecordsPreview))));
@@ -132,6 +136,7 @@ public class BatchSparkPipelineDriver extends SparkPipelineRunner implements Jav
       stagePartitions = sourceSinkInfo.getStagePartitions();
     }
     datasetContext = context;
+    broadcasts = new ArrayList<>();
     numOfRecordsPreview = phaseSpec.getNumOfRecordsPreview();
     PipelinePluginContext pluginContext = new PipelinePluginContext(sec.getPluginContext(), sec.getMetrics(),
                                                                     phaseSpec.isStageLoggingEnabled(),
@@ -150,6 +155,10 @@ public class BatchSparkPipelineDriver extends SparkPipelineRunner implements Jav
         new PipelinePluginInstantiator(pluginContext, sec.getMetrics(), phaseSpec, new SingleConnectorFactory());
       runPipeline(phaseSpec.getPhase(), BatchSource.PLUGIN_TYPE, sec, stagePartitions, pluginInstantiator, collectors);
     } finally {
+      // the broadcast join inputs are only needed by the join stages, which have run once all the sinks are written
+      for (Broadcast<?> broadcast : broadcasts) {
+        broadcast.unpersist();
+      }
       updateWorkflowToken(sec.getWorkflowToken(), collectors);
     }
   }
@@ -22,12 +22,21 @@ import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
 import io.cdap.cdap.etl.spark.Compat;
 import io.cdap.cdap.etl.spark.SparkCollection;
 import io.cdap.cdap.etl.spark.SparkPairCollection;
+import io.cdap.cdap.etl.spark.function.BroadcastJoinFunction;
+import io.cdap.cdap.etl.spark.function.BroadcastLeftJoinFunction;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.api.java.function.Function;
+import org.apache.spark.broadcast.Broadcast;
 import scala.Tuple2;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Implementation of {@link SparkCollection} that is backed by a JavaPairRDD.
  *
@@ -39,14 +48,17 @@ public class PairRDDCollection<K, V> implements SparkPairCollection<K, V> {
   private final JavaSparkContext jsc;
   private final DatasetContext datasetContext;
   private final SparkBatchSinkFactory sinkFactory;
+  private final Collection<Broadcast<?>> broadcasts;
   private final JavaPairRDD<K, V> pairRDD;
 
   public PairRDDCollection(JavaSparkExecutionContext sec, JavaSparkContext jsc, DatasetContext datasetContext,
-                           SparkBatchSinkFactory sinkFactory, JavaPairRDD<K, V> pairRDD) {
+                           SparkBatchSinkFactory sinkFactory, Collection<Broadcast<?>> broadcasts,
+                           JavaPairRDD<K, V> pairRDD) {
     this.sec = sec;
     this.jsc = jsc;
     this.datasetContext = datasetContext;
     this.sinkFactory = sinkFactory;
+    this.broadcasts = broadcasts;
     this.pairRDD = pairRDD;
   }
 
@@ -58,7 +70,7 @@ public class PairRDDCollection<K, V> implements SparkPairCollection<K, V> {
 
   @Override
   public <T> SparkCollection<T> flatMap(FlatMapFunction<Tuple2<K, V>, T> function) {
-    return new RDDCollection<>(sec, jsc, datasetContext, sinkFactory, pairRDD.flatMap(function));
+    return new RDDCollection<>(sec, jsc, datasetContext, sinkFactory, broadcasts, pairRDD.flatMap(function));
   }
 
   @Override
@@ -104,7 +116,40 @@ public class PairRDDCollection<K, V> implements SparkPairCollection<K, V> {
     return wrap(Compat.fullOuterJoin(pairRDD, (JavaPairRDD<K, T>) other.getUnderlying(), numPartitions));
   }
 
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> SparkPairCollection<K, Tuple2<V, T>> broadcastJoin(SparkPairCollection<K, T> other) {
+    Broadcast<Map<K, List<T>>> broadcast = broadcast((JavaPairRDD<K, T>) other.getUnderlying());
+    return wrap(pairRDD.flatMapToPair(Compat.convert(new BroadcastJoinFunction<K, V, T>(broadcast))));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> SparkPairCollection<K, Tuple2<V, Optional<T>>> broadcastLeftOuterJoin(SparkPairCollection<K, T> other) {
+    Broadcast<Map<K, List<T>>> broadcast = broadcast((JavaPairRDD<K, T>) other.getUnderlying());
+    return wrap(pairRDD.flatMapToPair(Compat.convert(new BroadcastLeftJoinFunction<K, V, T>(broadcast))));
+  }
+
+  /**
+   * Collects all the records of the given rdd into a map from key to values, and broadcasts it to the executors.
+   * The broadcast is added to the broadcasts of the pipeline run, which are unpersisted once all its sinks are written.
+   */
+  private <T> Broadcast<Map<K, List<T>>> broadcast(JavaPairRDD<K, T> rdd) {
+    Map<K, List<T>> values = new HashMap<>();
+    for (Tuple2<K, T> record : rdd.collect()) {
+      List<T> keyValues = values.get(record._1());
+      if (keyValues == null) {
+        keyValues = new ArrayList<>();
+        values.put(record._1(), keyValues);
+      }
+      keyValues.add(record._2());
+    }
+    Broadcast<Map<K, List<T>>> broadcast = jsc.broadcast(values);
+    broadcasts.add(broadcast);
+    return broadcast;
+  }
+
   private <X, Y> SparkPairCollection<X, Y> wrap(JavaPairRDD<X, Y> javaPairRDD) {
-    return new PairRDDCollection<>(sec, jsc, datasetContext, sinkFactory, javaPairRDD);
+    return new PairRDDCollection<>(sec, jsc, datasetContext, sinkFactory, broadcasts, javaPairRDD);
   }
 }
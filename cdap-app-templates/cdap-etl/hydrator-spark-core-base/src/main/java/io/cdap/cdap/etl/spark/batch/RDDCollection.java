@@ -41,7 +41,11 @@ import io.cdap.cdap.etl.spark.SparkCollection;
 import io.cdap.cdap.etl.spark.SparkPairCollection;
 import io.cdap.cdap.etl.spark.SparkPipelineRuntime;
 import io.cdap.cdap.etl.spark.function.AggregatorAggregateFunction;
+import io.cdap.cdap.etl.spark.function.AggregatorFinalizeFunction;
 import io.cdap.cdap.etl.spark.function.AggregatorGroupByFunction;
+import io.cdap.cdap.etl.spark.function.AggregatorInitializeFunction;
+import io.cdap.cdap.etl.spark.function.AggregatorMergePartitionFunction;
+import io.cdap.cdap.etl.spark.function.AggregatorMergeValueFunction;
 import io.cdap.cdap.etl.spark.function.CountingFunction;
 import io.cdap.cdap.etl.spark.function.FlatMapFunc;
 import io.cdap.cdap.etl.spark.function.MultiOutputTransformFunction;
@@ -53,9 +57,13 @@ import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.Function2;
 import org.apache.spark.api.java.function.PairFlatMapFunction;
+import org.apache.spark.broadcast.Broadcast;
 import scala.Tuple2;
 
+import java.util.Collection;
 import javax.annotation.Nullable;
 
 
@@ -70,14 +78,16 @@ public class RDDCollection<T> implements SparkCollection<T> {
   private final JavaSparkContext jsc;
   private final DatasetContext datasetContext;
   private final SparkBatchSinkFactory sinkFactory;
+  private final Collection<Broadcast<?>> broadcasts;
   private final JavaRDD<T> rdd;
 
-  public RDDCollection(JavaSparkExecutionContext sec, JavaSparkContext jsc,
-                       DatasetContext datasetContext, SparkBatchSinkFactory sinkFactory, JavaRDD<T> rdd) {
+  public RDDCollection(JavaSparkExecutionContext sec, JavaSparkContext jsc, DatasetContext datasetContext,
+                       SparkBatchSinkFactory sinkFactory, Collection<Broadcast<?>> broadcasts, JavaRDD<T> rdd) {
     this.sec = sec;
     this.jsc = jsc;
     this.datasetContext = datasetContext;
     this.sinkFactory = sinkFactory;
+    this.broadcasts = broadcasts;
     this.rdd = rdd;
   }
 
@@ -141,9 +151,35 @@ public class RDDCollection<T> implements SparkCollection<T> {
     return wrap(groupedCollection.flatMap(sparkAggregateFunction));
   }
 
+  @Override
+  public SparkCollection<RecordInfo<Object>> reduceAggregate(StageSpec stageSpec, @Nullable Integer partitions,
+                                                             StageStatisticsCollector collector) {
+    PluginFunctionContext pluginFunctionContext = new PluginFunctionContext(stageSpec, sec, collector);
+    PairFlatMapFunc<T, Object, T> groupByFunction = new AggregatorGroupByFunction<>(pluginFunctionContext);
+    PairFlatMapFunction<T, Object, T> sparkGroupByFunction = Compat.convert(groupByFunction);
+
+    JavaPairRDD<Object, T> keyedCollection = rdd.flatMapToPair(sparkGroupByFunction);
+
+    // Reduce the values of each group on the map side, so that only the partial aggregate values are shuffled
+    Function<T, Object> initializeFunction = new AggregatorInitializeFunction<>(pluginFunctionContext);
+    Function2<Object, T, Object> mergeValueFunction = new AggregatorMergeValueFunction<>(pluginFunctionContext);
+    Function2<Object, Object, Object> mergePartitionFunction =
+      new AggregatorMergePartitionFunction<>(pluginFunctionContext);
+    JavaPairRDD<Object, Object> reducedCollection = partitions == null ?
+      keyedCollection.combineByKey(initializeFunction, mergeValueFunction, mergePartitionFunction) :
+      keyedCollection.combineByKey(initializeFunction, mergeValueFunction, mergePartitionFunction, partitions);
+
+    FlatMapFunc<Tuple2<Object, Object>, RecordInfo<Object>> finalizeFunction =
+      new AggregatorFinalizeFunction<>(pluginFunctionContext);
+    FlatMapFunction<Tuple2<Object, Object>, RecordInfo<Object>> sparkFinalizeFunction =
+      Compat.convert(finalizeFunction);
+
+    return wrap(reducedCollection.flatMap(sparkFinalizeFunction));
+  }
+
   @Override
   public <K, V> SparkPairCollection<K, V> flatMapToPair(PairFlatMapFunction<T, K, V> function) {
-    return new PairRDDCollection<>(sec, jsc, datasetContext, sinkFactory, rdd.flatMapToPair(function));
+    return new PairRDDCollection<>(sec, jsc, datasetContext, sinkFactory, broadcasts, rdd.flatMapToPair(function));
   }
 
   @Override
@@ -224,7 +260,7 @@ public class RDDCollection<T> implements SparkCollection<T> {
   }
 
   private <U> RDDCollection<U> wrap(JavaRDD<U> rdd) {
-    return new RDDCollection<>(sec, jsc, datasetContext, sinkFactory, rdd);
+    return new RDDCollection<>(sec, jsc, datasetContext, sinkFactory, broadcasts, rdd);
   }
 
 }
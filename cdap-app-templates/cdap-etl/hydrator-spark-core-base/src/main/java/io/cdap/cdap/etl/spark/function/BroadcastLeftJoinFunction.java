@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.function;
+
+import com.google.common.base.Optional;
+import org.apache.spark.broadcast.Broadcast;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Left outer joins each record with the records of a broadcast collection that have the same key.
+ * The output is the same as a regular left outer join, except the records of this collection are not shuffled.
+ *
+ * @param <K> type of join key
+ * @param <V> type of value in this collection
+ * @param <T> type of value in the broadcast collection
+ */
+public class BroadcastLeftJoinFunction<K, V, T> implements PairFlatMapFunc<Tuple2<K, V>, K, Tuple2<V, Optional<T>>> {
+  private final Broadcast<Map<K, List<T>>> broadcast;
+
+  public BroadcastLeftJoinFunction(Broadcast<Map<K, List<T>>> broadcast) {
+    this.broadcast = broadcast;
+  }
+
+  @Override
+  public Iterable<Tuple2<K, Tuple2<V, Optional<T>>>> call(Tuple2<K, V> record) throws Exception {
+    List<T> matches = broadcast.value().get(record._1());
+    if (matches == null) {
+      return Collections.singletonList(new Tuple2<>(record._1(), new Tuple2<>(record._2(), Optional.<T>absent())));
+    }
+    List<Tuple2<K, Tuple2<V, Optional<T>>>> output = new ArrayList<>(matches.size());
+    for (T match : matches) {
+      output.add(new Tuple2<>(record._1(), new Tuple2<>(record._2(), Optional.of(match))));
+    }
+    return output;
+  }
+}
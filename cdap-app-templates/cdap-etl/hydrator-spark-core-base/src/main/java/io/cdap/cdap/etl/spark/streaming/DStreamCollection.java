@@ -40,6 +40,7 @@ import io.cdap.cdap.etl.spark.streaming.function.ComputeTransformFunction;
 import io.cdap.cdap.etl.spark.streaming.function.CountingTransformFunction;
 import io.cdap.cdap.etl.spark.streaming.function.DynamicAggregatorAggregate;
 import io.cdap.cdap.etl.spark.streaming.function.DynamicAggregatorGroupBy;
+import io.cdap.cdap.etl.spark.streaming.function.DynamicAggregatorReduce;
 import io.cdap.cdap.etl.spark.streaming.function.DynamicSparkCompute;
 import io.cdap.cdap.etl.spark.streaming.function.DynamicTransform;
 import io.cdap.cdap.etl.spark.streaming.function.StreamingAlertPublishFunction;
@@ -126,6 +127,17 @@ public class DStreamCollection<T> implements SparkCollection<T> {
     return wrap(groupedCollection.transform(new DynamicAggregatorAggregate<Object, T, Object>(dynamicDriverContext)));
   }
 
+  @Override
+  public SparkCollection<RecordInfo<Object>> reduceAggregate(StageSpec stageSpec, @Nullable Integer partitions,
+                                                             StageStatisticsCollector collector) {
+    DynamicDriverContext dynamicDriverContext = new DynamicDriverContext(stageSpec, sec, collector);
+    JavaPairDStream<Object, T> keyedCollection =
+      stream.transformToPair(new DynamicAggregatorGroupBy<Object, T>(dynamicDriverContext));
+
+    return wrap(keyedCollection.transform(new DynamicAggregatorReduce<Object, T, Object>(dynamicDriverContext,
+                                                                                         partitions)));
+  }
+
   @Override
   public <U> SparkCollection<U> compute(final StageSpec stageSpec, SparkCompute<T, U> compute) throws Exception {
     final SparkCompute<T, U> wrappedCompute =
@@ -23,6 +23,7 @@ import io.cdap.cdap.api.plugin.PluginContext;
 import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
 import io.cdap.cdap.api.spark.dynamic.SparkInterpreter;
 import io.cdap.cdap.etl.api.Lookup;
+import io.cdap.cdap.etl.api.LookupTableConfig;
 import io.cdap.cdap.etl.api.batch.SparkExecutionPluginContext;
 import io.cdap.cdap.etl.api.lineage.field.FieldOperation;
 import io.cdap.cdap.etl.common.AbstractTransformContext;
@@ -142,6 +143,11 @@ public class SparkStreamingExecutionContext extends AbstractTransformContext imp
     throw new UnsupportedOperationException("Not supported in Spark Streaming.");
   }
 
+  @Override
+  public <T> Lookup<T> provide(String table, Map<String, String> arguments, LookupTableConfig config) {
+    throw new UnsupportedOperationException("Not supported in Spark Streaming.");
+  }
+
   @Override
   public void record(List<FieldOperation> operations) {
     throw new UnsupportedOperationException("Not supported in Spark Streaming.");
@@ -34,6 +34,7 @@ import io.cdap.cdap.etl.api.batch.BatchJoinerRuntimeContext;
 import io.cdap.cdap.etl.proto.v2.ETLPlugin;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -94,7 +95,7 @@ public class MockJoiner extends BatchJoiner<StructuredRecord, StructuredRecord,
 
   @Override
   public JoinConfig getJoinConfig() {
-    return new JoinConfig(config.getRequiredInputs());
+    return new JoinConfig(config.getRequiredInputs(), config.getBroadcastInputs());
   }
 
   @Override
@@ -142,12 +143,14 @@ public class MockJoiner extends BatchJoiner<StructuredRecord, StructuredRecord,
     private final String selectedFields;
     @Nullable
     private final String requiredInputs;
-
+    @Nullable
+    private final String broadcastInputs;
 
     public Config() {
       this.joinKeys = "joinKeys";
       this.selectedFields = "selectedFields";
       this.requiredInputs = "requiredInputs";
+      this.broadcastInputs = null;
     }
 
     private void validateConfig() {
@@ -199,13 +202,26 @@ public class MockJoiner extends BatchJoiner<StructuredRecord, StructuredRecord,
     private Iterable<String> getRequiredInputs() {
       return Splitter.on(',').trimResults().omitEmptyStrings().split(requiredInputs);
     }
+
+    private Iterable<String> getBroadcastInputs() {
+      if (broadcastInputs == null) {
+        return Collections.emptyList();
+      }
+      return Splitter.on(',').trimResults().omitEmptyStrings().split(broadcastInputs);
+    }
   }
 
   public static ETLPlugin getPlugin(String joinKeys, String requiredInputs, String selectedFields) {
+    return getPlugin(joinKeys, requiredInputs, selectedFields, "");
+  }
+
+  public static ETLPlugin getPlugin(String joinKeys, String requiredInputs, String selectedFields,
+                                   String broadcastInputs) {
     Map<String, String> properties = new HashMap<>();
     properties.put("joinKeys", joinKeys);
     properties.put("requiredInputs", requiredInputs);
     properties.put("selectedFields", selectedFields);
+    properties.put("broadcastInputs", broadcastInputs);
     return new ETLPlugin("MockJoiner", BatchJoiner.PLUGIN_TYPE, properties, null);
   }
 
@@ -214,6 +230,7 @@ public class MockJoiner extends BatchJoiner<StructuredRecord, StructuredRecord,
     properties.put("joinKeys", new PluginPropertyField("joinKeys", "", "string", true, false));
     properties.put("requiredInputs", new PluginPropertyField("requiredInputs", "", "string", true, false));
     properties.put("selectedFields", new PluginPropertyField("selectedFields", "", "string", true, false));
+    properties.put("broadcastInputs", new PluginPropertyField("broadcastInputs", "", "string", false, false));
     return new PluginClass(BatchJoiner.PLUGIN_TYPE, "MockJoiner", "", MockJoiner.class.getName(),
                            "config", properties);
   }
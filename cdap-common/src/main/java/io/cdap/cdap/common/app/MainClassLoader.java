@@ -38,9 +38,9 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nullable;
 
 /**
@@ -50,6 +50,11 @@ import javax.annotation.Nullable;
 public class MainClassLoader extends InterceptableClassLoader {
 
   private static final String DATASET_CLASS_NAME = Dataset.class.getName();
+
+  static {
+    registerAsParallelCapable();
+  }
+
   private final DatasetClassRewriter datasetRewriter;
   private final AuthEnforceRewriter authEnforceRewriter;
   private final Function<String, URL> resourceLookup;
@@ -124,7 +129,7 @@ public class MainClassLoader extends InterceptableClassLoader {
     this.datasetRewriter = new DatasetClassRewriter();
     this.authEnforceRewriter = new AuthEnforceRewriter();
     this.resourceLookup = ClassLoaders.createClassResourceLookup(this);
-    this.cache = new HashMap<>();
+    this.cache = new ConcurrentHashMap<>();
   }
 
   @Override
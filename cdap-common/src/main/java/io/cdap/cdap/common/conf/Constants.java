@@ -179,6 +179,10 @@ public final class Constants {
     public static final String TEMP_DIR = "app.temp.dir";
     public static final String REST_PORT = "app.rest.port";
     public static final String PROGRAM_JVM_OPTS = "app.program.jvm.opts";
+    public static final String REMOTE_LOCALIZATION_CACHE_DIR = "app.program.remote.localization.cache.dir";
+    public static final String REMOTE_LOCALIZATION_CACHE_MAX_SIZE_MB =
+      "app.program.remote.localization.cache.max.size.mb";
+    public static final String REMOTE_LOCALIZATION_UPLOAD_THREADS = "app.program.remote.localization.upload.threads";
     public static final String BACKLOG_CONNECTIONS = "app.connection.backlog";
     public static final String EXEC_THREADS = "app.exec.threads";
     public static final String BOSS_THREADS = "app.boss.threads";
@@ -191,6 +195,8 @@ public final class Constants {
     public static final String MAPREDUCE_STATUS_REPORT_INTERVAL_SECONDS = "mapreduce.status.report.interval.seconds";
     public static final String PROGRAM_RUNID_CORRECTOR_INTERVAL_SECONDS = "app.program.runid.corrector.interval";
     public static final String PROGRAM_RUNID_CORRECTOR_TX_BATCH_SIZE = "app.program.runid.corrector.tx.batch.size";
+    public static final String RUN_RECORD_TIME_INDEX_BACKFILL_BATCH_SIZE =
+      "app.program.run.record.time.index.backfill.batch.size";
     public static final String LOCAL_DATASET_DELETER_INTERVAL_SECONDS = "app.program.local.dataset.deleter.interval";
     public static final String LOCAL_DATASET_DELETER_INITIAL_DELAY_SECONDS
       = "app.program.local.dataset.deleter.initial.delay";
@@ -456,6 +462,8 @@ public final class Constants {
     public static final String DATA_STORAGE_SQL_PASSWORD = "data.storage.sql.jdbc.password";
     public static final String DATA_STORAGE_SQL_PROPERTY_PREFIX = "data.storage.sql.jdbc.property.";
     public static final String DATA_STORAGE_SQL_CONNECTION_SIZE = "data.storage.sql.jdbc.connection.pool.size";
+    public static final String DATA_STORAGE_SQL_SCAN_FETCH_SIZE = "data.storage.sql.scan.fetch.size";
+    public static final String DATA_STORAGE_SQL_STATEMENT_CACHE_SIZE = "data.storage.sql.statement.cache.size";
 
     // used for Guice named bindings
     public static final String TABLE_TYPE = "table.type";
@@ -557,6 +565,10 @@ public final class Constants {
     public static final String SERVER_BOSS_THREADS = "router.server.boss.threads";
     public static final String SERVER_WORKER_THREADS = "router.server.worker.threads";
     public static final String CONNECTION_TIMEOUT_SECS = "router.connection.idle.timeout.secs";
+    public static final String CONNECTION_POOL_MAX_IDLE_PER_ENDPOINT =
+      "router.connection.pool.max.idle.per.endpoint";
+    public static final String CONNECTION_POOL_IDLE_TIMEOUT_SECS = "router.connection.pool.idle.timeout.secs";
+    public static final String SERVER_NATIVE_TRANSPORT_ENABLED = "router.server.native.transport.enabled";
     public static final String ROUTER_AUDIT_PATH_CHECK_ENABLED = "router.audit.path.check.enabled";
     public static final String ROUTER_AUDIT_LOG_ENABLED = "router.audit.log.enabled";
 
@@ -603,6 +615,15 @@ public final class Constants {
     public static final long PROCESS_INTERVAL_MILLIS = 60000;
     public static final String RETENTION_SECONDS_SUFFIX = ".seconds";
 
+    // Configurations for rolling up the coarser resolution tables from the finer ones in the background
+    public static final String ROLLUP_ENABLED = "metrics.rollup.enabled";
+    public static final String ROLLUP_DELAY_SECONDS = "metrics.rollup.delay.seconds";
+    public static final String ROLLUP_INTERVAL_SECONDS = "metrics.rollup.interval.seconds";
+
+    // Configurations for caching the sealed time buckets of metrics query results
+    public static final String QUERY_CACHE_SIZE = "metrics.query.cache.size";
+    public static final String QUERY_CACHE_EXPIRATION_SECONDS = "metrics.query.cache.expiration.seconds";
+
     public static final String TOPIC_PREFIX = "metrics.topic.prefix";
 
     public static final String ADMIN_TOPIC = "metrics.admin.topic";
@@ -744,6 +765,9 @@ public final class Constants {
       public static final long MAX_MINUTE_RESOLUTION_QUERY_INTERVAL = 600;
       // Number of seconds to subtract from current timestamp when query without "end" time.
       public static final long QUERY_SECOND_DELAY = 2;
+
+      public static final String CACHE_HIT = "metrics.query.cache.hit";
+      public static final String CACHE_MISS = "metrics.query.cache.miss";
     }
 
     /**
@@ -768,6 +792,7 @@ public final class Constants {
       public static final String ACTIVE_CONNECTIONS = "structured.table.connection.active";
       public static final String IDLE_CONNECTIONS = "structured.table.connection.idle";
       public static final String ERROR_CONNECTIONS = "structured.table.connection.error";
+      public static final String STATEMENT_CACHE_HIT_RATE = "structured.table.statement.cache.hit.rate";
     }
 
     /**
@@ -953,6 +978,8 @@ public final class Constants {
     public static final String TOKEN_DIGEST_KEY_EXPIRATION = "security.token.digest.key.expiration.ms";
     /** Parent znode used for secret key distribution in ZooKeeper. */
     public static final String DIST_KEY_PARENT_ZNODE = "security.token.distributed.parent.znode";
+    /** Maximum number of validated access tokens cached by the token validator. Set to 0 to disable the cache. */
+    public static final String TOKEN_VALIDATION_CACHE_SIZE = "security.token.validation.cache.size";
     /**
      * Comma separated URL's that clients should use to communicate with the Authentication Server.
      * Each URL should follow the format protocol://host:port. Leave empty to use the default URL generated by
@@ -1290,6 +1317,9 @@ public final class Constants {
     public static final String MESSAGING_POLL_DELAY_MILLIS = "metadata.messaging.poll.delay.millis";
     public static final String MESSAGING_RETRIES_ON_CONFLICT = "metadata.messaging.retries.on.conflict";
 
+    public static final String LINEAGE_CACHE_SIZE = "metadata.lineage.cache.size";
+    public static final String LINEAGE_CACHE_EXPIRY_SECONDS = "metadata.lineage.cache.expiry.seconds";
+
     public static final String STORAGE_PROVIDER_IMPLEMENTATION = "metadata.storage.implementation";
     public static final String STORAGE_PROVIDER_NOSQL = "nosql";
     public static final String STORAGE_PROVIDER_ELASTICSEARCH = "elastic";
@@ -1312,6 +1342,9 @@ public final class Constants {
     public static final String LOCAL_DATA_CLEANUP_FREQUENCY = "messaging.local.data.cleanup.frequency.secs";
 
     public static final String CACHE_SIZE_MB = "messaging.cache.size.mb";
+    public static final String CACHE_OFFHEAP_ENABLED = "messaging.cache.offheap.enabled";
+    public static final String CACHE_OFFHEAP_SEGMENT_SIZE_KB = "messaging.cache.offheap.segment.size.kb";
+    public static final String CONSUME_POLL_THREADS = "messaging.consume.poll.threads";
 
     public static final String HBASE_MAX_SCAN_THREADS = "messaging.hbase.max.scan.threads";
     public static final String HBASE_SCAN_CACHE_ROWS = "messaging.hbase.scan.cache.rows";
@@ -1320,6 +1353,8 @@ public final class Constants {
     public static final String MESSAGE_TABLE_HBASE_SPLITS = "messaging.message.table.hbase.splits";
     public static final String PAYLOAD_TABLE_NAME = "messaging.payload.table.name";
     public static final String PAYLOAD_TABLE_HBASE_SPLITS = "messaging.payload.table.hbase.splits";
+    public static final String PERSIST_MAX_BATCH_SIZE = "messaging.persist.max.batch.size";
+    public static final String PERSIST_BATCH_LINGER_MS = "messaging.persist.batch.linger.ms";
     public static final String SYSTEM_TOPICS = "messaging.system.topics";
     public static final String TABLE_CACHE_EXPIRATION_SECONDS = "messaging.table.expiration.seconds";
     public static final String TABLE_HBASE_SPLIT_POLICY = "messaging.table.hbase.split.policy";
@@ -1331,6 +1366,8 @@ public final class Constants {
     public static final String HTTP_SERVER_EXECUTOR_THREADS = "messaging.http.server.executor.threads";
     public static final String HTTP_SERVER_MAX_REQUEST_SIZE_MB = "messaging.http.server.max.request.size.mb";
     public static final String HTTP_SERVER_CONSUME_CHUNK_SIZE = "messaging.http.server.consume.chunk.size";
+    public static final String HTTP_SERVER_CONSUME_MAX_POLL_TIMEOUT_MS =
+      "messaging.http.server.consume.max.poll.timeout.ms";
 
     // Distributed mode related configurations
     public static final String HA_FENCING_DELAY_SECONDS = "messaging.ha.fencing.delay.seconds";
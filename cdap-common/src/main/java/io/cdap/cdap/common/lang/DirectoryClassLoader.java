@@ -53,6 +53,10 @@ public class DirectoryClassLoader extends InterceptableClassLoader {
 
   private static final Logger LOG = LoggerFactory.getLogger(DirectoryClassLoader.class);
 
+  static {
+    registerAsParallelCapable();
+  }
+
   private final Manifest manifest;
 
   public DirectoryClassLoader(File dir, ClassLoader parent, String...libDirs) {
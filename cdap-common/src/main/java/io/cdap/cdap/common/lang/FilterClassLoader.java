@@ -33,6 +33,10 @@ import java.util.Set;
  */
 public final class FilterClassLoader extends ClassLoader {
 
+  static {
+    registerAsParallelCapable();
+  }
+
   private final ClassLoader extensionClassLoader;
   private final Filter filter;
 
@@ -106,7 +110,7 @@ public final class FilterClassLoader extends ClassLoader {
   }
 
   @Override
-  protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+  protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
     // Try to load it from bootstrap class loader first
     try {
       return extensionClassLoader.loadClass(name);
@@ -22,8 +22,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.jar.Manifest;
 import javax.annotation.Nullable;
 
@@ -32,7 +33,11 @@ import javax.annotation.Nullable;
  */
 public abstract class InterceptableClassLoader extends URLClassLoader implements ClassRewriter {
 
-  private final Map<String, Manifest> manifests = new HashMap<>();
+  static {
+    registerAsParallelCapable();
+  }
+
+  private final ConcurrentMap<String, Optional<Manifest>> manifests = new ConcurrentHashMap<>();
 
   public InterceptableClassLoader(URL[] urls, ClassLoader parent) {
     super(urls, parent);
@@ -62,10 +67,17 @@ public abstract class InterceptableClassLoader extends URLClassLoader implements
       String packageName = getPackageName(name);
       if (packageName != null && getPackage(packageName) == null) {
         Manifest manifest = getManifest(resource);
-        if (manifest == null) {
-          definePackage(packageName, null, null, null, null, null, null, null);
-        } else {
-          definePackage(packageName, manifest, resource);
+        try {
+          if (manifest == null) {
+            definePackage(packageName, null, null, null, null, null, null, null);
+          } else {
+            definePackage(packageName, manifest, resource);
+          }
+        } catch (IllegalArgumentException e) {
+          // The package can be defined concurrently by another thread since this classloader is parallel capable
+          if (getPackage(packageName) == null) {
+            throw e;
+          }
         }
       }
       return defineClass(name, bytecode, 0, bytecode.length);
@@ -102,20 +114,14 @@ public abstract class InterceptableClassLoader extends URLClassLoader implements
     String path = resource.getFile();
     final String jarURIString = path.substring(0, path.indexOf("!/"));
 
-    // This synchronized block shouldn't be adding overhead unless we enable this classloader to be parallel capable
-    // (which we don't right now). For non-parallel capable classloader, an object lock was already acquired in
-    // the loadClass call (caller of this method).
-    synchronized (this) {
-      if (!manifests.containsKey(jarURIString)) {
-        try {
-          // Tries to load the Manifest from the Jar URI
-          manifests.put(jarURIString, BundleJarUtil.getManifest(new URL(jarURIString)));
-        } catch (IOException e) {
-          // Ignore if cannot get Manifest from the jar file and remember the failure
-          manifests.put(jarURIString, null);
-        }
+    return manifests.computeIfAbsent(jarURIString, jarURI -> {
+      try {
+        // Tries to load the Manifest from the Jar URI
+        return Optional.ofNullable(BundleJarUtil.getManifest(new URL(jarURI)));
+      } catch (IOException e) {
+        // Ignore if cannot get Manifest from the jar file and remember the failure
+        return Optional.empty();
       }
-      return manifests.get(jarURIString);
-    }
+    }).orElse(null);
   }
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.data2.dataset2.lib.cube.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
+import io.cdap.cdap.api.dataset.lib.cube.CubeQuery;
+import io.cdap.cdap.api.dataset.lib.cube.DimensionValue;
+import io.cdap.cdap.api.dataset.lib.cube.TimeSeries;
+import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
+import io.cdap.cdap.data2.dataset2.lib.cube.TimeSeriesAggregator;
+import io.cdap.cdap.data2.dataset2.lib.timeseries.FactScanResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for aggregating the scan results of a cube query into time series, which is what a metrics dashboard
+ * query over many programs at the 1-second resolution does.
+ *
+ * The scan results are generated up front, one row per program run and per {@link #ROLL_TIME} seconds, like the rows
+ * of a fact table, so that only the aggregation is measured.
+ *
+ * <ul>
+ *   <li>{@link #legacy} measures the aggregation into boxed maps that the cube used before.</li>
+ *   <li>{@link #primitive} measures the {@link TimeSeriesAggregator}.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CubeQueryBenchmark {
+
+  private static final int ROLL_TIME = 60;
+  private static final String MEASURE = "system.process.events.processed";
+
+  @Param({"100", "1000"})
+  public int programs;
+
+  @Param({"3600"})
+  public int seconds;
+
+  /**
+   * Whether the query groups by program, which gives one series per program, or sums all programs into one series.
+   */
+  @Param({"false", "true"})
+  public boolean groupByProgram;
+
+  private CubeQuery query;
+  private List<FactScanResult> scanResults;
+
+  @Setup
+  public void setup() {
+    query = CubeQuery.builder()
+      .select()
+        .measurement(MEASURE, AggregationFunction.SUM)
+      .from(null).resolution(1, TimeUnit.SECONDS)
+      .where()
+        .dimensions(ImmutableMap.of("namespace", "default"))
+        .timeRange(0, seconds)
+      .groupBy()
+        .dimensions(groupByProgram ? ImmutableList.of("program") : Collections.emptyList())
+      .limit(Integer.MAX_VALUE)
+      .build();
+
+    Random random = new Random(0);
+    scanResults = new ArrayList<>();
+    for (int timeBase = 0; timeBase < seconds; timeBase += ROLL_TIME) {
+      for (int program = 0; program < programs; program++) {
+        List<DimensionValue> dimensionValues = ImmutableList.of(new DimensionValue("namespace", "default"),
+                                                                new DimensionValue("app", "app" + program % 10),
+                                                                new DimensionValue("program", "program" + program),
+                                                                new DimensionValue("run", "run" + program),
+                                                                new DimensionValue("instance", "0"));
+        List<TimeValue> timeValues = new ArrayList<>(ROLL_TIME);
+        for (int ts = timeBase; ts < Math.min(timeBase + ROLL_TIME, seconds); ts++) {
+          timeValues.add(new TimeValue(ts, random.nextInt(1000)));
+        }
+        scanResults.add(new FactScanResult(MEASURE, dimensionValues, timeValues));
+      }
+    }
+  }
+
+  @Benchmark
+  public Collection<TimeSeries> legacy() {
+    return LegacyCubeQueryAggregation.aggregate(query, scanResults.iterator());
+  }
+
+  @Benchmark
+  public Collection<TimeSeries> primitive() {
+    TimeSeriesAggregator aggregator = new TimeSeriesAggregator(query);
+    for (FactScanResult scanResult : scanResults) {
+      aggregator.add(scanResult);
+    }
+    return aggregator.getTimeSeries();
+  }
+}
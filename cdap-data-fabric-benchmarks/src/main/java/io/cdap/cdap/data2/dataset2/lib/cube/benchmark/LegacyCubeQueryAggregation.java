@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.data2.dataset2.lib.cube.benchmark;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.PeekingIterator;
+import com.google.common.collect.Table;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
+import io.cdap.cdap.api.dataset.lib.cube.CubeQuery;
+import io.cdap.cdap.api.dataset.lib.cube.DimensionValue;
+import io.cdap.cdap.api.dataset.lib.cube.Interpolator;
+import io.cdap.cdap.api.dataset.lib.cube.TimeSeries;
+import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
+import io.cdap.cdap.data2.dataset2.lib.cube.TimeSeriesAggregator;
+import io.cdap.cdap.data2.dataset2.lib.timeseries.FactScanResult;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * The aggregation of scan results into {@link TimeSeries} that {@code DefaultCube} used before the
+ * {@link TimeSeriesAggregator}, kept as the baseline of the {@link CubeQueryBenchmark}. It aggregates into a Guava
+ * {@link Table} of boxed timestamps and values, then copies, sorts and interpolates every series.
+ */
+final class LegacyCubeQueryAggregation {
+
+  private LegacyCubeQueryAggregation() {
+  }
+
+  static Collection<TimeSeries> aggregate(CubeQuery query, Iterator<FactScanResult> scanner) {
+    return convertToQueryResult(query, getTimeSeries(query, scanner));
+  }
+
+  private static Table<Map<String, String>, String, Map<Long, Long>> getTimeSeries(CubeQuery query,
+                                                                                   Iterator<FactScanResult> scanner) {
+    // {dimension values, measure} -> {time -> value}s
+    Table<Map<String, String>, String, Map<Long, Long>> result = HashBasedTable.create();
+
+    while (scanner.hasNext()) {
+      FactScanResult next = scanner.next();
+
+      boolean skip = false;
+      // using tree map, as we are using it as a key for a map
+      Map<String, String> seriesDimensions = Maps.newTreeMap();
+      for (String dimensionName : query.getGroupByDimensions()) {
+        for (DimensionValue dimensionValue : next.getDimensionValues()) {
+          if (dimensionName.equals(dimensionValue.getName())) {
+            if (dimensionValue.getValue() == null) {
+              skip = true;
+              continue;
+            }
+            seriesDimensions.put(dimensionName, dimensionValue.getValue());
+            break;
+          }
+        }
+      }
+
+      if (skip) {
+        continue;
+      }
+
+      for (TimeValue timeValue : next) {
+        Map<Long, Long> timeValues = result.get(seriesDimensions, next.getMeasureName());
+        if (timeValues == null) {
+          result.put(seriesDimensions, next.getMeasureName(), Maps.<Long, Long>newHashMap());
+        }
+
+        AggregationFunction function = query.getMeasurements().get(next.getMeasureName());
+        if (AggregationFunction.SUM == function) {
+          Long value =  result.get(seriesDimensions, next.getMeasureName()).get(timeValue.getTimestamp());
+          value = value == null ? 0 : value;
+          value += timeValue.getValue();
+          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), value);
+        } else if (AggregationFunction.MAX == function) {
+          Long value = result.get(seriesDimensions, next.getMeasureName()).get(timeValue.getTimestamp());
+          value = value != null && value > timeValue.getValue() ? value : timeValue.getValue();
+          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), value);
+        } else if (AggregationFunction.MIN == function) {
+          Long value =  result.get(seriesDimensions, next.getMeasureName()).get(timeValue.getTimestamp());
+          value = value != null && value < timeValue.getValue() ? value : timeValue.getValue();
+          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), value);
+        } else if (AggregationFunction.LATEST == function) {
+          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), timeValue.getValue());
+        } else {
+          throw new RuntimeException("Unknown MeasureType: " + function);
+        }
+      }
+    }
+    return result;
+  }
+
+  private static Collection<TimeSeries> convertToQueryResult(CubeQuery query,
+                                                             Table<Map<String, String>, String,
+                                                               Map<Long, Long>> resultTable) {
+
+    List<TimeSeries> result = Lists.newArrayList();
+    // iterating each groupValue dimensions
+    for (Map.Entry<Map<String, String>, Map<String, Map<Long, Long>>> row : resultTable.rowMap().entrySet()) {
+      // iterating each measure
+      for (Map.Entry<String, Map<Long, Long>> measureEntry : row.getValue().entrySet()) {
+        // generating time series for a grouping and a measure
+        int count = 0;
+        List<TimeValue> timeValues = Lists.newArrayList();
+        for (Map.Entry<Long, Long> timeValue : measureEntry.getValue().entrySet()) {
+          timeValues.add(new TimeValue(timeValue.getKey(), timeValue.getValue()));
+        }
+        Collections.sort(timeValues);
+        PeekingIterator<TimeValue> timeValueItor = Iterators.peekingIterator(
+          interpolate(timeValues, query.getInterpolator(), query.getResolution()));
+        List<TimeValue> resultTimeValues = Lists.newArrayList();
+        while (timeValueItor.hasNext()) {
+          TimeValue timeValue = timeValueItor.next();
+          resultTimeValues.add(new TimeValue(timeValue.getTimestamp(), timeValue.getValue()));
+          if (++count >= query.getLimit()) {
+            break;
+          }
+        }
+        result.add(new TimeSeries(measureEntry.getKey(), row.getKey(), resultTimeValues));
+      }
+    }
+    return result;
+  }
+
+  private static Iterator<TimeValue> interpolate(Collection<TimeValue> timeValues,
+                                                 @Nullable Interpolator interpolator, int resolution) {
+    PeekingIterator<TimeValue> timeSeries = Iterators.peekingIterator(ImmutableList.copyOf(timeValues).iterator());
+    return new AbstractIterator<TimeValue>() {
+      private long currentTs = timeSeries.hasNext() ? timeSeries.peek().getTimestamp() : 0;
+      private TimeValue lastValue;
+
+      @Override
+      protected TimeValue computeNext() {
+        long currentTsValue = 0;
+        if (!timeSeries.hasNext()) {
+          return endOfData();
+        }
+
+        if (timeSeries.peek().getTimestamp() == currentTs) {
+          currentTsValue += timeSeries.peek().getValue();
+          lastValue = timeSeries.next();
+        } else if (interpolator != null && lastValue != null) {
+          currentTsValue += interpolator.interpolate(lastValue, timeSeries.peek(), currentTs);
+        }
+
+        TimeValue output = new TimeValue(currentTs, currentTsValue);
+        if (timeSeries.hasNext()) {
+          currentTs = (interpolator == null) ? timeSeries.peek().getTimestamp() : currentTs + resolution;
+        }
+        return output;
+      }
+    };
+  }
+}
@@ -16,22 +16,21 @@
 
 package io.cdap.cdap.data2.dataset2.lib.cube;
 
-import com.google.common.collect.HashBasedTable;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Iterators;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.PeekingIterator;
 import com.google.common.collect.Sets;
-import com.google.common.collect.Table;
 import com.google.common.util.concurrent.Uninterruptibles;
-import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
 import io.cdap.cdap.api.dataset.lib.cube.Cube;
 import io.cdap.cdap.api.dataset.lib.cube.CubeDeleteQuery;
 import io.cdap.cdap.api.dataset.lib.cube.CubeExploreQuery;
 import io.cdap.cdap.api.dataset.lib.cube.CubeFact;
 import io.cdap.cdap.api.dataset.lib.cube.CubeQuery;
 import io.cdap.cdap.api.dataset.lib.cube.DimensionValue;
+import io.cdap.cdap.api.dataset.lib.cube.MeasureType;
+import io.cdap.cdap.api.dataset.lib.cube.Measurement;
 import io.cdap.cdap.api.dataset.lib.cube.TimeSeries;
 import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
 import io.cdap.cdap.api.dataset.metrics.MeteredDataset;
@@ -47,24 +46,37 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.annotation.Nullable;
 
 /**
  * Default implementation of {@link io.cdap.cdap.api.dataset.lib.cube.Cube}.
+ *
+ * By default every fact is written to every resolution table. Resolutions given as rollup resolutions are instead
+ * filled in by {@link #rollup(int, long)} from the next finer resolution once the rollup has started for them, that
+ * is, once they have a checkpoint in the {@link RollupCheckpointStore}. For such a resolution, only gauges and the
+ * facts older than the checkpoint are written directly, and queries merge the rolled up data with the data of the
+ * finer resolution that is not rolled up yet.
  */
 public class DefaultCube implements Cube, MeteredDataset {
   private static final Logger LOG = LoggerFactory.getLogger(DefaultCube.class);
@@ -72,11 +84,19 @@ public class DefaultCube implements Cube, MeteredDataset {
   private static final DimensionValueComparator DIMENSION_VALUE_COMPARATOR = new DimensionValueComparator();
   // hard-limit on max records to scan
   private static final int MAX_RECORDS_TO_SCAN = 100 * 1000;
+  // max number of rollup windows summed up with a single scan of the source resolution
+  private static final int MAX_ROLLUP_WINDOWS_PER_SCAN = 60;
 
   private final Map<Integer, FactTable> resolutionToFactTable;
   private final Map<String, ? extends Aggregation> aggregations;
   private final Map<String, AggregationAlias> aggregationAliasMap;
   private final ExecutorService executorService;
+  // rollup resolution -> the finer resolution it is rolled up from
+  private final Map<Integer, Integer> rollupSources;
+  @Nullable
+  private final RollupCheckpointStore checkpointStore;
+  // guards the rollup against facts added concurrently to the windows being rolled up
+  private final ReadWriteLock rollupLock;
 
   @Nullable
   private MetricsCollector metrics;
@@ -84,11 +104,35 @@ public class DefaultCube implements Cube, MeteredDataset {
   public DefaultCube(int[] resolutions, FactTableSupplier factTableSupplier,
                      Map<String, ? extends Aggregation> aggregations,
                      Map<String, AggregationAlias> aggregationAliasMap) {
+    this(resolutions, factTableSupplier, aggregations, aggregationAliasMap, ImmutableMap.of(), null);
+  }
+
+  /**
+   * Creates a {@link DefaultCube} that rolls up some of its resolutions from finer ones.
+   *
+   * @param rollupSources map from a rollup resolution to the finer resolution it is rolled up from
+   * @param checkpointStore store of the rollup checkpoints, must not be {@code null} if there are rollup resolutions
+   */
+  public DefaultCube(int[] resolutions, FactTableSupplier factTableSupplier,
+                     Map<String, ? extends Aggregation> aggregations,
+                     Map<String, AggregationAlias> aggregationAliasMap,
+                     Map<Integer, Integer> rollupSources, @Nullable RollupCheckpointStore checkpointStore) {
+    Preconditions.checkArgument(rollupSources.isEmpty() || checkpointStore != null,
+                                "A checkpoint store is required to rollup resolutions %s", rollupSources.keySet());
     this.aggregations = aggregations;
     this.resolutionToFactTable = Maps.newHashMap();
     for (int resolution : resolutions) {
       resolutionToFactTable.put(resolution, factTableSupplier.get(resolution, 3600));
     }
+    for (Map.Entry<Integer, Integer> entry : rollupSources.entrySet()) {
+      Preconditions.checkArgument(resolutionToFactTable.containsKey(entry.getKey())
+                                    && resolutionToFactTable.containsKey(entry.getValue())
+                                    && entry.getKey() % entry.getValue() == 0,
+                                  "Cannot rollup resolution %s from resolution %s", entry.getKey(), entry.getValue());
+    }
+    this.rollupSources = ImmutableMap.copyOf(rollupSources);
+    this.checkpointStore = checkpointStore;
+    this.rollupLock = new ReentrantReadWriteLock();
     this.aggregationAliasMap = aggregationAliasMap;
     this.executorService = new ThreadPoolExecutor(0, resolutions.length, 30, TimeUnit.SECONDS,
                                                   new LinkedBlockingQueue<>(),
@@ -126,9 +170,64 @@ public class DefaultCube implements Cube, MeteredDataset {
       }
     }
 
+    int factsAdded;
+    rollupLock.readLock().lock();
+    try {
+      factsAdded = addToFactTables(toWrite);
+    } finally {
+      rollupLock.readLock().unlock();
+    }
+
+    incrementMetric("cube.cubeFact.add.request.count", 1);
+    incrementMetric("cube.cubeFact.added.count", facts.size());
+    incrementMetric("cube.tsFact.created.count", toWrite.size());
+    incrementMetric("cube.tsFact.created.dimValues.count", dimValuesCount);
+    incrementMetric("cube.tsFact.added.count", factsAdded);
+  }
+
+  /**
+   * Writes the facts to all resolution tables in parallel.
+   *
+   * @return the total number of facts written
+   */
+  private int addToFactTables(List<Fact> toWrite) {
     Map<Integer, Future<?>> futures = new HashMap<>();
+    int factsAdded = 0;
     for (Map.Entry<Integer, FactTable> table : resolutionToFactTable.entrySet()) {
-      futures.put(table.getKey(), executorService.submit(() -> table.getValue().add(toWrite)));
+      Long checkpoint = getRollupCheckpoint(table.getKey());
+      if (checkpoint == null) {
+        futures.put(table.getKey(), executorService.submit(() -> table.getValue().add(toWrite)));
+        factsAdded += toWrite.size();
+        continue;
+      }
+
+      // Counters newer than the checkpoint will be rolled up from the finer resolution. Gauges are always written
+      // directly since they cannot be rolled up, and facts older than the checkpoint are late for the rollup.
+      List<Fact> current = new ArrayList<>();
+      List<Fact> late = new ArrayList<>();
+      for (Fact fact : toWrite) {
+        if (fact.getTimestamp() < checkpoint) {
+          late.add(fact);
+          continue;
+        }
+        List<Measurement> gauges = new ArrayList<>();
+        for (Measurement measurement : fact.getMeasurements()) {
+          if (measurement.getType() == MeasureType.GAUGE) {
+            gauges.add(measurement);
+          }
+        }
+        if (!gauges.isEmpty()) {
+          current.add(new Fact(fact.getTimestamp(), fact.getDimensionValues(), gauges));
+        }
+      }
+      if (current.isEmpty() && late.isEmpty()) {
+        continue;
+      }
+      futures.put(table.getKey(), executorService.submit(() -> {
+        table.getValue().add(current);
+        table.getValue().addLate(late);
+      }));
+      factsAdded += current.size() + late.size();
     }
 
     boolean failed = false;
@@ -155,12 +254,113 @@ public class DefaultCube implements Cube, MeteredDataset {
     if (failed) {
       throw new RuntimeException(failedMessage.append(".").toString(), failedException);
     }
+    return factsAdded;
+  }
 
-    incrementMetric("cube.cubeFact.add.request.count", 1);
-    incrementMetric("cube.cubeFact.added.count", facts.size());
-    incrementMetric("cube.tsFact.created.count", toWrite.size());
-    incrementMetric("cube.tsFact.created.dimValues.count", dimValuesCount);
-    incrementMetric("cube.tsFact.added.count", toWrite.size() * resolutionToFactTable.size());
+  /**
+   * Rolls up all the closed time windows of the given resolution from its checkpoint up to the given timestamp,
+   * advancing the checkpoint after each window. Nothing is rolled up if the rollup has not started for the resolution,
+   * and a resolution is never rolled up past the checkpoint of the finer resolution it is rolled up from.
+   *
+   * @param resolution the rollup resolution
+   * @param endTs timestamp in seconds, only the windows ending before it are rolled up
+   * @return the number of windows rolled up
+   */
+  public int rollup(int resolution, long endTs) {
+    Integer sourceResolution = rollupSources.get(resolution);
+    Preconditions.checkArgument(sourceResolution != null, "Resolution %s is not a rollup resolution", resolution);
+
+    Long checkpoint = getRollupCheckpoint(resolution);
+    if (checkpoint == null) {
+      return 0;
+    }
+    Long sourceCheckpoint = getRollupCheckpoint(sourceResolution);
+    long rollupEndTs = sourceCheckpoint == null ? endTs : Math.min(endTs, sourceCheckpoint);
+
+    int windows = 0;
+    long windowStart = checkpoint;
+    while (windowStart + resolution <= rollupEndTs) {
+      int batch = (int) Math.min(MAX_ROLLUP_WINDOWS_PER_SCAN, (rollupEndTs - windowStart) / resolution);
+      rollupLock.writeLock().lock();
+      try {
+        rollupWindows(resolution, sourceResolution, windowStart, windowStart + (long) batch * resolution);
+        windowStart += (long) batch * resolution;
+        checkpointStore.saveCheckpoint(resolution, windowStart);
+      } finally {
+        rollupLock.writeLock().unlock();
+      }
+      windows += batch;
+    }
+    incrementMetric("cube.rollup." + resolution + ".windows.count", windows);
+    return windows;
+  }
+
+  /**
+   * Sums up the facts of consecutive time windows in the source resolution into the single bucket of each window in
+   * the rollup resolution, with one scan of each table for all the windows. The sums are written as absolute values,
+   * so rolling up the same windows again is idempotent. Buckets that already exist in the rollup resolution, which
+   * are gauges written directly, are left untouched.
+   *
+   * @param startTs start of the first window, aligned to the rollup resolution
+   * @param endTs end of the last window, exclusive
+   */
+  private void rollupWindows(int resolution, int sourceResolution, long startTs, long endTs) {
+    FactTable sourceTable = resolutionToFactTable.get(sourceResolution);
+    FactTable table = resolutionToFactTable.get(resolution);
+
+    List<Fact> rolledUp = new ArrayList<>();
+    for (Aggregation agg : aggregations.values()) {
+      List<DimensionValue> dimensionValues = new ArrayList<>();
+      for (String dimensionName : agg.getDimensionNames()) {
+        dimensionValues.add(new DimensionValue(dimensionName, null));
+      }
+      FactScan scan = new FactScan(startTs, endTs - 1, Collections.emptyList(), dimensionValues);
+
+      // window start -> (dimension values, measure name) -> sum
+      Map<Long, Map<ImmutablePair<List<DimensionValue>, String>, Long>> sums = new TreeMap<>();
+      // the scanners are closed once they are exhausted
+      FactScanner scanner = sourceTable.scan(scan);
+      while (scanner.hasNext()) {
+        FactScanResult result = scanner.next();
+        ImmutablePair<List<DimensionValue>, String> key =
+          new ImmutablePair<>(result.getDimensionValues(), result.getMeasureName());
+        for (TimeValue timeValue : result) {
+          long windowStart = timeValue.getTimestamp() / resolution * resolution;
+          sums.computeIfAbsent(windowStart, k -> new LinkedHashMap<>()).merge(key, timeValue.getValue(), Long::sum);
+        }
+      }
+      if (sums.isEmpty()) {
+        continue;
+      }
+
+      Set<ImmutablePair<Long, ImmutablePair<List<DimensionValue>, String>>> existing = new HashSet<>();
+      scanner = table.scan(scan);
+      while (scanner.hasNext()) {
+        FactScanResult result = scanner.next();
+        ImmutablePair<List<DimensionValue>, String> key =
+          new ImmutablePair<>(result.getDimensionValues(), result.getMeasureName());
+        for (TimeValue timeValue : result) {
+          existing.add(new ImmutablePair<>(timeValue.getTimestamp(), key));
+        }
+      }
+
+      for (Map.Entry<Long, Map<ImmutablePair<List<DimensionValue>, String>, Long>> window : sums.entrySet()) {
+        for (Map.Entry<ImmutablePair<List<DimensionValue>, String>, Long> sum : window.getValue().entrySet()) {
+          if (!existing.contains(new ImmutablePair<>(window.getKey(), sum.getKey()))) {
+            rolledUp.add(new Fact(window.getKey(), sum.getKey().getFirst(), ImmutableList.of(
+              new Measurement(sum.getKey().getSecond(), MeasureType.GAUGE, sum.getValue()))));
+          }
+        }
+      }
+    }
+    table.add(rolledUp);
+    incrementMetric("cube.rollup." + resolution + ".facts.count", rolledUp.size());
+  }
+
+  @Nullable
+  private Long getRollupCheckpoint(int resolution) {
+    return checkpointStore == null || !rollupSources.containsKey(resolution) ?
+      null : checkpointStore.getCheckpoint(resolution);
   }
 
   @Override
@@ -246,15 +446,21 @@ public class DefaultCube implements Cube, MeteredDataset {
     FactScan scan = new FactScan(query.getStartTs(), query.getEndTs(),
                                  query.getMeasurements().keySet(), dimensionValues);
 
-    // 3) execute scan query
-    FactTable table = resolutionToFactTable.get(query.getResolution());
-    FactScanner scanner = table.scan(scan);
-    Table<Map<String, String>, String, Map<Long, Long>> resultMap = getTimeSeries(query, scanner);
+    // 3) execute scan query, merging in the data not rolled up yet if the resolution is rolled up
+    TimeSeriesAggregator aggregator;
+    Long checkpoint = getRollupCheckpoint(query.getResolution());
+    if (checkpoint == null || checkpoint > query.getEndTs()) {
+      FactTable table = resolutionToFactTable.get(query.getResolution());
+      FactScanner scanner = table.scan(scan);
+      aggregator = aggregate(query, scanner);
+    } else {
+      aggregator = aggregate(query, toScanResults(scanWithRollup(query.getResolution(), scan)));
+    }
 
     incrementMetric("cube.query.request.success.count", 1);
-    incrementMetric("cube.query.result.size", resultMap.size());
+    incrementMetric("cube.query.result.size", aggregator.getSeriesCount());
 
-    Collection<TimeSeries> timeSeries = convertToQueryResult(query, resultMap);
+    Collection<TimeSeries> timeSeries = aggregator.getTimeSeries();
     incrementMetric("cube.query.result.timeseries.count", timeSeries.size());
 
     return timeSeries;
@@ -294,16 +500,25 @@ public class DefaultCube implements Cube, MeteredDataset {
       slice.put(dimensionValue.getName(), dimensionValue.getValue());
     }
 
-    FactTable table = resolutionToFactTable.get(query.getResolution());
+    findDimensionValues(query.getResolution(), slice, query.getStartTs(), query.getEndTs(), result);
+    return result;
+  }
+
+  private void findDimensionValues(int resolution, LinkedHashMap<String, String> slice, long startTs, long endTs,
+                                   Collection<DimensionValue> result) {
+    FactTable table = resolutionToFactTable.get(resolution);
 
     for (Aggregation agg : aggregations.values()) {
       if (agg.getDimensionNames().containsAll(slice.keySet())) {
-        result.addAll(table.findSingleDimensionValue(agg.getDimensionNames(), slice,
-                                                     query.getStartTs(), query.getEndTs()));
+        result.addAll(table.findSingleDimensionValue(agg.getDimensionNames(), slice, startTs, endTs));
       }
     }
 
-    return result;
+    // the dimension values after the rollup checkpoint may only be found in the finer resolution
+    Long checkpoint = getRollupCheckpoint(resolution);
+    if (checkpoint != null && checkpoint <= endTs) {
+      findDimensionValues(rollupSources.get(resolution), slice, Math.max(checkpoint, startTs), endTs, result);
+    }
   }
 
   @Override
@@ -319,15 +534,25 @@ public class DefaultCube implements Cube, MeteredDataset {
       slice.put(dimensionValue.getName(), dimensionValue.getValue());
     }
 
-    FactTable table = resolutionToFactTable.get(query.getResolution());
+    findMeasureNames(query.getResolution(), slice, query.getStartTs(), query.getEndTs(), result);
+    return result;
+  }
+
+  private void findMeasureNames(int resolution, LinkedHashMap<String, String> slice, long startTs, long endTs,
+                                Collection<String> result) {
+    FactTable table = resolutionToFactTable.get(resolution);
 
     for (Aggregation agg : aggregations.values()) {
       if (agg.getDimensionNames().containsAll(slice.keySet())) {
-        result.addAll(table.findMeasureNames(agg.getDimensionNames(), slice, query.getStartTs(), query.getEndTs()));
+        result.addAll(table.findMeasureNames(agg.getDimensionNames(), slice, startTs, endTs));
       }
     }
 
-    return result;
+    // the measures after the rollup checkpoint may only be found in the finer resolution
+    Long checkpoint = getRollupCheckpoint(resolution);
+    if (checkpoint != null && checkpoint <= endTs) {
+      findMeasureNames(rollupSources.get(resolution), slice, Math.max(checkpoint, startTs), endTs, result);
+    }
   }
 
   /**
@@ -368,107 +593,88 @@ public class DefaultCube implements Cube, MeteredDataset {
     return currentBest;
   }
 
-  private Table<Map<String, String>, String, Map<Long, Long>> getTimeSeries(CubeQuery query, FactScanner scanner) {
-    // {dimension values, measure} -> {time -> value}s
-    Table<Map<String, String>, String, Map<Long, Long>> result = HashBasedTable.create();
-
+  /**
+   * Scans the given resolution table and, if the resolution is rolled up, adds the data of the finer resolution after
+   * the rollup checkpoint, summed up into the buckets of the given resolution. Buckets that were already found in the
+   * given resolution are not added, so that a checkpoint that is stale does not cause double counting.
+   */
+  private Map<ImmutablePair<List<DimensionValue>, String>, Map<Long, Long>> scanWithRollup(int resolution,
+                                                                                           FactScan scan) {
+    Map<ImmutablePair<List<DimensionValue>, String>, Map<Long, Long>> result = new LinkedHashMap<>();
     int count = 0;
+    FactScanner scanner = resolutionToFactTable.get(resolution).scan(scan);
     while (scanner.hasNext()) {
       FactScanResult next = scanner.next();
-      incrementMetric("cube.query.scan.records.count", 1);
-
-      boolean skip = false;
-      // using tree map, as we are using it as a key for a map
-      Map<String, String> seriesDimensions = Maps.newTreeMap();
-      for (String dimensionName : query.getGroupByDimensions()) {
-        // todo: use Map<String, String> instead of List<DimensionValue> into a String, String, everywhere
-        for (DimensionValue dimensionValue : next.getDimensionValues()) {
-          if (dimensionName.equals(dimensionValue.getName())) {
-            if (dimensionValue.getValue() == null) {
-              // Currently, we do NOT return null as grouped by value.
-              // Depending on whether dimension is required or not the records with null value in it may or may not be
-              // in aggregation. At this moment, the choosing of the aggregation for query doesn't look at this, so
-              // potentially null may or may not be included in results, depending on the aggregation selected
-              // querying. We don't want to produce inconsistent results varying due to different aggregations selected,
-              // so don't return nulls in any of those cases.
-              skip = true;
-              continue;
-            }
-            seriesDimensions.put(dimensionName, dimensionValue.getValue());
-            break;
-          }
-        }
-      }
-
-      if (skip) {
-        incrementMetric("cube.query.scan.skipped.count", 1);
-        continue;
-      }
-
+      Map<Long, Long> timeValues = result.computeIfAbsent(
+        new ImmutablePair<>(next.getDimensionValues(), next.getMeasureName()), k -> new HashMap<>());
       for (TimeValue timeValue : next) {
-        Map<Long, Long> timeValues = result.get(seriesDimensions, next.getMeasureName());
-        if (timeValues == null) {
-          result.put(seriesDimensions, next.getMeasureName(), Maps.<Long, Long>newHashMap());
-        }
-
-        AggregationFunction function = query.getMeasurements().get(next.getMeasureName());
-        if (AggregationFunction.SUM == function) {
-          Long value =  result.get(seriesDimensions, next.getMeasureName()).get(timeValue.getTimestamp());
-          value = value == null ? 0 : value;
-          value += timeValue.getValue();
-          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), value);
-        } else if (AggregationFunction.MAX == function) {
-          Long value = result.get(seriesDimensions, next.getMeasureName()).get(timeValue.getTimestamp());
-          value = value != null && value > timeValue.getValue() ? value : timeValue.getValue();
-          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), value);
-        } else if (AggregationFunction.MIN == function) {
-          Long value =  result.get(seriesDimensions, next.getMeasureName()).get(timeValue.getTimestamp());
-          value = value != null && value < timeValue.getValue() ? value : timeValue.getValue();
-          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), value);
-        } else if (AggregationFunction.LATEST == function) {
-          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), timeValue.getValue());
-        } else {
-          // should never happen: developer error
-          throw new RuntimeException("Unknown MeasureType: " + function);
-        }
+        timeValues.put(timeValue.getTimestamp(), timeValue.getValue());
       }
       if (++count >= MAX_RECORDS_TO_SCAN) {
+        scanner.close();
         break;
       }
     }
+
+    Long checkpoint = getRollupCheckpoint(resolution);
+    if (checkpoint == null) {
+      return result;
+    }
+    // only the buckets that start within the scan range are returned
+    long startTs = Math.max(checkpoint, (scan.getStartTs() + resolution - 1) / resolution * resolution);
+    if (startTs > scan.getEndTs()) {
+      return result;
+    }
+    FactScan finerScan = new FactScan(startTs, scan.getEndTs(), scan.getMeasureNames(), scan.getDimensionValues());
+    Map<ImmutablePair<List<DimensionValue>, String>, Map<Long, Long>> rolledUp = new HashMap<>();
+    for (Map.Entry<ImmutablePair<List<DimensionValue>, String>, Map<Long, Long>> entry
+      : scanWithRollup(rollupSources.get(resolution), finerScan).entrySet()) {
+      Map<Long, Long> timeValues = rolledUp.computeIfAbsent(entry.getKey(), k -> new HashMap<>());
+      for (Map.Entry<Long, Long> timeValue : entry.getValue().entrySet()) {
+        timeValues.merge(timeValue.getKey() / resolution * resolution, timeValue.getValue(), Long::sum);
+      }
+    }
+    for (Map.Entry<ImmutablePair<List<DimensionValue>, String>, Map<Long, Long>> entry : rolledUp.entrySet()) {
+      Map<Long, Long> timeValues = result.computeIfAbsent(entry.getKey(), k -> new HashMap<>());
+      for (Map.Entry<Long, Long> timeValue : entry.getValue().entrySet()) {
+        timeValues.putIfAbsent(timeValue.getKey(), timeValue.getValue());
+      }
+    }
     return result;
   }
 
-  private Collection<TimeSeries> convertToQueryResult(CubeQuery query,
-                                                      Table<Map<String, String>, String,
-                                                        Map<Long, Long>> resultTable) {
-
-    List<TimeSeries> result = Lists.newArrayList();
-    // iterating each groupValue dimensions
-    for (Map.Entry<Map<String, String>, Map<String, Map<Long, Long>>> row : resultTable.rowMap().entrySet()) {
-      // iterating each measure
-      for (Map.Entry<String, Map<Long, Long>> measureEntry : row.getValue().entrySet()) {
-        // generating time series for a grouping and a measure
-        int count = 0;
-        List<TimeValue> timeValues = Lists.newArrayList();
-        for (Map.Entry<Long, Long> timeValue : measureEntry.getValue().entrySet()) {
-          timeValues.add(new TimeValue(timeValue.getKey(), timeValue.getValue()));
-        }
-        Collections.sort(timeValues);
-        PeekingIterator<TimeValue> timeValueItor = Iterators.peekingIterator(
-          new TimeSeriesInterpolator(timeValues, query.getInterpolator(), query.getResolution()).iterator());
-        List<TimeValue> resultTimeValues = Lists.newArrayList();
-        while (timeValueItor.hasNext()) {
-          TimeValue timeValue = timeValueItor.next();
-          resultTimeValues.add(new TimeValue(timeValue.getTimestamp(), timeValue.getValue()));
-          if (++count >= query.getLimit()) {
-            break;
-          }
-        }
-        result.add(new TimeSeries(measureEntry.getKey(), row.getKey(), resultTimeValues));
+  private Iterator<FactScanResult> toScanResults(
+    Map<ImmutablePair<List<DimensionValue>, String>, Map<Long, Long>> facts) {
+    List<FactScanResult> results = new ArrayList<>();
+    for (Map.Entry<ImmutablePair<List<DimensionValue>, String>, Map<Long, Long>> entry : facts.entrySet()) {
+      List<TimeValue> timeValues = new ArrayList<>();
+      for (Map.Entry<Long, Long> timeValue : entry.getValue().entrySet()) {
+        timeValues.add(new TimeValue(timeValue.getKey(), timeValue.getValue()));
       }
+      results.add(new FactScanResult(entry.getKey().getSecond(), entry.getKey().getFirst(), timeValues));
     }
-    return result;
+    return results.iterator();
+  }
+
+  private TimeSeriesAggregator aggregate(CubeQuery query, Iterator<FactScanResult> scanner) {
+    TimeSeriesAggregator aggregator = new TimeSeriesAggregator(query);
+    int count = 0;
+    int scanned = 0;
+    int skipped = 0;
+    while (scanner.hasNext()) {
+      FactScanResult next = scanner.next();
+      scanned++;
+      if (!aggregator.add(next)) {
+        skipped++;
+        continue;
+      }
+      if (++count >= MAX_RECORDS_TO_SCAN) {
+        break;
+      }
+    }
+    incrementMetric("cube.query.scan.records.count", scanned);
+    incrementMetric("cube.query.scan.skipped.count", skipped);
+    return aggregator;
   }
 
   @Override
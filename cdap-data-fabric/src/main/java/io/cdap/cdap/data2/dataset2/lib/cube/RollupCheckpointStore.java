@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.data2.dataset2.lib.cube;
+
+import javax.annotation.Nullable;
+
+/**
+ * Persists the rollup progress of the {@link DefaultCube} resolutions that are rolled up from a finer resolution.
+ * A checkpoint is the timestamp in seconds before which all the time windows of a resolution have been rolled up.
+ */
+public interface RollupCheckpointStore {
+
+  /**
+   * Returns the rollup checkpoint of the given resolution, or {@code null} if the rollup has not started for it,
+   * in which case all facts are written directly to that resolution.
+   */
+  @Nullable
+  Long getCheckpoint(int resolution);
+
+  /**
+   * Saves the rollup checkpoint of the given resolution.
+   */
+  void saveCheckpoint(int resolution, long timestamp);
+}
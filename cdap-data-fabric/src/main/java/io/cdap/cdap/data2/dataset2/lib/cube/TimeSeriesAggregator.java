@@ -0,0 +1,316 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.data2.dataset2.lib.cube;
+
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
+import io.cdap.cdap.api.dataset.lib.cube.CubeQuery;
+import io.cdap.cdap.api.dataset.lib.cube.DimensionValue;
+import io.cdap.cdap.api.dataset.lib.cube.Interpolator;
+import io.cdap.cdap.api.dataset.lib.cube.TimeSeries;
+import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
+import io.cdap.cdap.data2.dataset2.lib.timeseries.FactScanResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+
+/**
+ * Aggregates {@link FactScanResult}s into the {@link TimeSeries} of a {@link CubeQuery}.
+ *
+ * The group by dimension values and measure name of a scan result are interned into a series, which is only looked up
+ * with a reusable key, and the values of a series are accumulated per timestamp in a primitive open addressing hash
+ * table. Boxed objects are only created for the {@link TimeSeries} returned, after the timestamps of each series are
+ * sorted and interpolated in place.
+ *
+ * This class is not thread safe.
+ */
+public final class TimeSeriesAggregator {
+
+  private final CubeQuery query;
+  private final String[] groupByDimensions;
+  private final Map<SeriesKey, Series> seriesMap;
+  // reused for looking up the series of every scan result
+  private final SeriesKey lookupKey;
+
+  public TimeSeriesAggregator(CubeQuery query) {
+    this.query = query;
+    this.groupByDimensions = query.getGroupByDimensions().toArray(new String[0]);
+    this.seriesMap = new HashMap<>();
+    this.lookupKey = new SeriesKey(new String[groupByDimensions.length]);
+  }
+
+  /**
+   * Adds the time values of the given scan result to the series of its group by dimension values and measure.
+   *
+   * @return {@code false} if the scan result is skipped because it has a {@code null} value in a group by dimension
+   */
+  public boolean add(FactScanResult result) {
+    String[] dimensionValues = lookupKey.dimensionValues;
+    Arrays.fill(dimensionValues, null);
+    for (int i = 0; i < groupByDimensions.length; i++) {
+      for (DimensionValue dimensionValue : result.getDimensionValues()) {
+        if (groupByDimensions[i].equals(dimensionValue.getName())) {
+          // Same as for a query without interning, null is never returned as a grouped by value, otherwise the
+          // results would depend on the aggregation selected for the query.
+          if (dimensionValue.getValue() == null) {
+            return false;
+          }
+          dimensionValues[i] = dimensionValue.getValue();
+          break;
+        }
+      }
+    }
+    lookupKey.setMeasureName(result.getMeasureName());
+
+    // The series is only created with the first time value, since a scan result can have no time values, e.g. when
+    // all the data of a row is before the query start time. No time series is returned for such result.
+    Series series = null;
+    for (TimeValue timeValue : result) {
+      if (series == null) {
+        series = getSeries(result.getMeasureName());
+      }
+      series.add(timeValue.getTimestamp(), timeValue.getValue());
+    }
+    return true;
+  }
+
+  /**
+   * Returns the series of the {@link #lookupKey}, creating it if it doesn't exist.
+   */
+  private Series getSeries(String measureName) {
+    Series series = seriesMap.get(lookupKey);
+    if (series == null) {
+      AggregationFunction function = query.getMeasurements().get(measureName);
+      if (function == null) {
+        // should never happen: developer error
+        throw new RuntimeException("No aggregation function for measure: " + measureName);
+      }
+      SeriesKey key = new SeriesKey(lookupKey.dimensionValues.clone());
+      key.setMeasureName(measureName);
+      series = new Series(function);
+      seriesMap.put(key, series);
+    }
+    return series;
+  }
+
+  /**
+   * Returns the number of series aggregated so far.
+   */
+  public int getSeriesCount() {
+    return seriesMap.size();
+  }
+
+  /**
+   * Returns the aggregated {@link TimeSeries}, with their time values sorted by timestamp, interpolated with the query
+   * interpolator and limited to the query limit.
+   */
+  public Collection<TimeSeries> getTimeSeries() {
+    List<TimeSeries> result = new ArrayList<>(seriesMap.size());
+    for (Map.Entry<SeriesKey, Series> entry : seriesMap.entrySet()) {
+      SeriesKey key = entry.getKey();
+      Map<String, String> dimensionValues = new TreeMap<>();
+      for (int i = 0; i < groupByDimensions.length; i++) {
+        if (key.dimensionValues[i] != null) {
+          dimensionValues.put(groupByDimensions[i], key.dimensionValues[i]);
+        }
+      }
+      result.add(new TimeSeries(key.measureName, dimensionValues,
+                                entry.getValue().toTimeValues(query.getInterpolator(), query.getResolution(),
+                                                              query.getLimit())));
+    }
+    return result;
+  }
+
+  /**
+   * The group by dimension values and measure name of a series. The dimension value of a group by dimension that a
+   * series doesn't have is {@code null}.
+   */
+  private static final class SeriesKey {
+    private final String[] dimensionValues;
+    private String measureName;
+    private int hashCode;
+
+    SeriesKey(String[] dimensionValues) {
+      this.dimensionValues = dimensionValues;
+    }
+
+    void setMeasureName(String measureName) {
+      this.measureName = measureName;
+      this.hashCode = 31 * Arrays.hashCode(dimensionValues) + measureName.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      SeriesKey other = (SeriesKey) o;
+      return hashCode == other.hashCode && measureName.equals(other.measureName)
+        && Arrays.equals(dimensionValues, other.dimensionValues);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /**
+   * The values of a series, aggregated per timestamp in an open addressing hash table with linear probing.
+   */
+  private static final class Series {
+    // timestamps are never negative, hence it is used to mark the empty slots
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final AggregationFunction function;
+    private long[] timestamps;
+    private long[] values;
+    private int size;
+
+    Series(AggregationFunction function) {
+      this.function = function;
+      this.timestamps = newTimestamps(INITIAL_CAPACITY);
+      this.values = new long[INITIAL_CAPACITY];
+    }
+
+    void add(long timestamp, long value) {
+      int slot = findSlot(timestamps, timestamp);
+      if (timestamps[slot] == EMPTY) {
+        timestamps[slot] = timestamp;
+        values[slot] = value;
+        // keep the load factor at most 1/2
+        if (++size * 2 > timestamps.length) {
+          resize();
+        }
+        return;
+      }
+
+      long current = values[slot];
+      switch (function) {
+        case SUM:
+          values[slot] = current + value;
+          break;
+        case MAX:
+          values[slot] = Math.max(current, value);
+          break;
+        case MIN:
+          values[slot] = Math.min(current, value);
+          break;
+        case LATEST:
+          values[slot] = value;
+          break;
+        default:
+          // should never happen: developer error
+          throw new RuntimeException("Unknown MeasureType: " + function);
+      }
+    }
+
+    List<TimeValue> toTimeValues(@Nullable Interpolator interpolator, int resolution, int limit) {
+      // compact the timestamps in place and sort them, the values are looked up after the sort
+      long[] sorted = new long[size];
+      int count = 0;
+      for (long timestamp : timestamps) {
+        if (timestamp != EMPTY) {
+          sorted[count++] = timestamp;
+        }
+      }
+      Arrays.sort(sorted);
+
+      List<TimeValue> result = new ArrayList<>(Math.max(1, Math.min(size, limit)));
+      if (size == 0) {
+        return result;
+      }
+
+      // Same as the TimeSeries interpolation: data points are returned as is, and with an interpolator, the gaps
+      // between two data points are filled at the resolution interval.
+      int next = 0;
+      long currentTs = sorted[0];
+      TimeValue before = null;
+      TimeValue after = null;
+      while (next < size) {
+        long value = 0;
+        if (sorted[next] == currentTs) {
+          value = values[findSlot(timestamps, currentTs)];
+          next++;
+        } else if (interpolator != null && next > 0) {
+          // only creates the boundary points once per gap
+          if (after == null || after.getTimestamp() != sorted[next]) {
+            before = new TimeValue(sorted[next - 1], values[findSlot(timestamps, sorted[next - 1])]);
+            after = new TimeValue(sorted[next], values[findSlot(timestamps, sorted[next])]);
+          }
+          value = interpolator.interpolate(before, after, currentTs);
+        }
+        result.add(new TimeValue(currentTs, value));
+        if (result.size() >= limit) {
+          break;
+        }
+        if (next < size) {
+          currentTs = interpolator == null ? sorted[next] : currentTs + resolution;
+        }
+      }
+      return result;
+    }
+
+    private void resize() {
+      long[] oldTimestamps = timestamps;
+      long[] oldValues = values;
+      timestamps = newTimestamps(oldTimestamps.length * 2);
+      values = new long[timestamps.length];
+      for (int i = 0; i < oldTimestamps.length; i++) {
+        if (oldTimestamps[i] != EMPTY) {
+          int slot = findSlot(timestamps, oldTimestamps[i]);
+          timestamps[slot] = oldTimestamps[i];
+          values[slot] = oldValues[i];
+        }
+      }
+    }
+
+    /**
+     * Returns the slot of the given timestamp, or the empty slot where it should be inserted.
+     */
+    private static int findSlot(long[] timestamps, long timestamp) {
+      int mask = timestamps.length - 1;
+      int slot = mix(timestamp) & mask;
+      while (timestamps[slot] != EMPTY && timestamps[slot] != timestamp) {
+        slot = (slot + 1) & mask;
+      }
+      return slot;
+    }
+
+    private static int mix(long timestamp) {
+      // timestamps are usually multiples of the resolution, spread them over the table
+      long hash = timestamp * 0x9E3779B97F4A7C15L;
+      return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static long[] newTimestamps(int capacity) {
+      long[] timestamps = new long[capacity];
+      Arrays.fill(timestamps, EMPTY);
+      return timestamps;
+    }
+  }
+}
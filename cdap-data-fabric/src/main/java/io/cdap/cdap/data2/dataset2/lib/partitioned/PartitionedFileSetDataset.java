@@ -62,14 +62,17 @@ import io.cdap.cdap.api.dataset.lib.Partitioning.FieldType;
 import io.cdap.cdap.api.dataset.lib.partitioned.PartitionKeyCodec;
 import io.cdap.cdap.api.dataset.table.Put;
 import io.cdap.cdap.api.dataset.table.Row;
+import io.cdap.cdap.api.dataset.table.Scan;
 import io.cdap.cdap.api.dataset.table.Scanner;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.io.Locations;
 import io.cdap.cdap.common.logging.LogSamplers;
 import io.cdap.cdap.common.logging.Loggers;
+import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.data.RuntimeProgramContext;
 import io.cdap.cdap.data.RuntimeProgramContextAware;
 import io.cdap.cdap.data2.dataset2.lib.file.FileSetDataset;
+import io.cdap.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import io.cdap.cdap.explore.client.ExploreFacade;
 import io.cdap.cdap.proto.id.DatasetId;
 import org.apache.tephra.Transaction;
@@ -81,6 +84,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -107,6 +111,8 @@ public class PartitionedFileSetDataset extends AbstractDataset
   private static final Gson GSON =
     new GsonBuilder().registerTypeAdapter(PartitionKey.class, new PartitionKeyCodec()).create();
   private static final String QUARANTINE_DIR = ".quarantine";
+  // upper bound for the number of fuzzy keys that a partition filter is compiled into
+  private static final int MAX_FUZZY_KEYS = 64;
 
   // A function to convert PartitionOperation into PartitionKey by getting the key from the operation.
   private static final Function<PartitionOperation, PartitionKey> OP_TO_KEY =
@@ -765,7 +771,10 @@ public class PartitionedFileSetDataset extends AbstractDataset
   private void getPartitions(@Nullable PartitionFilter filter, PartitionConsumer consumer, boolean decodeMetadata,
                              @Nullable byte[] startKey, @Nullable byte[] endKey, long limit) {
     long count = 0L;
-    try (Scanner scanner = partitionsTable.scan(startKey, endKey)) {
+    // the fuzzy row filter is evaluated by the table and may return a superset of the matching partitions,
+    // hence every returned row is still matched against the partition filter below
+    FuzzyRowFilter fuzzyRowFilter = generateFuzzyRowFilter(filter, partitioning);
+    try (Scanner scanner = partitionsTable.scan(new Scan(startKey, endKey, fuzzyRowFilter))) {
       while (count < limit) {
         Row row = scanner.next();
         if (row == null) {
@@ -1306,6 +1315,112 @@ public class PartitionedFileSetDataset extends AbstractDataset
     return stopKey;
   }
 
+  /**
+   * Compiles the conditions of a partition filter into a {@link FuzzyRowFilter} that the partitions table can
+   * evaluate during the scan. Single-value conditions become fixed bytes in the fuzzy key, and range conditions on
+   * integer and long fields are expanded into one fuzzy key per value, as long as the total number of fuzzy keys
+   * does not exceed {@link #MAX_FUZZY_KEYS}. Fields without such a condition are wildcards, as long as their length
+   * is known; since the length of a string value is variable, no field following an unconstrained string field can
+   * be included.
+   *
+   * @return the fuzzy row filter, or null if the filter has no condition that narrows the scan beyond the leading
+   *         fields that are already covered by the start and stop key of the scan.
+   */
+  @Nullable
+  @VisibleForTesting
+  static FuzzyRowFilter generateFuzzyRowFilter(@Nullable PartitionFilter filter, Partitioning partitioning) {
+    if (filter == null || filter.getConditions().isEmpty()) {
+      return null;
+    }
+    List<byte[]> keys = Collections.singletonList(new byte[0]);
+    byte[] mask = new byte[0];
+    boolean leading = true;
+    boolean narrowsScan = false;
+    int fieldsRemaining = partitioning.getFields().size();
+    for (Map.Entry<String, FieldType> entry : partitioning.getFields().entrySet()) {
+      FieldType fieldType = entry.getValue();
+      List<byte[]> values = fuzzyValuesForCondition(filter.getCondition(entry.getKey()), fieldType,
+                                                    MAX_FUZZY_KEYS / keys.size());
+      // every field but the last one is followed by a \0 separator, which is always fixed
+      int separator = --fieldsRemaining > 0 ? 1 : 0;
+      if (values != null) {
+        int length = values.get(0).length;
+        List<byte[]> expandedKeys = new ArrayList<>(keys.size() * values.size());
+        for (byte[] key : keys) {
+          for (byte[] value : values) {
+            expandedKeys.add(Bytes.add(key, value, new byte[separator]));
+          }
+        }
+        keys = expandedKeys;
+        mask = Bytes.add(mask, new byte[length + separator]);
+        // leading single-value conditions are already part of the start and stop key
+        narrowsScan = narrowsScan || !leading;
+        leading = leading && values.size() == 1;
+        continue;
+      }
+      leading = false;
+      if (fieldType == FieldType.STRING) {
+        break;
+      }
+      int length = FieldTypes.determineLengthInBytes(Bytes.EMPTY_BYTE_ARRAY, 0, fieldType);
+      List<byte[]> expandedKeys = new ArrayList<>(keys.size());
+      for (byte[] key : keys) {
+        expandedKeys.add(Bytes.add(key, new byte[length + separator]));
+      }
+      keys = expandedKeys;
+      byte[] wildcard = new byte[length + separator];
+      Arrays.fill(wildcard, 0, length, (byte) 1);
+      mask = Bytes.add(mask, wildcard);
+    }
+    if (!narrowsScan) {
+      return null;
+    }
+    List<ImmutablePair<byte[], byte[]>> fuzzyKeys = new ArrayList<>(keys.size());
+    for (byte[] key : keys) {
+      fuzzyKeys.add(ImmutablePair.of(key, mask));
+    }
+    return new FuzzyRowFilter(fuzzyKeys);
+  }
+
+  /**
+   * Returns the serialized values that a field can have to match a condition, or null if the condition cannot be
+   * expressed as a small set of values of the field's type.
+   */
+  @Nullable
+  private static List<byte[]> fuzzyValuesForCondition(
+    @Nullable PartitionFilter.Condition<? extends Comparable> condition, FieldType fieldType, int maxValues) {
+    if (condition == null) {
+      return null;
+    }
+    try {
+      if (condition.isSingleValue()) {
+        fieldType.validate(condition.getValue());
+        return Collections.singletonList(FieldTypes.toBytes(condition.getValue(), fieldType));
+      }
+      if (fieldType == FieldType.STRING || condition.getLower() == null || condition.getUpper() == null) {
+        return null;
+      }
+      fieldType.validate(condition.getLower());
+      fieldType.validate(condition.getUpper());
+    } catch (IllegalArgumentException e) {
+      // leave it to the partition filter to report the incompatible value
+      return null;
+    }
+    long lower = ((Number) condition.getLower()).longValue();
+    long upper = ((Number) condition.getUpper()).longValue();
+    // the upper bound is exclusive
+    // the difference can overflow for very wide long ranges
+    if (lower >= upper || upper - lower < 0 || upper - lower > maxValues) {
+      return null;
+    }
+    List<byte[]> values = new ArrayList<>((int) (upper - lower));
+    for (long value = lower; value < upper; value++) {
+      values.add(fieldType == FieldType.INT
+                   ? FieldTypes.toBytes((int) value, fieldType) : FieldTypes.toBytes(value, fieldType));
+    }
+    return values;
+  }
+
   @VisibleForTesting
   static PartitionKey parseRowKey(byte[] rowKey, Partitioning partitioning) {
     PartitionKey.Builder builder = PartitionKey.builder();
@@ -152,7 +152,7 @@ public class TimePartitionedFileSetDataset extends PartitionedFileSetDataset imp
         public void consume(PartitionKey key, String path, @Nullable PartitionMetadata metadata) {
           partitionKeys.add(key);
         }
-      });
+      }, false);
     }
     return partitionKeys;
   }
@@ -125,8 +125,9 @@ public final class FactScanner implements Iterator<FactScanResult> {
             timeValues.add(timeValue);
           }
 
+          // rows of other dimension values in the same timebase may still have data in the time range
           if (timeValues.isEmpty() && exhausted) {
-            break;
+            continue;
           }
 
           // todo: can return empty list, if all data is < startTs or > endTs
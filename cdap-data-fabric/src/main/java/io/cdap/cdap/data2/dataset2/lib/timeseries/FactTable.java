@@ -114,6 +114,18 @@ public final class FactTable implements Closeable {
   }
 
   public void add(List<Fact> facts) {
+    add(facts, factCounterCache);
+  }
+
+  /**
+   * Adds facts that may fall into time buckets which were already written as a whole, e.g. by a rollup. Unlike
+   * {@link #add(List)}, counters are always written as increments.
+   */
+  public void addLate(List<Fact> facts) {
+    add(facts, null);
+  }
+
+  private void add(List<Fact> facts, @Nullable Cache<FactCacheKey, Long> counterCache) {
     // Simply collecting all rows/cols/values that need to be put to the underlying table.
     NavigableMap<byte[], NavigableMap<byte[], Long>> gaugesTable = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
     NavigableMap<byte[], NavigableMap<byte[], Long>> incrementsTable = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
@@ -129,11 +141,11 @@ public final class FactTable implements Closeable {
         byte[] column = codec.createColumn(fact.getTimestamp());
 
         if (MeasureType.COUNTER == measurement.getType()) {
-          if (factCounterCache != null) {
+          if (counterCache != null) {
             // round to the resolution timestamp
             long tsToResolution = fact.getTimestamp() / resolution * resolution;
             FactCacheKey cacheKey = new FactCacheKey(fact.getDimensionValues(), measurement.getName());
-            Long existingTs = factCounterCache.getIfPresent(cacheKey);
+            Long existingTs = counterCache.getIfPresent(cacheKey);
 
             // if there is no existing ts or existing ts is greater than or equal to the current ts, this metric value
             // cannot be considered as a gauge, and we should update the incrementsTable
@@ -162,9 +174,9 @@ public final class FactTable implements Closeable {
       }
     }
 
-    if (factCounterCache != null) {
+    if (counterCache != null) {
       gaugesTable.putAll(incGaugeTable);
-      factCounterCache.putAll(cacheUpdates);
+      counterCache.putAll(cacheUpdates);
     }
     // todo: replace with single call, to be able to optimize rpcs in underlying table
     timeSeriesTable.put(gaugesTable);
@@ -45,6 +45,7 @@ import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A metadata storage that delegates to another storage implementation
@@ -152,9 +153,13 @@ public class AuditMetadataStorage implements MetadataStorage {
 
   @Override
   public SearchResponse search(SearchRequest request) throws IOException {
+    long startTime = System.nanoTime();
     try {
       SearchResponse result = storage.search(request);
       emitMetrics("search.count");
+      metricsCollectionService.getContext(Constants.Metrics.STORAGE_METRICS_TAGS)
+        .record(Constants.Metrics.MetadataStorage.METRICS_PREFIX + "search.latency.ms",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
       return result;
     } catch (Exception e) {
       emitMetrics("search.error");
@@ -690,10 +690,48 @@ public class MetadataDataset extends AbstractDataset {
   }
 
   private SearchResults searchByDefaultIndex(SearchRequest request) {
-    List<MetadataEntry> results = new LinkedList<>();
-    String column = request.isNamespaced() ?
+    List<MetadataEntry> results = new ArrayList<>();
+    String column = getDefaultIndexColumn(request);
+    scanDefaultIndex(request, column, row -> parseRow(row, column, request.getTypes(), request.shouldShowHidden())
+      .ifPresent(results::add));
+
+    // cursors are currently not supported for default indexes
+    return new SearchResults(results, Collections.emptyList());
+  }
+
+  /**
+   * Searches entities that match the specified search query through the default index, and passes the entity of
+   * every match to the given consumer, without materializing the matching {@link MetadataEntry metadata entries}.
+   * An entity is passed once for every index value that matches, such that the number of times it is passed can
+   * be used as its score. Sort info, offset, limit and cursors of the request are ignored.
+   *
+   * @param request the search request
+   * @param consumer the consumer for the entities of all matches
+   */
+  public void searchEntitiesByDefaultIndex(SearchRequest request, Consumer<MetadataEntity> consumer) {
+    String column = getDefaultIndexColumn(request);
+    // many index values can point to the same metadata value, which needs to be read only once
+    Map<ImmutablePair<MetadataEntity, String>, Boolean> valueExists = new HashMap<>();
+    scanDefaultIndex(request, column, row -> {
+      Optional<MetadataEntity> metadataEntity =
+        parseEntity(row, column, request.getTypes(), request.shouldShowHidden());
+      if (!metadataEntity.isPresent()) {
+        return;
+      }
+      String key = MetadataKey.extractMetadataKey(row.getRow());
+      if (valueExists.computeIfAbsent(ImmutablePair.of(metadataEntity.get(), key),
+                                      entityAndKey -> getMetadata(entityAndKey.getFirst(), key) != null)) {
+        consumer.accept(metadataEntity.get());
+      }
+    });
+  }
+
+  private String getDefaultIndexColumn(SearchRequest request) {
+    return request.isNamespaced() ?
       DEFAULT_INDEX_COLUMN.getColumn() : DEFAULT_INDEX_COLUMN.getCrossNamespaceColumn();
+  }
 
+  private void scanDefaultIndex(SearchRequest request, String column, Consumer<Row> rowConsumer) {
     for (SearchTerm searchTerm : getSearchTerms(request)) {
       Scanner scanner;
       if (searchTerm.isPrefix()) {
@@ -709,17 +747,12 @@ public class MetadataDataset extends AbstractDataset {
       try {
         Row next;
         while ((next = scanner.next()) != null) {
-          Optional<MetadataEntry> metadataEntry = parseRow(next, column, request.getTypes(),
-                                                           request.shouldShowHidden());
-          metadataEntry.ifPresent(results::add);
+          rowConsumer.accept(next);
         }
       } finally {
         scanner.close();
       }
     }
-
-    // cursors are currently not supported for default indexes
-    return new SearchResults(results, Collections.emptyList());
   }
 
   private SearchResults searchByCustomIndex(SearchRequest request) throws BadRequestException {
@@ -789,6 +822,17 @@ public class MetadataDataset extends AbstractDataset {
   // so return an Optional
   private Optional<MetadataEntry> parseRow(Row rowToProcess, String indexColumn,
                                            Set<String> entityFilter, boolean showHidden) {
+    Optional<MetadataEntity> metadataEntity = parseEntity(rowToProcess, indexColumn, entityFilter, showHidden);
+    if (!metadataEntity.isPresent()) {
+      return Optional.empty();
+    }
+    String key = MetadataKey.extractMetadataKey(rowToProcess.getRow());
+    MetadataEntry entry = getMetadata(metadataEntity.get(), key);
+    return Optional.ofNullable(entry);
+  }
+
+  private Optional<MetadataEntity> parseEntity(Row rowToProcess, String indexColumn,
+                                               Set<String> entityFilter, boolean showHidden) {
     String rowValue = rowToProcess.getString(indexColumn);
     if (rowValue == null) {
       return Optional.empty();
@@ -813,10 +857,7 @@ public class MetadataDataset extends AbstractDataset {
     } catch (IllegalArgumentException e) {
       // ignore. For custom entities we don't really want to hide them if they start with _
     }
-
-    String key = MetadataKey.extractMetadataKey(rowKey);
-    MetadataEntry entry = getMetadata(metadataEntity, key);
-    return Optional.ofNullable(entry);
+    return Optional.of(metadataEntity);
   }
 
   /**
@@ -19,6 +19,7 @@ package io.cdap.cdap.data2.metadata.lineage;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.proto.ProgramType;
@@ -40,6 +41,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -52,6 +54,7 @@ import java.util.function.Predicate;
 public class LineageTable {
 
   private static final Logger LOG = LoggerFactory.getLogger(LineageTable.class);
+  private static final int MAX_RANGES_PER_SCAN = 100;
 
   private final StructuredTableContext structuredTableContext;
   private StructuredTable datasetTable;
@@ -173,6 +176,46 @@ public class LineageTable {
                          filter);
   }
 
+  /**
+   * Fetch program-dataset access information for a set of datasets for a given period.
+   * The datasets are read with multi-range scans instead of one scan per dataset.
+   *
+   * @param datasetInstances datasets for which to fetch access information
+   * @param start start time period
+   * @param end end time period
+   * @param filter filter to be applied on result set
+   * @return program-dataset access information of all the given datasets
+   */
+  public Set<Relation> getDatasetRelations(Collection<DatasetId> datasetInstances, long start, long end,
+                                           Predicate<Relation> filter) throws IOException {
+    List<Range> ranges = new ArrayList<>(datasetInstances.size());
+    for (DatasetId datasetInstance : datasetInstances) {
+      ranges.add(Range.create(getDatasetScanStartKey(datasetInstance, end), Range.Bound.INCLUSIVE,
+                              getDatasetScanEndKey(datasetInstance, start), Range.Bound.INCLUSIVE));
+    }
+    return multiScanRelations(getDatasetTable(), ranges, filter);
+  }
+
+  /**
+   * Fetch program-dataset access information for a set of programs for a given period.
+   * The programs are read with multi-range scans instead of one scan per program.
+   *
+   * @param programs programs for which to fetch access information
+   * @param start start time period
+   * @param end end time period
+   * @param filter filter to be applied on result set
+   * @return program-dataset access information of all the given programs
+   */
+  public Set<Relation> getProgramRelations(Collection<ProgramId> programs, long start, long end,
+                                           Predicate<Relation> filter) throws IOException {
+    List<Range> ranges = new ArrayList<>(programs.size());
+    for (ProgramId program : programs) {
+      ranges.add(Range.create(getProgramScanStartKey(program, end), Range.Bound.INCLUSIVE,
+                              getProgramScanEndKey(program, start), Range.Bound.INCLUSIVE));
+    }
+    return multiScanRelations(getProgramTable(), ranges, filter);
+  }
+
   /**
    * @return a set of access times (for program and data it accesses) associated with a program run.
    */
@@ -208,6 +251,23 @@ public class LineageTable {
     return builder.build();
   }
 
+  private Set<Relation> multiScanRelations(StructuredTable table, List<Range> ranges,
+                                           Predicate<Relation> filter) throws IOException {
+    ImmutableSet.Builder<Relation> builder = ImmutableSet.builder();
+    // Bound the number of ranges per scan so that a large frontier does not turn into a single huge request
+    for (List<Range> batch : Lists.partition(ranges, MAX_RANGES_PER_SCAN)) {
+      try (CloseableIterator<StructuredRow> iterator = table.multiScan(batch, Integer.MAX_VALUE)) {
+        while (iterator.hasNext()) {
+          Relation relation = toRelation(iterator.next());
+          if (filter.test(relation)) {
+            builder.add(relation);
+          }
+        }
+      }
+    }
+    return builder.build();
+  }
+
   private List<Field<?>> getDatasetKey(DatasetId datasetInstance, ProgramRunId run, AccessType accessType) {
     List<Field<?>> fields = new ArrayList<>();
     addDataset(fields, datasetInstance);
@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.metadata.lineage;
+
+import com.google.inject.Singleton;
+import io.cdap.cdap.proto.id.NamespacedEntityId;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tracks generation numbers of the lineage recorded in the {@link LineageTable} by this process, so that
+ * lineage relations read for a dataset or program at an earlier generation can be recognized as stale.
+ * Writers should call {@link #lineageWritten(NamespacedEntityId)} for both the dataset and the program of an access
+ * after the lineage write has been committed.
+ *
+ * Generations are kept in a fixed number of stripes selected by the entity hash, so that the memory used does not
+ * grow with the number of entities. Entities sharing a stripe share a generation, which can only cause
+ * unnecessary invalidations.
+ */
+@Singleton
+public class LineageWriteTracker {
+
+  private static final int STRIPES = 4096;
+
+  private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+  /**
+   * Records that new lineage has been written for the given dataset or program.
+   */
+  public void lineageWritten(NamespacedEntityId entity) {
+    generations.incrementAndGet(getStripe(entity));
+  }
+
+  /**
+   * @return the current lineage generation of the given dataset or program, which changes every time new lineage
+   *         is written for it
+   */
+  public long getGeneration(NamespacedEntityId entity) {
+    return generations.get(getStripe(entity));
+  }
+
+  private int getStripe(NamespacedEntityId entity) {
+    return (entity.hashCode() & Integer.MAX_VALUE) % STRIPES;
+  }
+}
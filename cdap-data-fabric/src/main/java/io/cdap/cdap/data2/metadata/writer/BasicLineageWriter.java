@@ -20,6 +20,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.Inject;
 import io.cdap.cdap.data2.metadata.lineage.AccessType;
 import io.cdap.cdap.data2.metadata.lineage.LineageTable;
+import io.cdap.cdap.data2.metadata.lineage.LineageWriteTracker;
 import io.cdap.cdap.data2.metadata.lineage.field.FieldLineageInfo;
 import io.cdap.cdap.data2.metadata.lineage.field.FieldLineageTable;
 import io.cdap.cdap.proto.id.DatasetId;
@@ -42,11 +43,13 @@ public class BasicLineageWriter implements LineageWriter, FieldLineageWriter {
   private static final Logger LOG = LoggerFactory.getLogger(BasicLineageWriter.class);
 
   private final TransactionRunner transactionRunner;
+  private final LineageWriteTracker lineageWriteTracker;
 
   @VisibleForTesting
   @Inject
-  public BasicLineageWriter(TransactionRunner transactionRunner) {
+  public BasicLineageWriter(TransactionRunner transactionRunner, LineageWriteTracker lineageWriteTracker) {
     this.transactionRunner = transactionRunner;
+    this.lineageWriteTracker = lineageWriteTracker;
   }
 
   @Override
@@ -61,6 +64,8 @@ public class BasicLineageWriter implements LineageWriter, FieldLineageWriter {
         .create(context)
         .addAccess(run, datasetId, accessType, accessTime);
     });
+    lineageWriteTracker.lineageWritten(run.getParent());
+    lineageWriteTracker.lineageWritten(datasetId);
   }
 
   @Override
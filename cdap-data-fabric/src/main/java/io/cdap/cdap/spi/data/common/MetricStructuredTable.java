@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.spi.data.common;
 
+import io.cdap.cdap.api.dataset.lib.AbstractCloseableIterator;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.api.metrics.MetricsCollector;
 import io.cdap.cdap.common.conf.Constants;
@@ -66,6 +67,25 @@ public class MetricStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public void multiUpsert(Collection<? extends Collection<Field<?>>> multiFields)
+    throws InvalidFieldException, IOException {
+    try {
+      if (!emitTimeMetrics) {
+        structuredTable.multiUpsert(multiFields);
+      } else {
+        long curTime = System.nanoTime();
+        structuredTable.multiUpsert(multiFields);
+        long duration = System.nanoTime() - curTime;
+        metricsCollector.increment(metricPrefix + "multiUpsert.time", duration);
+      }
+      metricsCollector.increment(metricPrefix + "multiUpsert.count", 1L);
+    } catch (Exception e) {
+      metricsCollector.increment(metricPrefix + "multiUpsert.error", 1L);
+      throw e;
+    }
+  }
+
   @Override
   public Optional<StructuredRow> read(Collection<Field<?>> keys) throws InvalidFieldException, IOException {
     try {
@@ -107,6 +127,27 @@ public class MetricStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public Collection<StructuredRow> multiRead(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException, IOException {
+    try {
+      Collection<StructuredRow> result;
+      if (!emitTimeMetrics) {
+        result = structuredTable.multiRead(multiKeys);
+      } else {
+        long curTime = System.nanoTime();
+        result = structuredTable.multiRead(multiKeys);
+        long duration = System.nanoTime() - curTime;
+        metricsCollector.increment(metricPrefix + "multiRead.time", duration);
+      }
+      metricsCollector.increment(metricPrefix + "multiRead.count", 1L);
+      return result;
+    } catch (Exception e) {
+      metricsCollector.increment(metricPrefix + "multiRead.error", 1L);
+      throw e;
+    }
+  }
+
   @Override
   public CloseableIterator<StructuredRow> scan(Range keyRange, int limit) throws InvalidFieldException, IOException {
     try {
@@ -120,13 +161,34 @@ public class MetricStructuredTable implements StructuredTable {
         metricsCollector.increment(metricPrefix + "scan.time", duration);
       }
       metricsCollector.increment(metricPrefix + "scan.count", 1L);
-      return result;
+      return new RowCountingIterator(result, metricPrefix + "scan.rows");
     } catch (Exception e) {
       metricsCollector.increment(metricPrefix + "scan.error", 1L);
       throw e;
     }
   }
 
+  @Override
+  public CloseableIterator<StructuredRow> multiScan(Collection<Range> keyRanges,
+                                                    int limit) throws InvalidFieldException, IOException {
+    try {
+      CloseableIterator<StructuredRow> result;
+      if (!emitTimeMetrics) {
+        result = structuredTable.multiScan(keyRanges, limit);
+      } else {
+        long curTime = System.nanoTime();
+        result = structuredTable.multiScan(keyRanges, limit);
+        long duration = System.nanoTime() - curTime;
+        metricsCollector.increment(metricPrefix + "multiScan.time", duration);
+      }
+      metricsCollector.increment(metricPrefix + "multiScan.count", 1L);
+      return new RowCountingIterator(result, metricPrefix + "multiScan.rows");
+    } catch (Exception e) {
+      metricsCollector.increment(metricPrefix + "multiScan.error", 1L);
+      throw e;
+    }
+  }
+
   @Override
   public CloseableIterator<StructuredRow> scan(Field<?> index) throws InvalidFieldException, IOException {
     try {
@@ -140,7 +202,7 @@ public class MetricStructuredTable implements StructuredTable {
         metricsCollector.increment(metricPrefix + "index.scan.time", duration);
       }
       metricsCollector.increment(metricPrefix + "index.scan.count", 1L);
-      return result;
+      return new RowCountingIterator(result, metricPrefix + "index.scan.rows");
     } catch (Exception e) {
       metricsCollector.increment(metricPrefix + "index.scan.error", 1L);
       throw e;
@@ -205,6 +267,25 @@ public class MetricStructuredTable implements StructuredTable {
     }
   }
 
+  @Override
+  public void multiDelete(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException, IOException {
+    try {
+      if (!emitTimeMetrics) {
+        structuredTable.multiDelete(multiKeys);
+      } else {
+        long curTime = System.nanoTime();
+        structuredTable.multiDelete(multiKeys);
+        long duration = System.nanoTime() - curTime;
+        metricsCollector.increment(metricPrefix + "multiDelete.time", duration);
+      }
+      metricsCollector.increment(metricPrefix + "multiDelete.count", 1L);
+    } catch (Exception e) {
+      metricsCollector.increment(metricPrefix + "multiDelete.error", 1L);
+      throw e;
+    }
+  }
+
   @Override
   public void deleteAll(Range keyRange) throws InvalidFieldException, IOException {
     try {
@@ -227,4 +308,39 @@ public class MetricStructuredTable implements StructuredTable {
   public void close() throws IOException {
     structuredTable.close();
   }
+
+  /**
+   * A {@link CloseableIterator} that counts the rows returned from a scan and emits the count when it is closed.
+   */
+  private final class RowCountingIterator extends AbstractCloseableIterator<StructuredRow> {
+    private final CloseableIterator<StructuredRow> iterator;
+    private final String metricName;
+    private long rows;
+
+    private RowCountingIterator(CloseableIterator<StructuredRow> iterator, String metricName) {
+      this.iterator = iterator;
+      this.metricName = metricName;
+    }
+
+    @Override
+    protected StructuredRow computeNext() {
+      if (!iterator.hasNext()) {
+        return endOfData();
+      }
+      rows++;
+      return iterator.next();
+    }
+
+    @Override
+    public void close() {
+      try {
+        iterator.close();
+      } finally {
+        if (rows > 0) {
+          metricsCollector.increment(metricName, rows);
+          rows = 0;
+        }
+      }
+    }
+  }
 }
@@ -21,6 +21,7 @@ import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.lib.AbstractCloseableIterator;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.api.dataset.lib.IndexedTable;
+import io.cdap.cdap.api.dataset.table.Get;
 import io.cdap.cdap.api.dataset.table.Put;
 import io.cdap.cdap.api.dataset.table.Row;
 import io.cdap.cdap.api.dataset.table.Scanner;
@@ -37,11 +38,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 /**
  * Nosql structured table implementation. This table will prepend the table name as the prefix for each row key.
@@ -67,6 +72,20 @@ public final class NoSqlStructuredTable implements StructuredTable {
     table.put(convertFieldsToBytes(fields));
   }
 
+  @Override
+  public void multiUpsert(Collection<? extends Collection<Field<?>>> multiFields) throws InvalidFieldException {
+    LOG.trace("Table {}: Write multiple fields {}", schema.getTableId(), multiFields);
+    // Convert all fields before writing so that invalid fields won't result in partial writes.
+    // Writes are buffered by the transaction and flushed to the underlying table in batch on commit.
+    List<Put> puts = new ArrayList<>(multiFields.size());
+    for (Collection<Field<?>> fields : multiFields) {
+      puts.add(convertFieldsToBytes(fields));
+    }
+    for (Put put : puts) {
+      table.put(put);
+    }
+  }
+
   @Override
   public Optional<StructuredRow> read(Collection<Field<?>> keys) throws InvalidFieldException {
     LOG.trace("Table {}: Read with keys {}", schema.getTableId(), keys);
@@ -86,12 +105,49 @@ public final class NoSqlStructuredTable implements StructuredTable {
     return row.isEmpty() ? Optional.empty() : Optional.of(new NoSqlStructuredRow(row, schema));
   }
 
+  @Override
+  public Collection<StructuredRow> multiRead(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException {
+    LOG.trace("Table {}: Read with multiple keys {}", schema.getTableId(), multiKeys);
+    List<Get> gets = new ArrayList<>(multiKeys.size());
+    for (Collection<Field<?>> keys : multiKeys) {
+      gets.add(new Get(convertKeyToBytes(keys, false)));
+    }
+
+    List<StructuredRow> result = new ArrayList<>(gets.size());
+    for (Row row : table.get(gets)) {
+      if (!row.isEmpty()) {
+        result.add(new NoSqlStructuredRow(row, schema));
+      }
+    }
+    return result;
+  }
+
   @Override
   public CloseableIterator<StructuredRow> scan(Range keyRange, int limit) throws InvalidFieldException {
     LOG.trace("Table {}: Scan range {} with limit {}", schema.getTableId(), keyRange, limit);
     return new LimitIterator(new ScannerIterator(getScanner(keyRange), schema), limit);
   }
 
+  @Override
+  public CloseableIterator<StructuredRow> multiScan(Collection<Range> keyRanges,
+                                                    int limit) throws InvalidFieldException {
+    LOG.trace("Table {}: Scan ranges {} with limit {}", schema.getTableId(), keyRanges, limit);
+    if (keyRanges.size() == 1) {
+      return scan(keyRanges.iterator().next(), limit);
+    }
+    List<Scanner> scanners = new ArrayList<>(keyRanges.size());
+    try {
+      for (Range keyRange : keyRanges) {
+        scanners.add(getScanner(keyRange));
+      }
+    } catch (RuntimeException e) {
+      scanners.forEach(Scanner::close);
+      throw e;
+    }
+    return new LimitIterator(new ScannerIterator(new MergeScanner(scanners), schema), limit);
+  }
+
   @Override
   public CloseableIterator<StructuredRow> scan(Field<?> index) throws InvalidFieldException {
     LOG.trace("Table {}: Scan index {}", schema.getTableId(), index);
@@ -152,6 +208,18 @@ public final class NoSqlStructuredTable implements StructuredTable {
     table.delete(convertKeyToBytes(keys, false));
   }
 
+  @Override
+  public void multiDelete(Collection<? extends Collection<Field<?>>> multiKeys) throws InvalidFieldException {
+    LOG.trace("Table {}: Delete with multiple keys {}", schema.getTableId(), multiKeys);
+    List<byte[]> rowKeys = new ArrayList<>(multiKeys.size());
+    for (Collection<Field<?>> keys : multiKeys) {
+      rowKeys.add(convertKeyToBytes(keys, false));
+    }
+    for (byte[] rowKey : rowKeys) {
+      table.delete(rowKey);
+    }
+  }
+
   @Override
   public void deleteAll(Range keyRange) throws InvalidFieldException, IOException {
     LOG.trace("Table {}: DeleteAll with range {}", schema.getTableId(), keyRange);
@@ -376,4 +444,74 @@ public final class NoSqlStructuredTable implements StructuredTable {
       scanner.close();
     }
   }
+
+  /**
+   * A {@link Scanner} that merges rows from multiple {@link Scanner}s in row key order.
+   * Rows that are returned by more than one scanner are only returned once.
+   */
+  @VisibleForTesting
+  static final class MergeScanner implements Scanner {
+    private final List<Scanner> scanners;
+    private final PriorityQueue<PeekingScanner> queue;
+    private byte[] lastRowKey;
+
+    MergeScanner(List<Scanner> scanners) {
+      this.scanners = scanners;
+      this.queue = new PriorityQueue<>(Math.max(1, scanners.size()),
+                                       (s1, s2) -> Bytes.compareTo(s1.peek().getRow(), s2.peek().getRow()));
+      for (Scanner scanner : scanners) {
+        PeekingScanner peekingScanner = new PeekingScanner(scanner);
+        if (peekingScanner.peek() != null) {
+          queue.add(peekingScanner);
+        }
+      }
+    }
+
+    @Nullable
+    @Override
+    public Row next() {
+      while (!queue.isEmpty()) {
+        PeekingScanner scanner = queue.poll();
+        Row row = scanner.next();
+        if (scanner.peek() != null) {
+          queue.add(scanner);
+        }
+        // Skip rows that are already returned by other scanners with overlapping range
+        if (lastRowKey == null || !Bytes.equals(lastRowKey, row.getRow())) {
+          lastRowKey = row.getRow();
+          return row;
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public void close() {
+      scanners.forEach(Scanner::close);
+    }
+  }
+
+  /**
+   * A wrapper of {@link Scanner} that allows peeking the next row.
+   */
+  private static final class PeekingScanner {
+    private final Scanner scanner;
+    private Row nextRow;
+
+    PeekingScanner(Scanner scanner) {
+      this.scanner = scanner;
+      this.nextRow = scanner.next();
+    }
+
+    @Nullable
+    Row peek() {
+      return nextRow;
+    }
+
+    Row next() {
+      Row row = nextRow;
+      nextRow = scanner.next();
+      return row;
+    }
+  }
 }
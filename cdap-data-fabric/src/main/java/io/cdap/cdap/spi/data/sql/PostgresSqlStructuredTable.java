@@ -37,13 +37,13 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -57,15 +57,19 @@ import javax.annotation.Nullable;
  */
 public class PostgresSqlStructuredTable implements StructuredTable {
   private static final Logger LOG = LoggerFactory.getLogger(PostgresSqlStructuredTable.class);
+  // The maximum number of bind parameters supported by the Postgres JDBC driver in a single statement
+  private static final int MAX_QUERY_PARAMETERS = Short.MAX_VALUE;
 
   private final Connection connection;
   private final StructuredTableSchema tableSchema;
   private final FieldValidator fieldValidator;
+  private final int scanFetchSize;
 
-  public PostgresSqlStructuredTable(Connection connection, StructuredTableSchema tableSchema) {
+  PostgresSqlStructuredTable(Connection connection, StructuredTableSchema tableSchema, int scanFetchSize) {
     this.connection = connection;
     this.tableSchema = tableSchema;
     this.fieldValidator = new FieldValidator(tableSchema);
+    this.scanFetchSize = scanFetchSize;
   }
 
   @Override
@@ -80,6 +84,32 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     upsertInternal(fields);
   }
 
+  @Override
+  public void multiUpsert(Collection<? extends Collection<Field<?>>> multiFields)
+    throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Write multiple fields {}", tableSchema.getTableId(), multiFields);
+    // Group the rows by the write query, so that rows with the same set of fields are written in one batch
+    Map<String, List<Collection<Field<?>>>> batches = new LinkedHashMap<>();
+    for (Collection<Field<?>> fields : multiFields) {
+      Set<String> fieldNames = fields.stream().map(Field::getName).collect(Collectors.toSet());
+      if (!fieldNames.containsAll(tableSchema.getPrimaryKeys())) {
+        throw new InvalidFieldException(tableSchema.getTableId(), fields,
+                                        String.format("Given fields %s do not contain all the " +
+                                                        "primary keys %s", fieldNames, tableSchema.getPrimaryKeys()));
+      }
+      batches.computeIfAbsent(getWriteSqlQuery(fields, null), k -> new ArrayList<>()).add(fields);
+    }
+
+    for (Map.Entry<String, List<Collection<Field<?>>>> entry : batches.entrySet()) {
+      try {
+        executeBatch(entry.getKey(), entry.getValue());
+      } catch (SQLException e) {
+        throw new IOException(String.format("Failed to write to table %s with fields %s",
+                                            tableSchema.getTableId().getName(), entry.getValue()), e);
+      }
+    }
+  }
+
   @Override
   public Optional<StructuredRow> read(Collection<Field<?>> keys) throws InvalidFieldException, IOException {
     return readRow(keys, null);
@@ -98,38 +128,101 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     return readRow(keys, columnFields);
   }
 
+  @Override
+  public Collection<StructuredRow> multiRead(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Read with multiple keys {}", tableSchema.getTableId(), multiKeys);
+    // The validation guarantees the keys are in the primary key order
+    List<Collection<Field<?>>> keysList = new ArrayList<>(multiKeys.size());
+    for (Collection<Field<?>> keys : multiKeys) {
+      fieldValidator.validatePrimaryKeys(keys, false);
+      keysList.add(keys);
+    }
+
+    // Read with the IN clause, split into multiple queries if there are too many keys
+    List<StructuredRow> result = new ArrayList<>();
+    int keysPerQuery = MAX_QUERY_PARAMETERS / tableSchema.getPrimaryKeys().size();
+    for (int start = 0; start < keysList.size(); start += keysPerQuery) {
+      List<Collection<Field<?>>> batch = keysList.subList(start, Math.min(keysList.size(), start + keysPerQuery));
+      try {
+        executeQuery(getMultiReadQuery(batch.size()), statement -> {
+          int index = 1;
+          for (Collection<Field<?>> keys : batch) {
+            index = setFields(statement, keys, index);
+          }
+        }, resultSet -> {
+          Set<String> columnNames = getColumnNames(resultSet.getMetaData());
+          while (resultSet.next()) {
+            result.add(createRow(resultSet, columnNames, tableSchema));
+          }
+          return null;
+        });
+      } catch (SQLException e) {
+        throw new IOException(String.format("Failed to read from table %s with multiple keys %s",
+                                            tableSchema.getTableId().getName(), batch), e);
+      }
+    }
+    return result;
+  }
+
   @Override
   public CloseableIterator<StructuredRow> scan(Range keyRange, int limit) throws InvalidFieldException, IOException {
     LOG.trace("Table {}: Scan range {} with limit {}", tableSchema.getTableId(), keyRange, limit);
     fieldValidator.validatePrimaryKeys(keyRange.getBegin(), true);
     fieldValidator.validatePrimaryKeys(keyRange.getEnd(), true);
-    String scanQuery = getScanQuery(keyRange, limit);
 
-    // We don't close the statement here because once it is closed, the result set is also closed.
     try {
-      PreparedStatement statement = connection.prepareStatement(scanQuery);
-      int index = 1;
-      if (keyRange.getBegin() != null) {
-        for (Field<?> key : keyRange.getBegin()) {
-          setField(statement, key, index);
-          index++;
-        }
-      }
-      if (keyRange.getEnd() != null) {
-        for (Field<?> key : keyRange.getEnd()) {
-          setField(statement, key, index);
-          index++;
-        }
-      }
-      LOG.trace("SQL statement: {}", statement);
-      ResultSet resultSet = statement.executeQuery();
-      return new ResultSetIterator(statement, resultSet, tableSchema);
+      return executeScan(getScanQuery(keyRange), statement -> {
+        int index = setFields(statement, keyRange.getBegin(), 1);
+        index = setFields(statement, keyRange.getEnd(), index);
+        statement.setInt(index, limit);
+      });
     } catch (SQLException e) {
       throw new IOException(String.format("Failed to scan from table %s with range %s",
                                           tableSchema.getTableId().getName(), keyRange), e);
     }
   }
 
+  @Override
+  public CloseableIterator<StructuredRow> multiScan(Collection<Range> keyRanges,
+                                                    int limit) throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Scan ranges {} with limit {}", tableSchema.getTableId(), keyRanges, limit);
+    for (Range keyRange : keyRanges) {
+      fieldValidator.validatePrimaryKeys(keyRange.getBegin(), true);
+      fieldValidator.validatePrimaryKeys(keyRange.getEnd(), true);
+    }
+    if (keyRanges.isEmpty()) {
+      return new AbstractCloseableIterator<StructuredRow>() {
+        @Override
+        protected StructuredRow computeNext() {
+          return endOfData();
+        }
+
+        @Override
+        public void close() {
+          // no-op
+        }
+      };
+    }
+    // An unbounded range matches all rows
+    boolean scanAll = keyRanges.stream().anyMatch(r -> r.getBegin().isEmpty() && r.getEnd().isEmpty());
+    Collection<Range> ranges = scanAll ? Collections.singleton(Range.all()) : keyRanges;
+
+    try {
+      return executeScan(getMultiScanQuery(ranges), statement -> {
+        int index = 1;
+        for (Range keyRange : ranges) {
+          index = setFields(statement, keyRange.getBegin(), index);
+          index = setFields(statement, keyRange.getEnd(), index);
+        }
+        statement.setInt(index, limit);
+      });
+    } catch (SQLException e) {
+      throw new IOException(String.format("Failed to scan from table %s with ranges %s",
+                                          tableSchema.getTableId().getName(), keyRanges), e);
+    }
+  }
+
   @Override
   public CloseableIterator<StructuredRow> scan(Field<?> index) throws InvalidFieldException, IOException {
     LOG.trace("Table {}: Scan index {}", tableSchema.getTableId(), index);
@@ -138,14 +231,9 @@ public class PostgresSqlStructuredTable implements StructuredTable {
       throw new InvalidFieldException(tableSchema.getTableId(), index.getName(), "is not an indexed column");
     }
 
-    String sql = getReadQuery(Collections.singleton(index), null, false);
-    // We don't close the statement here because once it is closed, the result set is also closed.
     try {
-      PreparedStatement statement = connection.prepareStatement(sql);
-      setField(statement, index, 1);
-      LOG.trace("SQL statement: {}", statement);
-      ResultSet resultSet = statement.executeQuery();
-      return new ResultSetIterator(statement, resultSet, tableSchema);
+      return executeScan(getReadQuery(Collections.singleton(index), null, false),
+                         statement -> setField(statement, index, 1));
     } catch (SQLException e) {
       throw new IOException(String.format("Failed to scan from table %s with index %s",
                                           tableSchema.getTableId().getName(), index), e);
@@ -175,32 +263,25 @@ public class PostgresSqlStructuredTable implements StructuredTable {
 
     // First compare
     String readQuery = getReadQuery(keys, Collections.singleton(oldValue.getName()), true);
-    try (PreparedStatement statement = connection.prepareStatement(readQuery)) {
-      int index = 1;
-      for (Field<?> key : keys) {
-        setField(statement, key, index);
-        index++;
-      }
-      LOG.trace("SQL statement: {}", statement);
-      try (ResultSet resultSet = statement.executeQuery()) {
+    boolean matched;
+    try {
+      matched = executeQuery(readQuery, statement -> setFields(statement, keys, 1), resultSet -> {
         if (resultSet.next()) {
           // Compare the value in the DB to oldValue
           Object colValue = resultSet.getObject(1);
           Field<?> dbValue = createField(oldValue.getName(), oldValue.getFieldType(), colValue);
-          if (!oldValue.equals(dbValue)) {
-            return false;
-          }
-        } else {
-          // There is no data for the field in the DB, hence oldValue should be null to continue
-          if (oldValue.getValue() != null) {
-            return false;
-          }
+          return oldValue.equals(dbValue);
         }
-      }
+        // There is no data for the field in the DB, hence oldValue should be null to continue
+        return oldValue.getValue() == null;
+      });
     } catch (SQLException e) {
       throw new IOException(String.format("Failed to read from table %s with keys %s",
                                           tableSchema.getTableId().getName(), keys), e);
     }
+    if (!matched) {
+      return false;
+    }
 
     // Then write
     Collection<Field<?>> fields = new HashSet<>(keys);
@@ -230,17 +311,12 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     List<Field<?>> fieldsWithValue = new ArrayList<>(keys);
     // If the row does not exist, insert it with long field = amount
     fieldsWithValue.add(Fields.longField(column, amount));
-    String sql = getWriteSqlQuery(fieldsWithValue, column);
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
-      int index = 1;
-      for (Field<?> key : fieldsWithValue) {
-        setField(statement, key, index);
-        index++;
-      }
-      // populate increment amount
-      statement.setLong(index, amount);
-      LOG.trace("SQL statement: {}", statement);
-      statement.executeUpdate();
+    try {
+      executeUpdate(getWriteSqlQuery(fieldsWithValue, column), statement -> {
+        int index = setFields(statement, fieldsWithValue, 1);
+        // populate increment amount
+        statement.setLong(index, amount);
+      });
     } catch (SQLException e) {
       throw new IOException(String.format("Failed to increment column %s of table %s with increment value %d",
                                           column, tableSchema.getTableId().getName(), amount), e);
@@ -251,43 +327,46 @@ public class PostgresSqlStructuredTable implements StructuredTable {
   public void delete(Collection<Field<?>> keys) throws InvalidFieldException, IOException {
     LOG.trace("Table {}: Delete with keys {}", tableSchema.getTableId(), keys);
     fieldValidator.validatePrimaryKeys(keys, false);
-    String sqlQuery = getDeleteQuery(keys);
-    try (PreparedStatement statement = connection.prepareStatement(sqlQuery)) {
-      int index = 1;
-      for (Field<?> key : keys) {
-        setField(statement, key, index);
-        index++;
-      }
-      LOG.trace("SQL statement: {}", statement);
-      statement.executeUpdate();
+    try {
+      executeUpdate(getDeleteQuery(keys), statement -> setFields(statement, keys, 1));
     } catch (SQLException e) {
       throw new IOException(String.format("Failed to delete the row from table %s with fields %s",
                                           tableSchema.getTableId().getName(), keys), e);
     }
   }
 
+  @Override
+  public void multiDelete(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException, IOException {
+    LOG.trace("Table {}: Delete with multiple keys {}", tableSchema.getTableId(), multiKeys);
+    // The validation guarantees the keys are in the primary key order
+    List<Collection<Field<?>>> keysList = new ArrayList<>(multiKeys.size());
+    for (Collection<Field<?>> keys : multiKeys) {
+      fieldValidator.validatePrimaryKeys(keys, false);
+      keysList.add(keys);
+    }
+    if (keysList.isEmpty()) {
+      return;
+    }
+
+    try {
+      executeBatch(getDeleteQuery(keysList.get(0)), keysList);
+    } catch (SQLException e) {
+      throw new IOException(String.format("Failed to delete the rows from table %s with multiple keys %s",
+                                          tableSchema.getTableId().getName(), multiKeys), e);
+    }
+  }
+
   @Override
   public void deleteAll(Range keyRange) throws InvalidFieldException, IOException {
     LOG.trace("Table {}: DeleteAll with range {}", tableSchema.getTableId(), keyRange);
     fieldValidator.validatePrimaryKeys(keyRange.getBegin(), true);
     fieldValidator.validatePrimaryKeys(keyRange.getEnd(), true);
-    String sql = getDeleteAllStatement(keyRange);
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
-      int index = 1;
-      if (keyRange.getBegin() != null) {
-        for (Field<?> key : keyRange.getBegin()) {
-          setField(statement, key, index);
-          index++;
-        }
-      }
-      if (keyRange.getEnd() != null) {
-        for (Field<?> key : keyRange.getEnd()) {
-          setField(statement, key, index);
-          index++;
-        }
-      }
-      LOG.trace("SQL statement: {}", statement);
-      statement.executeUpdate();
+    try {
+      executeUpdate(getDeleteAllStatement(keyRange), statement -> {
+        int index = setFields(statement, keyRange.getBegin(), 1);
+        setFields(statement, keyRange.getEnd(), index);
+      });
     } catch (SQLException e) {
       throw new IOException(String.format("Failed to delete the rows from table %s with range %s",
                                           tableSchema.getTableId().getName(), keyRange), e);
@@ -304,15 +383,8 @@ public class PostgresSqlStructuredTable implements StructuredTable {
   }
 
   private void upsertInternal(Collection<Field<?>> fields) throws IOException {
-    String sqlQuery = getWriteSqlQuery(fields, null);
-    try (PreparedStatement statement = connection.prepareStatement(sqlQuery)) {
-      int index = 1;
-      for (Field<?> field : fields) {
-        setField(statement, field, index);
-        index++;
-      }
-      LOG.trace("SQL statement: {}", statement);
-      statement.executeUpdate();
+    try {
+      executeUpdate(getWriteSqlQuery(fields, null), statement -> setFields(statement, fields, 1));
     } catch (SQLException e) {
       throw new IOException(String.format("Failed to write to table %s with fields %s",
                                           tableSchema.getTableId().getName(), fields), e);
@@ -331,14 +403,8 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     LOG.trace("Table {}: Read with keys {} and columns {}", tableSchema.getTableId(), keys, columns);
     fieldValidator.validatePrimaryKeys(keys, false);
     String readQuery = getReadQuery(keys, columns, false);
-    try (PreparedStatement statement = connection.prepareStatement(readQuery);) {
-      int index = 1;
-      for (Field<?> key : keys) {
-        setField(statement, key, index);
-        index++;
-      }
-      LOG.trace("SQL statement: {}", statement);
-      try (ResultSet resultSet = statement.executeQuery()) {
+    try {
+      return executeQuery(readQuery, statement -> setFields(statement, keys, 1), resultSet -> {
         if (!resultSet.next()) {
           return Optional.empty();
         }
@@ -350,13 +416,95 @@ public class PostgresSqlStructuredTable implements StructuredTable {
           row.put(metaData.getColumnName(i), resultSet.getObject(i));
         }
         return Optional.of(new SqlStructuredRow(tableSchema, row));
-      }
+      });
     } catch (SQLException e) {
       throw new IOException(String.format("Failed to read from table %s with keys %s",
                                           tableSchema.getTableId().getName(), keys), e);
     }
   }
 
+  /**
+   * Prepares a statement for the given sql, binds the parameters and executes it as an update.
+   * Closing the statement gives it back to the statement pool of the underlying pooled connection,
+   * so the same sql is only prepared once per connection.
+   */
+  private void executeUpdate(String sql, StatementBinder binder) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      binder.bind(statement);
+      LOG.trace("SQL statement: {}", statement);
+      statement.executeUpdate();
+    }
+  }
+
+  /**
+   * Prepares a statement for the given sql and executes it as one batch, with one entry per collection of fields.
+   */
+  private void executeBatch(String sql, Collection<? extends Collection<Field<?>>> rows) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      for (Collection<Field<?>> fields : rows) {
+        setFields(statement, fields, 1);
+        statement.addBatch();
+      }
+      LOG.trace("SQL statement: {} with batch size {}", statement, rows.size());
+      statement.executeBatch();
+    }
+  }
+
+  /**
+   * Prepares a statement for the given sql, binds the parameters, executes the query and applies the given
+   * function to the {@link ResultSet}. Both the result set and the statement are closed before returning.
+   */
+  private <T> T executeQuery(String sql, StatementBinder binder,
+                             ResultSetFunction<T> function) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      binder.bind(statement);
+      LOG.trace("SQL statement: {}", statement);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        return function.apply(resultSet);
+      }
+    }
+  }
+
+  /**
+   * Prepares a statement for the given scan query, binds the parameters and executes it. The fetch size is set so
+   * that the Postgres driver streams the result with a cursor instead of loading all the rows into memory, which is
+   * only possible since the connection is not in auto-commit mode inside a transaction. The statement is closed when
+   * the returned iterator is closed.
+   */
+  private ResultSetIterator executeScan(String sql, StatementBinder binder) throws SQLException {
+    PreparedStatement statement = connection.prepareStatement(sql);
+    try {
+      binder.bind(statement);
+      statement.setFetchSize(scanFetchSize);
+      LOG.trace("SQL statement: {}", statement);
+      return new ResultSetIterator(statement, statement.executeQuery(), tableSchema);
+    } catch (Exception e) {
+      try {
+        statement.close();
+      } catch (SQLException ex) {
+        e.addSuppressed(ex);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Sets the given fields as the statement parameters, starting from the given parameter index.
+   *
+   * @return the next parameter index after the given fields
+   */
+  private int setFields(PreparedStatement statement, @Nullable Collection<Field<?>> fields,
+                        int parameterIndex) throws SQLException, InvalidFieldException {
+    int index = parameterIndex;
+    if (fields != null) {
+      for (Field<?> field : fields) {
+        setField(statement, field, index);
+        index++;
+      }
+    }
+    return index;
+  }
+
   private void setField(PreparedStatement statement, Field field,
                         int parameterIndex) throws SQLException, InvalidFieldException {
     fieldValidator.validateField(field);
@@ -463,13 +611,13 @@ public class PostgresSqlStructuredTable implements StructuredTable {
   /**
    * Get the scan query for the range given. For example, if the range provides key1, key2 as the begin and end to
    * scan, both rows are inclusive, it will generate the following query:
-   * SELECT * FROM simpletable WHERE (key1,key2)>=(?,?) AND (key1,key2)<=(?,?) LIMIT 10;
+   * SELECT * FROM simpletable WHERE (key1,key2)>=(?,?) AND (key1,key2)<=(?,?) LIMIT ?;
+   * The limit is bound as the last parameter, so that the same statement can be reused for different limits.
    *
    * @param range the range to scan.
-   * @param limit limit number of row
    * @return the scan query
    */
-  private String getScanQuery(Range range, int limit) {
+  private String getScanQuery(Range range) {
     StringBuilder queryString = new StringBuilder("SELECT * FROM ").append(tableSchema.getTableId().getName());
     if (!range.getBegin().isEmpty() || !range.getEnd().isEmpty()) {
       queryString.append(" WHERE ");
@@ -477,10 +625,59 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     }
 
     queryString.append(getOrderByClause(tableSchema.getPrimaryKeys()));
-    queryString.append(" LIMIT ").append(limit).append(";");
+    queryString.append(" LIMIT ?;");
+    return queryString.toString();
+  }
+
+  /**
+   * Get the scan query for multiple ranges. For example, if two ranges are given with key1 as the begin and end to
+   * scan, both inclusive, it will generate the following query:
+   * SELECT * FROM simpletable WHERE ((key1)>=(?) AND (key1)<=(?)) OR ((key1)>=(?) AND (key1)<=(?))
+   * ORDER BY key1,key2 LIMIT ?;
+   *
+   * @param ranges the ranges to scan
+   * @return the scan query
+   */
+  private String getMultiScanQuery(Collection<Range> ranges) {
+    StringBuilder queryString = new StringBuilder("SELECT * FROM ").append(tableSchema.getTableId().getName());
+    boolean first = true;
+    for (Range range : ranges) {
+      if (range.getBegin().isEmpty() && range.getEnd().isEmpty()) {
+        continue;
+      }
+      queryString.append(first ? " WHERE (" : " OR (");
+      appendRange(queryString, range);
+      queryString.append(")");
+      first = false;
+    }
+
+    queryString.append(getOrderByClause(tableSchema.getPrimaryKeys()));
+    queryString.append(" LIMIT ?;");
     return queryString.toString();
   }
 
+  /**
+   * Get the read query for multiple rows. For example, if the table has key1, key2 as the primary keys and
+   * two rows are to be read, it will generate the following query:
+   * SELECT * FROM simpletable WHERE (key1,key2) IN ((?,?),(?,?));
+   *
+   * @param numRows number of rows to read
+   * @return the read query
+   */
+  private String getMultiReadQuery(int numRows) {
+    StringJoiner keyJoiner = new StringJoiner(",", "(", ")");
+    StringJoiner valueJoiner = new StringJoiner(",", "(", ")");
+    for (String key : tableSchema.getPrimaryKeys()) {
+      keyJoiner.add(key);
+      valueJoiner.add("?");
+    }
+    StringJoiner inJoiner = new StringJoiner(",", "(", ")");
+    for (int i = 0; i < numRows; i++) {
+      inJoiner.add(valueJoiner.toString());
+    }
+    return "SELECT * FROM " + tableSchema.getTableId().getName() + " WHERE " + keyJoiner + " IN " + inJoiner + ";";
+  }
+
   private void appendRange(StringBuilder statement, Range range) {
     appendScanBound(statement, range.getBegin(), range.getBeginBound().equals(Range.Bound.INCLUSIVE) ? ">=" : ">");
     if (!range.getBegin().isEmpty() && !range.getEnd().isEmpty()) {
@@ -556,17 +753,57 @@ public class PostgresSqlStructuredTable implements StructuredTable {
     }
   }
 
+  private static Set<String> getColumnNames(ResultSetMetaData metaData) throws SQLException {
+    Set<String> columns = new HashSet<>();
+    int numCols = metaData.getColumnCount();
+    for (int i = 1; i <= numCols; i++) {
+      columns.add(metaData.getColumnName(i));
+    }
+    return columns;
+  }
+
+  private static StructuredRow createRow(ResultSet resultSet, Set<String> columnNames,
+                                        StructuredTableSchema schema) throws SQLException {
+    Map<String, Object> row = new HashMap<>();
+    for (String colName : columnNames) {
+      row.put(colName, resultSet.getObject(colName));
+    }
+    return new SqlStructuredRow(schema, row);
+  }
+
+  /**
+   * Binds the parameters of a {@link PreparedStatement}.
+   */
+  @FunctionalInterface
+  private interface StatementBinder {
+    void bind(PreparedStatement statement) throws SQLException;
+  }
+
+  /**
+   * Computes a result from a {@link ResultSet}.
+   *
+   * @param <T> type of the result
+   */
+  @FunctionalInterface
+  private interface ResultSetFunction<T> {
+    T apply(ResultSet resultSet) throws SQLException;
+  }
+
+  /**
+   * A {@link CloseableIterator} over a {@link ResultSet}, which closes the statement when closed.
+   */
   private static final class ResultSetIterator extends AbstractCloseableIterator<StructuredRow> {
-    private final Statement statement;
+    private final PreparedStatement statement;
     private final ResultSet resultSet;
     private final Set<String> columnNames;
     private final StructuredTableSchema schema;
+    private boolean closed;
 
-
-    ResultSetIterator(Statement statement, ResultSet resultSet, StructuredTableSchema schema) throws SQLException {
+    ResultSetIterator(PreparedStatement statement, ResultSet resultSet,
+                      StructuredTableSchema schema) throws SQLException {
       this.statement = statement;
       this.resultSet = resultSet;
-      this.columnNames = createColNames(resultSet.getMetaData());
+      this.columnNames = getColumnNames(resultSet.getMetaData());
       this.schema = schema;
     }
 
@@ -576,12 +813,7 @@ public class PostgresSqlStructuredTable implements StructuredTable {
         if (!resultSet.next()) {
           return endOfData();
         }
-
-        Map<String, Object> row = new HashMap<>();
-        for (String colName : columnNames) {
-          row.put(colName, resultSet.getObject(colName));
-        }
-        return new SqlStructuredRow(schema, row);
+        return createRow(resultSet, columnNames, schema);
       } catch (SQLException e) {
         throw new RuntimeException("Failed to get the next value from the sql result set", e);
       }
@@ -589,21 +821,16 @@ public class PostgresSqlStructuredTable implements StructuredTable {
 
     @Override
     public void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      // Closing the statement also closes the result set
       try {
         statement.close();
-        resultSet.close();
       } catch (SQLException e) {
-        LOG.warn("Failed to close the result set", e);
-      }
-    }
-
-    private static Set<String> createColNames(ResultSetMetaData metaData) throws SQLException {
-      Set<String> columns = new HashSet<>();
-      int numCols = metaData.getColumnCount();
-      for (int i = 1; i <= numCols; i++) {
-        columns.add(metaData.getColumnName(i));
+        LOG.warn("Failed to close the sql statement", e);
       }
-      return columns;
     }
   }
 }
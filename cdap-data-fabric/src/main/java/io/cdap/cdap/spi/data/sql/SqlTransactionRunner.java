@@ -37,11 +37,13 @@ import javax.sql.DataSource;
  */
 public class SqlTransactionRunner implements TransactionRunner {
   private static final Logger LOG = LoggerFactory.getLogger(SqlTransactionRunner.class);
+  private static final int DEFAULT_SCAN_FETCH_SIZE = 1000;
 
   private final StructuredTableAdmin admin;
   private final DataSource dataSource;
   private final MetricsCollectionService metricsCollectionService;
   private final boolean emitTimeMetrics;
+  private final int scanFetchSize;
 
   @VisibleForTesting
   public SqlTransactionRunner(StructuredTableAdmin admin, DataSource dataSource) {
@@ -50,10 +52,17 @@ public class SqlTransactionRunner implements TransactionRunner {
 
   public SqlTransactionRunner(StructuredTableAdmin tableAdmin, DataSource dataSource,
                               MetricsCollectionService metricsCollectionService, boolean emitTimeMetrics) {
+    this(tableAdmin, dataSource, metricsCollectionService, emitTimeMetrics, DEFAULT_SCAN_FETCH_SIZE);
+  }
+
+  public SqlTransactionRunner(StructuredTableAdmin tableAdmin, DataSource dataSource,
+                              MetricsCollectionService metricsCollectionService, boolean emitTimeMetrics,
+                              int scanFetchSize) {
     this.admin = tableAdmin;
     this.dataSource = dataSource;
     this.metricsCollectionService = metricsCollectionService;
     this.emitTimeMetrics = emitTimeMetrics;
+    this.scanFetchSize = scanFetchSize;
   }
 
   @Override
@@ -66,12 +75,13 @@ public class SqlTransactionRunner implements TransactionRunner {
       throw new TransactionException("Unable to get connection to the sql database", e);
     }
 
+    MetricsContext metricsCollector = metricsCollectionService.getContext(Constants.Metrics.STORAGE_METRICS_TAGS);
     try {
-      MetricsContext metricsCollector = metricsCollectionService.getContext(Constants.Metrics.STORAGE_METRICS_TAGS);
       metricsCollector.increment(Constants.Metrics.StructuredTable.TRANSACTION_COUNT, 1L);
       connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
       connection.setAutoCommit(false);
-      runnable.run(new SqlStructuredTableContext(admin, connection, metricsCollector, emitTimeMetrics));
+      runnable.run(new SqlStructuredTableContext(admin, connection, metricsCollector, emitTimeMetrics,
+                                                 scanFetchSize));
       connection.commit();
     } catch (Exception e) {
       Throwable cause = e.getCause();
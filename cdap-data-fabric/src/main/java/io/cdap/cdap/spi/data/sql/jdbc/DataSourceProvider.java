@@ -40,6 +40,9 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
 import javax.sql.DataSource;
 
 /**
@@ -47,6 +50,8 @@ import javax.sql.DataSource;
  */
 public class DataSourceProvider implements Provider<DataSource> {
   private static final Logger LOG = LoggerFactory.getLogger(DataSourceProvider.class);
+  // unique id of the data sources in this JVM, for their JMX names
+  private static final AtomicInteger DATA_SOURCE_ID = new AtomicInteger();
 
   private final CConfiguration cConf;
   private final SConfiguration sConf;
@@ -93,17 +98,37 @@ public class DataSourceProvider implements Provider<DataSource> {
     LOG.info("Creating the DataSource with jdbc url: {}", jdbcUrl);
 
     ConnectionFactory connectionFactory = new DriverManagerConnectionFactory(jdbcUrl, properties);
-    PoolableConnectionFactory poolableConnectionFactory = new PoolableConnectionFactory(connectionFactory, null);
+    // Pool the prepared statements per pooled connection, so that they are reused across transactions.
+    // Closing a statement gives it back to the pool instead of closing it in the database.
+    // The statement pools are registered in JMX under the data source name, which is where their stats are read.
+    int statementCacheSize = cConf.getInt(Constants.Dataset.DATA_STORAGE_SQL_STATEMENT_CACHE_SIZE);
+    ObjectName jmxName = statementCacheSize > 0 ? createJmxName() : null;
+    PoolableConnectionFactory poolableConnectionFactory = new PoolableConnectionFactory(connectionFactory, jmxName);
+    if (statementCacheSize > 0) {
+      poolableConnectionFactory.setPoolStatements(true);
+      poolableConnectionFactory.setMaxOpenPreparedStatements(statementCacheSize);
+    }
     // The GenericObjectPool is thread safe according to the javadoc,
     // the PoolingDataSource will be thread safe as long as the connectin pool is thread-safe
     GenericObjectPool<PoolableConnection> connectionPool = new GenericObjectPool<>(poolableConnectionFactory);
     poolableConnectionFactory.setPool(connectionPool);
     connectionPool.setMaxTotal(cConf.getInt(Constants.Dataset.DATA_STORAGE_SQL_CONNECTION_SIZE));
     PoolingDataSource<PoolableConnection> dataSource = new PoolingDataSource<>(connectionPool);
-    this.dataSource = new MetricsDataSource(dataSource, metricsCollectionService, connectionPool);
+    this.dataSource = new MetricsDataSource(dataSource, metricsCollectionService, connectionPool, jmxName);
     return this.dataSource;
   }
 
+  private static ObjectName createJmxName() {
+    try {
+      return new ObjectName(String.format("%s:type=StructuredTableDataSource,name=%d",
+                                          DataSourceProvider.class.getPackage().getName(),
+                                          DATA_SOURCE_ID.incrementAndGet()));
+    } catch (MalformedObjectNameException e) {
+      // should never happen
+      throw Throwables.propagate(e);
+    }
+  }
+
   private Properties retrieveJDBCConnectionProperties() {
     Properties properties = new Properties();
     String username = sConf.get(Constants.Dataset.DATA_STORAGE_SQL_USERNAME);
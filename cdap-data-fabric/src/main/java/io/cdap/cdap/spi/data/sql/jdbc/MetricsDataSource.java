@@ -19,28 +19,52 @@ package io.cdap.cdap.spi.data.sql.jdbc;
 import io.cdap.cdap.api.metrics.MetricsCollectionService;
 import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.common.conf.Constants;
+import org.apache.commons.dbcp2.PoolableConnectionFactory;
 import org.apache.commons.pool2.ObjectPool;
 
 import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
 import javax.sql.DataSource;
 
 /**
- * A metrics data source that will emit metrics about the number of connections.
+ * A metrics data source that will emit metrics about the number of connections, and about the hit rate of the
+ * prepared statement pools of the connections if they are registered in JMX.
  */
 public class MetricsDataSource implements DataSource {
+  // minimum interval between two reads of the statement pool stats from JMX
+  private static final long STATEMENT_POOL_METRICS_INTERVAL_MILLIS = 1000L;
+
   private final DataSource dataSource;
   private final MetricsCollectionService metricsCollectionService;
   private final ObjectPool objectPool;
+  @Nullable
+  private final ObjectName statementPoolNames;
+  private volatile long lastStatementPoolMetricsTime;
 
   public MetricsDataSource(DataSource dataSource, MetricsCollectionService metricsCollectionService,
                            ObjectPool objectPool) {
+    this(dataSource, metricsCollectionService, objectPool, null);
+  }
+
+  /**
+   * @param dataSourceJmxName the JMX name given to the {@link PoolableConnectionFactory} creating the pooled
+   *                          connections, or {@code null} if the statement pools are not registered in JMX
+   */
+  public MetricsDataSource(DataSource dataSource, MetricsCollectionService metricsCollectionService,
+                           ObjectPool objectPool, @Nullable ObjectName dataSourceJmxName) {
     this.dataSource = dataSource;
     this.metricsCollectionService = metricsCollectionService;
     this.objectPool = objectPool;
+    this.statementPoolNames = dataSourceJmxName == null ? null : createStatementPoolNames(dataSourceJmxName);
   }
 
   @Override
@@ -50,6 +74,7 @@ public class MetricsDataSource implements DataSource {
       Connection connection = dataSource.getConnection();
       metricsCollector.gauge(Constants.Metrics.StructuredTable.ACTIVE_CONNECTIONS, objectPool.getNumActive());
       metricsCollector.gauge(Constants.Metrics.StructuredTable.IDLE_CONNECTIONS, objectPool.getNumIdle());
+      emitStatementPoolMetrics(metricsCollector);
       return connection;
     } catch (SQLException e) {
       metricsCollector.increment(Constants.Metrics.StructuredTable.ERROR_CONNECTIONS, 1L);
@@ -64,6 +89,7 @@ public class MetricsDataSource implements DataSource {
       Connection connection = dataSource.getConnection(username, password);
       metricsCollector.gauge(Constants.Metrics.StructuredTable.ACTIVE_CONNECTIONS, objectPool.getNumActive());
       metricsCollector.gauge(Constants.Metrics.StructuredTable.IDLE_CONNECTIONS, objectPool.getNumIdle());
+      emitStatementPoolMetrics(metricsCollector);
       return connection;
     } catch (SQLException e) {
       metricsCollector.increment(Constants.Metrics.StructuredTable.ERROR_CONNECTIONS, 1L);
@@ -71,6 +97,43 @@ public class MetricsDataSource implements DataSource {
     }
   }
 
+  /**
+   * Emits the percentage of the prepared statements that were taken from the statement pools of the live
+   * connections instead of being prepared in the database, at most once every
+   * {@link #STATEMENT_POOL_METRICS_INTERVAL_MILLIS}.
+   */
+  private void emitStatementPoolMetrics(MetricsContext metricsCollector) {
+    long now = System.currentTimeMillis();
+    if (statementPoolNames == null || now - lastStatementPoolMetricsTime < STATEMENT_POOL_METRICS_INTERVAL_MILLIS) {
+      return;
+    }
+    lastStatementPoolMetricsTime = now;
+
+    MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    long borrowed = 0L;
+    long created = 0L;
+    for (ObjectName name : mbeanServer.queryNames(statementPoolNames, null)) {
+      try {
+        borrowed += (Long) mbeanServer.getAttribute(name, "BorrowedCount");
+        created += (Long) mbeanServer.getAttribute(name, "CreatedCount");
+      } catch (JMException e) {
+        // the statement pool was unregistered after the query since its connection was destroyed, skip it
+      }
+    }
+    if (borrowed > 0L) {
+      metricsCollector.gauge(Constants.Metrics.StructuredTable.STATEMENT_CACHE_HIT_RATE,
+                             Math.max(0L, borrowed - created) * 100 / borrowed);
+    }
+  }
+
+  private static ObjectName createStatementPoolNames(ObjectName dataSourceJmxName) {
+    try {
+      return new ObjectName(dataSourceJmxName + ",statementpool=*,*");
+    } catch (MalformedObjectNameException e) {
+      throw new IllegalArgumentException("Invalid data source JMX name " + dataSourceJmxName, e);
+    }
+  }
+
   @Override
   public <T> T unwrap(Class<T> iface) throws SQLException {
     return dataSource.unwrap(iface);
@@ -56,9 +56,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
@@ -83,10 +81,6 @@ public class SearchHelper {
 
   private static final DatasetContext SYSTEM_CONTEXT = DatasetContext.from(NamespaceId.SYSTEM.getNamespace());
 
-  private static final Comparator<Map.Entry<MetadataEntity, Integer>> SEARCH_RESULT_DESC_SCORE_COMPARATOR =
-    // sort in descending order
-    (o1, o2) -> o2.getValue() - o1.getValue();
-
   private final DatasetDefinition<MetadataDataset, DatasetAdmin> metaDatasetDefinition;
   private final Map<String, DatasetSpecification> datasetSpecs;
   protected final Transactional transactional;
@@ -261,6 +255,9 @@ public class SearchHelper {
   }
 
   private MetadataSearchResponse search(Set<MetadataScope> scopes, SearchRequest request) {
+    if (SortInfo.SortOrder.WEIGHTED == request.getSortInfo().getSortOrder()) {
+      return searchWeighted(scopes, request);
+    }
     List<MetadataEntry> results = new LinkedList<>();
     List<String> cursors = new LinkedList<>();
     for (MetadataScope scope : scopes) {
@@ -271,15 +268,15 @@ public class SearchHelper {
 
     int offset = request.getOffset();
     int limit = request.getLimit();
-    SortInfo sortInfo = request.getSortInfo();
-    // sort if required
-    Set<MetadataEntity> sortedEntities = getSortedEntities(results, sortInfo);
+    // the backing storage is expected to return results in the expected order.
+    Set<MetadataEntity> sortedEntities = new LinkedHashSet<>(results.size());
+    for (MetadataEntry metadataEntry : results) {
+      sortedEntities.add(metadataEntry.getMetadataEntity());
+    }
     int total = sortedEntities.size();
 
-    // pagination is not performed at the dataset level, because:
-    // 1. scoring is needed for DEFAULT sort info. So perform it here for now.
-    // 2. Even when using custom sorting, we need to remove elements from the beginning to the offset and the cursors
-    //    at the end
+    // pagination is not performed at the dataset level, because we need to remove elements from the beginning
+    // to the offset and the cursors at the end
     // TODO: Figure out how all of this can be done server (HBase) side
     int startIndex = Math.min(request.getOffset(), sortedEntities.size());
     // Account for overflow
@@ -290,46 +287,43 @@ public class SearchHelper {
     Set<MetadataEntity> subSortedEntities = new LinkedHashSet<>(
       ImmutableList.copyOf(sortedEntities).subList(startIndex, endIndex)
     );
+    return createResponse(request, subSortedEntities, total, cursors);
+  }
+
+  /**
+   * Searches with weighted sorting: the entities matching in each scope are streamed from the default index and
+   * scored by the number of matches, and only the page of top-scored entities is selected and fetched.
+   */
+  private MetadataSearchResponse searchWeighted(Set<MetadataScope> scopes, SearchRequest request) {
+    WeightedSearchExecutor executor = new WeightedSearchExecutor();
+    for (MetadataScope scope : scopes) {
+      executor.addScores(execute(context -> {
+        Map<MetadataEntity, Integer> scores = new HashMap<>();
+        context.getDataset(scope).searchEntitiesByDefaultIndex(request,
+                                                               entity -> scores.merge(entity, 1, Integer::sum));
+        return scores;
+      }));
+    }
+    WeightedSearchExecutor.Results results = executor.select(request.getOffset(), request.getLimit(),
+                                                             request.getNumCursors(), request.getCursor());
+    return createResponse(request, new LinkedHashSet<>(results.getEntities()), results.getTotal(),
+                          results.getCursors());
+  }
 
+  private MetadataSearchResponse createResponse(SearchRequest request, Set<MetadataEntity> entities,
+                                                int total, List<String> cursors) {
     // Fetch metadata for entities in the result list
     // Note: since the fetch is happening in a different transaction, the metadata for entities may have been
     // removed. It is okay not to have metadata for some results in case this happens.
     Set<MetadataSearchResultRecord> finalResults = execute(
-      context -> addMetadataToEntities(subSortedEntities,
-                                       fetchMetadata(context.getDataset(SYSTEM), subSortedEntities),
-                                       fetchMetadata(context.getDataset(USER), subSortedEntities)));
+      context -> addMetadataToEntities(entities,
+                                       fetchMetadata(context.getDataset(SYSTEM), entities),
+                                       fetchMetadata(context.getDataset(USER), entities)));
 
+    SortInfo sortInfo = request.getSortInfo();
     return new MetadataSearchResponse(
-      sortInfo.getSortBy() + " " + sortInfo.getSortOrder(), offset, limit, request.getNumCursors(), total,
-      finalResults, cursors, request.shouldShowHidden(), request.getEntityScopes());
-  }
-
-  private Set<MetadataEntity> getSortedEntities(List<MetadataEntry> results, SortInfo sortInfo) {
-    // if sort order is not weighted, return entities in the order received.
-    // in this case, the backing storage is expected to return results in the expected order.
-    if (SortInfo.SortOrder.WEIGHTED != sortInfo.getSortOrder()) {
-      Set<MetadataEntity> entities = new LinkedHashSet<>(results.size());
-      for (MetadataEntry metadataEntry : results) {
-        entities.add(metadataEntry.getMetadataEntity());
-      }
-      return entities;
-    }
-    // if sort order is weighted, score results by weight, and return in descending order of weights
-    // Score results
-    final Map<MetadataEntity, Integer> weightedResults = new HashMap<>();
-    for (MetadataEntry metadataEntry : results) {
-      weightedResults.put(metadataEntry.getMetadataEntity(),
-                          weightedResults.getOrDefault(metadataEntry.getMetadataEntity(), 0) + 1);
-    }
-
-    // Sort the results by score
-    List<Map.Entry<MetadataEntity, Integer>> resultList = new ArrayList<>(weightedResults.entrySet());
-    resultList.sort(SEARCH_RESULT_DESC_SCORE_COMPARATOR);
-    Set<MetadataEntity> result = new LinkedHashSet<>(resultList.size());
-    for (Map.Entry<MetadataEntity, Integer> entry : resultList) {
-      result.add(entry.getKey());
-    }
-    return result;
+      sortInfo.getSortBy() + " " + sortInfo.getSortOrder(), request.getOffset(), request.getLimit(),
+      request.getNumCursors(), total, finalResults, cursors, request.shouldShowHidden(), request.getEntityScopes());
   }
 
   private Map<MetadataEntity, MetadataDataset.Record> fetchMetadata(MetadataDataset mds,
@@ -0,0 +1,197 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.spi.metadata.dataset;
+
+import io.cdap.cdap.api.metadata.MetadataEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import javax.annotation.Nullable;
+
+/**
+ * Executes the selection of results for metadata searches with weighted sorting.
+ *
+ * Entities are scored by the number of index values that match the search query. Instead of sorting all scored
+ * entities, only the entities needed for the requested page and the requested cursors are kept in a bounded heap.
+ * Results are ordered by descending score, and entities with the same score are ordered by their key-value pairs.
+ * Because that order is total, a cursor identifies the position of a result by its score and entity, and paging
+ * with cursors does not depend on the offset.
+ */
+final class WeightedSearchExecutor {
+
+  private static final char CURSOR_SEPARATOR = ',';
+
+  private static final Comparator<ScoredEntity> BEST_FIRST =
+    Comparator.<ScoredEntity>comparingInt(entity -> -entity.score).thenComparing(ScoredEntity::getSortKey);
+
+  private final Map<MetadataEntity, Integer> scores = new HashMap<>();
+
+  /**
+   * Adds the scores of entities, for example, the number of matches of each entity in one metadata scope.
+   */
+  void addScores(Map<MetadataEntity, Integer> entityScores) {
+    entityScores.forEach((entity, score) -> scores.merge(entity, score, Integer::sum));
+  }
+
+  /**
+   * Selects the results for a page of a search.
+   *
+   * @param offset the offset of the page, relative to the cursor if one is given
+   * @param limit the size of the page
+   * @param numCursors the number of cursors to return for the pages following this page
+   * @param cursor the cursor to start from, or null to start from the first result
+   * @return the selected results
+   * @throws IllegalArgumentException if the cursor is not valid
+   */
+  Results select(int offset, int limit, int numCursors, @Nullable String cursor) {
+    ScoredEntity start = cursor == null || cursor.isEmpty() ? null : ScoredEntity.fromCursor(cursor);
+    // Note that there's a potential for overflow so we account by limiting it to Integer.MAX_VALUE
+    int fetchSize = (int) Math.min(Math.min(offset + ((numCursors + 1) * (long) limit), Integer.MAX_VALUE),
+                                   scores.size());
+    // a heap that has the worst of the results selected so far at its head
+    PriorityQueue<ScoredEntity> heap = new PriorityQueue<>(fetchSize + 1, BEST_FIRST.reversed());
+    int total = 0;
+    for (Map.Entry<MetadataEntity, Integer> entry : scores.entrySet()) {
+      ScoredEntity candidate = new ScoredEntity(entry.getKey(), entry.getValue());
+      if (start != null && BEST_FIRST.compare(candidate, start) < 0) {
+        continue;
+      }
+      total++;
+      if (heap.size() < fetchSize) {
+        heap.add(candidate);
+      } else if (fetchSize > 0 && BEST_FIRST.compare(candidate, heap.peek()) < 0) {
+        heap.poll();
+        heap.add(candidate);
+      }
+    }
+
+    List<ScoredEntity> selected = new ArrayList<>(heap);
+    selected.sort(BEST_FIRST);
+    int startIndex = Math.min(offset, selected.size());
+    int endIndex = (int) Math.min(selected.size(), (long) offset + limit);
+    List<MetadataEntity> entities = new ArrayList<>(endIndex - startIndex);
+    for (ScoredEntity scoredEntity : selected.subList(startIndex, endIndex)) {
+      entities.add(scoredEntity.entity);
+    }
+    // a cursor is the first result of each of the pages following this page
+    List<String> cursors = new ArrayList<>(numCursors);
+    for (int i = 1; i <= numCursors && limit > 0; i++) {
+      long index = offset + (long) i * limit;
+      if (index >= selected.size()) {
+        break;
+      }
+      cursors.add(selected.get((int) index).toCursor());
+    }
+    return new Results(entities, cursors, total);
+  }
+
+  /**
+   * The results selected for a page of a search.
+   */
+  static final class Results {
+    private final List<MetadataEntity> entities;
+    private final List<String> cursors;
+    private final int total;
+
+    private Results(List<MetadataEntity> entities, List<String> cursors, int total) {
+      this.entities = Collections.unmodifiableList(entities);
+      this.cursors = Collections.unmodifiableList(cursors);
+      this.total = total;
+    }
+
+    /**
+     * @return the entities of the page, in the order of their scores
+     */
+    List<MetadataEntity> getEntities() {
+      return entities;
+    }
+
+    /**
+     * @return the cursors for the pages following this page
+     */
+    List<String> getCursors() {
+      return cursors;
+    }
+
+    /**
+     * @return the total number of results, starting from the cursor if one was given
+     */
+    int getTotal() {
+      return total;
+    }
+  }
+
+  /**
+   * An entity with its score, and a sort key that orders entities with the same score.
+   */
+  private static final class ScoredEntity {
+    private final MetadataEntity entity;
+    private final int score;
+    private String sortKey;
+
+    ScoredEntity(@Nullable MetadataEntity entity, int score) {
+      this.entity = entity;
+      this.score = score;
+    }
+
+    private ScoredEntity(int score, String sortKey) {
+      this(null, score);
+      this.sortKey = sortKey;
+    }
+
+    String getSortKey() {
+      // computed lazily, because it is only needed to compare entities with the same score
+      if (sortKey == null) {
+        StringBuilder builder = new StringBuilder();
+        for (MetadataEntity.KeyValue keyValue : entity) {
+          builder.append(keyValue.getKey()).append('=').append(keyValue.getValue()).append('\0');
+        }
+        sortKey = builder.toString();
+      }
+      return sortKey;
+    }
+
+    // the cursor is embedded in other cursors that use ':' as a separator, hence the sort key is encoded
+    String toCursor() {
+      return score + String.valueOf(CURSOR_SEPARATOR) + Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(getSortKey().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static ScoredEntity fromCursor(String cursor) {
+      int idx = cursor.indexOf(CURSOR_SEPARATOR);
+      if (idx < 0) {
+        throw new IllegalArgumentException("Invalid cursor for weighted search: " + cursor);
+      }
+      try {
+        return new ScoredEntity(Integer.parseInt(cursor.substring(0, idx)),
+                                new String(Base64.getUrlDecoder().decode(cursor.substring(idx + 1)),
+                                           StandardCharsets.UTF_8));
+      } catch (IllegalArgumentException e) {
+        // this includes NumberFormatException
+        throw new IllegalArgumentException("Invalid cursor for weighted search: " + cursor, e);
+      }
+    }
+  }
+}
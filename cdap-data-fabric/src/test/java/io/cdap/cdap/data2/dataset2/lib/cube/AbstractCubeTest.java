@@ -213,6 +213,24 @@ public abstract class AbstractCubeTest {
 
   }
 
+  @Test
+  public void testDataBeforeQueryStart() throws Exception {
+    Aggregation agg = new DefaultAggregation(ImmutableList.of("dim1", "dim2"));
+
+    int resolution = 1;
+    Cube cube = getCube("myBeforeStartCube", new int[] {resolution}, ImmutableMap.of("agg", agg));
+
+    // Both facts are in the same row time range, but all data of the first one is before the query start
+    writeInc(cube, "metric1", 1, 1, "1", "1");
+    writeInc(cube, "metric1", 10, 2, "1", "2");
+
+    // No time series should be returned for the first one
+    verifyCountQuery(cube, "agg", 5, 20, resolution, "metric1", AggregationFunction.SUM,
+                     ImmutableMap.of("dim1", "1"), ImmutableList.of("dim2"),
+                     ImmutableList.of(
+                       new TimeSeries("metric1", ImmutableMap.of("dim2", "2"), timeValues(10, 2))));
+  }
+
   @Test
   public void testGauges() throws Exception {
     Aggregation agg1 = new DefaultAggregation(ImmutableList.of("dim1"));
@@ -16,14 +16,26 @@
 
 package io.cdap.cdap.data2.dataset2.lib.cube;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
 import io.cdap.cdap.api.dataset.lib.cube.Cube;
+import io.cdap.cdap.api.dataset.lib.cube.TimeSeries;
+import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
 import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryMetricsTable;
 import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
 import io.cdap.cdap.data2.dataset2.lib.timeseries.EntityTable;
 import io.cdap.cdap.data2.dataset2.lib.timeseries.FactTable;
+import org.junit.Assert;
+import org.junit.Test;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 /**
  *
@@ -32,7 +44,117 @@ public class DefaultCubeTest extends AbstractCubeTest {
 
   @Override
   protected Cube getCube(final String name, int[] resolutions, Map<String, ? extends Aggregation> aggregations) {
-    FactTableSupplier supplier = new FactTableSupplier() {
+    return new DefaultCube(resolutions, getFactTableSupplier(name), aggregations,
+                           ImmutableMap.<String, AggregationAlias>of());
+  }
+
+  @Test
+  public void testRollup() throws Exception {
+    Aggregation agg1 = new DefaultAggregation(ImmutableList.of("dim1"));
+    Aggregation agg2 = new DefaultAggregation(ImmutableList.of("dim1", "dim2"));
+
+    int res1 = 1;
+    int res10 = 10;
+    int res100 = 100;
+    InMemoryCheckpointStore checkpointStore = new InMemoryCheckpointStore();
+    DefaultCube cube = new DefaultCube(new int[] {res1, res10, res100}, getFactTableSupplier("myRollupCube"),
+                                       ImmutableMap.of("agg1", agg1, "agg2", agg2), ImmutableMap.of(),
+                                       ImmutableMap.of(res10, res1, res100, res10), checkpointStore);
+
+    // without checkpoints, facts are written to all resolutions and nothing is rolled up
+    writeInc(cube, "metric1", 1, 1, "1", "1");
+    Assert.assertEquals(0, cube.rollup(res10, 200));
+
+    checkpointStore.saveCheckpoint(res10, 20);
+    checkpointStore.saveCheckpoint(res100, 100);
+
+    // facts before the checkpoints are written directly, the others are only written to the finest resolution
+    writeInc(cube, "metric1", 5, 2, "1", "1");
+    writeInc(cube, "metric1", 25, 3, "1", "1");
+    writeInc(cube, "metric1", 27, 4, "1", "2");
+    writeInc(cube, "metric1", 105, 5, "1", "1");
+    writeGauge(cube, "metric2", 33, 7, "1", "1");
+    verifyRollupQueries(cube);
+
+    // the 100 resolution cannot be rolled up past the checkpoint of the 10 resolution
+    Assert.assertEquals(0, cube.rollup(res100, 200));
+    Assert.assertEquals(18, cube.rollup(res10, 205));
+    Assert.assertEquals(Long.valueOf(200), checkpointStore.getCheckpoint(res10));
+    Assert.assertEquals(1, cube.rollup(res100, 205));
+    Assert.assertEquals(Long.valueOf(200), checkpointStore.getCheckpoint(res100));
+    verifyRollupQueries(cube);
+
+    // rolling up again, e.g. after a failure before saving the checkpoint, gives the same results
+    checkpointStore.saveCheckpoint(res10, 20);
+    checkpointStore.saveCheckpoint(res100, 100);
+    cube.rollup(res10, 205);
+    cube.rollup(res100, 205);
+    verifyRollupQueries(cube);
+
+    // a fact arriving after its window was rolled up is still counted
+    writeInc(cube, "metric1", 106, 1, "1", "1");
+    verifyCountQuery(cube, 0, 200, res100, "metric1", AggregationFunction.SUM,
+                     ImmutableMap.of("dim1", "1"), Collections.emptyList(),
+                     ImmutableList.of(new TimeSeries("metric1", new HashMap<>(), timeValues(0, 10, 100, 6))));
+  }
+
+  @Test
+  public void testRollupManyWindows() throws Exception {
+    Aggregation agg = new DefaultAggregation(ImmutableList.of("dim1", "dim2"));
+
+    int res1 = 1;
+    int res10 = 10;
+    InMemoryCheckpointStore checkpointStore = new InMemoryCheckpointStore();
+    DefaultCube cube = new DefaultCube(new int[] {res1, res10}, getFactTableSupplier("myManyWindowsCube"),
+                                       ImmutableMap.of("agg", agg), ImmutableMap.of(),
+                                       ImmutableMap.of(res10, res1), checkpointStore);
+    checkpointStore.saveCheckpoint(res10, 0);
+
+    // more windows than are rolled up with a single scan, with a gap without facts in between
+    Map<Long, Long> expected = new TreeMap<>();
+    for (int ts = 0; ts < 2000; ts += 7) {
+      if (ts < 800 || ts >= 1200) {
+        writeInc(cube, "metric1", ts, 1, "1", "1");
+        if (ts < 1990) {
+          expected.merge((long) ts / res10 * res10, 1L, Long::sum);
+        }
+      }
+    }
+    writeGauge(cube, "metric2", 1505, 7, "1", "1");
+
+    Assert.assertEquals(199, cube.rollup(res10, 1995));
+    Assert.assertEquals(Long.valueOf(1990), checkpointStore.getCheckpoint(res10));
+
+    // only query the windows that are rolled up, so that the query does not merge the finest resolution
+    List<TimeValue> timeValues = expected.entrySet().stream()
+      .map(e -> new TimeValue(e.getKey(), e.getValue()))
+      .collect(Collectors.toList());
+    verifyCountQuery(cube, 0, 1989, res10, "metric1", AggregationFunction.SUM,
+                     ImmutableMap.of("dim1", "1"), Collections.emptyList(),
+                     ImmutableList.of(new TimeSeries("metric1", new HashMap<>(), timeValues)));
+    // gauges written directly are not overwritten by the rollup
+    verifyCountQuery(cube, 0, 1989, res10, "metric2", AggregationFunction.LATEST,
+                     ImmutableMap.of("dim1", "1"), Collections.emptyList(),
+                     ImmutableList.of(new TimeSeries("metric2", new HashMap<>(), timeValues(1500, 7))));
+  }
+
+  private void verifyRollupQueries(Cube cube) throws Exception {
+    verifyCountQuery(cube, 0, 200, 10, "metric1", AggregationFunction.SUM,
+                     ImmutableMap.of("dim1", "1"), Collections.emptyList(),
+                     ImmutableList.of(new TimeSeries("metric1", new HashMap<>(), timeValues(0, 3, 20, 7, 100, 5))));
+    verifyCountQuery(cube, 0, 200, 10, "metric1", AggregationFunction.SUM,
+                     ImmutableMap.of("dim1", "1", "dim2", "2"), Collections.emptyList(),
+                     ImmutableList.of(new TimeSeries("metric1", new HashMap<>(), timeValues(20, 4))));
+    verifyCountQuery(cube, 0, 200, 100, "metric1", AggregationFunction.SUM,
+                     ImmutableMap.of("dim1", "1"), Collections.emptyList(),
+                     ImmutableList.of(new TimeSeries("metric1", new HashMap<>(), timeValues(0, 10, 100, 5))));
+    verifyCountQuery(cube, 0, 200, 10, "metric2", AggregationFunction.LATEST,
+                     ImmutableMap.of("dim1", "1"), Collections.emptyList(),
+                     ImmutableList.of(new TimeSeries("metric2", new HashMap<>(), timeValues(30, 7))));
+  }
+
+  private FactTableSupplier getFactTableSupplier(final String name) {
+    return new FactTableSupplier() {
       @Override
       public FactTable get(int resolution, int rollTime) {
         String entityTableName = "EntityTable-" + name;
@@ -45,7 +167,20 @@ public class DefaultCubeTest extends AbstractCubeTest {
 
       }
     };
+  }
+
+  private static final class InMemoryCheckpointStore implements RollupCheckpointStore {
+    private final Map<Integer, Long> checkpoints = new HashMap<>();
+
+    @Nullable
+    @Override
+    public Long getCheckpoint(int resolution) {
+      return checkpoints.get(resolution);
+    }
 
-    return new DefaultCube(resolutions, supplier, aggregations, ImmutableMap.<String, AggregationAlias>of());
+    @Override
+    public void saveCheckpoint(int resolution, long timestamp) {
+      checkpoints.put(resolution, timestamp);
+    }
   }
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.data2.dataset2.lib.cube;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
+import io.cdap.cdap.api.dataset.lib.cube.CubeQuery;
+import io.cdap.cdap.api.dataset.lib.cube.DimensionValue;
+import io.cdap.cdap.api.dataset.lib.cube.Interpolator;
+import io.cdap.cdap.api.dataset.lib.cube.Interpolators;
+import io.cdap.cdap.api.dataset.lib.cube.TimeSeries;
+import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
+import io.cdap.cdap.data2.dataset2.lib.timeseries.FactScanResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link TimeSeriesAggregator}.
+ */
+public class TimeSeriesAggregatorTest {
+
+  @Test
+  public void testAggregationFunctions() {
+    for (AggregationFunction function : AggregationFunction.values()) {
+      TimeSeriesAggregator aggregator = new TimeSeriesAggregator(createQuery(function, ImmutableList.of(), null, 100));
+      // two rows of different programs contribute to the same series
+      Assert.assertTrue(aggregator.add(createResult("p1", 10, 5, 20, 3, 30, 1)));
+      Assert.assertTrue(aggregator.add(createResult("p2", 2, 2, 20, 4)));
+
+      Collection<TimeSeries> result = aggregator.getTimeSeries();
+      Assert.assertEquals(1, result.size());
+      TimeSeries timeSeries = result.iterator().next();
+      Assert.assertEquals("m", timeSeries.getMeasureName());
+      Assert.assertTrue(timeSeries.getDimensionValues().isEmpty());
+
+      long expected20;
+      switch (function) {
+        case SUM:
+          expected20 = 7;
+          break;
+        case MAX:
+          expected20 = 4;
+          break;
+        case MIN:
+          expected20 = 3;
+          break;
+        default:
+          // the last value scanned wins
+          expected20 = 4;
+      }
+      Assert.assertEquals(function.name(), timeValues(2, 2, 10, 5, 20, expected20, 30, 1),
+                          timeSeries.getTimeValues());
+    }
+  }
+
+  @Test
+  public void testGroupBy() {
+    TimeSeriesAggregator aggregator = new TimeSeriesAggregator(
+      createQuery(AggregationFunction.SUM, ImmutableList.of("program"), null, 100));
+    Assert.assertTrue(aggregator.add(createResult("p1", 10, 5)));
+    Assert.assertTrue(aggregator.add(createResult("p2", 10, 2)));
+    Assert.assertTrue(aggregator.add(createResult("p1", 10, 3)));
+    // null is never returned as a group by value
+    Assert.assertFalse(aggregator.add(createResult(null, 10, 1)));
+
+    Assert.assertEquals(2, aggregator.getSeriesCount());
+    for (TimeSeries timeSeries : aggregator.getTimeSeries()) {
+      Map<String, String> dimensions = timeSeries.getDimensionValues();
+      if ("p1".equals(dimensions.get("program"))) {
+        Assert.assertEquals(timeValues(10, 8), timeSeries.getTimeValues());
+      } else {
+        Assert.assertEquals(ImmutableMap.of("program", "p2"), dimensions);
+        Assert.assertEquals(timeValues(10, 2), timeSeries.getTimeValues());
+      }
+    }
+  }
+
+  @Test
+  public void testEmptyResult() {
+    TimeSeriesAggregator aggregator = new TimeSeriesAggregator(
+      createQuery(AggregationFunction.SUM, ImmutableList.of("program"), null, 100));
+    // a scan result can have no time values, e.g. when all data of a row is before the query start
+    Assert.assertTrue(aggregator.add(createResult("p1")));
+    Assert.assertTrue(aggregator.add(createResult("p2", 10, 2)));
+
+    Assert.assertEquals(1, aggregator.getSeriesCount());
+    TimeSeries timeSeries = aggregator.getTimeSeries().iterator().next();
+    Assert.assertEquals(ImmutableMap.of("program", "p2"), timeSeries.getDimensionValues());
+    Assert.assertEquals(timeValues(10, 2), timeSeries.getTimeValues());
+  }
+
+  @Test
+  public void testManyTimestamps() {
+    TimeSeriesAggregator aggregator = new TimeSeriesAggregator(
+      createQuery(AggregationFunction.SUM, ImmutableList.of(), null, Integer.MAX_VALUE));
+    // add the timestamps in descending order twice, to go through resizing and to verify the sorting
+    long[] values = new long[20000];
+    for (int i = 0; i < values.length; i += 2) {
+      values[i] = 10000 - i / 2;
+      values[i + 1] = i;
+    }
+    aggregator.add(createResult("p1", values));
+    aggregator.add(createResult("p2", values));
+
+    List<TimeValue> timeValues = aggregator.getTimeSeries().iterator().next().getTimeValues();
+    Assert.assertEquals(10000, timeValues.size());
+    for (int i = 0; i < timeValues.size(); i++) {
+      TimeValue timeValue = timeValues.get(i);
+      Assert.assertEquals(i + 1, timeValue.getTimestamp());
+      Assert.assertEquals(2 * (10000 - timeValue.getTimestamp()) * 2, timeValue.getValue());
+    }
+  }
+
+  @Test
+  public void testInterpolationAndLimit() {
+    TimeSeriesAggregator aggregator = new TimeSeriesAggregator(
+      createQuery(AggregationFunction.SUM, ImmutableList.of(), new Interpolators.Step(), 100));
+    aggregator.add(createResult("p1", 1, 5, 4, 8, 5, 9));
+    Assert.assertEquals(timeValues(1, 5, 2, 5, 3, 5, 4, 8, 5, 9),
+                        aggregator.getTimeSeries().iterator().next().getTimeValues());
+
+    aggregator = new TimeSeriesAggregator(
+      createQuery(AggregationFunction.SUM, ImmutableList.of(), new Interpolators.Linear(), 3));
+    aggregator.add(createResult("p1", 1, 5, 5, 9));
+    Assert.assertEquals(timeValues(1, 5, 2, 6, 3, 7),
+                        aggregator.getTimeSeries().iterator().next().getTimeValues());
+    // a non-positive limit returns only the first data point, same as before
+    aggregator = new TimeSeriesAggregator(
+      createQuery(AggregationFunction.SUM, ImmutableList.of(), null, -1));
+    aggregator.add(createResult("p1", 1, 5, 5, 9));
+    Assert.assertEquals(timeValues(1, 5), aggregator.getTimeSeries().iterator().next().getTimeValues());
+  }
+
+  private CubeQuery createQuery(AggregationFunction function, List<String> groupBy,
+                                Interpolator interpolator, int limit) {
+    return CubeQuery.builder()
+      .select()
+        .measurement("m", function)
+      .from(null).resolution(1, TimeUnit.SECONDS)
+      .where()
+        .dimensions(ImmutableMap.of())
+        .timeRange(0, Long.MAX_VALUE)
+      .groupBy()
+        .dimensions(groupBy)
+      .limit(limit)
+      .interpolator(interpolator)
+      .build();
+  }
+
+  private FactScanResult createResult(String program, long... timeValues) {
+    return new FactScanResult("m", ImmutableList.of(new DimensionValue("namespace", "ns"),
+                                                    new DimensionValue("program", program)),
+                              timeValues(timeValues));
+  }
+
+  private List<TimeValue> timeValues(long... longs) {
+    List<TimeValue> timeValues = new ArrayList<>();
+    for (int i = 0; i < longs.length; i += 2) {
+      timeValues.add(new TimeValue(longs[i], longs[i + 1]));
+    }
+    return timeValues;
+  }
+}
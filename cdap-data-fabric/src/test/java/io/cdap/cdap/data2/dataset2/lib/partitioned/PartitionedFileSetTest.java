@@ -41,7 +41,9 @@ import io.cdap.cdap.api.dataset.lib.Partitioning;
 import io.cdap.cdap.api.dataset.table.TableProperties;
 import io.cdap.cdap.common.io.Locations;
 import io.cdap.cdap.common.namespace.NamespacePathLocator;
+import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.data2.dataset2.DatasetFrameworkTestUtil;
+import io.cdap.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import io.cdap.cdap.proto.id.DatasetId;
 import io.cdap.cdap.test.SlowTests;
 import org.apache.hadoop.security.UserGroupInformation;
@@ -184,6 +186,47 @@ public class PartitionedFileSetTest {
     PartitionedFileSetDataset.parseRowKey(rowKey, PARTITIONING_2);
   }
 
+  @Test
+  public void testGenerateFuzzyRowFilter() {
+    // no filter, or only conditions that are covered by the start and stop key
+    Assert.assertNull(PartitionedFileSetDataset.generateFuzzyRowFilter(null, PARTITIONING_1));
+    Assert.assertNull(PartitionedFileSetDataset.generateFuzzyRowFilter(
+      PartitionFilter.builder().addValueCondition("s", "x").addValueCondition("i", 1).build(), PARTITIONING_1));
+    Assert.assertNull(PartitionedFileSetDataset.generateFuzzyRowFilter(
+      PartitionFilter.builder().addRangeCondition("s", "a", "x").build(), PARTITIONING_1));
+    // the length of an unconstrained string field is unknown, hence later fields can't be included
+    Assert.assertNull(PartitionedFileSetDataset.generateFuzzyRowFilter(
+      PartitionFilter.builder().addValueCondition("l", 17L).build(), PARTITIONING_1));
+
+    // a condition following an unconstrained integer field
+    FuzzyRowFilter fuzzyRowFilter = PartitionedFileSetDataset.generateFuzzyRowFilter(
+      PartitionFilter.builder().addValueCondition("s", "x").addValueCondition("l", 17L).build(), PARTITIONING_1);
+    Assert.assertNotNull(fuzzyRowFilter);
+    Assert.assertEquals(1, fuzzyRowFilter.getFuzzyKeysData().size());
+    byte[] rowKey = PartitionedFileSetDataset.generateRowKey(PARTITION_KEY, PARTITIONING_1);
+    ImmutablePair<byte[], byte[]> fuzzyKey = fuzzyRowFilter.getFuzzyKeysData().get(0);
+    Assert.assertEquals(rowKey.length, fuzzyKey.getFirst().length);
+    Assert.assertArrayEquals(new byte[] { 0, 0, 1, 1, 1, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0 }, fuzzyKey.getSecond());
+    Assert.assertEquals(FuzzyRowFilter.ReturnCode.INCLUDE, fuzzyRowFilter.filterRow(rowKey));
+    PartitionKey otherKey = PartitionKey.builder().addField("s", "x").addField("i", 5).addField("l", 18L).build();
+    byte[] otherRowKey = PartitionedFileSetDataset.generateRowKey(otherKey, PARTITIONING_1);
+    Assert.assertNotEquals(FuzzyRowFilter.ReturnCode.INCLUDE, fuzzyRowFilter.filterRow(otherRowKey));
+
+    // small integer ranges are expanded into one fuzzy key per value, large ones are wildcards
+    fuzzyRowFilter = PartitionedFileSetDataset.generateFuzzyRowFilter(
+      PartitionFilter.builder().addRangeCondition("i", -2, 1).addValueCondition("l", 17L)
+        .addValueCondition("s", "x").build(), PARTITIONING_1);
+    Assert.assertNotNull(fuzzyRowFilter);
+    Assert.assertEquals(3, fuzzyRowFilter.getFuzzyKeysData().size());
+    Assert.assertEquals(FuzzyRowFilter.ReturnCode.INCLUDE, fuzzyRowFilter.filterRow(rowKey));
+    fuzzyRowFilter = PartitionedFileSetDataset.generateFuzzyRowFilter(
+      PartitionFilter.builder().addRangeCondition("i", -2, 1000).addValueCondition("l", 17L)
+        .addValueCondition("s", "x").build(), PARTITIONING_1);
+    Assert.assertNotNull(fuzzyRowFilter);
+    Assert.assertEquals(1, fuzzyRowFilter.getFuzzyKeysData().size());
+    Assert.assertEquals(FuzzyRowFilter.ReturnCode.INCLUDE, fuzzyRowFilter.filterRow(rowKey));
+  }
+
   @Test
   public void testMetadataForNonexistentPartition() throws Exception {
     PartitionedFileSet pfs = dsFrameworkUtil.getInstance(pfsInstance);
@@ -20,22 +20,33 @@ package io.cdap.cdap.spi.data.sql;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
-import com.google.inject.Scopes;
 import com.opentable.db.postgres.embedded.EmbeddedPostgres;
 import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.guice.ConfigModule;
 import io.cdap.cdap.common.metrics.NoOpMetricsCollectionService;
+import io.cdap.cdap.common.utils.Tasks;
 import io.cdap.cdap.data.runtime.StorageModule;
 import io.cdap.cdap.spi.data.StructuredTableAdmin;
 import io.cdap.cdap.spi.data.StructuredTableTest;
 import io.cdap.cdap.spi.data.table.StructuredTableRegistry;
 import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import org.apache.commons.dbcp2.DelegatingStatement;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
+import org.junit.Test;
 
 import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
 
 /**
  * Test for SQL structured table.
@@ -44,10 +55,14 @@ public class SqlStructuredTableTest extends StructuredTableTest {
   private static EmbeddedPostgres pg;
   private static StructuredTableAdmin tableAdmin;
   private static TransactionRunner transactionRunner;
+  private static DataSource dataSource;
+  private static final Map<String, Long> GAUGES = new ConcurrentHashMap<>();
 
   @BeforeClass
   public static void beforeClass() throws Exception {
     CConfiguration cConf = CConfiguration.create();
+    // Use a small fetch size so that scans are streamed in multiple fetches
+    cConf.setInt(Constants.Dataset.DATA_STORAGE_SQL_SCAN_FETCH_SIZE, 7);
     pg = PostgresInstantiator.createAndStart(cConf, TEMP_FOLDER.newFolder());
 
     Injector injector = Guice.createInjector(
@@ -56,7 +71,7 @@ public class SqlStructuredTableTest extends StructuredTableTest {
       new AbstractModule() {
         @Override
         protected void configure() {
-          bind(MetricsCollectionService.class).to(NoOpMetricsCollectionService.class).in(Scopes.SINGLETON);
+          bind(MetricsCollectionService.class).toInstance(new GaugeRecordingMetricsCollectionService());
         }
       }
     );
@@ -64,6 +79,7 @@ public class SqlStructuredTableTest extends StructuredTableTest {
     injector.getInstance(StructuredTableRegistry.class).initialize();
     tableAdmin = injector.getInstance(StructuredTableAdmin.class);
     transactionRunner = injector.getInstance(TransactionRunner.class);
+    dataSource = injector.getInstance(DataSource.class);
 
     Assert.assertEquals(PostgresSqlStructuredTableAdmin.class, tableAdmin.getClass());
     Assert.assertEquals(RetryingSqlTransactionRunner.class, transactionRunner.getClass());
@@ -76,6 +92,68 @@ public class SqlStructuredTableTest extends StructuredTableTest {
     }
   }
 
+  @Test
+  public void testStatementPooling() throws Exception {
+    String sql = "SELECT 1;";
+    Statement pooled;
+    try (Connection connection = dataSource.getConnection()) {
+      try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        pooled = ((DelegatingStatement) statement).getInnermostDelegate();
+      }
+    }
+
+    // The connection pool is LIFO, hence the same connection is borrowed again, which should reuse the statement
+    try (Connection connection = dataSource.getConnection()) {
+      try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        Assert.assertSame(pooled, ((DelegatingStatement) statement).getInnermostDelegate());
+      }
+    }
+
+    // The hit rate is read from the statement pool stats when a connection is borrowed
+    Tasks.waitFor(true, () -> {
+      try (Connection connection = dataSource.getConnection()) {
+        Long hitRate = GAUGES.get(Constants.Metrics.StructuredTable.STATEMENT_CACHE_HIT_RATE);
+        return hitRate != null && hitRate > 0L;
+      }
+    }, 10, TimeUnit.SECONDS, 100, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * A {@link MetricsCollectionService} that records the last value of every gauge.
+   */
+  private static final class GaugeRecordingMetricsCollectionService extends NoOpMetricsCollectionService {
+
+    @Override
+    public MetricsContext getContext(Map<String, String> tags) {
+      return new MetricsContext() {
+        @Override
+        public void increment(String metricName, long value) {
+          // no-op
+        }
+
+        @Override
+        public void gauge(String metricName, long value) {
+          GAUGES.put(metricName, value);
+        }
+
+        @Override
+        public MetricsContext childContext(Map<String, String> tags) {
+          return this;
+        }
+
+        @Override
+        public MetricsContext childContext(String tagName, String tagValue) {
+          return this;
+        }
+
+        @Override
+        public Map<String, String> getTags() {
+          return tags;
+        }
+      };
+    }
+  }
+
   @Override
   protected StructuredTableAdmin getStructuredTableAdmin() {
     return tableAdmin;
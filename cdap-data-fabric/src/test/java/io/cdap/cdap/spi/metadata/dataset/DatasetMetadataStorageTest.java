@@ -59,6 +59,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Iterator;
@@ -236,6 +237,46 @@ public class DatasetMetadataStorageTest extends MetadataStorageTest {
       new Drop(ns1app1), new Drop(ns1app2), new Drop(ns1app3), new Drop(ns2app1), new Drop(ns2app2)));
   }
 
+  // this test is specific to the DatasetMetadataStorage, because it relies on the order of equally scored results
+  @Test
+  public void testWeightedSearchCursors() throws IOException {
+    MetadataStorage mds = getMetadataStorage();
+
+    NamespaceId nsId = new NamespaceId("ns1");
+    List<MetadataRecord> records = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      // every third dataset has an additional matching tag, which gives it a higher score
+      Metadata metadata = new Metadata(USER, i % 3 == 0 ? tags("t", "t" + i) : tags("t"));
+      records.add(new MetadataRecord(nsId.dataset("ds" + i).toMetadataEntity(), metadata));
+    }
+    mds.batch(records.stream()
+                .map(record -> new Update(record.getEntity(), record.getMetadata()))
+                .collect(Collectors.toList()));
+
+    List<MetadataRecord> expected = mds.search(
+      SearchRequest.of("t*").addNamespace(nsId.getNamespace()).setLimit(Integer.MAX_VALUE).build()).getResults();
+    Assert.assertEquals(ImmutableSet.copyOf(records), ImmutableSet.copyOf(expected));
+    // the higher scored datasets come first
+    Assert.assertEquals(ImmutableSet.of(records.get(0), records.get(3), records.get(6), records.get(9)),
+                        ImmutableSet.copyOf(expected.subList(0, 4)));
+
+    // page through the results with cursors
+    List<MetadataRecord> paged = new ArrayList<>();
+    String cursor = null;
+    do {
+      SearchResponse response = mds.search(SearchRequest.of("t*").addNamespace(nsId.getNamespace()).setLimit(3)
+                                             .setCursorRequested(true).setCursor(cursor).build());
+      Assert.assertEquals(paged.size(), response.getOffset());
+      Assert.assertEquals(10, response.getTotalResults());
+      paged.addAll(response.getResults());
+      cursor = response.getCursor();
+    } while (cursor != null);
+    Assert.assertEquals(expected, paged);
+
+    // clean up
+    mds.batch(records.stream().map(record -> new Drop(record.getEntity())).collect(Collectors.toList()));
+  }
+
   @Test
   public void testNsScopes() {
     // no namespace
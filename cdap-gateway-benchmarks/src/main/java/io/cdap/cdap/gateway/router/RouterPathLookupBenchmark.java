@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.gateway.router;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for finding the destination service of a request, which the router does for every request.
+ * The request paths are from the {@code router-paths.txt} corpus.
+ *
+ * <ul>
+ *   <li>{@link #legacyRoute} measures the {@link LegacyRouterPathLookup}, which splits the path and walks a chain of
+ *   checks.</li>
+ *   <li>{@link #route} measures the {@link RouterPathLookup}, which matches the path against a {@link RouteTable}.</li>
+ * </ul>
+ *
+ * This class is in the same package as the {@link RouterPathLookup} to have access to the {@link RouteDestination}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class RouterPathLookupBenchmark {
+
+  private LegacyRouterPathLookup legacyLookup;
+  private RouterPathLookup lookup;
+  private String[] paths;
+  private HttpRequest[] requests;
+  private int index;
+
+  @Setup
+  public void setup() throws IOException {
+    legacyLookup = new LegacyRouterPathLookup();
+    lookup = new RouterPathLookup();
+
+    List<String> lines = Resources.readLines(Resources.getResource("router-paths.txt"), Charsets.UTF_8);
+    List<String> corpusPaths = new ArrayList<>();
+    List<HttpRequest> corpusRequests = new ArrayList<>();
+    for (String line : lines) {
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      int idx = line.indexOf(' ');
+      String path = line.substring(idx + 1).trim();
+      corpusPaths.add(path);
+      corpusRequests.add(new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+                                                HttpMethod.valueOf(line.substring(0, idx)), path));
+    }
+    paths = corpusPaths.toArray(new String[corpusPaths.size()]);
+    requests = corpusRequests.toArray(new HttpRequest[corpusRequests.size()]);
+
+    // Both lookups must agree on every path of the corpus
+    for (int i = 0; i < paths.length; i++) {
+      RouteDestination expected = legacyLookup.getRoutingService(paths[i], requests[i]);
+      RouteDestination actual = lookup.getRoutingService(paths[i], requests[i]);
+      if (!Objects.equals(expected, actual)) {
+        throw new IllegalStateException("Routing of " + requests[i].method() + " " + paths[i] + " changed from "
+                                          + expected + " to " + actual);
+      }
+    }
+  }
+
+  @Benchmark
+  public RouteDestination legacyRoute() {
+    int i = nextIndex();
+    return legacyLookup.getRoutingService(paths[i], requests[i]);
+  }
+
+  @Benchmark
+  public RouteDestination route() {
+    int i = nextIndex();
+    return lookup.getRoutingService(paths[i], requests[i]);
+  }
+
+  private int nextIndex() {
+    index = (index + 1) % paths.length;
+    return index;
+  }
+}
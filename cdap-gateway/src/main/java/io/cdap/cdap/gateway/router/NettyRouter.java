@@ -29,6 +29,7 @@ import io.cdap.cdap.gateway.router.handlers.AuditLogHandler;
 import io.cdap.cdap.gateway.router.handlers.AuthenticationHandler;
 import io.cdap.cdap.gateway.router.handlers.HttpRequestRouter;
 import io.cdap.cdap.gateway.router.handlers.HttpStatusRequestHandler;
+import io.cdap.cdap.gateway.router.handlers.OutboundChannelPool;
 import io.cdap.cdap.security.auth.AccessTokenTransformer;
 import io.cdap.cdap.security.auth.TokenValidator;
 import io.cdap.http.SSLConfig;
@@ -39,6 +40,10 @@ import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
@@ -83,10 +88,13 @@ public class NettyRouter extends AbstractIdleService {
   private final CConfiguration cConf;
   private final boolean sslEnabled;
   private final SSLHandlerFactory sslHandlerFactory;
+  private final boolean nativeTransport;
+  private final OutboundChannelPool channelPool;
   private InetSocketAddress boundAddress;
 
   private DiscoveryServiceClient discoveryServiceClient;
   private Cancellable serverCancellable;
+  private Cancellable channelPoolCancellable;
 
   @Inject
   public NettyRouter(CConfiguration cConf, SConfiguration sConf, @Named(Constants.Router.ADDRESS) InetAddress hostname,
@@ -104,6 +112,8 @@ public class NettyRouter extends AbstractIdleService {
     this.accessTokenTransformer = accessTokenTransformer;
     this.discoveryServiceClient = discoveryServiceClient;
     this.sslEnabled = cConf.getBoolean(Constants.Security.SSL.EXTERNAL_ENABLED);
+    this.nativeTransport = cConf.getBoolean(Constants.Router.SERVER_NATIVE_TRANSPORT_ENABLED) && Epoll.isAvailable();
+    this.channelPool = new OutboundChannelPool(cConf);
     if (sslEnabled) {
       this.port = cConf.getInt(Constants.Router.ROUTER_SSL_PORT);
       File keystore;
@@ -136,6 +146,7 @@ public class NettyRouter extends AbstractIdleService {
   @Override
   protected void startUp() throws Exception {
     tokenValidator.startAndWait();
+    channelPoolCancellable = serviceLookup.addChangeListener(channelPool);
     ChannelGroup channelGroup = new DefaultChannelGroup(ImmediateEventExecutor.INSTANCE);
     serverCancellable = startServer(createServerBootstrap(channelGroup), channelGroup);
   }
@@ -146,6 +157,7 @@ public class NettyRouter extends AbstractIdleService {
     LOG.info("Stopping Netty Router...");
 
     serverCancellable.cancel();
+    channelPoolCancellable.cancel();
     tokenValidator.stopAndWait();
 
     LOG.info("Stopped Netty Router.");
@@ -163,16 +175,19 @@ public class NettyRouter extends AbstractIdleService {
 
   private EventLoopGroup createEventLoopGroup(int size, String nameFormat) {
     ThreadFactory threadFactory = new ThreadFactoryBuilder().setDaemon(true).setNameFormat(nameFormat).build();
-    return new NioEventLoopGroup(size, threadFactory);
+    return nativeTransport ? new EpollEventLoopGroup(size, threadFactory) : new NioEventLoopGroup(size, threadFactory);
   }
 
   private ServerBootstrap createServerBootstrap(final ChannelGroup channelGroup) {
     EventLoopGroup bossGroup = createEventLoopGroup(serverBossThreadPoolSize, "router-server-boss-thread-%d");
     EventLoopGroup workerGroup = createEventLoopGroup(serverWorkerThreadPoolSize, "router-server-worker-thread-%d");
+    Class<? extends ServerChannel> channelClass = nativeTransport
+      ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+    LOG.debug("Using {} for the Netty Router", channelClass.getSimpleName());
 
     return new ServerBootstrap()
       .group(bossGroup, workerGroup)
-      .channel(NioServerSocketChannel.class)
+      .channel(channelClass)
       .option(ChannelOption.SO_BACKLOG, serverConnectionBacklog)
       .childHandler(new ChannelInitializer<SocketChannel>() {
         @Override
@@ -195,7 +210,7 @@ public class NettyRouter extends AbstractIdleService {
           // Always let the client to continue sending the request body after the authentication passed
           pipeline.addLast("expect-continue", new HttpServerExpectContinueHandler());
           // for now there's only one hardcoded rule, but if there will be more, we may want it generic and configurable
-          pipeline.addLast("http-request-handler", new HttpRequestRouter(cConf, serviceLookup));
+          pipeline.addLast("http-request-handler", new HttpRequestRouter(serviceLookup, channelPool));
         }
       });
   }
@@ -0,0 +1,365 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.gateway.router;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import io.netty.handler.codec.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * An ordered table of routing rules, compiled into segment tries for matching request paths.
+ *
+ * Each rule has a pattern of path segments separated by {@code /}. A pattern segment is either {@code *}, which
+ * matches any segment, or a list of literals separated by {@code |}. A rule matches the beginning of the path
+ * ({@link Builder#prefix}), the whole path ({@link Builder#exact}) or the end of the path ({@link Builder#suffix}).
+ * When more than one rule matches a path, the one added to the {@link Builder} first wins.
+ *
+ * The prefix and exact rules are compiled into one trie and the suffix rules into another trie with the segments
+ * reversed. Matching walks the tries over the path string directly and doesn't allocate. Empty segments, e.g. from
+ * {@code //}, are ignored.
+ */
+final class RouteTable {
+
+  /**
+   * Resolves the {@link RouteDestination} of a request path that matched a rule.
+   */
+  interface Resolver {
+
+    /**
+     * Returns the {@link RouteDestination} for the given path, or {@code null} if the request shouldn't be routed.
+     */
+    @Nullable
+    RouteDestination resolve(String path);
+  }
+
+  private enum Kind {
+    PREFIX, EXACT, SUFFIX
+  }
+
+  private final Node prefixRoot;
+  private final Node suffixRoot;
+  private final RouteDestination defaultDestination;
+
+  private RouteTable(Node prefixRoot, Node suffixRoot, RouteDestination defaultDestination) {
+    this.prefixRoot = prefixRoot;
+    this.suffixRoot = suffixRoot;
+    this.defaultDestination = defaultDestination;
+  }
+
+  /**
+   * Creates a new {@link Builder}.
+   */
+  static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns the destination of the first rule that matches the given path and method, or the default destination
+   * of this table if there is no matching rule.
+   *
+   * @param path the normalized request path, without the query string
+   * @param method the request method
+   * @return the {@link RouteDestination}, or {@code null} if the request shouldn't be routed
+   */
+  @Nullable
+  RouteDestination route(String path, HttpMethod method) {
+    Rule rule = matchPrefix(prefixRoot, path, 0, method, null);
+    rule = matchSuffix(suffixRoot, path, path.length(), method, rule);
+    return rule == null ? defaultDestination : rule.resolver.resolve(path);
+  }
+
+  /**
+   * Returns the segment at the given index of a path. Empty segments are not counted.
+   *
+   * @throws IllegalArgumentException if the path doesn't have enough segments
+   */
+  static String getSegment(String path, int index) {
+    int start = skipSlashes(path, 0);
+    for (int i = 0; i < index && start < path.length(); i++) {
+      start = skipSlashes(path, segmentEnd(path, start));
+    }
+    Preconditions.checkArgument(start < path.length(), "Path '%s' doesn't have segment %s", path, index);
+    return path.substring(start, segmentEnd(path, start));
+  }
+
+  /**
+   * Matches the trie of prefix and exact rules, walking the path forward.
+   *
+   * @param node the current trie node
+   * @param path the request path
+   * @param pos the position in the path right after the segment matched by the node
+   * @param method the request method
+   * @param best the best matching rule so far
+   * @return the best matching rule, which can be {@code null} if nothing matched
+   */
+  @Nullable
+  private static Rule matchPrefix(Node node, String path, int pos, HttpMethod method, @Nullable Rule best) {
+    if (best != null && node.minPriority >= best.priority) {
+      return best;
+    }
+    int start = skipSlashes(path, pos);
+    for (Rule rule : node.rules) {
+      if (best != null && rule.priority >= best.priority) {
+        break;
+      }
+      if ((rule.kind != Kind.EXACT || start == path.length()) && rule.accepts(method)) {
+        best = rule;
+        break;
+      }
+    }
+    if (start == path.length()) {
+      return best;
+    }
+    int end = segmentEnd(path, start);
+    Node child = node.getChild(path, start, end);
+    if (child != null) {
+      best = matchPrefix(child, path, end, method, best);
+    }
+    if (node.wildcard != null) {
+      best = matchPrefix(node.wildcard, path, end, method, best);
+    }
+    return best;
+  }
+
+  /**
+   * Matches the trie of suffix rules, walking the path backward.
+   *
+   * @param node the current trie node
+   * @param path the request path
+   * @param pos the position in the path right before the segment matched by the node
+   * @param method the request method
+   * @param best the best matching rule so far
+   * @return the best matching rule, which can be {@code null} if nothing matched
+   */
+  @Nullable
+  private static Rule matchSuffix(Node node, String path, int pos, HttpMethod method, @Nullable Rule best) {
+    if (best != null && node.minPriority >= best.priority) {
+      return best;
+    }
+    for (Rule rule : node.rules) {
+      if (best != null && rule.priority >= best.priority) {
+        break;
+      }
+      if (rule.accepts(method)) {
+        best = rule;
+        break;
+      }
+    }
+    int end = pos;
+    while (end > 0 && path.charAt(end - 1) == '/') {
+      end--;
+    }
+    if (end == 0) {
+      return best;
+    }
+    int start = path.lastIndexOf('/', end - 1) + 1;
+    Node child = node.getChild(path, start, end);
+    if (child != null) {
+      best = matchSuffix(child, path, start, method, best);
+    }
+    if (node.wildcard != null) {
+      best = matchSuffix(node.wildcard, path, start, method, best);
+    }
+    return best;
+  }
+
+  private static int skipSlashes(String path, int pos) {
+    while (pos < path.length() && path.charAt(pos) == '/') {
+      pos++;
+    }
+    return pos;
+  }
+
+  private static int segmentEnd(String path, int start) {
+    int end = path.indexOf('/', start);
+    return end < 0 ? path.length() : end;
+  }
+
+  /**
+   * A routing rule.
+   */
+  private static final class Rule {
+    private final int priority;
+    private final Kind kind;
+    private final HttpMethod method;
+    private final Resolver resolver;
+
+    Rule(int priority, Kind kind, @Nullable HttpMethod method, Resolver resolver) {
+      this.priority = priority;
+      this.kind = kind;
+      this.method = method;
+      this.resolver = resolver;
+    }
+
+    boolean accepts(HttpMethod method) {
+      return this.method == null || this.method.equals(method);
+    }
+  }
+
+  /**
+   * A node in the segment trie.
+   */
+  private static final class Node {
+    private final Map<String, Node> children = new LinkedHashMap<>();
+    private final List<Rule> ruleList = new ArrayList<>();
+    private Node wildcard;
+
+    // Fields below are set by compile()
+    private String[] literals;
+    private Node[] literalChildren;
+    private Rule[] rules;
+    private int minPriority;
+
+    Node getOrCreateChild(String segment) {
+      if ("*".equals(segment)) {
+        if (wildcard == null) {
+          wildcard = new Node();
+        }
+        return wildcard;
+      }
+      return children.computeIfAbsent(segment, k -> new Node());
+    }
+
+    /**
+     * Returns the literal child that matches the path segment between the given start and end positions.
+     */
+    @Nullable
+    Node getChild(String path, int start, int end) {
+      int length = end - start;
+      for (int i = 0; i < literals.length; i++) {
+        String literal = literals[i];
+        if (literal.length() == length && path.regionMatches(start, literal, 0, length)) {
+          return literalChildren[i];
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Converts this subtree into arrays for matching and computes the minimum rule priority of each node.
+     */
+    void compile() {
+      literals = children.keySet().toArray(new String[children.size()]);
+      literalChildren = children.values().toArray(new Node[children.size()]);
+      rules = ruleList.toArray(new Rule[ruleList.size()]);
+      Arrays.sort(rules, (r1, r2) -> Integer.compare(r1.priority, r2.priority));
+
+      minPriority = rules.length == 0 ? Integer.MAX_VALUE : rules[0].priority;
+      for (Node child : literalChildren) {
+        child.compile();
+        minPriority = Math.min(minPriority, child.minPriority);
+      }
+      if (wildcard != null) {
+        wildcard.compile();
+        minPriority = Math.min(minPriority, wildcard.minPriority);
+      }
+    }
+  }
+
+  /**
+   * Builder for {@link RouteTable}. Rules added earlier take precedence over the ones added later.
+   */
+  static final class Builder {
+    private final Node prefixRoot = new Node();
+    private final Node suffixRoot = new Node();
+    private int priority;
+
+    private Builder() {
+    }
+
+    /**
+     * Adds a rule that matches the beginning of a path.
+     */
+    Builder prefix(String pattern, @Nullable RouteDestination destination) {
+      return prefix(pattern, path -> destination);
+    }
+
+    /**
+     * Adds a rule that matches the beginning of a path for requests of the given method.
+     */
+    Builder prefix(String pattern, HttpMethod method, @Nullable RouteDestination destination) {
+      return add(Kind.PREFIX, pattern, method, path -> destination);
+    }
+
+    /**
+     * Adds a rule that matches the beginning of a path with the destination computed from the path.
+     */
+    Builder prefix(String pattern, Resolver resolver) {
+      return add(Kind.PREFIX, pattern, null, resolver);
+    }
+
+    /**
+     * Adds a rule that matches the whole path.
+     */
+    Builder exact(String pattern, @Nullable RouteDestination destination) {
+      return add(Kind.EXACT, pattern, null, path -> destination);
+    }
+
+    /**
+     * Adds a rule that matches the end of a path.
+     */
+    Builder suffix(String pattern, @Nullable RouteDestination destination) {
+      return add(Kind.SUFFIX, pattern, null, path -> destination);
+    }
+
+    /**
+     * Builds the {@link RouteTable}.
+     *
+     * @param defaultDestination the destination of paths that don't match any rule
+     */
+    RouteTable build(RouteDestination defaultDestination) {
+      prefixRoot.compile();
+      suffixRoot.compile();
+      return new RouteTable(prefixRoot, suffixRoot, defaultDestination);
+    }
+
+    private Builder add(Kind kind, String pattern, @Nullable HttpMethod method, Resolver resolver) {
+      List<String> segments = new ArrayList<>();
+      for (String segment : pattern.split("/")) {
+        if (!segment.isEmpty()) {
+          segments.add(segment);
+        }
+      }
+      Preconditions.checkArgument(!segments.isEmpty(), "Route pattern must not be empty");
+
+      Rule rule = new Rule(priority++, kind, method, resolver);
+      if (kind == Kind.SUFFIX) {
+        insert(suffixRoot, Lists.reverse(segments), 0, rule);
+      } else {
+        insert(prefixRoot, segments, 0, rule);
+      }
+      return this;
+    }
+
+    private void insert(Node node, List<String> segments, int index, Rule rule) {
+      if (index == segments.size()) {
+        node.ruleList.add(rule);
+        return;
+      }
+      for (String alternative : segments.get(index).split("\\|")) {
+        insert(node.getOrCreateChild(alternative), segments, index + 1, rule);
+      }
+    }
+  }
+}
@@ -16,26 +16,26 @@
 
 package io.cdap.cdap.gateway.router;
 
-import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableSet;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.service.ServiceDiscoverable;
 import io.cdap.cdap.proto.ProgramType;
 import io.cdap.http.AbstractHttpHandler;
+import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
-import org.apache.commons.lang.StringUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import javax.annotation.Nullable;
 
 /**
  * Class to match the request path to corresponding service like app-fabric, or metrics service.
+ * The routing rules are declared in a {@link RouteTable}, which matches paths without splitting them.
  */
 public final class RouterPathLookup extends AbstractHttpHandler {
 
-  @SuppressWarnings("unused")
-  private enum AllowedMethod {
-    GET, PUT, POST, DELETE
-  }
-
   public static final RouteDestination APP_FABRIC_HTTP = new RouteDestination(Constants.Service.APP_FABRIC_HTTP);
   public static final RouteDestination METRICS = new RouteDestination(Constants.Service.METRICS);
   public static final RouteDestination DATASET_MANAGER = new RouteDestination(Constants.Service.DATASET_MANAGER);
@@ -51,6 +51,88 @@ public final class RouterPathLookup extends AbstractHttpHandler {
   public static final RouteDestination MESSAGING = new RouteDestination(Constants.Service.MESSAGING_SERVICE);
   public static final RouteDestination DONT_ROUTE = new RouteDestination(Constants.Router.DONT_ROUTE_SERVICE);
 
+  private static final Set<HttpMethod> ALLOWED_METHODS = ImmutableSet.of(HttpMethod.GET, HttpMethod.PUT,
+                                                                         HttpMethod.POST, HttpMethod.DELETE);
+
+  // Routing rules of the v3 paths. The first matching rule wins. Paths that don't match any rule go to app-fabric.
+  private static final RouteTable V3_ROUTES = RouteTable.builder()
+    // TODO(Rohit) find a better way to handle that - this looks hackish
+    // This needs to now changed especially metadata since now it can have custom parts
+    .prefix("/v3/feeds", (RouteDestination) null)
+    .prefix("/v3/bootstrap", APP_FABRIC_HTTP)
+    // User defined services (version specific) handle methods on them:
+    // Path: "/v3/namespaces/{namespace-id}/apps/{app-id}/versions/{version-id}/services/{service-id}/methods/
+    //        <user-defined-method-path>"
+    .prefix("/v3/*/*/*/*/versions/*/" + getUserServiceTypesPattern() + "/*/methods/*",
+            path -> new RouteDestination(getUserServiceName(path, 2, 4, 7, 8), RouteTable.getSegment(path, 6)))
+    // User defined services handle methods on them:
+    // Path: "/v3/namespaces/{namespace-id}/apps/{app-id}/services/{service-id}/methods/<user-defined-method-path>"
+    .prefix("/v3/*/*/*/*/" + getUserServiceTypesPattern() + "/*/methods/*",
+            path -> new RouteDestination(getUserServiceName(path, 2, 4, 5, 6)))
+    // Log Handler Path /v3/system/services/<service-id>/logs
+    .prefix("/v3/system/services/*/logs", LOG_QUERY)
+    // Do not intercept the namespaces/<namespace-name>/securekeys/<key>/metadata as that is handled by the
+    // SecureStoreHandler, which currently runs in App Fabric
+    .prefix("/v3/namespaces/*/securekeys", APP_FABRIC_HTTP)
+    .suffix("metadata", METADATA_SERVICE)
+    .suffix("metadata/properties", METADATA_SERVICE)
+    .suffix("metadata/properties/*", METADATA_SERVICE)
+    .suffix("metadata/tags", METADATA_SERVICE)
+    .suffix("metadata/tags/*", METADATA_SERVICE)
+    .suffix("metadata/search", METADATA_SERVICE)
+    .prefix("/v3/namespaces/*/datasets/*/lineage", METADATA_SERVICE)
+    .prefix("/v3/metadata/search", METADATA_SERVICE)
+    // Authorization and Secure Store Handlers currently run in App Fabric
+    .prefix("/v3/security/authorization", APP_FABRIC_HTTP)
+    .prefix("/v3/security/store/namespaces/*", APP_FABRIC_HTTP)
+    .prefix("/v3/namespaces/*/data/datasets/*/programs", HttpMethod.GET, APP_FABRIC_HTTP)
+    .prefix("/v3/namespaces/*/profiles", APP_FABRIC_HTTP)
+    .prefix("/v3/profiles", APP_FABRIC_HTTP)
+    .prefix("/v3/namespaces/*/runs", APP_FABRIC_HTTP)
+    .prefix("/v3/namespaces/*/previews", PREVIEW_HTTP)
+    .prefix("/v3/system/serviceproviders", APP_FABRIC_HTTP)
+    // Log Handler Paths:
+    // /v3/namespaces/<namespaceid>/apps/<appid>/<programid-type>/<programid>/logs
+    // /v3/namespaces/{namespace-id}/apps/{app-id}/{program-type}/{program-id}/runs/{run-id}/logs
+    .prefix("/v3/*/*/*/*/*/*/logs", LOG_QUERY)
+    .prefix("/v3/*/*/*/*/*/*/*/*/logs", LOG_QUERY)
+    .prefix("/v3/*/*/*/*/logs", LOG_QUERY)
+    // Metrics Search Handler Path /v3/metrics
+    .prefix("/v3/metrics", METRICS)
+    // non-namespaced explore operations. For example, /v3/data/explore/queries/{id}
+    .prefix("/v3/data/explore/queries|jdbc|namespaces/*", EXPLORE_HTTP_USER_SERVICE)
+    // namespaced explore operations. For example, /v3/namespaces/{namespace-id}/data/explore/datasets/{ds}/enable
+    .prefix("/v3/*/*/data/explore/queries|datasets|tables|jdbc", EXPLORE_HTTP_USER_SERVICE)
+    .exact("/v3/explore/status", EXPLORE_HTTP_USER_SERVICE)
+    // System services status and stacks
+    .prefix("/v3/system/services/" + Constants.Service.LOGSAVER + "/status|stacks", LOG_SAVER)
+    .prefix("/v3/system/services/" + Constants.Service.TRANSACTION + "/status|stacks", TRANSACTION)
+    .prefix("/v3/system/services/" + Constants.Service.METRICS_PROCESSOR + "/status|stacks", METRICS_PROCESSOR)
+    .prefix("/v3/system/services/" + Constants.Service.METRICS + "/status|stacks", METRICS)
+    .prefix("/v3/system/services/" + Constants.Service.APP_FABRIC_HTTP + "/status|stacks", APP_FABRIC_HTTP)
+    .prefix("/v3/system/services/" + Constants.Service.DATASET_EXECUTOR + "/status|stacks", DATASET_EXECUTOR)
+    .prefix("/v3/system/services/" + Constants.Service.METADATA_SERVICE + "/status|stacks", METADATA_SERVICE)
+    .prefix("/v3/system/services/" + Constants.Service.EXPLORE_HTTP_USER_SERVICE + "/status|stacks",
+            EXPLORE_HTTP_USER_SERVICE)
+    .prefix("/v3/system/services/" + Constants.Service.MESSAGING_SERVICE + "/status|stacks", MESSAGING)
+    .prefix("/v3/system/services/*/status|stacks", (RouteDestination) null)
+    // namespaced app fabric data operations:
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}/flows
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}/workers
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}/mapreduce
+    .exact("/v3/*/*/data/datasets/*/flows|workers|mapreduce", APP_FABRIC_HTTP)
+    // other data operations. For example:
+    // /v3/namespaces/{namespace-id}/data/datasets
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}/properties
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}/admin/{method}
+    .prefix("/v3/*/*/data", DATASET_MANAGER)
+    // we don't want to expose endpoints in artifact handler that are internal and can only by called by programs
+    // /v3/namespaces/{namespace-id}/artifact-internals/list/artifacts
+    // /v3/namespaces/{namespace-id}/artifact-internals/artifact/{artifact-name}
+    .prefix("/v3/*/*/artifact-internals", DONT_ROUTE)
+    .build(APP_FABRIC_HTTP);
+
   /**
    * Returns the CDAP service which will handle the HttpRequest
    *
@@ -60,203 +142,44 @@ public final class RouterPathLookup extends AbstractHttpHandler {
    */
   @Nullable
   public RouteDestination getRoutingService(String requestPath, HttpRequest httpRequest) {
-    try {
-      String method = httpRequest.method().name();
-      AllowedMethod requestMethod = AllowedMethod.valueOf(method);
-      String[] uriParts = StringUtils.split(requestPath, '/');
-
-      if (uriParts[0].equals(Constants.Gateway.API_VERSION_3_TOKEN)) {
-        return getV3RoutingService(uriParts, requestMethod);
-      }
-    } catch (Exception e) {
-      // Ignore exception. Default routing to app-fabric.
-    }
-    return APP_FABRIC_HTTP;
-  }
-
-  private boolean isUserServiceType(String uriPart) {
-    for (ProgramType type : ServiceDiscoverable.getUserServiceTypes()) {
-      if (type.getCategoryName().equals(uriPart)) {
-        return true;
-      }
-    }
-    return false;
-  }
-
-  @Nullable
-  private RouteDestination getV3RoutingService(String [] uriParts, AllowedMethod requestMethod) {
-    if ((uriParts.length >= 2) && uriParts[1].equals("feeds")) {
-      // TODO(Rohit) find a better way to handle that - this looks hackish
-      // This needs to now changed especially metadata since now it can have custom parts
-      return null;
-    } else if ("bootstrap".equals(uriParts[1])) {
-      return APP_FABRIC_HTTP;
-    } else if ((uriParts.length >= 11) && "versions".equals(uriParts[5]) && isUserServiceType(uriParts[7])
-      && "methods".equals(uriParts[9])) {
-      // User defined services (version specific) handle methods on them:
-      //Path: "/v3/namespaces/{namespace-id}/apps/{app-id}/versions/{version-id}/services/{service-id}/methods/
-      //       <user-defined-method-path>"
-      String serviceName = ServiceDiscoverable.getName(uriParts[2], uriParts[4],
-                                                       ProgramType.valueOfCategoryName(uriParts[7]), uriParts[8]);
-      String version = uriParts[6];
-      return new RouteDestination(serviceName, version);
-    } else if ((uriParts.length >= 9) && isUserServiceType(uriParts[5]) && "methods".equals(uriParts[7])) {
-      //User defined services handle methods on them:
-      //Path: "/v3/namespaces/{namespace-id}/apps/{app-id}/services/{service-id}/methods/<user-defined-method-path>"
-      return new RouteDestination(ServiceDiscoverable.getName(uriParts[2], uriParts[4],
-                                                              ProgramType.valueOfCategoryName(uriParts[5]),
-                                                              uriParts[6]));
-    } else if (beginsWith(uriParts, "v3", "system", "services", null, "logs")) {
-      //Log Handler Path /v3/system/services/<service-id>/logs
-      return LOG_QUERY;
-    } else if ((!beginsWith(uriParts, "v3", "namespaces", null, "securekeys")) && (endsWith(uriParts, "metadata") ||
-      // do no intercept the namespaces/<namespace-name>/securekeys/<key>/metadata as that is handled by the
-      // SecureStoreHandler
-      endsWith(uriParts, "metadata", "properties") || endsWith(uriParts, "metadata", "properties", null) ||
-      endsWith(uriParts, "metadata", "tags") || endsWith(uriParts, "metadata", "tags", null) ||
-      endsWith(uriParts, "metadata", "search") ||
-      beginsWith(uriParts, "v3", "namespaces", null, "datasets", null, "lineage") ||
-      beginsWith(uriParts, "v3", "metadata", "search"))) {
-      return METADATA_SERVICE;
-    } else if (beginsWith(uriParts, "v3", "security", "authorization") ||
-      beginsWith(uriParts, "v3", "namespaces", null, "securekeys")) {
-      // Authorization and Secure Store Handlers currently run in App Fabric
-      return APP_FABRIC_HTTP;
-    } else if (beginsWith(uriParts, "v3", "security", "store", "namespaces", null)) {
-      return APP_FABRIC_HTTP;
-    } else if (beginsWith(uriParts, "v3", "namespaces", null, "data", "datasets", null, "programs") &&
-      requestMethod.equals(AllowedMethod.GET)) {
-      return APP_FABRIC_HTTP;
-    } else if (beginsWith(uriParts, "v3", "namespaces", null, "profiles") ||
-      beginsWith(uriParts, "v3", "profiles")) {
+    HttpMethod method = httpRequest.method();
+    if (!ALLOWED_METHODS.contains(method) || !isV3Path(requestPath)) {
+      // Default routing to app-fabric.
       return APP_FABRIC_HTTP;
-    } else if (beginsWith(uriParts, "v3", "namespaces", null, "runs")) {
-      return APP_FABRIC_HTTP;
-    } else if (beginsWith(uriParts, "v3", "namespaces", null, "previews")) {
-      return PREVIEW_HTTP;
-    } else if (beginsWith(uriParts, "v3", "system", "serviceproviders")) {
-      return APP_FABRIC_HTTP;
-    } else if ((uriParts.length >= 8 && uriParts[7].equals("logs")) ||
-      (uriParts.length >= 10 && uriParts[9].equals("logs")) ||
-      (uriParts.length >= 6 && uriParts[5].equals("logs"))) {
-      //Log Handler Paths:
-      // /v3/namespaces/<namespaceid>/apps/<appid>/<programid-type>/<programid>/logs
-      // /v3/namespaces/{namespace-id}/apps/{app-id}/{program-type}/{program-id}/runs/{run-id}/logs
-      return LOG_QUERY;
-    } else if (uriParts.length >= 2 && uriParts[1].equals("metrics")) {
-      //Metrics Search Handler Path /v3/metrics
-      return METRICS;
-    } else if (uriParts.length >= 5 && uriParts[1].equals("data") && uriParts[2].equals("explore") &&
-      (uriParts[3].equals("queries") || uriParts[3].equals("jdbc") || uriParts[3].equals("namespaces"))) {
-      // non-namespaced explore operations. For example, /v3/data/explore/queries/{id}
-      return EXPLORE_HTTP_USER_SERVICE;
-    } else if (uriParts.length >= 6 && uriParts[3].equals("data") && uriParts[4].equals("explore") &&
-      (uriParts[5].equals("queries") || uriParts[5].equals("datasets")
-        || uriParts[5].equals("tables") || uriParts[5].equals("jdbc"))) {
-      // namespaced explore operations. For example, /v3/namespaces/{namespace-id}/data/explore/datasets/{ds}/enable
-      return EXPLORE_HTTP_USER_SERVICE;
-    } else if ((uriParts.length == 3) && uriParts[1].equals("explore") && uriParts[2].equals("status")) {
-      return EXPLORE_HTTP_USER_SERVICE;
-    } else if (beginsWith(uriParts, "v3", "system", "services", null, "status")
-      || beginsWith(uriParts, "v3", "system", "services", null, "stacks")) {
-      switch (uriParts[3]) {
-        case Constants.Service.LOGSAVER: return LOG_SAVER;
-        case Constants.Service.TRANSACTION: return TRANSACTION;
-        case Constants.Service.METRICS_PROCESSOR: return METRICS_PROCESSOR;
-        case Constants.Service.METRICS: return METRICS;
-        case Constants.Service.APP_FABRIC_HTTP: return APP_FABRIC_HTTP;
-        case Constants.Service.DATASET_EXECUTOR: return DATASET_EXECUTOR;
-        case Constants.Service.METADATA_SERVICE: return METADATA_SERVICE;
-        case Constants.Service.EXPLORE_HTTP_USER_SERVICE: return EXPLORE_HTTP_USER_SERVICE;
-        case Constants.Service.MESSAGING_SERVICE: return MESSAGING;
-        default: return null;
-      }
-    } else if (uriParts.length == 7 && uriParts[3].equals("data") && uriParts[4].equals("datasets") &&
-      (uriParts[6].equals("flows") || uriParts[6].equals("workers") || uriParts[6].equals("mapreduce"))) {
-      // namespaced app fabric data operations:
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}/flows
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}/workers
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}/mapreduce
-      return APP_FABRIC_HTTP;
-    } else if ((uriParts.length >= 4) && uriParts[3].equals("data")) {
-      // other data operations. For example:
-      // /v3/namespaces/{namespace-id}/data/datasets
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}/properties
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}/admin/{method}
-      return DATASET_MANAGER;
-    } else if ((uriParts.length >= 4) && uriParts[3].equals("artifact-internals")) {
-      // we don't want to expose endpoints in artifact handler that are internal and can only by called by programs
-      // /v3/namespaces/{namespace-id}/artifact-internals/list/artifacts
-      // /v3/namespaces/{namespace-id}/artifact-internals/artifact/{artifact-name}
-      return DONT_ROUTE;
     }
-    return APP_FABRIC_HTTP;
+    return V3_ROUTES.route(requestPath, method);
   }
 
   /**
-   * Determines if the beginning of an array of strings matches an expected sequence of strings.
-   *
-   * <ul><li>
-   *   the actual sequence may be longer than the expected one as long as its beginning matches;
-   * </li><li>
-   *   a null in the expected sequence means "accept any string" in that position.
-   * </li></ul>
-   *
-   * @param actual the actual string array to check; must not contain nulls.
-   * @param expected the expected string array to match; may contain nulls as wildcards.
-   *                 
-   * @return true if the start of {@code actual} matches {@code expected}
+   * Returns {@code true} if the first segment of the given path is the v3 API version token.
    */
-  @VisibleForTesting
-  static boolean beginsWith(String[] actual, String ... expected) {
-    return matches(actual, expected, false);
+  private static boolean isV3Path(String path) {
+    int start = 0;
+    while (start < path.length() && path.charAt(start) == '/') {
+      start++;
+    }
+    String token = Constants.Gateway.API_VERSION_3_TOKEN;
+    int end = start + token.length();
+    return path.regionMatches(start, token, 0, token.length()) && (end == path.length() || path.charAt(end) == '/');
   }
 
   /**
-   * Determines if the end of an array of strings matches an expected sequence of strings.
-   *
-   * <ul><li>
-   *   the actual sequence may be longer than the expected one as long as its end matches;
-   * </li><li>
-   *   a null in the expected sequence means "accept any string" in that position.
-   * </li></ul>
-   *
-   * @param actual the actual string array to check; must not contain nulls.
-   * @param expected the expected string array to match; may contain nulls as wildcards.
-   *
-   * @return true if the end of {@code actual} matches {@code expected}
+   * Returns the route pattern segment that matches the category name of any user service program type.
    */
-  @VisibleForTesting
-  static boolean endsWith(String[] actual, String ... expected) {
-    return matches(actual, expected, true);
+  private static String getUserServiceTypesPattern() {
+    List<String> categories = new ArrayList<>();
+    for (ProgramType type : ServiceDiscoverable.getUserServiceTypes()) {
+      categories.add(type.getCategoryName());
+    }
+    return Joiner.on('|').join(categories);
   }
 
   /**
-   * Determines if the begin or end of an array of strings matches an expected sequence of strings.
-   *
-   * <ul><li>
-   *   the actual sequence may be longer than the expected one as long as its begin or end matches;
-   * </li><li>
-   *   a null in the expected sequence means "accept any string" in that position.
-   * </li></ul>
-   *
-   * @param actual the actual string array to check; must not contain nulls.
-   * @param expected the expected string array to match; may contain nulls as wildcards.
-   * @param matchEnd whether to match the end of the actual sequence
-   *
-   * @return true if the end of {@code actual} matches {@code expected}
+   * Returns the discoverable name of the user service addressed by the given path.
    */
-  private static boolean matches(String[] actual, String[] expected, boolean matchEnd) {
-    if (actual.length < expected.length) {
-      return false;
-    }
-    int offset = matchEnd ? actual.length - expected.length : 0;
-    for (int i = 0; i < expected.length; i++) {
-      if (expected[i] != null && !expected[i].equals(actual[offset + i])) {
-        return false;
-      }
-    }
-    return true;
+  private static String getUserServiceName(String path, int namespaceIdx, int appIdx, int typeIdx, int serviceIdx) {
+    return ServiceDiscoverable.getName(RouteTable.getSegment(path, namespaceIdx), RouteTable.getSegment(path, appIdx),
+                                       ProgramType.valueOfCategoryName(RouteTable.getSegment(path, typeIdx)),
+                                       RouteTable.getSegment(path, serviceIdx));
   }
 }
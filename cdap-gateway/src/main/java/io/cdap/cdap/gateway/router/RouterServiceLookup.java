@@ -28,11 +28,18 @@ import io.cdap.cdap.common.discovery.RandomEndpointStrategy;
 import io.cdap.cdap.common.service.ServiceDiscoverable;
 import io.cdap.cdap.gateway.discovery.VersionFilteredServiceDiscovered;
 import io.netty.handler.codec.http.HttpRequest;
+import org.apache.twill.common.Cancellable;
+import org.apache.twill.common.Threads;
 import org.apache.twill.discovery.DiscoveryServiceClient;
+import org.apache.twill.discovery.ServiceDiscovered;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
@@ -46,12 +53,16 @@ public class RouterServiceLookup {
   private final DiscoveryServiceClient discoveryServiceClient;
   private final LoadingCache<RouteDestination, EndpointStrategy> discoverableCache;
   private final RouterPathLookup routerPathLookup;
+  private final Set<String> watchedServices;
+  private final List<ServiceDiscovered.ChangeListener> changeListeners;
 
   @Inject
   RouterServiceLookup(CConfiguration cConf, DiscoveryServiceClient discoveryServiceClient,
                       RouterPathLookup routerPathLookup) {
     this.discoveryServiceClient = discoveryServiceClient;
     this.routerPathLookup = routerPathLookup;
+    this.watchedServices = ConcurrentHashMap.newKeySet();
+    this.changeListeners = new CopyOnWriteArrayList<>();
     this.discoverableCache = CacheBuilder.newBuilder()
       .expireAfterAccess(1, TimeUnit.HOURS)
       .build(new CacheLoader<RouteDestination, EndpointStrategy>() {
@@ -89,9 +100,30 @@ public class RouterServiceLookup {
     }
   }
 
+  /**
+   * Adds a {@link ServiceDiscovered.ChangeListener} to be notified when the endpoints of a service that requests
+   * have been routed to are changed.
+   *
+   * @return a {@link Cancellable} to remove the listener
+   */
+  public Cancellable addChangeListener(ServiceDiscovered.ChangeListener listener) {
+    changeListeners.add(listener);
+    return () -> changeListeners.remove(listener);
+  }
+
   private EndpointStrategy discover(RouteDestination routeDestination) {
     String serviceName = routeDestination.getServiceName();
 
+    // Watch for the changes of the unfiltered endpoints once per service, so that listeners can react to endpoints
+    // that are gone, regardless of the version they serve.
+    if (watchedServices.add(serviceName)) {
+      discoveryServiceClient.discover(serviceName).watchChanges(serviceDiscovered -> {
+        for (ServiceDiscovered.ChangeListener listener : changeListeners) {
+          listener.onChange(serviceDiscovered);
+        }
+      }, Threads.SAME_THREAD_EXECUTOR);
+    }
+
     if (ServiceDiscoverable.isUserService(serviceName)) {
       String version = routeDestination.getVersion();
 
@@ -17,39 +17,24 @@
 package io.cdap.cdap.gateway.router.handlers;
 
 import io.cdap.cdap.common.HandlerException;
-import io.cdap.cdap.common.conf.CConfiguration;
-import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.discovery.EndpointStrategy;
 import io.cdap.cdap.common.http.Channels;
 import io.cdap.cdap.gateway.router.RouterServiceLookup;
-import io.netty.bootstrap.Bootstrap;
-import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandler;
-import io.netty.channel.ChannelInitializer;
-import io.netty.channel.ChannelOption;
-import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.FullHttpResponse;
-import io.netty.handler.codec.http.HttpClientCodec;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
-import io.netty.handler.ssl.SslContext;
-import io.netty.handler.ssl.SslContextBuilder;
-import io.netty.handler.ssl.SslHandler;
-import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
-import io.netty.handler.timeout.IdleStateHandler;
 import io.netty.util.ReferenceCountUtil;
 import org.apache.twill.discovery.Discoverable;
 import org.slf4j.Logger;
@@ -59,14 +44,11 @@ import java.io.Closeable;
 import java.io.Flushable;
 import java.nio.channels.ClosedChannelException;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.TimeUnit;
-import javax.annotation.Nullable;
-import javax.net.ssl.SSLException;
 
 /**
  * A {@link ChannelInboundHandler} for forwarding incoming request to appropriate CDAP service endpoint
@@ -76,18 +58,17 @@ import javax.net.ssl.SSLException;
 public class HttpRequestRouter extends ChannelDuplexHandler {
 
   private static final Logger LOG = LoggerFactory.getLogger(HttpRequestRouter.class);
-  private static final byte[] HTTPS_SCHEME_BYTES = Constants.Security.SSL_URI_SCHEME.getBytes();
 
-  private final CConfiguration cConf;
   private final RouterServiceLookup serviceLookup;
+  private final OutboundChannelPool channelPool;
   private final Map<Discoverable, Queue<MessageSender>> messageSenders;
   private int inflightRequests;
   private MessageSender currentMessageSender;
   private ChannelFutureListener failureResponseListener;
 
-  public HttpRequestRouter(CConfiguration cConf, RouterServiceLookup serviceLookup) {
-    this.cConf = cConf;
+  public HttpRequestRouter(RouterServiceLookup serviceLookup, OutboundChannelPool channelPool) {
     this.serviceLookup = serviceLookup;
+    this.channelPool = channelPool;
     this.messageSenders = new HashMap<>();
   }
 
@@ -251,7 +232,7 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
     }
 
     // Create new MessageSender
-    sender = new MessageSender(cConf, inboundChannel, discoverable);
+    sender = new MessageSender(channelPool, inboundChannel, discoverable);
     LOG.trace("Create new message sender for {}", discoverable);
     return sender;
   }
@@ -283,50 +264,29 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
    */
   private static final class MessageSender implements Flushable, Closeable {
 
+    private final OutboundChannelPool channelPool;
+    private final Channel inboundChannel;
     private final Discoverable discoverable;
     private final Queue<OutboundMessage> pendingMessages;
-    private final Bootstrap clientBootstrap;
-    private volatile SslContext sslContext;
+    private final ChannelFutureListener onCloseResetListener;
     private Channel outboundChannel;
     private boolean closed;
     private boolean connecting;
 
-    private MessageSender(final CConfiguration cConf, final Channel inboundChannel, final Discoverable discoverable) {
+    private MessageSender(OutboundChannelPool channelPool, Channel inboundChannel, Discoverable discoverable) {
+      this.channelPool = channelPool;
+      this.inboundChannel = inboundChannel;
       this.discoverable = discoverable;
       this.pendingMessages = new LinkedList<>();
 
       // A channel listener for resetting the state of this message sender on closing of outbound channel
-      final ChannelFutureListener onCloseResetListener = new ChannelFutureListener() {
+      this.onCloseResetListener = new ChannelFutureListener() {
         @Override
         public void operationComplete(ChannelFuture future) {
           outboundChannel = null;
           connecting = false;
         }
       };
-
-      // Create a client Bootstrap for connecting to internal services
-      // It must be create using the same EventLoopGroup as the inbound channel to make
-      // sure thread safety between the inbound and outbound channels callbacks.
-      this.clientBootstrap = new Bootstrap()
-        .group(inboundChannel.eventLoop())
-        .channel(NioSocketChannel.class)
-        .option(ChannelOption.SO_KEEPALIVE, true)
-        .handler(new ChannelInitializer<SocketChannel>() {
-          @Override
-          protected void initChannel(SocketChannel ch) throws Exception {
-            ch.closeFuture().addListener(onCloseResetListener);
-            ChannelPipeline pipeline = ch.pipeline();
-
-            SslHandler sslHandler = getSslHandler(discoverable, ch.alloc());
-            if (sslHandler != null) {
-              pipeline.addLast("ssl", sslHandler);
-            }
-            pipeline.addLast("idle-state-handler",
-                             new IdleStateHandler(0, 0, cConf.getInt(Constants.Router.CONNECTION_TIMEOUT_SECS)));
-            pipeline.addLast("codec", new HttpClientCodec());
-            pipeline.addLast("forwarder", new OutboundHandler(inboundChannel));
-          }
-        });
     }
 
     /**
@@ -349,8 +309,10 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
         return;
       }
 
-      // Make a new connection
-      ChannelFuture connectFuture = clientBootstrap.connect(discoverable.getSocketAddress());
+      // Acquire a connection. The future is already completed if a pooled connection is reused,
+      // hence the connecting flag has to be set before adding the listener.
+      connecting = true;
+      ChannelFuture connectFuture = channelPool.acquire(inboundChannel, discoverable);
       connectFuture.addListener(new ChannelFutureListener() {
         @Override
         public void operationComplete(ChannelFuture future) throws Exception {
@@ -360,6 +322,7 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
           connecting = false;
 
           if (future.isSuccess()) {
+            outboundChannel.closeFuture().addListener(onCloseResetListener);
             // If this sender is closed (because inbound channel is closed), just close the outbound channel
             if (closed) {
               Channels.closeOnFlush(outboundChannel);
@@ -375,8 +338,6 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
           }
         }
       });
-
-      connecting = true;
     }
 
     @Override
@@ -386,12 +347,19 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
       }
     }
 
+    /**
+     * Closes this sender. The outbound channel is given back to the {@link OutboundChannelPool}, which either
+     * keeps it for reuse or closes it.
+     */
     @Override
     public void close() {
       if (!closed) {
         closed = true;
         if (outboundChannel != null) {
-          Channels.closeOnFlush(outboundChannel);
+          Channel channel = outboundChannel;
+          outboundChannel = null;
+          channel.closeFuture().removeListener(onCloseResetListener);
+          channelPool.release(channel, discoverable);
         }
       }
     }
@@ -400,31 +368,6 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
       return discoverable;
     }
 
-    /**
-     * Returns the {@link SslContext} to be used for a given discoverable endpoint
-     *
-     * @param discoverable the endpoint to connect to
-     * @return the {@link SslContext} or {@code null} if SSL is not needed
-     */
-    @Nullable
-    private SslHandler getSslHandler(Discoverable discoverable, ByteBufAllocator alloc) throws SSLException {
-      if (!Arrays.equals(HTTPS_SCHEME_BYTES, discoverable.getPayload())) {
-        return null;
-      }
-      SslContext context = sslContext;
-      if (context != null) {
-        return context.newHandler(alloc);
-      }
-      synchronized (this) {
-        context = sslContext;
-        if (context == null) {
-          sslContext = context = SslContextBuilder.forClient()
-                                                  .trustManager(InsecureTrustManagerFactory.INSTANCE).build();
-        }
-        return context.newHandler(alloc);
-      }
-    }
-
     /**
      * Process the message by sending to the given channel or have a failure call to the message callback,
      * depending on the state of this sender.
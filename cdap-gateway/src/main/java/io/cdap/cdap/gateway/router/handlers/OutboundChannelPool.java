@@ -0,0 +1,252 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.gateway.router.handlers;
+
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.http.Channels;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoop;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.AttributeKey;
+import org.apache.twill.discovery.Discoverable;
+import org.apache.twill.discovery.ServiceDiscovered;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import javax.net.ssl.SSLException;
+
+/**
+ * A pool of keep-alive outbound {@link Channel} to the internal services, so that the router doesn't need to make a
+ * new connection and TLS handshake for every client connection. Idle channels are pooled per {@link EventLoop} and per
+ * {@link Discoverable} endpoint, because an outbound channel must be served by the same event loop as the inbound
+ * channel that it forwards for. The per event loop pools are only accessed from the event loop thread, hence need no
+ * locking.
+ *
+ * An idle channel is closed when it has been idle for longer than the router connection idle timeout, or when its
+ * endpoint is no longer discovered, as notified through the {@link ServiceDiscovered.ChangeListener}. A channel that
+ * has been in the pool for longer than the pool idle timeout is not reused, since the internal service may be closing
+ * it due to its own keep-alive timeout.
+ */
+public final class OutboundChannelPool implements ServiceDiscovered.ChangeListener {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OutboundChannelPool.class);
+  private static final byte[] HTTPS_SCHEME_BYTES = Constants.Security.SSL_URI_SCHEME.getBytes();
+  private static final AttributeKey<Long> IDLE_SINCE = AttributeKey.valueOf(OutboundChannelPool.class, "idleSince");
+
+  private final int idleTimeoutSecs;
+  private final int maxIdlePerEndpoint;
+  private final long poolIdleTimeoutMillis;
+  private final ConcurrentMap<EventLoop, Map<Discoverable, Deque<Channel>>> idleChannels;
+  private final ConcurrentMap<String, Set<Discoverable>> liveEndpoints;
+  private volatile SslContext sslContext;
+
+  public OutboundChannelPool(CConfiguration cConf) {
+    this.idleTimeoutSecs = cConf.getInt(Constants.Router.CONNECTION_TIMEOUT_SECS);
+    this.maxIdlePerEndpoint = cConf.getInt(Constants.Router.CONNECTION_POOL_MAX_IDLE_PER_ENDPOINT);
+    this.poolIdleTimeoutMillis = TimeUnit.SECONDS.toMillis(
+      cConf.getInt(Constants.Router.CONNECTION_POOL_IDLE_TIMEOUT_SECS));
+    this.idleChannels = new ConcurrentHashMap<>();
+    this.liveEndpoints = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Acquires an outbound channel for forwarding messages from the given inbound channel to the given endpoint.
+   * A pooled idle channel is reused if there is one, otherwise a new connection is made.
+   * This method must be called from the event loop of the inbound channel.
+   *
+   * @return a {@link ChannelFuture} that completes when the outbound channel is connected
+   */
+  ChannelFuture acquire(Channel inboundChannel, Discoverable discoverable) {
+    Deque<Channel> channels = getIdleChannels(inboundChannel.eventLoop()).get(discoverable);
+    if (channels != null) {
+      // Reuse the most recently used channel, so that the rarely used ones can reach the idle timeout
+      long now = System.currentTimeMillis();
+      Channel channel = channels.pollLast();
+      while (channel != null) {
+        OutboundHandler handler = channel.pipeline().get(OutboundHandler.class);
+        Long idleSince = channel.attr(IDLE_SINCE).getAndSet(null);
+        if (channel.isActive() && handler != null && idleSince != null && now - idleSince < poolIdleTimeoutMillis) {
+          LOG.trace("Reuse outbound channel {} for {}", channel, discoverable);
+          handler.setInboundChannel(inboundChannel);
+          return channel.newSucceededFuture();
+        }
+        // The channel is either closed or idle for too long, which the internal service may close at any time
+        LOG.trace("Discard idle outbound channel {} for {}", channel, discoverable);
+        channel.close();
+        channel = channels.pollLast();
+      }
+    }
+
+    LOG.trace("Create new outbound channel for {}", discoverable);
+    return createBootstrap(inboundChannel, discoverable).connect(discoverable.getSocketAddress());
+  }
+
+  /**
+   * Releases an outbound channel acquired from {@link #acquire(Channel, Discoverable)}. The channel is put back to the
+   * pool if it can be reused, otherwise it is closed.
+   * This method must be called from the event loop of the given channel.
+   */
+  void release(Channel channel, Discoverable discoverable) {
+    OutboundHandler handler = channel.pipeline().get(OutboundHandler.class);
+    if (!channel.isActive() || handler == null || !handler.isReusable() || !isLive(discoverable)) {
+      Channels.closeOnFlush(channel);
+      return;
+    }
+
+    Deque<Channel> channels = getIdleChannels(channel.eventLoop()).computeIfAbsent(discoverable,
+                                                                                   k -> new ArrayDeque<>());
+    if (channels.size() >= maxIdlePerEndpoint) {
+      Channels.closeOnFlush(channel);
+      return;
+    }
+    handler.setInboundChannel(null);
+    channel.attr(IDLE_SINCE).set(System.currentTimeMillis());
+    channels.addLast(channel);
+  }
+
+  @Override
+  public void onChange(ServiceDiscovered serviceDiscovered) {
+    String serviceName = serviceDiscovered.getName();
+    Set<Discoverable> endpoints = ImmutableSet.copyOf(serviceDiscovered);
+    liveEndpoints.put(serviceName, endpoints);
+
+    // Close the idle channels to endpoints that are gone. Channels in use are closed when they are released.
+    for (Map.Entry<EventLoop, Map<Discoverable, Deque<Channel>>> entry : idleChannels.entrySet()) {
+      Map<Discoverable, Deque<Channel>> channels = entry.getValue();
+      try {
+        entry.getKey().execute(() -> evict(channels, serviceName, endpoints));
+      } catch (RejectedExecutionException e) {
+        // The event loop is shutting down, which closes all of its channels.
+        LOG.trace("Skip evicting idle outbound channels on a terminated event loop", e);
+      }
+    }
+  }
+
+  private void evict(Map<Discoverable, Deque<Channel>> channels, String serviceName, Set<Discoverable> endpoints) {
+    Iterator<Map.Entry<Discoverable, Deque<Channel>>> iterator = channels.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Discoverable, Deque<Channel>> entry = iterator.next();
+      Discoverable discoverable = entry.getKey();
+      if (!serviceName.equals(discoverable.getName()) || endpoints.contains(discoverable)) {
+        continue;
+      }
+      // Remove the entry before closing, so that the close listener won't modify the queue being iterated
+      iterator.remove();
+      LOG.debug("Closing {} idle outbound channels to {} as it is no longer discovered",
+                entry.getValue().size(), discoverable);
+      for (Channel channel : entry.getValue()) {
+        channel.close();
+      }
+    }
+  }
+
+  private boolean isLive(Discoverable discoverable) {
+    Set<Discoverable> endpoints = liveEndpoints.get(discoverable.getName());
+    return endpoints == null || endpoints.contains(discoverable);
+  }
+
+  private Map<Discoverable, Deque<Channel>> getIdleChannels(EventLoop eventLoop) {
+    return idleChannels.computeIfAbsent(eventLoop, k -> new HashMap<>());
+  }
+
+  /**
+   * Removes a closed channel from the pool. It is called from the event loop of the channel.
+   */
+  private void removeIdle(Channel channel, Discoverable discoverable) {
+    Deque<Channel> channels = getIdleChannels(channel.eventLoop()).get(discoverable);
+    if (channels != null) {
+      channels.remove(channel);
+    }
+  }
+
+  private Bootstrap createBootstrap(Channel inboundChannel, Discoverable discoverable) {
+    // The outbound channel must be created using the same EventLoop as the inbound channel to make
+    // sure thread safety between the inbound and outbound channels callbacks.
+    return new Bootstrap()
+      .group(inboundChannel.eventLoop())
+      .channel(inboundChannel instanceof EpollSocketChannel ? EpollSocketChannel.class : NioSocketChannel.class)
+      .option(ChannelOption.SO_KEEPALIVE, true)
+      .handler(new ChannelInitializer<SocketChannel>() {
+        @Override
+        protected void initChannel(SocketChannel ch) throws Exception {
+          ch.closeFuture().addListener(future -> removeIdle(ch, discoverable));
+          ChannelPipeline pipeline = ch.pipeline();
+
+          SslHandler sslHandler = getSslHandler(discoverable, ch.alloc());
+          if (sslHandler != null) {
+            pipeline.addLast("ssl", sslHandler);
+          }
+          pipeline.addLast("idle-state-handler", new IdleStateHandler(0, 0, idleTimeoutSecs));
+          pipeline.addLast("codec", new HttpClientCodec());
+          pipeline.addLast("forwarder", new OutboundHandler(inboundChannel));
+        }
+      });
+  }
+
+  /**
+   * Returns the {@link SslHandler} to be used for a given discoverable endpoint
+   *
+   * @param discoverable the endpoint to connect to
+   * @return the {@link SslHandler} or {@code null} if SSL is not needed
+   */
+  @Nullable
+  private SslHandler getSslHandler(Discoverable discoverable, ByteBufAllocator alloc) throws SSLException {
+    if (!Arrays.equals(HTTPS_SCHEME_BYTES, discoverable.getPayload())) {
+      return null;
+    }
+    SslContext context = sslContext;
+    if (context != null) {
+      return context.newHandler(alloc);
+    }
+    synchronized (this) {
+      context = sslContext;
+      if (context == null) {
+        sslContext = context = SslContextBuilder.forClient()
+                                                .trustManager(InsecureTrustManagerFactory.INSTANCE).build();
+      }
+      return context.newHandler(alloc);
+    }
+  }
+}
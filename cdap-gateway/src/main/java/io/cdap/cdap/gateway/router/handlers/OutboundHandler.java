@@ -27,17 +27,21 @@ import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
 /**
  * A {@link ChannelDuplexHandler} for forwarding requests/responses between the router and the internal service.
  * It also handle idle state event for closing idled internal connections.
+ * While the outbound channel is idle in the {@link OutboundChannelPool}, it is not attached to any inbound channel.
  */
 public class OutboundHandler extends ChannelDuplexHandler {
   private static final Logger LOG = LoggerFactory.getLogger(OutboundHandler.class);
 
-  private final Channel inboundChannel;
+  private Channel inboundChannel;
   private boolean requestInProgress;
   private boolean keepAlive;
 
@@ -45,8 +49,29 @@ public class OutboundHandler extends ChannelDuplexHandler {
     this.inboundChannel = inboundChannel;
   }
 
+  /**
+   * Sets the inbound channel that messages are forwarded to, or {@code null} if the outbound channel is idle.
+   */
+  void setInboundChannel(@Nullable Channel inboundChannel) {
+    this.inboundChannel = inboundChannel;
+  }
+
+  /**
+   * Returns {@code true} if the outbound channel can be used for another request.
+   */
+  boolean isReusable() {
+    return !requestInProgress && keepAlive;
+  }
+
   @Override
   public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+    if (inboundChannel == null) {
+      // The internal service shouldn't send anything while the channel is idle. Just close the channel.
+      ReferenceCountUtil.release(msg);
+      ctx.close();
+      return;
+    }
+
     // One receiving messages from the internal service, forward it to the inbound channel
     inboundChannel.write(msg);
 
@@ -62,7 +87,9 @@ public class OutboundHandler extends ChannelDuplexHandler {
 
   @Override
   public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
-    inboundChannel.flush();
+    if (inboundChannel != null) {
+      inboundChannel.flush();
+    }
   }
 
   @Override
@@ -79,6 +106,7 @@ public class OutboundHandler extends ChannelDuplexHandler {
   public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
     if (requestInProgress) {
       final Channel channel = ctx.channel();
+      final Channel inboundChannel = this.inboundChannel;
       ctx.executor().execute(() -> {
         // If outboundChannel is not saturated anymore, continue accepting
         // the incoming traffic from the inboundChannel.
@@ -98,7 +126,7 @@ public class OutboundHandler extends ChannelDuplexHandler {
   @Override
   public void channelInactive(ChannelHandlerContext ctx) throws Exception {
     // Close the inbound channel if there is request in progress, or the last request/response has keep-alive == false
-    if (requestInProgress || !keepAlive) {
+    if (inboundChannel != null && (requestInProgress || !keepAlive)) {
       Channels.closeOnFlush(inboundChannel);
     }
     ctx.fireChannelInactive();
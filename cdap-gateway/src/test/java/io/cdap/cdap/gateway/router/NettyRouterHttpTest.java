@@ -82,6 +82,9 @@ public class NettyRouterHttpTest extends NettyRouterTestBase {
       cConf.set(Constants.Router.ADDRESS, hostname);
       cConf.setInt(Constants.Router.ROUTER_PORT, 0);
       cConf.setInt(Constants.Router.CONNECTION_TIMEOUT_SECS, CONNECTION_IDLE_TIMEOUT_SECS);
+      cConf.setInt(Constants.Router.CONNECTION_POOL_IDLE_TIMEOUT_SECS, CONNECTION_POOL_IDLE_TIMEOUT_SECS);
+      // Use a single worker thread, so that all the client connections share the same outbound connection pool
+      cConf.setInt(Constants.Router.SERVER_WORKER_THREADS, 1);
       router =
         new NettyRouter(cConf, sConfiguration, InetAddresses.forString(hostname),
                         new RouterServiceLookup(cConf, (DiscoveryServiceClient) discoveryService,
@@ -36,6 +36,7 @@ import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.discovery.RandomEndpointStrategy;
 import io.cdap.cdap.common.discovery.ResolvingDiscoverable;
 import io.cdap.cdap.common.http.AbstractBodyConsumer;
+import io.cdap.cdap.common.utils.Tasks;
 import io.cdap.http.AbstractHttpHandler;
 import io.cdap.http.BodyConsumer;
 import io.cdap.http.ChannelPipelineModifier;
@@ -46,11 +47,14 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.concurrent.ImmediateEventExecutor;
 import org.apache.http.Header;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpGet;
@@ -109,6 +113,7 @@ public abstract class NettyRouterTestBase {
   public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
 
   static final int CONNECTION_IDLE_TIMEOUT_SECS = 2;
+  static final int CONNECTION_POOL_IDLE_TIMEOUT_SECS = 1;
   private static final Logger LOG = LoggerFactory.getLogger(NettyRouterTestBase.class);
 
   private static final String HOSTNAME = "127.0.0.1";
@@ -352,6 +357,92 @@ public abstract class NettyRouterTestBase {
     Assert.assertEquals(1, defaultServer1.getNumConnectionsClosed());
   }
 
+  @Test
+  public void testPooledConnectionReuse() throws Exception {
+    // Only use server1
+    defaultServer2.cancelRegistration();
+
+    URI uri = new URI(resolveURI("/v2/ping"));
+    for (int i = 0; i < 5; i++) {
+      Assert.assertEquals("HTTP/1.1 200 OK", makeRequestOnNewConnection(uri));
+    }
+
+    // All the client connections should be served through the same pooled server side connection
+    Assert.assertEquals(5, defaultServer1.getNumRequests());
+    Assert.assertEquals(1, defaultServer1.getNumConnectionsOpened());
+    Assert.assertEquals(0, defaultServer1.getNumConnectionsClosed());
+  }
+
+  @Test
+  public void testPooledConnectionPoolIdleTimeout() throws Exception {
+    // Only use server1
+    defaultServer2.cancelRegistration();
+
+    URI uri = new URI(resolveURI("/v2/ping"));
+    Assert.assertEquals("HTTP/1.1 200 OK", makeRequestOnNewConnection(uri));
+
+    // Sleep past the pool idle timeout, but below the connection idle timeout. The pooled connection is still open,
+    // but it shouldn't be reused since the server may be closing it.
+    TimeUnit.MILLISECONDS.sleep(TimeUnit.SECONDS.toMillis(CONNECTION_POOL_IDLE_TIMEOUT_SECS) + 500);
+    Assert.assertEquals(0, defaultServer1.getNumConnectionsClosed());
+
+    Assert.assertEquals("HTTP/1.1 200 OK", makeRequestOnNewConnection(uri));
+    Assert.assertEquals(2, defaultServer1.getNumRequests());
+    Assert.assertEquals(2, defaultServer1.getNumConnectionsOpened());
+    Tasks.waitFor(1, defaultServer1::getNumConnectionsClosed, 5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testPooledConnectionEvictOnDiscoveryChange() throws Exception {
+    // Only use server1
+    defaultServer2.cancelRegistration();
+
+    URI uri = new URI(resolveURI("/v2/ping"));
+    Assert.assertEquals("HTTP/1.1 200 OK", makeRequestOnNewConnection(uri));
+    Assert.assertEquals(0, defaultServer1.getNumConnectionsClosed());
+
+    // Switch to server2. The pooled connection to server1 should be closed before reaching the idle timeout.
+    defaultServer1.cancelRegistration();
+    defaultServer2.registerServer();
+    Tasks.waitFor(1, defaultServer1::getNumConnectionsClosed,
+                  TimeUnit.SECONDS.toMillis(CONNECTION_IDLE_TIMEOUT_SECS) - 500, TimeUnit.MILLISECONDS);
+
+    Assert.assertEquals("HTTP/1.1 200 OK", makeRequestOnNewConnection(uri));
+    Assert.assertEquals(1, defaultServer1.getNumRequests());
+    Assert.assertEquals(1, defaultServer2.getNumRequests());
+  }
+
+  @Test
+  public void testPooledConnectionClosedByServer() throws Exception {
+    // Only use server1
+    defaultServer2.cancelRegistration();
+
+    URI uri = new URI(resolveURI("/v2/ping"));
+    Assert.assertEquals("HTTP/1.1 200 OK", makeRequestOnNewConnection(uri));
+
+    // Close the pooled connection from the server side, a new connection should be used for the next request
+    defaultServer1.closeConnections();
+    Tasks.waitFor(1, defaultServer1::getNumConnectionsClosed, 5, TimeUnit.SECONDS);
+
+    Assert.assertEquals("HTTP/1.1 200 OK", makeRequestOnNewConnection(uri));
+    Assert.assertEquals(2, defaultServer1.getNumRequests());
+    Assert.assertEquals(2, defaultServer1.getNumConnectionsOpened());
+  }
+
+  /**
+   * Makes a keep-alive request on a new client connection and then closes the connection.
+   */
+  private String makeRequestOnNewConnection(URI uri) throws Exception {
+    String firstLine;
+    try (Socket socket = getSocketFactory().createSocket(uri.getHost(), uri.getPort())) {
+      PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+      firstLine = makeRequest(uri, out, socket.getInputStream());
+    }
+    // Give the router some time to release the server side connection to the pool after the client connection closed
+    TimeUnit.MILLISECONDS.sleep(200);
+    return firstLine;
+  }
+
   private String makeRequest(URI uri, PrintWriter out, InputStream inputStream) throws IOException {
     //Send request
     out.print("GET " + uri.getPath() + " HTTP/1.1\r\n" +
@@ -606,6 +697,7 @@ public abstract class NettyRouterTestBase {
     private final AtomicInteger numRequests = new AtomicInteger(0);
     private final AtomicInteger numConnectionsOpened = new AtomicInteger(0);
     private final AtomicInteger numConnectionsClosed = new AtomicInteger(0);
+    private final ChannelGroup channels = new DefaultChannelGroup(ImmediateEventExecutor.INSTANCE);
 
     private NettyHttpService httpService;
     private Cancellable cancelDiscovery;
@@ -629,6 +721,7 @@ public abstract class NettyRouterTestBase {
             @Override
             public void channelRegistered(ChannelHandlerContext ctx) throws Exception {
               numConnectionsOpened.incrementAndGet();
+              channels.add(ctx.channel());
               super.channelActive(ctx);
             }
 
@@ -666,6 +759,13 @@ public abstract class NettyRouterTestBase {
       return numConnectionsClosed.get();
     }
 
+    /**
+     * Closes all the connections accepted by this server.
+     */
+    public void closeConnections() {
+      channels.close().awaitUninterruptibly();
+    }
+
 
     public void registerServer() {
       // Register services of test server
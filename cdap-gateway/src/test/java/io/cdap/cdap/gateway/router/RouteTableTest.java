@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.gateway.router;
+
+import io.netty.handler.codec.http.HttpMethod;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link RouteTable}.
+ */
+public class RouteTableTest {
+
+  private static final RouteDestination DEFAULT = new RouteDestination("default");
+  private static final RouteDestination FIRST = new RouteDestination("first");
+  private static final RouteDestination SECOND = new RouteDestination("second");
+  private static final RouteDestination THIRD = new RouteDestination("third");
+
+  @Test
+  public void testPrefixAndExact() {
+    RouteTable table = RouteTable.builder()
+      .exact("/a/b", FIRST)
+      .prefix("/a/*/c", SECOND)
+      .prefix("/a", THIRD)
+      .build(DEFAULT);
+
+    Assert.assertEquals(FIRST, table.route("/a/b", HttpMethod.GET));
+    Assert.assertEquals(FIRST, table.route("/a/b/", HttpMethod.GET));
+    Assert.assertEquals(THIRD, table.route("/a/b/d", HttpMethod.GET));
+    Assert.assertEquals(SECOND, table.route("/a/b/c", HttpMethod.GET));
+    Assert.assertEquals(SECOND, table.route("/a/x/c/d/e", HttpMethod.GET));
+    Assert.assertEquals(THIRD, table.route("/a", HttpMethod.GET));
+    Assert.assertEquals(DEFAULT, table.route("/ab", HttpMethod.GET));
+    Assert.assertEquals(DEFAULT, table.route("/", HttpMethod.GET));
+    Assert.assertEquals(DEFAULT, table.route("", HttpMethod.GET));
+
+    // Empty segments are ignored
+    Assert.assertEquals(SECOND, table.route("//a//b///c", HttpMethod.GET));
+  }
+
+  @Test
+  public void testPriority() {
+    RouteTable table = RouteTable.builder()
+      .prefix("/a/*/c", FIRST)
+      .suffix("c/d", SECOND)
+      .prefix("/a/b", THIRD)
+      .build(DEFAULT);
+
+    // The rule added first wins, regardless of how specific it is
+    Assert.assertEquals(FIRST, table.route("/a/b/c/d", HttpMethod.GET));
+    Assert.assertEquals(SECOND, table.route("/a/b/x/c/d", HttpMethod.GET));
+    Assert.assertEquals(THIRD, table.route("/a/b/x", HttpMethod.GET));
+    Assert.assertEquals(SECOND, table.route("/c/d", HttpMethod.GET));
+    Assert.assertEquals(DEFAULT, table.route("/d", HttpMethod.GET));
+  }
+
+  @Test
+  public void testAlternativesAndMethod() {
+    RouteTable table = RouteTable.builder()
+      .prefix("/a/b|c", HttpMethod.GET, FIRST)
+      .suffix("x|y/*", SECOND)
+      .prefix("/a", (RouteDestination) null)
+      .build(DEFAULT);
+
+    Assert.assertEquals(FIRST, table.route("/a/b", HttpMethod.GET));
+    Assert.assertEquals(FIRST, table.route("/a/c/d", HttpMethod.GET));
+    Assert.assertNull(table.route("/a/c/d", HttpMethod.POST));
+    Assert.assertEquals(SECOND, table.route("/a/d/y/z", HttpMethod.POST));
+    Assert.assertEquals(SECOND, table.route("/x/z/", HttpMethod.POST));
+    Assert.assertEquals(DEFAULT, table.route("/x", HttpMethod.POST));
+  }
+
+  @Test
+  public void testResolver() {
+    RouteTable table = RouteTable.builder()
+      .prefix("/services/*/methods", path -> new RouteDestination(RouteTable.getSegment(path, 1)))
+      .build(DEFAULT);
+
+    Assert.assertEquals(new RouteDestination("s1"), table.route("/services/s1/methods/m", HttpMethod.PUT));
+    Assert.assertEquals(new RouteDestination("s2"), table.route("//services//s2/methods", HttpMethod.PUT));
+  }
+
+  @Test
+  public void testGetSegment() {
+    Assert.assertEquals("a", RouteTable.getSegment("/a/b//c/", 0));
+    Assert.assertEquals("b", RouteTable.getSegment("/a/b//c/", 1));
+    Assert.assertEquals("c", RouteTable.getSegment("/a/b//c/", 2));
+    try {
+      RouteTable.getSegment("/a/b//c/", 3);
+      Assert.fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
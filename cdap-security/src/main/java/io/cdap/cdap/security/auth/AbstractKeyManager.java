@@ -141,6 +141,11 @@ public abstract class AbstractKeyManager extends AbstractIdleService implements
     }
   }
 
+  @Override
+  public final boolean containsKey(int keyId) {
+    return hasKey(keyId);
+  }
+
   @Override
   public final DigestId generateMAC(byte[] message) throws InvalidKeyException {
     KeyIdentifier signingKey = currentKey;
@@ -16,28 +16,60 @@
 
 package io.cdap.cdap.security.auth;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.inject.Inject;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.io.Codec;
+import io.cdap.cdap.proto.id.NamespaceId;
 import org.apache.commons.codec.binary.Base64;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 /**
  * This class validates the accessToken and returns the different states
  * of accessToken validation.
+ *
+ * Tokens that pass validation are kept in a bounded cache, keyed by the SHA-256 hash of their serialized form so that
+ * the cache does not hold the bearer tokens themselves, and a token presented again is not decoded and its digest is
+ * not recomputed. A cached token is still checked for expiry and for the
+ * existence of the secret key that signed it on every call, so expired tokens and tokens signed by keys removed
+ * through key rotation are rejected as before.
  */
 public class AccessTokenValidator extends AbstractIdleService implements TokenValidator {
   private static final Logger LOG = LoggerFactory.getLogger(AccessTokenValidator.class);
   private final TokenManager tokenManager;
   private final Codec<AccessToken> accessTokenCodec;
+  private final Cache<HashCode, AccessToken> validatedTokens;
+  private volatile MetricsContext metricsContext;
 
   @Inject
-  public AccessTokenValidator(TokenManager tokenManager, Codec<AccessToken> accessTokenCodec) {
+  public AccessTokenValidator(CConfiguration cConf, TokenManager tokenManager, Codec<AccessToken> accessTokenCodec) {
     this.tokenManager = tokenManager;
     this.accessTokenCodec = accessTokenCodec;
+    this.validatedTokens = CacheBuilder.newBuilder()
+      .maximumSize(cConf.getInt(Constants.Security.TOKEN_VALIDATION_CACHE_SIZE))
+      .build();
+  }
+
+  /**
+   * Sets the {@link MetricsCollectionService} for emitting the token validation cache hit and miss counts.
+   */
+  @Inject(optional = true)
+  public void setMetricsCollectionService(MetricsCollectionService metricsCollectionService) {
+    this.metricsContext = metricsCollectionService.getContext(ImmutableMap.of(
+      Constants.Metrics.Tag.COMPONENT, Constants.Service.GATEWAY,
+      Constants.Metrics.Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace()));
   }
 
   @Override
@@ -58,11 +90,28 @@ public class AccessTokenValidator extends AbstractIdleService implements TokenVa
       LOG.debug("Token is missing");
       return TokenState.MISSING;
     }
+
+    HashCode tokenHash = Hashing.sha256().hashString(token, StandardCharsets.UTF_8);
+    accessToken = validatedTokens.getIfPresent(tokenHash);
+    if (accessToken != null) {
+      increment("auth.token.cache.hit");
+      try {
+        tokenManager.revalidateSecret(accessToken);
+      } catch (InvalidTokenException ite) {
+        validatedTokens.invalidate(tokenHash);
+        state = ite.getReason();
+        LOG.debug("{} {}", state, ite);
+      }
+      return state;
+    }
+    increment("auth.token.cache.miss");
+
     byte[] decodedToken = Base64.decodeBase64(token);
 
     try {
       accessToken = accessTokenCodec.decode(decodedToken);
       tokenManager.validateSecret(accessToken);
+      validatedTokens.put(tokenHash, accessToken);
     } catch (IOException ioe) {
       state = TokenState.INVALID;
       LOG.debug("Unknown Schema version for Access Token. {}", ioe);
@@ -72,4 +121,11 @@ public class AccessTokenValidator extends AbstractIdleService implements TokenVa
     }
     return state;
   }
+
+  private void increment(String metricName) {
+    MetricsContext context = metricsContext;
+    if (context != null) {
+      context.increment(metricName, 1L);
+    }
+  }
 }
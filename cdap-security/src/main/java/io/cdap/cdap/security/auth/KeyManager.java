@@ -64,4 +64,10 @@ public interface KeyManager extends Service {
   <T> void validateMAC(Codec<T> codec, Signed<T> signedMessage)
     throws InvalidDigestException, InvalidKeyException;
 
+  /**
+   * Returns whether the secret key with the given ID is still known, so that digests computed with it can be
+   * validated. Keys disappear once they are rotated out and removed.
+   * @param keyId Identifier of the secret key.
+   */
+  boolean containsKey(int keyId);
 }
@@ -73,10 +73,7 @@ public class TokenManager extends AbstractIdleService {
    * recomputed value.
    */
   public void validateSecret(AccessToken token) throws InvalidTokenException {
-    long now = System.currentTimeMillis();
-    if (token.getIdentifier().getExpireTimestamp() < now) {
-      throw new InvalidTokenException(TokenState.EXPIRED, "Token is expired.");
-    }
+    validateExpiry(token);
 
     try {
       keyManager.validateMAC(identifierCodec, token);
@@ -86,4 +83,25 @@ public class TokenManager extends AbstractIdleService {
       throw new InvalidTokenException(TokenState.INTERNAL, "Invalid key for token.", ike);
     }
   }
+
+  /**
+   * Given an {@link AccessToken} instance that already passed {@link #validateSecret(AccessToken)}, checks that the
+   * token has not yet expired and that the secret key used to sign it is still known. The digest is not recomputed.
+   * @param token The previously validated token instance.
+   * @throws InvalidTokenException If the provided token instance is expired or its secret key has been removed.
+   */
+  public void revalidateSecret(AccessToken token) throws InvalidTokenException {
+    validateExpiry(token);
+
+    if (!keyManager.containsKey(token.getKeyId())) {
+      throw new InvalidTokenException(TokenState.INTERNAL, "Invalid key for token.");
+    }
+  }
+
+  private void validateExpiry(AccessToken token) throws InvalidTokenException {
+    long now = System.currentTimeMillis();
+    if (token.getIdentifier().getExpireTimestamp() < now) {
+      throw new InvalidTokenException(TokenState.EXPIRED, "Token is expired.");
+    }
+  }
 }
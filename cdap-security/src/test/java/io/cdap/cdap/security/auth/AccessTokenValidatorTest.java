@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.security.auth;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.guice.ConfigModule;
+import io.cdap.cdap.common.guice.IOModule;
+import io.cdap.cdap.common.guice.InMemoryDiscoveryModule;
+import io.cdap.cdap.common.io.Codec;
+import io.cdap.cdap.security.guice.SecurityModules;
+import org.apache.commons.codec.binary.Base64;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link AccessTokenValidator}, including the cache of validated tokens.
+ */
+public class AccessTokenValidatorTest {
+
+  private InMemoryKeyManager keyManager;
+  private TokenManager tokenManager;
+  private Codec<AccessToken> tokenCodec;
+  private TokenValidator tokenValidator;
+
+  @Before
+  public void init() {
+    Injector injector = Guice.createInjector(new IOModule(), new SecurityModules().getInMemoryModules(),
+                                             new ConfigModule(), new InMemoryDiscoveryModule());
+    CConfiguration cConf = injector.getInstance(CConfiguration.class);
+    keyManager = new InMemoryKeyManager(cConf);
+    tokenManager = new TokenManager(keyManager, injector.getInstance(AccessTokenIdentifierCodec.class));
+    tokenCodec = injector.getInstance(AccessTokenCodec.class);
+    tokenValidator = new AccessTokenValidator(cConf, tokenManager, tokenCodec);
+    tokenValidator.startAndWait();
+  }
+
+  @After
+  public void finish() {
+    tokenValidator.stopAndWait();
+  }
+
+  @Test
+  public void testCachedTokenValidation() throws Exception {
+    long now = System.currentTimeMillis();
+    String token = encode(new AccessTokenIdentifier("user", ImmutableList.of("users"), now, now + 3600000L));
+
+    Assert.assertEquals(TokenState.MISSING, tokenValidator.validate(null));
+    Assert.assertEquals(TokenState.VALID, tokenValidator.validate(token));
+    // Served from the cache
+    Assert.assertEquals(TokenState.VALID, tokenValidator.validate(token));
+    Assert.assertEquals(TokenState.INVALID, tokenValidator.validate(Base64.encodeBase64String(new byte[] { 1, 2 })));
+  }
+
+  @Test
+  public void testCachedTokenExpiry() throws Exception {
+    long now = System.currentTimeMillis();
+    String token = encode(new AccessTokenIdentifier("user", ImmutableList.of("users"), now, now + 500L));
+
+    Assert.assertEquals(TokenState.VALID, tokenValidator.validate(token));
+    Thread.sleep(600L);
+    Assert.assertEquals(TokenState.EXPIRED, tokenValidator.validate(token));
+    Assert.assertEquals(TokenState.EXPIRED, tokenValidator.validate(token));
+  }
+
+  @Test
+  public void testCachedTokenKeyRemoval() throws Exception {
+    long now = System.currentTimeMillis();
+    String token = encode(new AccessTokenIdentifier("user", ImmutableList.of("users"), now, now + 3600000L));
+
+    Assert.assertEquals(TokenState.VALID, tokenValidator.validate(token));
+
+    // Once the signing key is gone, the cached token must be rejected the same way as an uncached one
+    keyManager.allKeys.clear();
+    Assert.assertEquals(TokenState.INTERNAL, tokenValidator.validate(token));
+    Assert.assertEquals(TokenState.INTERNAL, tokenValidator.validate(token));
+  }
+
+  private String encode(AccessTokenIdentifier identifier) throws Exception {
+    return Base64.encodeBase64String(tokenCodec.encode(tokenManager.signIdentifier(identifier)));
+  }
+}
@@ -30,6 +30,10 @@ import javax.annotation.Nullable;
  */
 public class SparkContainerClassLoader extends MainClassLoader {
 
+  static {
+    registerAsParallelCapable();
+  }
+
   private final SparkClassRewriter sparkClassRewriter;
 
   /**
@@ -44,6 +44,18 @@ public interface StructuredTable extends Closeable {
    */
   void upsert(Collection<Field<?>> fields) throws InvalidFieldException, IOException;
 
+  /**
+   * Insert or replace multiple rows to the table. Each element of the given collection contains the fields of
+   * one row, which have the same requirement as the {@link #upsert(Collection)} method.
+   * Implementations can batch the writes to reduce the number of round trips to the storage.
+   *
+   * @param multiFields the fields of each row to write
+   * @throws InvalidFieldException if any of the fields are not part of the table schema, or the types of the value
+   *                               do not match
+   * @throws IOException if there is an error writing to the table
+   */
+  void multiUpsert(Collection<? extends Collection<Field<?>>> multiFields) throws InvalidFieldException, IOException;
+
   /**
    * Read a single row with all the columns from the table.
    *
@@ -71,6 +83,20 @@ public interface StructuredTable extends Closeable {
   Optional<StructuredRow> read(Collection<Field<?>> keys,
                                Collection<String> columns) throws InvalidFieldException, IOException;
 
+  /**
+   * Read multiple rows with all the columns from the table. Implementations can fetch the rows with
+   * a single request to the storage.
+   *
+   * @param multiKeys the primary keys of the rows to read
+   * @return the rows that exist in the table. Rows that are missing in the table are not included.
+   *         There is no guarantee on the order of the rows returned.
+   * @throws InvalidFieldException if any of the keys are not part of the table schema, or the types of the value
+   *                               do not match.
+   * @throws IOException if there is an error reading from the table
+   */
+  Collection<StructuredRow> multiRead(Collection<? extends Collection<Field<?>>> multiKeys)
+    throws InvalidFieldException, IOException;
+
   /**
    * Read a set of rows from the table matching the key range.
    * The rows returned will be sorted on the primary key order.
@@ -84,6 +110,21 @@ public interface StructuredTable extends Closeable {
    */
   CloseableIterator<StructuredRow> scan(Range keyRange, int limit) throws InvalidFieldException, IOException;
 
+  /**
+   * Read a set of rows from the table matching any of the key ranges.
+   * The rows returned will be sorted on the primary key order, and rows matching more than one range
+   * will only be returned once.
+   *
+   * @param keyRanges key ranges for the scan
+   * @param limit maximum number of rows to return
+   * @return a {@link CloseableIterator} of rows
+   * @throws InvalidFieldException if any of the keys are not part of the table schema, or the types of the value
+   *                               do not match
+   * @throws IOException if there is an error scanning the table
+   */
+  CloseableIterator<StructuredRow> multiScan(Collection<Range> keyRanges,
+                                             int limit) throws InvalidFieldException, IOException;
+
   /**
    * Read a set of rows from the table matching the index.
    * The rows returned will be sorted on the primary key order.
@@ -136,6 +177,17 @@ public interface StructuredTable extends Closeable {
    */
   void delete(Collection<Field<?>> keys) throws InvalidFieldException, IOException;
 
+  /**
+   * Delete multiple rows from the table. Implementations can batch the deletes to reduce the number of
+   * round trips to the storage.
+   *
+   * @param multiKeys the primary keys of the rows to delete
+   * @throws InvalidFieldException if any of the keys are not part of the table schema, or the types of the value
+   *                               do not match
+   * @throws IOException if there is an error deleting from the table
+   */
+  void multiDelete(Collection<? extends Collection<Field<?>>> multiKeys) throws InvalidFieldException, IOException;
+
   /**
    * Delete a range of rows from the table.
    *
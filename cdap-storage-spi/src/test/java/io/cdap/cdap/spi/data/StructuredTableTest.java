@@ -37,6 +37,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -175,6 +176,117 @@ public abstract class StructuredTableTest {
     // TODO: test end only range
   }
 
+  @Test
+  public void testNestedScan() throws Exception {
+    int max = 20;
+    List<Collection<Field<?>>> expected = writeSimpleStructuredRows(max, "");
+    List<String> columns = Arrays.asList(KEY, KEY2, STRING_COL, DOUBLE_COL, FLOAT_COL, BYTES_COL);
+
+    // Open scans with the same range while another one is still open, and read inside the scans repeatedly
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      List<Collection<Field<?>>> outer = new ArrayList<>();
+      try (CloseableIterator<StructuredRow> iterator = table.scan(Range.all(), max)) {
+        while (iterator.hasNext()) {
+          StructuredRow row = iterator.next();
+          outer.add(convertRowToFields(row, columns));
+          try (CloseableIterator<StructuredRow> inner = table.scan(Range.all(), max)) {
+            Assert.assertEquals(expected, convertRowsToFields(inner, columns));
+          }
+          Optional<StructuredRow> read = table.read(Arrays.asList(Fields.intField(KEY, row.getInteger(KEY)),
+                                                                  Fields.longField(KEY2, row.getLong(KEY2))));
+          Assert.assertTrue(read.isPresent());
+          Assert.assertEquals(outer.get(outer.size() - 1), convertRowToFields(read.get(), columns));
+        }
+      }
+      Assert.assertEquals(expected, outer);
+    });
+  }
+
+  @Test
+  public void testMultiScan() throws Exception {
+    int max = 100;
+    List<Collection<Field<?>>> expected = writeSimpleStructuredRows(max, "");
+
+    // Scan [5, 10), [50, 55] and the overlapping [8, 12), rows should be sorted without duplicates
+    List<Range> ranges = Arrays.asList(
+      Range.create(Collections.singleton(Fields.intField(KEY, 50)), Range.Bound.INCLUSIVE,
+                   Collections.singleton(Fields.intField(KEY, 55)), Range.Bound.INCLUSIVE),
+      Range.create(Collections.singleton(Fields.intField(KEY, 5)), Range.Bound.INCLUSIVE,
+                   Collections.singleton(Fields.intField(KEY, 10)), Range.Bound.EXCLUSIVE),
+      Range.create(Collections.singleton(Fields.intField(KEY, 8)), Range.Bound.INCLUSIVE,
+                   Collections.singleton(Fields.intField(KEY, 12)), Range.Bound.EXCLUSIVE));
+    List<Collection<Field<?>>> expectedRows = new ArrayList<>(expected.subList(5, 12));
+    expectedRows.addAll(expected.subList(50, 56));
+    Assert.assertEquals(expectedRows, multiScanSimpleStructuredRows(ranges, max));
+
+    // Scan with limit
+    Assert.assertEquals(expectedRows.subList(0, 4), multiScanSimpleStructuredRows(ranges, 4));
+
+    // Scan with singleton ranges
+    ranges = Arrays.asList(Range.singleton(Collections.singleton(Fields.intField(KEY, 46))),
+                           Range.singleton(Collections.singleton(Fields.intField(KEY, 3))));
+    Assert.assertEquals(Arrays.asList(expected.get(3), expected.get(46)), multiScanSimpleStructuredRows(ranges, max));
+
+    // Scan with an unbounded range should return everything
+    ranges = Arrays.asList(Range.singleton(Collections.singleton(Fields.intField(KEY, 46))), Range.all());
+    Assert.assertEquals(expected, multiScanSimpleStructuredRows(ranges, max));
+
+    // Scan with no range should return nothing
+    Assert.assertEquals(Collections.emptyList(), multiScanSimpleStructuredRows(Collections.emptyList(), max));
+  }
+
+  @Test
+  public void testMultiReadWriteDelete() throws Exception {
+    int max = 10;
+    List<Collection<Field<?>>> expected = new ArrayList<>();
+    List<Collection<Field<?>>> keys = new ArrayList<>();
+    for (int i = 0; i < max; i++) {
+      List<Field<?>> key = Arrays.asList(Fields.intField(KEY, i), Fields.longField(KEY2, (long) i));
+      keys.add(key);
+      List<Field<?>> fields = new ArrayList<>(key);
+      fields.add(Fields.stringField(STRING_COL, VAL + i));
+      // Write some rows with different set of columns
+      if (i % 2 == 0) {
+        fields.add(Fields.longField(LONG_COL, (long) i));
+      }
+      expected.add(fields);
+    }
+
+    // Write all rows in one call and read them back
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      table.multiUpsert(expected);
+    });
+    List<String> columns = Arrays.asList(KEY, KEY2, STRING_COL);
+    Assert.assertEquals(convertFields(expected, columns), multiReadSimpleStructuredRows(keys, columns));
+
+    // Read with some non-existing keys
+    List<Collection<Field<?>>> readKeys = Arrays.asList(
+      Arrays.asList(Fields.intField(KEY, 3), Fields.longField(KEY2, 3L)),
+      Arrays.asList(Fields.intField(KEY, 3), Fields.longField(KEY2, 4L)),
+      Arrays.asList(Fields.intField(KEY, max + 1), Fields.longField(KEY2, (long) max + 1)),
+      keys.get(7));
+    Assert.assertEquals(convertFields(Arrays.asList(expected.get(3), expected.get(7)), columns),
+                        multiReadSimpleStructuredRows(readKeys, columns));
+
+    // Delete the first half of the rows in one call
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      table.multiDelete(keys.subList(0, max / 2));
+    });
+    Assert.assertEquals(convertFields(expected.subList(max / 2, max), columns),
+                        multiReadSimpleStructuredRows(keys, columns));
+
+    // Empty collections should be no-op
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      table.multiUpsert(Collections.emptyList());
+      table.multiDelete(Collections.emptyList());
+      Assert.assertTrue(table.multiRead(Collections.emptyList()).isEmpty());
+    });
+  }
+
   @Test
   public void testSimpleUpdate() throws Exception {
     int max = 10;
@@ -560,6 +672,48 @@ public abstract class StructuredTableTest {
     }
   }
 
+  private List<Collection<Field<?>>> multiScanSimpleStructuredRows(Collection<Range> ranges,
+                                                                   int max) throws Exception {
+    List<Collection<Field<?>>> actual = new ArrayList<>(max);
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      try (CloseableIterator<StructuredRow> iterator = table.multiScan(ranges, max)) {
+        actual.addAll(convertRowsToFields(iterator, Arrays.asList(KEY, KEY2, STRING_COL, DOUBLE_COL,
+                                                                  FLOAT_COL, BYTES_COL)));
+      }
+    });
+    return actual;
+  }
+
+  /**
+   * Reads the given keys with multiRead and returns the rows sorted by the keys, since multiRead doesn't guarantee
+   * the ordering.
+   */
+  private List<Collection<Field<?>>> multiReadSimpleStructuredRows(Collection<Collection<Field<?>>> keys,
+                                                                   List<String> columns) throws Exception {
+    List<Collection<Field<?>>> actual = new ArrayList<>();
+    getTransactionRunner().run(context -> {
+      StructuredTable table = context.getTable(SIMPLE_TABLE);
+      List<StructuredRow> rows = new ArrayList<>(table.multiRead(keys));
+      rows.sort(Comparator.comparing((StructuredRow row) -> row.getInteger(KEY))
+                  .thenComparing(row -> row.getLong(KEY2)));
+      actual.addAll(convertRowsToFields(rows.iterator(), columns));
+    });
+    return actual;
+  }
+
+  private List<Collection<Field<?>>> convertFields(List<Collection<Field<?>>> rows, List<String> columns) {
+    List<Collection<Field<?>>> result = new ArrayList<>();
+    for (Collection<Field<?>> row : rows) {
+      List<Field<?>> fields = new ArrayList<>();
+      for (String column : columns) {
+        row.stream().filter(f -> f.getName().equals(column)).findFirst().ifPresent(fields::add);
+      }
+      result.add(fields);
+    }
+    return result;
+  }
+
   private List<Collection<Field<?>>> scanSimpleStructuredRows(Range range, int max) throws Exception {
     List<Collection<Field<?>>> actual = new ArrayList<>(max);
     getTransactionRunner().run(context -> {
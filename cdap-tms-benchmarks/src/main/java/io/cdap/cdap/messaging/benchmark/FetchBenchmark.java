@@ -0,0 +1,127 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.benchmark;
+
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.client.StoreRequestBuilder;
+import io.cdap.cdap.messaging.data.RawMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for fetching messages from the messaging system.
+ *
+ * The topic is pre-populated with messages. Each fetch starts from a random message among the most recent ones,
+ * which is the common access pattern of subscribers that are keeping up with the publishers, and is the case
+ * that the message cache is designed for.
+ *
+ * <ul>
+ *   <li>{@link #fetch} measures fetching directly from the tables.</li>
+ *   <li>{@link #fetchHttp} measures fetching through the messaging http service, which includes the Avro encoding
+ *       and decoding of the messages.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FetchBenchmark {
+
+  private static final int MESSAGE_COUNT = 10000;
+  private static final int PAYLOADS_PER_REQUEST = 10;
+
+  @Param({"100", "1000"})
+  public int payloadSize;
+
+  @Param({"10", "100"})
+  public int limit;
+
+  @Param({"1000"})
+  public int recentMessages;
+
+  private List<byte[]> messageIds;
+
+  @Setup
+  public void setup(MessagingServiceState state) throws Exception {
+    MessagingService messagingService = state.getMessagingService();
+
+    Random random = new Random(0);
+    for (int i = 0; i < MESSAGE_COUNT; i += PAYLOADS_PER_REQUEST) {
+      StoreRequestBuilder builder = StoreRequestBuilder.of(MessagingServiceState.TOPIC);
+      for (int j = 0; j < PAYLOADS_PER_REQUEST; j++) {
+        byte[] payload = new byte[payloadSize];
+        random.nextBytes(payload);
+        builder.addPayload(payload);
+      }
+      messagingService.publish(builder.build());
+    }
+
+    // Collect the ids of the most recent messages to use as the fetch start points
+    List<byte[]> ids = new ArrayList<>(MESSAGE_COUNT);
+    try (CloseableIterator<RawMessage> iterator = messagingService.prepareFetch(MessagingServiceState.TOPIC)
+                                                                  .setLimit(Integer.MAX_VALUE).fetch()) {
+      while (iterator.hasNext()) {
+        ids.add(iterator.next().getId());
+      }
+    }
+    messageIds = new ArrayList<>(ids.subList(Math.max(0, ids.size() - recentMessages), ids.size()));
+  }
+
+  @Benchmark
+  public int fetch(MessagingServiceState state, Blackhole blackhole) throws Exception {
+    return fetch(state.getMessagingService(), blackhole);
+  }
+
+  @Benchmark
+  public int fetchHttp(MessagingServiceState state, Blackhole blackhole) throws Exception {
+    return fetch(state.getClientMessagingService(), blackhole);
+  }
+
+  private int fetch(MessagingService messagingService, Blackhole blackhole) throws Exception {
+    byte[] startId = messageIds.get(ThreadLocalRandom.current().nextInt(messageIds.size()));
+    int count = 0;
+    try (CloseableIterator<RawMessage> iterator = messagingService.prepareFetch(MessagingServiceState.TOPIC)
+                                                                  .setStartMessage(startId, true)
+                                                                  .setLimit(limit)
+                                                                  .fetch()) {
+      while (iterator.hasNext()) {
+        blackhole.consume(iterator.next());
+        count++;
+      }
+    }
+    return count;
+  }
+}
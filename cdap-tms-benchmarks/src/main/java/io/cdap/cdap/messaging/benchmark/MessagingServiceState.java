@@ -0,0 +1,154 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.benchmark;
+
+import com.google.common.util.concurrent.Service;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.PrivateModule;
+import com.google.inject.Scopes;
+import com.google.inject.name.Names;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.guice.ConfigModule;
+import io.cdap.cdap.common.guice.InMemoryDiscoveryModule;
+import io.cdap.cdap.common.metrics.NoOpMetricsCollectionService;
+import io.cdap.cdap.common.utils.DirUtils;
+import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.client.ClientMessagingService;
+import io.cdap.cdap.messaging.guice.MessagingServerRuntimeModule;
+import io.cdap.cdap.messaging.server.MessagingHttpService;
+import io.cdap.cdap.messaging.service.CoreMessagingService;
+import io.cdap.cdap.messaging.store.TableFactory;
+import io.cdap.cdap.messaging.store.cache.CachingTableFactory;
+import io.cdap.cdap.messaging.store.cache.DefaultMessageTableCacheProvider;
+import io.cdap.cdap.messaging.store.cache.MessageTableCacheProvider;
+import io.cdap.cdap.messaging.store.leveldb.LevelDBTableFactory;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.TopicId;
+import org.apache.tephra.TxConstants;
+import org.apache.twill.discovery.DiscoveryServiceClient;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+
+/**
+ * A JMH {@link State} that runs the messaging system backed by the LevelDB {@link TableFactory}, which is the same
+ * setup as in standalone CDAP, together with the messaging http service.
+ * The message cache is enabled for the benchmark topic when {@link #cacheSizeMB} is positive.
+ */
+@State(Scope.Benchmark)
+public class MessagingServiceState {
+
+  static final TopicId TOPIC = NamespaceId.SYSTEM.topic("benchmark");
+
+  @Param({"0", "64"})
+  public int cacheSizeMB;
+
+  private File dataDir;
+  private MessagingService messagingService;
+  private MessagingHttpService httpService;
+  private ClientMessagingService clientMessagingService;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    dataDir = Files.createTempDirectory("tms-benchmark").toFile();
+
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_LOCAL_DATA_DIR, dataDir.getAbsolutePath());
+    cConf.set(Constants.MessagingSystem.HTTP_SERVER_BIND_ADDRESS, InetAddress.getLoopbackAddress().getHostName());
+    cConf.set(Constants.MessagingSystem.SYSTEM_TOPICS, TOPIC.getTopic());
+    cConf.setInt(Constants.MessagingSystem.CACHE_SIZE_MB, cacheSizeMB);
+    // Set max life time to a high value so that the transaction write pointers generated by the benchmarks work
+    cConf.setLong(TxConstants.Manager.CFG_TX_MAX_LIFETIME, Long.MAX_VALUE / 2);
+
+    Injector injector = Guice.createInjector(
+      new ConfigModule(cConf),
+      new InMemoryDiscoveryModule(),
+      new AbstractModule() {
+        @Override
+        protected void configure() {
+          bind(MetricsCollectionService.class).toInstance(new NoOpMetricsCollectionService());
+        }
+      },
+      new PrivateModule() {
+        @Override
+        protected void configure() {
+          // Same bindings as in distributed mode, except using LevelDB instead of HBase
+          bind(TableFactory.class)
+            .annotatedWith(Names.named(CachingTableFactory.DELEGATE_TABLE_FACTORY))
+            .to(LevelDBTableFactory.class).in(Scopes.SINGLETON);
+          bind(MessageTableCacheProvider.class).to(DefaultMessageTableCacheProvider.class).in(Scopes.SINGLETON);
+          bind(TableFactory.class).to(CachingTableFactory.class);
+
+          MessagingServerRuntimeModule.bindHandlers(binder(), Constants.MessagingSystem.HANDLER_BINDING_NAME);
+
+          bind(MessagingService.class).to(CoreMessagingService.class).in(Scopes.SINGLETON);
+          expose(MessagingService.class);
+          bind(MessagingHttpService.class).in(Scopes.SINGLETON);
+          expose(MessagingHttpService.class);
+        }
+      }
+    );
+
+    messagingService = injector.getInstance(MessagingService.class);
+    if (messagingService instanceof Service) {
+      // Starting the service creates the benchmark topic, since it is configured as a system topic
+      ((Service) messagingService).startAndWait();
+    }
+    httpService = injector.getInstance(MessagingHttpService.class);
+    httpService.startAndWait();
+
+    clientMessagingService = new ClientMessagingService(injector.getInstance(DiscoveryServiceClient.class));
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() throws IOException {
+    try {
+      httpService.stopAndWait();
+      if (messagingService instanceof Service) {
+        ((Service) messagingService).stopAndWait();
+      }
+    } finally {
+      DirUtils.deleteDirectoryContents(dataDir);
+    }
+  }
+
+  /**
+   * Returns the {@link MessagingService} that operates on the tables directly.
+   */
+  MessagingService getMessagingService() {
+    return messagingService;
+  }
+
+  /**
+   * Returns the {@link MessagingService} that goes through the messaging http service.
+   */
+  MessagingService getClientMessagingService() {
+    return clientMessagingService;
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.benchmark;
+
+import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.RollbackDetail;
+import io.cdap.cdap.messaging.StoreRequest;
+import io.cdap.cdap.messaging.client.StoreRequestBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks for publishing messages to the messaging system.
+ *
+ * <ul>
+ *   <li>{@link #publish} measures non-transactional publish, which writes to the message table.</li>
+ *   <li>{@link #publishTransactional} measures transactional publish through the payload table, which stores the
+ *       payloads and then publishes a reference entry to the message table.</li>
+ *   <li>{@link #publishAndRollback} is the same as {@link #publishTransactional}, followed by a rollback.
+ *       The difference between the two is the rollback cost.</li>
+ * </ul>
+ *
+ * Run with multiple threads (e.g. {@code -t 8}) to measure the concurrent group commit.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PublishBenchmark {
+
+  @Param({"100", "1000"})
+  public int payloadSize;
+
+  @Param({"1", "10"})
+  public int payloadsPerRequest;
+
+  private final AtomicLong writePointer = new AtomicLong();
+  private List<byte[]> payloads;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(0);
+    payloads = new ArrayList<>(payloadsPerRequest);
+    for (int i = 0; i < payloadsPerRequest; i++) {
+      byte[] payload = new byte[payloadSize];
+      random.nextBytes(payload);
+      payloads.add(payload);
+    }
+  }
+
+  @Benchmark
+  public RollbackDetail publish(MessagingServiceState state) throws Exception {
+    return state.getMessagingService().publish(
+      StoreRequestBuilder.of(MessagingServiceState.TOPIC).addPayloads(payloads).build());
+  }
+
+  @Benchmark
+  public RollbackDetail publishTransactional(MessagingServiceState state) throws Exception {
+    return publishTransactional(state.getMessagingService(), writePointer.incrementAndGet());
+  }
+
+  @Benchmark
+  public RollbackDetail publishAndRollback(MessagingServiceState state) throws Exception {
+    MessagingService messagingService = state.getMessagingService();
+    RollbackDetail rollbackDetail = publishTransactional(messagingService, writePointer.incrementAndGet());
+    messagingService.rollback(MessagingServiceState.TOPIC, rollbackDetail);
+    return rollbackDetail;
+  }
+
+  private RollbackDetail publishTransactional(MessagingService messagingService, long txWritePointer)
+    throws Exception {
+    StoreRequest request = StoreRequestBuilder.of(MessagingServiceState.TOPIC)
+      .addPayloads(payloads)
+      .setTransaction(txWritePointer)
+      .build();
+    messagingService.storePayload(request);
+    return messagingService.publish(StoreRequestBuilder.of(MessagingServiceState.TOPIC)
+                                      .setTransaction(txWritePointer)
+                                      .build());
+  }
+}
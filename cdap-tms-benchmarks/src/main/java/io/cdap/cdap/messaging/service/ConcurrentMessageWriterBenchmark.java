@@ -0,0 +1,153 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.service;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.common.utils.TimeProvider;
+import io.cdap.cdap.messaging.RollbackDetail;
+import io.cdap.cdap.messaging.StoreRequest;
+import io.cdap.cdap.messaging.TopicMetadata;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.TopicId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Benchmark for the group commit of {@link ConcurrentMessageWriter} with concurrent publishers. The storage is
+ * simulated by a {@link StoreRequestWriter} that discards the entries and sleeps for {@link #writeLatencyMillis}
+ * on each write, so that the benchmark only measures the coordination between the publishers.
+ *
+ * Run with different number of threads (e.g. {@code -t 1}, {@code -t 64}, {@code -t 512}) to measure how the
+ * throughput scales with the number of publishers. Use {@code -prof stack} to see how much time the publishers
+ * spend on waiting versus writing.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentMessageWriterBenchmark {
+
+  private static final TopicId TOPIC = NamespaceId.DEFAULT.topic("benchmark");
+  private static final TopicMetadata METADATA = new TopicMetadata(TOPIC, TopicMetadata.GENERATION_KEY, 1);
+
+  @Param({"0", "1"})
+  public long writeLatencyMillis;
+
+  @Param({"10"})
+  public int payloadsPerRequest;
+
+  private ConcurrentMessageWriter writer;
+  private List<byte[]> payloads;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    writer = new ConcurrentMessageWriter(new DiscardingStoreRequestWriter(writeLatencyMillis));
+    payloads = new ArrayList<>(payloadsPerRequest);
+    for (int i = 0; i < payloadsPerRequest; i++) {
+      payloads.add(Bytes.toBytes(i));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() throws IOException {
+    writer.close();
+  }
+
+  @Benchmark
+  public RollbackDetail persist() throws IOException {
+    return writer.persist(new PayloadStoreRequest(TOPIC, payloads), METADATA);
+  }
+
+  /**
+   * A {@link StoreRequestWriter} that discards all entries after a delay, which simulates the write latency of
+   * the storage.
+   */
+  private static final class DiscardingStoreRequestWriter extends StoreRequestWriter<byte[]> {
+
+    private final long writeLatencyMillis;
+
+    DiscardingStoreRequestWriter(long writeLatencyMillis) {
+      super(new TimeProvider.IncrementalTimeProvider(), false);
+      this.writeLatencyMillis = writeLatencyMillis;
+    }
+
+    @Override
+    byte[] getEntry(TopicMetadata metadata, boolean transactional, long transactionWritePointer,
+                    long writeTimestamp, short sequenceId, @Nullable byte[] payload) {
+      return payload;
+    }
+
+    @Override
+    void doWrite(Iterator<byte[]> entries) {
+      while (entries.hasNext()) {
+        entries.next();
+      }
+      if (writeLatencyMillis > 0) {
+        Uninterruptibles.sleepUninterruptibly(writeLatencyMillis, TimeUnit.MILLISECONDS);
+      }
+    }
+
+    @Override
+    public void close() {
+      // No-op
+    }
+  }
+
+  /**
+   * A non-transactional {@link StoreRequest} with a fixed list of payloads.
+   */
+  private static final class PayloadStoreRequest extends StoreRequest {
+
+    private final List<byte[]> payloads;
+
+    PayloadStoreRequest(TopicId topicId, List<byte[]> payloads) {
+      super(topicId, false, -1L);
+      this.payloads = payloads;
+    }
+
+    @Override
+    public boolean hasPayload() {
+      return !payloads.isEmpty();
+    }
+
+    @Override
+    public Iterator<byte[]> iterator() {
+      return payloads.iterator();
+    }
+  }
+}
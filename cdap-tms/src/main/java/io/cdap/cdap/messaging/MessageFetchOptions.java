@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging;
+
+import org.apache.tephra.Transaction;
+
+/**
+ * The parameters for fetching messages from a topic, shared by the {@link MessageFetcher} and the per topic
+ * fetch parameters of a {@link MultiTopicMessageFetcher}.
+ *
+ * @param <T> type of the implementation, returned by the setters for chaining calls
+ */
+public interface MessageFetchOptions<T extends MessageFetchOptions<T>> {
+
+  /**
+   * Setup the message fetching starting point based on the given message id. Calling this method
+   * will clear the start time set by the {@link #setStartTime(long)} method.
+   *
+   * @param startOffset the message id to start fetching from.
+   * @param inclusive if {@code true}, it will include the message identified by the given message id as the
+   *                  first message (if still available in the system); otherwise it won't be included.
+   * @return this instance
+   */
+  T setStartMessage(byte[] startOffset, boolean inclusive);
+
+  /**
+   * Setup the message fetching start time (publish time). Calling this method will clear the
+   * start offset set by the {@link #setStartMessage(byte[], boolean)} method.
+   *
+   * @param startTime timestamp in milliseconds
+   * @return this instance
+   */
+  T setStartTime(long startTime);
+
+  /**
+   * Sets the transaction to use for fetching. It is for transactional consumption.
+   *
+   * @param transaction the transaction to use for reading messages
+   * @return this instance
+   */
+  T setTransaction(Transaction transaction);
+
+  /**
+   * Sets the maximum limit on number of messages to be fetched. By default, this is set to {@code Integer.MAX_VALUE}.
+   *
+   * @param limit maximum number of messages to be fetched
+   * @return this instance
+   */
+  T setLimit(int limit);
+}
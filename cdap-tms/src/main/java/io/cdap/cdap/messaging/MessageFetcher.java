@@ -16,12 +16,15 @@
 
 package io.cdap.cdap.messaging;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.api.messaging.TopicNotFoundException;
 import io.cdap.cdap.messaging.data.RawMessage;
 import org.apache.tephra.Transaction;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
@@ -29,25 +32,18 @@ import javax.annotation.Nullable;
  * Sub-class needs to override the {@link #fetch()} method to return a {@link CloseableIterator}
  * for fetching messages.
  */
-public abstract class MessageFetcher {
+public abstract class MessageFetcher implements MessageFetchOptions<MessageFetcher> {
 
   private byte[] startOffset;
   private boolean includeStart = true;
   private Long startTime;
   private Transaction transaction;
+  private long pollTimeoutMillis;
 
   // by default there is virtually no limit
   private int limit = Integer.MAX_VALUE;
 
-  /**
-   * Setup the message fetching starting point based on the given message id. Calling this method
-   * will clear the start time set by the {@link #setStartTime(long)} method.
-   *
-   * @param startOffset the message id to start fetching from.
-   * @param inclusive if {@code true}, it will include the message identified by the given message id as the
-   *                  first message (if still available in the system); otherwise it won't be included.
-   * @return this instance
-   */
+  @Override
   public MessageFetcher setStartMessage(byte[] startOffset, boolean inclusive) {
     this.startOffset = startOffset;
     this.includeStart = inclusive;
@@ -55,13 +51,7 @@ public abstract class MessageFetcher {
     return this;
   }
 
-  /**
-   * Setup the message fetching start time (publish time). Calling this method will clear the
-   * start offset set by the {@link #setStartMessage(byte[], boolean)} method.
-   *
-   * @param startTime timestamp in milliseconds
-   * @return this instance
-   */
+  @Override
   public MessageFetcher setStartTime(long startTime) {
     if (startTime < 0) {
       throw new IllegalArgumentException("Invalid message fetching start time. Start time must be >= 0");
@@ -71,23 +61,13 @@ public abstract class MessageFetcher {
     return this;
   }
 
-  /**
-   * Sets the transaction to use for fetching. It is for transactional consumption.
-   *
-   * @param transaction the transaction to use for reading messages
-   * @return this instance
-   */
+  @Override
   public MessageFetcher setTransaction(Transaction transaction) {
     this.transaction = transaction;
     return this;
   }
 
-  /**
-   * Sets the maximum limit on number of messages to be fetched. By default, this is set to {@code Integer.MAX_VALUE}.
-   *
-   * @param limit maximum number of messages to be fetched
-   * @return this instance
-   */
+  @Override
   public MessageFetcher setLimit(int limit) {
     if (limit <= 0) {
       throw new IllegalArgumentException("Invalid message fetching limit. Limit must be > 0");
@@ -96,6 +76,22 @@ public abstract class MessageFetcher {
     return this;
   }
 
+  /**
+   * Sets the maximum amount of time to wait for new messages if there is no message available when the fetch
+   * is performed. By default it is {@code 0}, meaning the fetch always returns immediately.
+   *
+   * @param timeout the maximum time to wait for new messages to be published
+   * @param unit the {@link TimeUnit} of the timeout
+   * @return this instance
+   */
+  public MessageFetcher setPollTimeout(long timeout, TimeUnit unit) {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("Invalid message fetching poll timeout. Timeout must be >= 0");
+    }
+    this.pollTimeoutMillis = unit.toMillis(timeout);
+    return this;
+  }
+
   @Nullable
   protected byte[] getStartOffset() {
     return startOffset;
@@ -119,6 +115,10 @@ public abstract class MessageFetcher {
     return limit;
   }
 
+  protected long getPollTimeoutMillis() {
+    return pollTimeoutMillis;
+  }
+
   /**
    * Returns a {@link CloseableIterator} that iterates over messages fetched from the messaging system.
    *
@@ -126,4 +126,24 @@ public abstract class MessageFetcher {
    * @throws IOException if it fails to create the iterator
    */
   public abstract CloseableIterator<RawMessage> fetch() throws TopicNotFoundException, IOException;
+
+  /**
+   * Returns a {@link ListenableFuture} that will be completed with a {@link CloseableIterator} that iterates over
+   * messages fetched from the messaging system. If there is no message available and a poll timeout is set via
+   * the {@link #setPollTimeout(long, TimeUnit)} method, the future will only be completed when new messages are
+   * published or when the timeout has passed, without blocking the calling thread.
+   *
+   * The default implementation performs the {@link #fetch()} call in the calling thread.
+   *
+   * @return a {@link ListenableFuture} of the message iterator. The future will be failed with
+   *         {@link TopicNotFoundException} if the topic does not exist or {@link IOException} if it fails to
+   *         create the iterator
+   */
+  public ListenableFuture<CloseableIterator<RawMessage>> fetchAsync() {
+    try {
+      return Futures.immediateFuture(fetch());
+    } catch (Exception e) {
+      return Futures.immediateFailedFuture(e);
+    }
+  }
 }
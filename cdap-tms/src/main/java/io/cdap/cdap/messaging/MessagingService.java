@@ -95,6 +95,15 @@ public interface MessagingService {
    */
   MessageFetcher prepareFetch(TopicId topicId) throws TopicNotFoundException, IOException;
 
+  /**
+   * Prepares to fetch messages from multiple topics under the given namespace with a single request.
+   *
+   * @param namespaceId the namespace of the topics to fetch messages from
+   * @return a {@link MultiTopicMessageFetcher} for adding topics and setting up parameters for fetching messages
+   *         from the messaging system
+   */
+  MultiTopicMessageFetcher prepareMultiFetch(NamespaceId namespaceId);
+
   /**
    * Publishes a list of messages to the messaging system.
    *
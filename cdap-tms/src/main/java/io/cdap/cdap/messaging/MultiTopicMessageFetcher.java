@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.messaging;
+
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.api.messaging.TopicNotFoundException;
+import io.cdap.cdap.common.ServiceUnavailableException;
+import io.cdap.cdap.messaging.data.TopicRawMessage;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.TopicId;
+import org.apache.tephra.Transaction;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A builder to setup parameters for fetching messages from multiple topics of the same namespace with a single
+ * request. Fetch parameters of each topic are setup through the {@link TopicFetcher} returned by the
+ * {@link #addTopic(String)} method. Sub-class needs to override the {@link #fetch()} method to return a
+ * {@link CloseableIterator} for fetching messages.
+ */
+public abstract class MultiTopicMessageFetcher {
+
+  private final NamespaceId namespaceId;
+  private final Map<TopicId, TopicFetcher> topicFetchers;
+
+  protected MultiTopicMessageFetcher(NamespaceId namespaceId) {
+    this.namespaceId = namespaceId;
+    this.topicFetchers = new LinkedHashMap<>();
+  }
+
+  /**
+   * Adds a topic to fetch messages from. Calling this method multiple times with the same topic returns the same
+   * {@link TopicFetcher} instance.
+   *
+   * @param topic name of the topic in the namespace of this fetcher
+   * @return a {@link TopicFetcher} for setting up parameters for fetching messages from the given topic
+   */
+  public TopicFetcher addTopic(String topic) {
+    return topicFetchers.computeIfAbsent(namespaceId.topic(topic), TopicFetcher::new);
+  }
+
+  /**
+   * Returns the namespace of the topics to fetch from.
+   */
+  protected NamespaceId getNamespaceId() {
+    return namespaceId;
+  }
+
+  /**
+   * Returns the fetch parameters of all topics, in the order of the topics being added.
+   */
+  protected Map<TopicId, TopicFetcher> getTopicFetchers() {
+    return Collections.unmodifiableMap(topicFetchers);
+  }
+
+  /**
+   * Returns a {@link CloseableIterator} that iterates over messages fetched from all the topics. Messages of
+   * the same topic are returned in the same order as fetching from that topic individually.
+   *
+   * @throws TopicNotFoundException if any of the topics does not exist
+   * @throws IOException if it fails to create the iterator
+   * @throws ServiceUnavailableException if the messaging service is not available
+   */
+  public abstract CloseableIterator<TopicRawMessage> fetch() throws TopicNotFoundException, IOException;
+
+  /**
+   * Carries the fetch parameters of one topic in a {@link MultiTopicMessageFetcher}.
+   */
+  public static final class TopicFetcher implements MessageFetchOptions<TopicFetcher> {
+
+    private final TopicId topicId;
+    private byte[] startOffset;
+    private boolean includeStart = true;
+    private Long startTime;
+    private Transaction transaction;
+
+    // by default there is virtually no limit
+    private int limit = Integer.MAX_VALUE;
+
+    private TopicFetcher(TopicId topicId) {
+      this.topicId = topicId;
+    }
+
+    @Override
+    public TopicFetcher setStartMessage(byte[] startOffset, boolean inclusive) {
+      this.startOffset = startOffset;
+      this.includeStart = inclusive;
+      this.startTime = null;
+      return this;
+    }
+
+    @Override
+    public TopicFetcher setStartTime(long startTime) {
+      if (startTime < 0) {
+        throw new IllegalArgumentException("Invalid message fetching start time. Start time must be >= 0");
+      }
+      this.startTime = startTime;
+      this.startOffset = null;
+      return this;
+    }
+
+    @Override
+    public TopicFetcher setTransaction(Transaction transaction) {
+      this.transaction = transaction;
+      return this;
+    }
+
+    @Override
+    public TopicFetcher setLimit(int limit) {
+      if (limit <= 0) {
+        throw new IllegalArgumentException("Invalid message fetching limit. Limit must be > 0");
+      }
+      this.limit = limit;
+      return this;
+    }
+
+    public TopicId getTopicId() {
+      return topicId;
+    }
+
+    @Nullable
+    public byte[] getStartOffset() {
+      return startOffset;
+    }
+
+    public boolean isIncludeStart() {
+      return includeStart;
+    }
+
+    @Nullable
+    public Long getStartTime() {
+      return startTime;
+    }
+
+    @Nullable
+    public Transaction getTransaction() {
+      return transaction;
+    }
+
+    public int getLimit() {
+      return limit;
+    }
+  }
+}
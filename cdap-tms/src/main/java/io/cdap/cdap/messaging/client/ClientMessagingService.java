@@ -36,11 +36,13 @@ import io.cdap.cdap.common.http.DefaultHttpRequestConfig;
 import io.cdap.cdap.common.internal.remote.RemoteClient;
 import io.cdap.cdap.messaging.MessageFetcher;
 import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.MultiTopicMessageFetcher;
 import io.cdap.cdap.messaging.RollbackDetail;
 import io.cdap.cdap.messaging.Schemas;
 import io.cdap.cdap.messaging.StoreRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
 import io.cdap.cdap.messaging.data.RawMessage;
+import io.cdap.cdap.messaging.data.TopicRawMessage;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.TopicId;
 import io.cdap.common.http.HttpMethod;
@@ -178,6 +180,11 @@ public final class ClientMessagingService implements MessagingService {
     return new ClientMessageFetcher(topicId);
   }
 
+  @Override
+  public MultiTopicMessageFetcher prepareMultiFetch(NamespaceId namespaceId) {
+    return new ClientMultiTopicMessageFetcher(namespaceId);
+  }
+
   @Nullable
   @Override
   public RollbackDetail publish(StoreRequest request) throws TopicNotFoundException, IOException {
@@ -349,6 +356,55 @@ public final class ClientMessagingService implements MessagingService {
     }
   }
 
+  /**
+   * Opens a {@link HttpURLConnection} to the given path and sends the given record as an Avro encoded
+   * POST request body. The response is not read by this method.
+   *
+   * @param path the path to send the request to
+   * @param schema the schema of the request record
+   * @param record the request record
+   * @param pollTimeoutMillis the maximum time the server can hold the request before responding
+   * @return the connection for reading the response
+   */
+  private HttpURLConnection openFetchConnection(String path, Schema schema, GenericRecord record,
+                                                long pollTimeoutMillis) throws IOException {
+    // The cask common http library doesn't support read streaming, and we don't want to buffer all messages
+    // in memory, hence we use the HttpURLConnection directly instead.
+    URL url = remoteClient.resolve(path);
+    HttpURLConnection urlConn = (HttpURLConnection)  url.openConnection();
+    urlConn.setConnectTimeout(HTTP_REQUEST_CONFIG.getConnectTimeout());
+    // The server can hold the request for up to the poll timeout before responding
+    int readTimeout = HTTP_REQUEST_CONFIG.getReadTimeout();
+    urlConn.setReadTimeout(readTimeout <= 0
+                             ? readTimeout : (int) Math.min(Integer.MAX_VALUE, readTimeout + pollTimeoutMillis));
+    urlConn.setRequestMethod("POST");
+    urlConn.setRequestProperty(HttpHeaders.CONTENT_TYPE, "avro/binary");
+    urlConn.setDoInput(true);
+    urlConn.setDoOutput(true);
+
+    // Send the request
+    Encoder encoder = EncoderFactory.get().directBinaryEncoder(urlConn.getOutputStream(), null);
+    DatumWriter<GenericRecord> datumWriter = new GenericDatumWriter<>(schema);
+    datumWriter.write(record, encoder);
+    return urlConn;
+  }
+
+  /**
+   * Reads the error response body from the given {@link HttpURLConnection} and disconnects it.
+   */
+  private String readErrorResponse(HttpURLConnection urlConn) {
+    // If there is any error, read the response body from the error stream
+    try (InputStream errorStream = urlConn.getErrorStream()) {
+      return errorStream == null
+        ? ""
+        : urlConn.getResponseMessage() + new String(ByteStreams.toByteArray(errorStream), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      return "";
+    } finally {
+      urlConn.disconnect();
+    }
+  }
+
   /**
    * A {@link ByteArrayOutputStream} that exposes the written raw buffer as ByteBuffer.
    */
@@ -396,40 +452,20 @@ public final class ClientMessagingService implements MessagingService {
         record.put("transaction", ByteBuffer.wrap(TRANSACTION_CODEC.encode(getTransaction())));
       }
 
-      // The cask common http library doesn't support read streaming, and we don't want to buffer all messages
-      // in memory, hence we use the HttpURLConnection directly instead.
-      URL url = remoteClient.resolve(createTopicPath(topicId) + "/poll");
-      final HttpURLConnection urlConn = (HttpURLConnection)  url.openConnection();
-      urlConn.setConnectTimeout(HTTP_REQUEST_CONFIG.getConnectTimeout());
-      urlConn.setReadTimeout(HTTP_REQUEST_CONFIG.getReadTimeout());
-      urlConn.setRequestMethod("POST");
-      urlConn.setRequestProperty(HttpHeaders.CONTENT_TYPE, "avro/binary");
-      urlConn.setDoInput(true);
-      urlConn.setDoOutput(true);
-
-      // Send the request
-      Encoder encoder = EncoderFactory.get().directBinaryEncoder(urlConn.getOutputStream(), null);
-      DatumWriter<GenericRecord> datumWriter = new GenericDatumWriter<>(Schemas.V1.ConsumeRequest.SCHEMA);
-      datumWriter.write(record, encoder);
-
+      // The poll timeout is sent as a query parameter, so that the request body stays compatible with the V1 schema
+      String path = createTopicPath(topicId) + "/poll";
+      if (getPollTimeoutMillis() > 0) {
+        path += "?pollTimeout=" + getPollTimeoutMillis();
+      }
+      HttpURLConnection urlConn = openFetchConnection(path,
+                                                      Schemas.V1.ConsumeRequest.SCHEMA, record,
+                                                      getPollTimeoutMillis());
       int responseCode = urlConn.getResponseCode();
       if (responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
         throw new TopicNotFoundException(topicId.getNamespace(), topicId.getTopic());
       }
 
-      handleError(responseCode, () -> {
-        // If there is any error, read the response body from the error stream
-        try (InputStream errorStream = urlConn.getErrorStream()) {
-          return errorStream == null
-            ? ""
-            : urlConn.getResponseMessage() + new String(ByteStreams.toByteArray(errorStream),
-                                                        StandardCharsets.UTF_8);
-        } catch (IOException e) {
-          return "";
-        } finally {
-          urlConn.disconnect();
-        }
-      }, "Failed to update topic " + topicId);
+      handleError(responseCode, () -> readErrorResponse(urlConn), "Failed to update topic " + topicId);
       verifyContentType(urlConn.getHeaderFields(), "avro/binary");
 
       // Decode the avro array manually instead of using DatumReader in order to support streaming decode.
@@ -477,4 +513,127 @@ public final class ClientMessagingService implements MessagingService {
       };
     }
   }
+
+  /**
+   * Client side implementation of {@link MultiTopicMessageFetcher}. It streams messages of all topics from the
+   * server with chunk encoding in a single request.
+   */
+  private final class ClientMultiTopicMessageFetcher extends MultiTopicMessageFetcher {
+
+    private final Schema topicRequestSchema;
+    private final DatumReader<GenericRecord> messageReader;
+    private GenericRecord messageRecord;
+
+    private ClientMultiTopicMessageFetcher(NamespaceId namespaceId) {
+      super(namespaceId);
+      this.topicRequestSchema = Schemas.V1.MultiConsumeRequest.SCHEMA.getField("topics").schema().getElementType();
+
+      // These are for reading individual message (each topic frame in the response contains an array of messages)
+      Schema messageSchema = Schemas.V1.MultiConsumeResponse.SCHEMA.getElementType()
+        .getField("messages").schema().getElementType();
+      this.messageRecord = new GenericData.Record(messageSchema);
+      this.messageReader = new GenericDatumReader<>(messageSchema);
+    }
+
+    @Override
+    public CloseableIterator<TopicRawMessage> fetch() throws IOException, TopicNotFoundException {
+      List<GenericRecord> topicRecords = new ArrayList<>();
+      for (TopicFetcher fetcher : getTopicFetchers().values()) {
+        GenericRecord record = new GenericData.Record(topicRequestSchema);
+        record.put("topic", fetcher.getTopicId().getTopic());
+        if (fetcher.getStartOffset() != null) {
+          record.put("startFrom", ByteBuffer.wrap(fetcher.getStartOffset()));
+        }
+        if (fetcher.getStartTime() != null) {
+          record.put("startFrom", fetcher.getStartTime());
+        }
+        record.put("inclusive", fetcher.isIncludeStart());
+        record.put("limit", fetcher.getLimit());
+
+        if (fetcher.getTransaction() != null) {
+          record.put("transaction", ByteBuffer.wrap(TRANSACTION_CODEC.encode(fetcher.getTransaction())));
+        }
+        topicRecords.add(record);
+      }
+      GenericRecord record = new GenericData.Record(Schemas.V1.MultiConsumeRequest.SCHEMA);
+      record.put("topics", topicRecords);
+
+      NamespaceId namespaceId = getNamespaceId();
+      HttpURLConnection urlConn = openFetchConnection(namespaceId.getNamespace() + "/fetch",
+                                                      Schemas.V1.MultiConsumeRequest.SCHEMA, record, 0L);
+      int responseCode = urlConn.getResponseCode();
+      if (responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
+        // The response body is the name of the topic that doesn't exist
+        try (InputStream errorStream = urlConn.getErrorStream()) {
+          String topic = errorStream == null
+            ? "" : new String(ByteStreams.toByteArray(errorStream), StandardCharsets.UTF_8);
+          throw new TopicNotFoundException(namespaceId.getNamespace(), topic);
+        } finally {
+          urlConn.disconnect();
+        }
+      }
+
+      handleError(responseCode, () -> readErrorResponse(urlConn),
+                  "Failed to fetch messages from topics " + getTopicFetchers().keySet());
+      verifyContentType(urlConn.getHeaderFields(), "avro/binary");
+
+      // Decode the avro arrays manually instead of using DatumReader in order to support streaming decode.
+      InputStream inputStream = urlConn.getInputStream();
+      Decoder decoder = DecoderFactory.get().binaryDecoder(inputStream, null);
+      long initialFrameCount = decoder.readArrayStart();
+      return new AbstractCloseableIterator<TopicRawMessage>() {
+
+        private long frameCount = initialFrameCount;
+        private long messageCount;
+        // The topic of the current frame, or null if it is between frames
+        private TopicId topicId;
+
+        @Override
+        protected TopicRawMessage computeNext() {
+          if (initialFrameCount == 0) {
+            return endOfData();
+          }
+
+          try {
+            while (true) {
+              if (topicId == null) {
+                if (frameCount == 0) {
+                  frameCount = decoder.arrayNext();
+                  if (frameCount == 0) {
+                    // The zero item count signals the end of the array
+                    return endOfData();
+                  }
+                }
+                // Start of a topic frame, which contains the topic name, followed by the array of messages
+                frameCount--;
+                topicId = namespaceId.topic(decoder.readString());
+                messageCount = decoder.readArrayStart();
+              } else if (messageCount == 0) {
+                messageCount = decoder.arrayNext();
+              }
+
+              if (messageCount == 0) {
+                // End of the current topic frame
+                topicId = null;
+                continue;
+              }
+
+              messageCount--;
+              messageRecord = messageReader.read(messageRecord, decoder);
+              return new TopicRawMessage(topicId, Bytes.toBytes((ByteBuffer) messageRecord.get("id")),
+                                         Bytes.toBytes((ByteBuffer) messageRecord.get("payload")));
+            }
+          } catch (IOException e) {
+            throw Throwables.propagate(e);
+          }
+        }
+
+        @Override
+        public void close() {
+          Closeables.closeQuietly(inputStream);
+          urlConn.disconnect();
+        }
+      };
+    }
+  }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.context;
+
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.api.messaging.Message;
+import io.cdap.cdap.api.messaging.MessageFetcher;
+import io.cdap.cdap.api.messaging.TopicNotFoundException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link MessageFetcher} that can wait for new messages to be published when there is no message available,
+ * instead of returning an empty result immediately.
+ */
+public interface PollingMessageFetcher extends MessageFetcher {
+
+  /**
+   * Fetches messages from the given topic that were published after a given message. If there is no message
+   * available, this method waits for new messages to be published up to the given timeout.
+   *
+   * @param namespace namespace of the topic
+   * @param topic name of the topic
+   * @param limit maximum number of messages to fetch
+   * @param afterMessageId message id that the fetch will start from (exclusive); if {@code null},
+   *                       the fetch will start from the first available message in the topic
+   * @param timeout the maximum time to wait for new messages
+   * @param unit the {@link TimeUnit} of the timeout
+   * @return a {@link CloseableIterator} of messages
+   * @throws TopicNotFoundException if the topic does not exist
+   * @throws IOException if failed to fetch messages
+   */
+  CloseableIterator<Message> poll(String namespace, String topic, int limit, @Nullable String afterMessageId,
+                                  long timeout, TimeUnit unit) throws IOException, TopicNotFoundException;
+}
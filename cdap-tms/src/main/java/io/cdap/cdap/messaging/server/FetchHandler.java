@@ -16,7 +16,12 @@
 
 package io.cdap.cdap.messaging.server;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.inject.Inject;
 import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
@@ -27,10 +32,13 @@ import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.io.ByteBuffers;
 import io.cdap.cdap.common.logging.LogSamplers;
 import io.cdap.cdap.common.logging.Loggers;
+import io.cdap.cdap.messaging.MessageFetchOptions;
 import io.cdap.cdap.messaging.MessageFetcher;
 import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.MultiTopicMessageFetcher;
 import io.cdap.cdap.messaging.Schemas;
 import io.cdap.cdap.messaging.data.RawMessage;
+import io.cdap.cdap.messaging.data.TopicRawMessage;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.TopicId;
 import io.cdap.http.AbstractHttpHandler;
@@ -44,6 +52,7 @@ import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericDatumWriter;
@@ -55,6 +64,7 @@ import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.io.Encoder;
 import org.apache.avro.io.EncoderFactory;
 import org.apache.tephra.TransactionCodec;
+import org.apache.twill.common.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,17 +73,22 @@ import java.net.SocketException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 
 /**
  * A netty http handler for handling message fetching REST API for the messaging system.
  */
-@Path("/v1/namespaces/{namespace}/topics/{topic}")
+@Path("/v1/namespaces/{namespace}")
 public final class FetchHandler extends AbstractHttpHandler {
 
   private static final Logger LOG = LoggerFactory.getLogger(FetchHandler.class);
@@ -86,19 +101,27 @@ public final class FetchHandler extends AbstractHttpHandler {
   );
 
   private final MessagingService messagingService;
-  private int messageChunkSize;
+  private final int messageChunkSize;
+  private final long maxPollTimeoutMillis;
 
   @Inject
   FetchHandler(CConfiguration cConf, MessagingService messagingService) {
     this.messagingService = messagingService;
     this.messageChunkSize = cConf.getInt(Constants.MessagingSystem.HTTP_SERVER_CONSUME_CHUNK_SIZE);
+    this.maxPollTimeoutMillis = cConf.getLong(Constants.MessagingSystem.HTTP_SERVER_CONSUME_MAX_POLL_TIMEOUT_MS);
   }
 
+  /**
+   * Fetches messages from a topic. If no message is available, the response is held for up to the time in
+   * milliseconds given by the {@code pollTimeout} query parameter, until new messages are published to the topic.
+   * The poll timeout is not part of the request body, so that requests from older clients can still be decoded.
+   */
   @POST
-  @Path("poll")
+  @Path("topics/{topic}/poll")
   public void poll(FullHttpRequest request, HttpResponder responder,
                    @PathParam("namespace") String namespace,
-                   @PathParam("topic") String topic) throws Exception {
+                   @PathParam("topic") String topic,
+                   @QueryParam("pollTimeout") @DefaultValue("0") long pollTimeout) throws Exception {
 
     TopicId topicId = new NamespaceId(namespace).topic(topic);
 
@@ -112,7 +135,87 @@ public final class FetchHandler extends AbstractHttpHandler {
     DatumReader<GenericRecord> datumReader = new GenericDatumReader<>(Schemas.V1.ConsumeRequest.SCHEMA);
 
     // Fetch the messages
-    CloseableIterator<RawMessage> iterator = fetchMessages(datumReader.read(null, decoder), topicId);
+    ListenableFuture<CloseableIterator<RawMessage>> future = fetchMessages(datumReader.read(null, decoder), topicId,
+                                                                           pollTimeout);
+
+    // Respond immediately if messages are available or no poll timeout is requested.
+    if (future.isDone()) {
+      sendMessages(responder, getDone(future));
+      return;
+    }
+
+    // Otherwise the response will be sent when there are new messages or the poll timeout passed,
+    // without holding up the handler thread.
+    Futures.addCallback(future, new FutureCallback<CloseableIterator<RawMessage>>() {
+      @Override
+      public void onSuccess(CloseableIterator<RawMessage> iterator) {
+        try {
+          sendMessages(responder, iterator);
+        } catch (Throwable t) {
+          onFailure(t);
+        }
+      }
+
+      @Override
+      public void onFailure(Throwable t) {
+        SAMPLING_LOG.warn("Failed to poll messages from topic {}", topicId, t);
+        if (t instanceof TopicNotFoundException) {
+          responder.sendString(HttpResponseStatus.NOT_FOUND, t.getMessage());
+        } else {
+          responder.sendString(HttpResponseStatus.INTERNAL_SERVER_ERROR, "Failed to poll messages from topic "
+            + topicId + ". Reason: " + t.getMessage());
+        }
+      }
+    }, Threads.SAME_THREAD_EXECUTOR);
+  }
+
+  /**
+   * Fetches messages from multiple topics of the same namespace. The response is an array of per topic frames,
+   * each containing the topic name and the messages fetched from that topic. Topics without any message fetched
+   * are not included in the response. If any of the topics does not exist, a 404 response with the
+   * topic name as the body is returned.
+   */
+  @POST
+  @Path("fetch")
+  public void fetch(FullHttpRequest request, HttpResponder responder,
+                    @PathParam("namespace") String namespace) throws Exception {
+    // Currently only support avro
+    if (!"avro/binary".equals(request.headers().get(HttpHeaderNames.CONTENT_TYPE))) {
+      throw new BadRequestException("Only avro/binary content type is supported.");
+    }
+
+    // Decode the fetch request
+    Decoder decoder = DecoderFactory.get().directBinaryDecoder(new ByteBufInputStream(request.content()), null);
+    DatumReader<GenericRecord> datumReader = new GenericDatumReader<>(Schemas.V1.MultiConsumeRequest.SCHEMA);
+    GenericRecord fetchRequest = datumReader.read(null, decoder);
+
+    MultiTopicMessageFetcher fetcher = messagingService.prepareMultiFetch(new NamespaceId(namespace));
+    for (Object topicRequest : (Collection<?>) fetchRequest.get("topics")) {
+      GenericRecord record = (GenericRecord) topicRequest;
+      setupFetcher(fetcher.addTopic(record.get("topic").toString()), record);
+    }
+
+    CloseableIterator<TopicRawMessage> iterator;
+    try {
+      iterator = fetcher.fetch();
+    } catch (TopicNotFoundException e) {
+      responder.sendString(HttpResponseStatus.NOT_FOUND, e.getTopic());
+      return;
+    }
+
+    try {
+      responder.sendContent(HttpResponseStatus.OK, new MultiTopicMessagesBodyProducer(iterator, messageChunkSize),
+                            new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, "avro/binary"));
+    } catch (Throwable t) {
+      iterator.close();
+      throw t;
+    }
+  }
+
+  /**
+   * Sends the messages provided by the given {@link CloseableIterator} as the response.
+   */
+  private void sendMessages(HttpResponder responder, CloseableIterator<RawMessage> iterator) {
     try {
       responder.sendContent(HttpResponseStatus.OK, new MessagesBodyProducer(iterator, messageChunkSize),
                             new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, "avro/binary"));
@@ -123,12 +226,39 @@ public final class FetchHandler extends AbstractHttpHandler {
   }
 
   /**
-   * Creates a {@link CloseableIterator} of {@link RawMessage} based on the given fetch request.
+   * Returns the result of a completed {@link ListenableFuture}, rethrowing the failure cause if the future failed.
    */
-  private CloseableIterator<RawMessage> fetchMessages(GenericRecord fetchRequest,
-                                                      TopicId topicId) throws IOException, TopicNotFoundException {
-    MessageFetcher fetcher = messagingService.prepareFetch(topicId);
+  private <V> V getDone(ListenableFuture<V> future) throws Exception {
+    try {
+      return Uninterruptibles.getUninterruptibly(future);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      Throwables.propagateIfPossible(cause, Exception.class);
+      throw Throwables.propagate(cause);
+    }
+  }
 
+  /**
+   * Fetches messages based on the given fetch request. The returned {@link ListenableFuture} will be completed
+   * with a {@link CloseableIterator} of {@link RawMessage}.
+   */
+  private ListenableFuture<CloseableIterator<RawMessage>> fetchMessages(GenericRecord fetchRequest,
+                                                                        TopicId topicId, long pollTimeout)
+    throws IOException, TopicNotFoundException {
+    MessageFetcher fetcher = setupFetcher(messagingService.prepareFetch(topicId), fetchRequest);
+
+    if (pollTimeout > 0) {
+      fetcher.setPollTimeout(Math.min(pollTimeout, maxPollTimeoutMillis), TimeUnit.MILLISECONDS);
+    }
+
+    return fetcher.fetchAsync();
+  }
+
+  /**
+   * Sets up the given {@link MessageFetchOptions} based on the start position, limit and transaction in the given
+   * fetch request.
+   */
+  private <T extends MessageFetchOptions<T>> T setupFetcher(T fetcher, GenericRecord fetchRequest) throws IOException {
     Object startFrom = fetchRequest.get("startFrom");
     if (startFrom != null) {
       if (startFrom instanceof ByteBuffer) {
@@ -153,36 +283,35 @@ public final class FetchHandler extends AbstractHttpHandler {
       fetcher.setTransaction(TRANSACTION_CODEC.decode(ByteBuffers.getByteArray(encodedTx)));
     }
 
-    return fetcher.fetch();
+    return fetcher;
   }
 
   /**
-   * A {@link BodyProducer} to encode and send back messages.
+   * Base class of {@link BodyProducer} to encode and send back messages.
    * Instead of using GenericDatumWriter, we perform the array encoding manually so that we don't have to buffer
    * all messages in memory before sending out.
+   *
+   * @param <T> type of message provided by the iterator
    */
-  private static class MessagesBodyProducer extends BodyProducer {
+  private abstract static class AbstractMessagesBodyProducer<T extends RawMessage> extends BodyProducer {
 
-    private final CloseableIterator<RawMessage> iterator;
-    private final List<RawMessage> messages;
-    private final int messageChunkSize;
+    protected final CloseableIterator<T> iterator;
+    protected final int messageChunkSize;
+    protected final Encoder encoder;
     private final ByteBuf chunk;
-    private final Encoder encoder;
     private final GenericRecord messageRecord;
     private final DatumWriter<GenericRecord> messageWriter;
-    private boolean arrayStarted;
-    private boolean arrayEnded;
+    private boolean ended;
 
-    MessagesBodyProducer(CloseableIterator<RawMessage> iterator, int messageChunkSize) {
+    AbstractMessagesBodyProducer(CloseableIterator<T> iterator, int messageChunkSize, Schema messageSchema) {
       this.iterator = iterator;
-      this.messages = new ArrayList<>();
       this.messageChunkSize = messageChunkSize;
       this.chunk = Unpooled.buffer(messageChunkSize);
       this.encoder = EncoderFactory.get().directBinaryEncoder(new ByteBufOutputStream(chunk), null);
 
-      // These are for writing individual message (response is an array of messages)
-      this.messageRecord = new GenericData.Record(Schemas.V1.ConsumeResponse.SCHEMA.getElementType());
-      this.messageWriter = new GenericDatumWriter<GenericRecord>(Schemas.V1.ConsumeResponse.SCHEMA.getElementType()) {
+      // These are for writing individual message
+      this.messageRecord = new GenericData.Record(messageSchema);
+      this.messageWriter = new GenericDatumWriter<GenericRecord>(messageSchema) {
         @Override
         protected void writeBytes(Object datum, Encoder out) throws IOException {
           if (datum instanceof byte[]) {
@@ -197,30 +326,36 @@ public final class FetchHandler extends AbstractHttpHandler {
     @Override
     public ByteBuf nextChunk() throws Exception {
       // Already sent all messages, return empty to signal the end of response
-      if (arrayEnded) {
+      if (ended) {
         return Unpooled.EMPTY_BUFFER;
       }
 
       chunk.clear();
+      ended = encodeChunk();
+      return chunk.copy();
+    }
 
-      if (!arrayStarted) {
-        arrayStarted = true;
-        encoder.writeArrayStart();
-      }
-
-      // Try to buffer up to buffer size
-      int size = 0;
-      messages.clear();
-      while (iterator.hasNext() && size < messageChunkSize) {
-        RawMessage message = iterator.next();
-        messages.add(message);
-
-        // Avro encodes bytes as (len + bytes), hence adding 8 to cater for the length of the id and payload
-        // Straightly speaking it can be up to 9 bytes each (hence 18 bytes),
-        // but we don't expect id and payload of such size
-        size += message.getId().length + message.getPayload().length + 8;
-      }
+    /**
+     * Encodes up to about {@link #messageChunkSize} bytes of messages with the {@link #encoder}.
+     *
+     * @return {@code true} if all messages are encoded and the response is completed
+     */
+    protected abstract boolean encodeChunk() throws IOException;
+
+    /**
+     * Returns the approximated encoded size of the given message.
+     */
+    protected int getEncodedSize(RawMessage message) {
+      // Avro encodes bytes as (len + bytes), hence adding 8 to cater for the length of the id and payload
+      // Straightly speaking it can be up to 9 bytes each (hence 18 bytes),
+      // but we don't expect id and payload of such size
+      return message.getId().length + message.getPayload().length + 8;
+    }
 
+    /**
+     * Encodes the given list of messages as one block of an Avro array.
+     */
+    protected void writeMessages(List<? extends RawMessage> messages) throws IOException {
       encoder.setItemCount(messages.size());
       for (RawMessage message : messages) {
         encoder.startItem();
@@ -232,13 +367,6 @@ public final class FetchHandler extends AbstractHttpHandler {
         messageRecord.put("payload", message.getPayload());
         messageWriter.write(messageRecord, encoder);
       }
-
-      if (!iterator.hasNext()) {
-        arrayEnded = true;
-        encoder.writeArrayEnd();
-      }
-
-      return chunk.copy();
     }
 
     @Override
@@ -264,4 +392,111 @@ public final class FetchHandler extends AbstractHttpHandler {
       }
     }
   }
+
+  /**
+   * A {@link BodyProducer} to encode and send back messages of a single topic as an array of messages.
+   */
+  private static final class MessagesBodyProducer extends AbstractMessagesBodyProducer<RawMessage> {
+
+    private final List<RawMessage> messages;
+    private boolean arrayStarted;
+
+    MessagesBodyProducer(CloseableIterator<RawMessage> iterator, int messageChunkSize) {
+      super(iterator, messageChunkSize, Schemas.V1.ConsumeResponse.SCHEMA.getElementType());
+      this.messages = new ArrayList<>();
+    }
+
+    @Override
+    protected boolean encodeChunk() throws IOException {
+      if (!arrayStarted) {
+        arrayStarted = true;
+        encoder.writeArrayStart();
+      }
+
+      // Try to buffer up to buffer size
+      int size = 0;
+      messages.clear();
+      while (iterator.hasNext() && size < messageChunkSize) {
+        RawMessage message = iterator.next();
+        messages.add(message);
+        size += getEncodedSize(message);
+      }
+
+      writeMessages(messages);
+
+      if (!iterator.hasNext()) {
+        encoder.writeArrayEnd();
+        return true;
+      }
+      return false;
+    }
+  }
+
+  /**
+   * A {@link BodyProducer} to encode and send back messages of multiple topics. Consecutive messages of the same
+   * topic are grouped into one frame, which is an element of the response array containing the topic name and
+   * an array of messages.
+   */
+  private static final class MultiTopicMessagesBodyProducer extends AbstractMessagesBodyProducer<TopicRawMessage> {
+
+    private final List<TopicRawMessage> messages;
+    private boolean arrayStarted;
+    private TopicId frameTopicId;
+
+    MultiTopicMessagesBodyProducer(CloseableIterator<TopicRawMessage> iterator, int messageChunkSize) {
+      super(iterator, messageChunkSize, Schemas.V1.MultiConsumeResponse.SCHEMA.getElementType()
+        .getField("messages").schema().getElementType());
+      this.messages = new ArrayList<>();
+    }
+
+    @Override
+    protected boolean encodeChunk() throws IOException {
+      if (!arrayStarted) {
+        arrayStarted = true;
+        encoder.writeArrayStart();
+      }
+
+      // Try to buffer up to buffer size, flushing the buffered messages whenever the topic changes
+      int size = 0;
+      messages.clear();
+      while (iterator.hasNext() && size < messageChunkSize) {
+        TopicRawMessage message = iterator.next();
+        if (!message.getTopicId().equals(frameTopicId)) {
+          flushMessages();
+          if (frameTopicId != null) {
+            // End the messages array of the previous topic frame
+            encoder.writeArrayEnd();
+          }
+          // Start a new topic frame, which is written as a block of one element in the response array
+          frameTopicId = message.getTopicId();
+          encoder.setItemCount(1);
+          encoder.startItem();
+          encoder.writeString(frameTopicId.getTopic());
+          encoder.writeArrayStart();
+        }
+        messages.add(message);
+        size += getEncodedSize(message);
+      }
+      flushMessages();
+
+      if (!iterator.hasNext()) {
+        if (frameTopicId != null) {
+          encoder.writeArrayEnd();
+        }
+        encoder.writeArrayEnd();
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * Writes the buffered messages as one block of the messages array of the current topic frame.
+     */
+    private void flushMessages() throws IOException {
+      if (!messages.isEmpty()) {
+        writeMessages(messages);
+        messages.clear();
+      }
+    }
+  }
 }
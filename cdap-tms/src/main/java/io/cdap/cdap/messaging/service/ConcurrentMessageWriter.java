@@ -31,15 +31,18 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
  * Class to support writing to message/payload tables with high concurrency.
  *
- * It uses a non-blocking algorithm to batch writes from concurrent threads. The algorithm is the same as
- * the one used in ConcurrentStreamWriter.
+ * It uses a group commit algorithm to batch writes from concurrent threads, with one of the publisher threads
+ * acting as the writer for a batch while the other publisher threads are parked.
  *
  * The algorithm is like this:
  *
@@ -48,23 +51,29 @@ import javax.annotation.concurrent.ThreadSafe;
  * <pre>
  * 1. Constructs a PendingStoreRequest locally and enqueue it to a ConcurrentLinkedQueue.
  * 2. Use CAS to set an AtomicBoolean flag to true.
- * 3. If successfully set the flag to true, this thread becomes the writer and proceed to run step 4-7.
- * 4. Provides an Iterator of PendingStoreRequest, which consumes from the ConcurrentLinkedQueue mentioned in step 1.
- * 5. The message table store method will consume the Iterator until it is empty
- * 6. Set the state of each PendingStoreRequest that are written to COMPLETED (succeed/failure).
- * 7. Set the AtomicBoolean flag back to false.
+ * 3. If failed to set the flag, park the thread until it is woken up, then go to step 8.
+ * 4. If successfully set the flag to true, this thread becomes the writer and proceed to run step 5-7.
+ * 5. Optionally linger for more requests to be enqueued, then dequeue up to the max batch size of requests.
+ *    The message table store method writes all the requests in the batch.
+ * 6. Set the state of each PendingStoreRequest that are written to COMPLETED (succeed/failure) and wake up
+ *    the thread that enqueued it. Repeat step 5 until the PendingStoreRequest enqueued by this thread is COMPLETED.
+ * 7. Set the AtomicBoolean flag back to false and wake up the thread of the request at the head of the queue,
+ *    so that the next batch is written by that thread immediately.
  * 8. If the PendingStoreRequest enqueued by this thread is NOT COMPLETED, go back to step 2.
  * </pre>
  *
- * The spin lock between step 2 to step 8 is necessary as it guarantees events enqueued by all threads would eventually
- * get written and flushed.
+ * Handing the writer role over in step 7 guarantees events enqueued by all threads would eventually get written,
+ * while the writer thread returns to its caller as soon as its own request is persisted.
  */
 @ThreadSafe
 final class ConcurrentMessageWriter implements Closeable {
 
+  static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
   private final StoreRequestWriter<?> messagesWriter;
   private final MetricsCollector metricsCollector;
   private final PendingStoreQueue pendingStoreQueue;
+  private final long lingerNanos;
   private final AtomicBoolean writerFlag;
   private final AtomicBoolean closed;
 
@@ -76,16 +85,32 @@ final class ConcurrentMessageWriter implements Closeable {
     this(messagesWriter, new NoopMetricsContext());
   }
 
+  /**
+   * Constructor with default batching settings. This constructor should only be used in unit-testing.
+   */
+  @VisibleForTesting
+  ConcurrentMessageWriter(StoreRequestWriter<?> messagesWriter, MetricsCollector metricsCollector) {
+    this(messagesWriter, metricsCollector, DEFAULT_MAX_BATCH_SIZE, 0L);
+  }
+
   /**
    * Constructor.
    *
    * @param messagesWriter the {@link StoreRequestWriter} for persisting {@link StoreRequest}.
    * @param metricsCollector the {@link MetricsCollector} for collecting metrics emitted by this class.
+   * @param maxBatchSize maximum number of {@link StoreRequest} to be written in one batch
+   * @param lingerMillis number of milliseconds the writer waits for more requests to be enqueued before writing
+   *                     a batch that is not full
    */
-  ConcurrentMessageWriter(StoreRequestWriter<?> messagesWriter, MetricsCollector metricsCollector) {
+  ConcurrentMessageWriter(StoreRequestWriter<?> messagesWriter, MetricsCollector metricsCollector,
+                          int maxBatchSize, long lingerMillis) {
+    if (maxBatchSize <= 0) {
+      throw new IllegalArgumentException("Max batch size must be > 0");
+    }
     this.messagesWriter = messagesWriter;
     this.metricsCollector = metricsCollector;
-    this.pendingStoreQueue = new PendingStoreQueue(metricsCollector);
+    this.pendingStoreQueue = new PendingStoreQueue(metricsCollector, maxBatchSize);
+    this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, lingerMillis));
     this.writerFlag = new AtomicBoolean();
     this.closed = new AtomicBoolean();
   }
@@ -112,8 +137,10 @@ final class ConcurrentMessageWriter implements Closeable {
     metricsCollector.increment("persist.requested", 1L);
 
     while (!pendingStoreRequest.isCompleted()) {
-      if (!tryWrite()) {
-        Thread.yield();
+      if (!tryWrite(pendingStoreRequest)) {
+        // Another thread is the writer. It will wake this thread up when the request is completed
+        // or when this thread should try to become the writer.
+        LockSupport.park(this);
       }
     }
 
@@ -134,19 +161,27 @@ final class ConcurrentMessageWriter implements Closeable {
   }
 
   /**
-   * Tries to acquire the writer flag and persist the pending requests.
+   * Tries to acquire the writer flag and persist pending requests until the given request is completed.
    *
+   * @param request the request enqueued by the current thread
    * @return {@code true} if acquired the writer flag and called {@link PendingStoreQueue#persist(StoreRequestWriter)};
    *         otherwise {@code false} will be returned.
    */
-  private boolean tryWrite() {
+  private boolean tryWrite(PendingStoreRequest request) {
     if (!writerFlag.compareAndSet(false, true)) {
       return false;
     }
     try {
-      pendingStoreQueue.persist(messagesWriter);
+      while (!request.isCompleted()) {
+        if (lingerNanos > 0 && !pendingStoreQueue.isFull()) {
+          LockSupport.parkNanos(this, lingerNanos);
+        }
+        pendingStoreQueue.persist(messagesWriter);
+      }
     } finally {
       writerFlag.set(false);
+      // Hand over the writer role to the thread of the next pending request
+      pendingStoreQueue.wakeupHead();
     }
     return true;
   }
@@ -157,29 +192,40 @@ final class ConcurrentMessageWriter implements Closeable {
       return;
     }
     // Flush everything in the queue.
-    // When this thread can grab the writer flag, all pending write requests must be completed since the closed
-    // flag was already set to false.
-    while (!tryWrite()) {
-      Thread.yield();
+    // When this thread can grab the writer flag, no more request can be enqueued, since the closed
+    // flag was already set to true.
+    while (!writerFlag.compareAndSet(false, true)) {
+      LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1L));
+    }
+    try {
+      while (!pendingStoreQueue.isEmpty()) {
+        pendingStoreQueue.persist(messagesWriter);
+      }
+    } finally {
+      writerFlag.set(false);
     }
     messagesWriter.close();
   }
 
   /**
    * A resettable {@link Iterator} to provide {@link StoreRequest} to {@link StoreRequestWriter}.
-   * Except the {@link #enqueue(PendingStoreRequest)} method, all methods on this class can only be
-   * called while holding the writer flag.
+   * Except the {@link #enqueue(PendingStoreRequest)}, {@link #isFull()}, {@link #isEmpty()} and
+   * {@link #wakeupHead()} methods, all methods on this class can only be called while holding the writer flag.
    */
   private static final class PendingStoreQueue {
 
     private final MetricsCollector metricsCollector;
+    private final int maxBatchSize;
     private final Queue<PendingStoreRequest> writeQueue;
+    private final AtomicInteger queueSize;
     private final List<PendingStoreRequest> inflightRequests;
 
-    private PendingStoreQueue(MetricsCollector metricsCollector) {
+    private PendingStoreQueue(MetricsCollector metricsCollector, int maxBatchSize) {
       this.metricsCollector = metricsCollector;
+      this.maxBatchSize = maxBatchSize;
       this.writeQueue = new ConcurrentLinkedQueue<>();
-      this.inflightRequests = new ArrayList<>(100);
+      this.queueSize = new AtomicInteger();
+      this.inflightRequests = new ArrayList<>(Math.min(maxBatchSize, 100));
     }
 
     /**
@@ -187,33 +233,63 @@ final class ConcurrentMessageWriter implements Closeable {
      */
     void enqueue(PendingStoreRequest storeRequest) {
       writeQueue.add(storeRequest);
+      queueSize.incrementAndGet();
     }
 
     /**
-     * Persists all {@link PendingStoreRequest} currently in the queue with the given writer.
+     * Returns {@code true} if there are enough requests in the queue to fill a batch.
+     */
+    boolean isFull() {
+      return queueSize.get() >= maxBatchSize;
+    }
+
+    /**
+     * Returns {@code true} if there is no request in the queue.
+     */
+    boolean isEmpty() {
+      return writeQueue.isEmpty();
+    }
+
+    /**
+     * Wakes up the thread of the request at the head of the queue.
+     */
+    void wakeupHead() {
+      PendingStoreRequest head = writeQueue.peek();
+      if (head != null) {
+        head.wakeup();
+      }
+    }
+
+    /**
+     * Persists up to the max batch size of {@link PendingStoreRequest} currently in the queue with the given writer.
      */
     void persist(StoreRequestWriter<?> writer) {
-      // Capture all current events.
+      // Capture the current events, up to the max batch size.
       // The reason for capturing instead of using a live iterator is to avoid the possible case of infinite write
       // time. E.g. while generating the entry to write to the storage table, a new store request get enqueued.
       // The number of requests in the queue is bounded by the number of threads that call this method.
       // Since this method is expected to be called (indirectly) from a http handler thread, that is bounded by
       // the thread pool size used by the http service.
+      metricsCollector.record("persist.queue.size", queueSize.get());
+
       inflightRequests.clear();
-      PendingStoreRequest request = writeQueue.poll();
+      PendingStoreRequest request = inflightRequests.size() < maxBatchSize ? writeQueue.poll() : null;
       while (request != null) {
         inflightRequests.add(request);
-        request = writeQueue.poll();
+        request = inflightRequests.size() < maxBatchSize ? writeQueue.poll() : null;
       }
+      queueSize.addAndGet(-inflightRequests.size());
 
-      metricsCollector.gauge("persist.queue.size", inflightRequests.size());
+      metricsCollector.record("persist.batch.size", inflightRequests.size());
 
+      long startTime = System.nanoTime();
       try {
         writer.write(inflightRequests.iterator());
         completeAll(null);
       } catch (Throwable t) {
         completeAll(t);
       }
+      metricsCollector.record("persist.latency.ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
     }
 
     /**
@@ -17,6 +17,8 @@
 package io.cdap.cdap.messaging.service;
 
 import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.messaging.MessageFetcher;
 import io.cdap.cdap.messaging.TopicMetadata;
@@ -25,12 +27,19 @@ import io.cdap.cdap.messaging.data.RawMessage;
 import io.cdap.cdap.messaging.store.MessageTable;
 import io.cdap.cdap.messaging.store.PayloadTable;
 import io.cdap.cdap.proto.id.TopicId;
+import org.apache.twill.common.Cancellable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nullable;
 
 /**
@@ -44,17 +53,95 @@ final class CoreMessageFetcher extends MessageFetcher {
   private final TopicMetadata topicMetadata;
   private final TableProvider<MessageTable> messageTableProvider;
   private final TableProvider<PayloadTable> payloadTableProvider;
+  private final PublishNotifier publishNotifier;
+  private final ScheduledExecutorService pollExecutor;
 
   CoreMessageFetcher(TopicMetadata topicMetadata,
                      TableProvider<MessageTable> messageTableProvider,
-                     TableProvider<PayloadTable> payloadTableProvider) {
+                     TableProvider<PayloadTable> payloadTableProvider,
+                     PublishNotifier publishNotifier, ScheduledExecutorService pollExecutor) {
     this.topicMetadata = topicMetadata;
     this.messageTableProvider = messageTableProvider;
     this.payloadTableProvider = payloadTableProvider;
+    this.publishNotifier = publishNotifier;
+    this.pollExecutor = pollExecutor;
   }
 
   @Override
   public CloseableIterator<RawMessage> fetch() throws IOException {
+    if (getPollTimeoutMillis() <= 0) {
+      return fetchMessages();
+    }
+
+    ListenableFuture<CloseableIterator<RawMessage>> future = fetchAsync();
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for messages from " + topicMetadata.getTopicId());
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), IOException.class);
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  @Override
+  public ListenableFuture<CloseableIterator<RawMessage>> fetchAsync() {
+    long timeout = getPollTimeoutMillis();
+    if (timeout <= 0) {
+      return super.fetchAsync();
+    }
+
+    SettableFuture<CloseableIterator<RawMessage>> result = SettableFuture.create();
+    poll(result, System.currentTimeMillis() + timeout);
+    return result;
+  }
+
+  /**
+   * Fetches messages and completes the given future if there are messages available or the deadline has passed.
+   * Otherwise, waits for new messages to be published to the topic and try again.
+   */
+  private void poll(SettableFuture<CloseableIterator<RawMessage>> result, long deadline) {
+    // The future can be cancelled while waiting
+    if (result.isDone()) {
+      return;
+    }
+
+    // Get the generation before fetching so that no publish would be missed
+    long generation = publishNotifier.getGeneration(topicMetadata.getTopicId());
+    long remaining;
+    try {
+      CloseableIterator<RawMessage> iterator = fetchMessages();
+      try {
+        remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0 || iterator.hasNext()) {
+          if (!result.set(iterator)) {
+            iterator.close();
+          }
+          return;
+        }
+      } catch (Throwable t) {
+        iterator.close();
+        throw t;
+      }
+      iterator.close();
+    } catch (Throwable t) {
+      result.setException(t);
+      return;
+    }
+
+    try {
+      new PollRetry(result, deadline).start(generation, remaining);
+    } catch (RejectedExecutionException e) {
+      result.setException(e);
+    }
+  }
+
+  /**
+   * Fetches messages from the tables without waiting.
+   */
+  private CloseableIterator<RawMessage> fetchMessages() throws IOException {
     MessageTable messageTable = messageTableProvider.get();
     try {
       return new MessageCloseableIterator(messageTable);
@@ -118,6 +205,56 @@ final class CoreMessageFetcher extends MessageFetcher {
     }
   }
 
+  /**
+   * A {@link Runnable} that triggers another poll when new messages are published or when the poll timeout passed,
+   * whichever happens first.
+   */
+  private final class PollRetry implements Runnable {
+
+    private final SettableFuture<CloseableIterator<RawMessage>> result;
+    private final long deadline;
+    private final AtomicBoolean triggered;
+    private volatile Cancellable cancelListener;
+    private volatile ScheduledFuture<?> timeoutFuture;
+
+    PollRetry(SettableFuture<CloseableIterator<RawMessage>> result, long deadline) {
+      this.result = result;
+      this.deadline = deadline;
+      this.triggered = new AtomicBoolean();
+    }
+
+    void start(long generation, long timeoutMillis) {
+      timeoutFuture = pollExecutor.schedule(this, timeoutMillis, TimeUnit.MILLISECONDS);
+      cancelListener = publishNotifier.addListener(topicMetadata.getTopicId(), generation, this);
+      // If it was triggered by the timeout before the listener was added, remove the listener.
+      if (triggered.get()) {
+        cancelListener.cancel();
+      }
+    }
+
+    @Override
+    public void run() {
+      if (!triggered.compareAndSet(false, true)) {
+        return;
+      }
+      Cancellable cancellable = cancelListener;
+      if (cancellable != null) {
+        cancellable.cancel();
+      }
+      ScheduledFuture<?> future = timeoutFuture;
+      if (future != null) {
+        future.cancel(false);
+      }
+
+      // Never fetch in the publisher thread
+      try {
+        pollExecutor.execute(() -> poll(result, deadline));
+      } catch (RejectedExecutionException e) {
+        result.setException(e);
+      }
+    }
+  }
+
   /**
    * A {@link CloseableIterator} of {@link RawMessage} implementation that contains the core message fetching logic
    * by combine scanning on both {@link MessageTable} and {@link PayloadTable}.
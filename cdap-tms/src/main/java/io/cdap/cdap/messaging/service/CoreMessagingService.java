@@ -38,6 +38,7 @@ import io.cdap.cdap.messaging.MessageFetcher;
 import io.cdap.cdap.messaging.MessagingService;
 import io.cdap.cdap.messaging.MessagingServiceUtils;
 import io.cdap.cdap.messaging.MessagingUtils;
+import io.cdap.cdap.messaging.MultiTopicMessageFetcher;
 import io.cdap.cdap.messaging.RollbackDetail;
 import io.cdap.cdap.messaging.StoreRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
@@ -85,6 +86,8 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
   private final TimeProvider timeProvider;
   private final MetricsCollectionService metricsCollectionService;
   private final long txMaxLifeTimeInMillis;
+  private final PublishNotifier publishNotifier;
+  private volatile ScheduledExecutorService pollExecutor;
 
   @Inject
   protected CoreMessagingService(CConfiguration cConf, TableFactory tableFactory,
@@ -114,6 +117,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     this.metricsCollectionService = metricsCollectionService;
     this.txMaxLifeTimeInMillis = TimeUnit.SECONDS.toMillis(cConf.getLong(TxConstants.Manager.CFG_TX_MAX_LIFETIME,
                                                                          TxConstants.Manager.DEFAULT_TX_MAX_LIFETIME));
+    this.publishNotifier = new PublishNotifier();
   }
 
   @Override
@@ -142,6 +146,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
       topicCache.invalidate(topicId);
       messageTableWriterCache.invalidate(topicId);
       payloadTableWriterCache.invalidate(topicId);
+      publishNotifier.removeTopic(topicId);
     }
   }
 
@@ -168,7 +173,13 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     final TopicMetadata metadata = getTopic(topicId);
     return new CoreMessageFetcher(metadata,
                                   () -> createMessageTable(metadata),
-                                  () -> createPayloadTable(metadata));
+                                  () -> createPayloadTable(metadata),
+                                  publishNotifier, pollExecutor);
+  }
+
+  @Override
+  public MultiTopicMessageFetcher prepareMultiFetch(NamespaceId namespaceId) {
+    return new CoreMultiTopicMessageFetcher(namespaceId, this);
   }
 
   @Nullable
@@ -179,7 +190,10 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
       if (request.isTransactional()) {
         ensureValidTxLifetime(request.getTransactionWritePointer());
       }
-      return messageTableWriterCache.get(request.getTopicId()).persist(request, metadata);
+      RollbackDetail rollbackDetail = messageTableWriterCache.get(request.getTopicId()).persist(request, metadata);
+      // Wake up consumers that are waiting for new messages
+      publishNotifier.published(request.getTopicId());
+      return rollbackDetail;
     } catch (ExecutionException e) {
       Throwable cause = Objects.firstNonNull(e.getCause(), e);
       Throwables.propagateIfPossible(cause, TopicNotFoundException.class, IOException.class);
@@ -218,6 +232,9 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
 
   @Override
   protected void startUp() throws Exception {
+    pollExecutor = Executors.newScheduledThreadPool(cConf.getInt(Constants.MessagingSystem.CONSUME_POLL_THREADS),
+                                                    Threads.createDaemonThreadFactory("message-poll-%d"));
+
     Queue<TopicId> asyncCreationTopics = new LinkedList<>();
 
     Set<TopicId> systemTopics = MessagingServiceUtils.getSystemTopics(cConf, true);
@@ -252,6 +269,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     messageTableWriterCache.invalidateAll();
     messageTableWriterCache.invalidateAll();
     payloadTableWriterCache.invalidateAll();
+    pollExecutor.shutdownNow();
     LOG.info("Core Messaging Service stopped");
   }
 
@@ -334,6 +352,8 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
   private LoadingCache<TopicId, ConcurrentMessageWriter> createTableWriterCache(final boolean messageTable,
                                                                                 final CConfiguration cConf) {
     long expireSecs = cConf.getLong(Constants.MessagingSystem.TABLE_CACHE_EXPIRATION_SECONDS);
+    int maxBatchSize = cConf.getInt(Constants.MessagingSystem.PERSIST_MAX_BATCH_SIZE);
+    long lingerMillis = cConf.getLong(Constants.MessagingSystem.PERSIST_BATCH_LINGER_MS);
 
     return CacheBuilder.newBuilder()
       .expireAfterAccess(expireSecs, TimeUnit.SECONDS)
@@ -365,7 +385,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
             Constants.Metrics.Tag.TABLE, messageTable ? "message" : "payload"
           ));
 
-          return new ConcurrentMessageWriter(messagesWriter, metricsContext);
+          return new ConcurrentMessageWriter(messagesWriter, metricsContext, maxBatchSize, lingerMillis);
         }
       });
   }
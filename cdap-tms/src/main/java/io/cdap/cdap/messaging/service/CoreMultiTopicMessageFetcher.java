@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.messaging.service;
+
+import com.google.common.base.Throwables;
+import io.cdap.cdap.api.dataset.lib.AbstractCloseableIterator;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.api.messaging.TopicNotFoundException;
+import io.cdap.cdap.messaging.MessageFetcher;
+import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.MultiTopicMessageFetcher;
+import io.cdap.cdap.messaging.data.RawMessage;
+import io.cdap.cdap.messaging.data.TopicRawMessage;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.TopicId;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of {@link MultiTopicMessageFetcher} that fetches messages of each topic through the
+ * {@link MessageFetcher} of the {@link MessagingService}, one topic after another.
+ */
+final class CoreMultiTopicMessageFetcher extends MultiTopicMessageFetcher {
+
+  private final MessagingService messagingService;
+
+  CoreMultiTopicMessageFetcher(NamespaceId namespaceId, MessagingService messagingService) {
+    super(namespaceId);
+    this.messagingService = messagingService;
+  }
+
+  @Override
+  public CloseableIterator<TopicRawMessage> fetch() throws TopicNotFoundException, IOException {
+    // Prepare the fetchers of all topics first so that non-existing topic is reported before any message is read
+    List<MessageFetcher> fetchers = new ArrayList<>();
+    for (Map.Entry<TopicId, TopicFetcher> entry : getTopicFetchers().entrySet()) {
+      TopicFetcher topicFetcher = entry.getValue();
+      MessageFetcher fetcher = messagingService.prepareFetch(entry.getKey()).setLimit(topicFetcher.getLimit());
+      if (topicFetcher.getStartOffset() != null) {
+        fetcher.setStartMessage(topicFetcher.getStartOffset(), topicFetcher.isIncludeStart());
+      }
+      if (topicFetcher.getStartTime() != null) {
+        fetcher.setStartTime(topicFetcher.getStartTime());
+      }
+      if (topicFetcher.getTransaction() != null) {
+        fetcher.setTransaction(topicFetcher.getTransaction());
+      }
+      fetchers.add(fetcher);
+    }
+
+    Iterator<TopicId> topicIds = getTopicFetchers().keySet().iterator();
+    Iterator<MessageFetcher> fetcherIterator = fetchers.iterator();
+
+    // Only open the iterator of a topic when the previous one is exhausted, to limit the number of open scanners
+    return new AbstractCloseableIterator<TopicRawMessage>() {
+
+      private TopicId topicId;
+      private CloseableIterator<RawMessage> iterator;
+
+      @Override
+      protected TopicRawMessage computeNext() {
+        try {
+          while (iterator == null || !iterator.hasNext()) {
+            if (iterator != null) {
+              iterator.close();
+              iterator = null;
+            }
+            if (!fetcherIterator.hasNext()) {
+              return endOfData();
+            }
+            topicId = topicIds.next();
+            iterator = fetcherIterator.next().fetch();
+          }
+        } catch (TopicNotFoundException | IOException e) {
+          throw Throwables.propagate(e);
+        }
+
+        RawMessage message = iterator.next();
+        return new TopicRawMessage(topicId, message.getId(), message.getPayload());
+      }
+
+      @Override
+      public void close() {
+        if (iterator != null) {
+          iterator.close();
+        }
+      }
+    };
+  }
+}
@@ -20,6 +20,7 @@ import io.cdap.cdap.messaging.StoreRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
 
 import java.util.Iterator;
+import java.util.concurrent.locks.LockSupport;
 import javax.annotation.Nullable;
 
 /**
@@ -29,8 +30,9 @@ final class PendingStoreRequest extends StoreRequest {
 
   private final StoreRequest originalRequest;
   private final TopicMetadata metadata;
+  private final Thread publisherThread;
 
-  private boolean completed;
+  private volatile boolean completed;
   private long startTimestamp;
   private long endTimestamp;
   private int startSequenceId;
@@ -42,6 +44,7 @@ final class PendingStoreRequest extends StoreRequest {
           originalRequest.getTransactionWritePointer());
     this.originalRequest = originalRequest;
     this.metadata = topicMetadata;
+    this.publisherThread = Thread.currentThread();
   }
 
   TopicMetadata getTopicMetadata() {
@@ -64,9 +67,20 @@ final class PendingStoreRequest extends StoreRequest {
     return failureCause;
   }
 
+  /**
+   * Marks this request as completed and wakes up the publisher thread that created this request.
+   */
   void completed(@Nullable Throwable failureCause) {
-    completed = true;
     this.failureCause = failureCause;
+    completed = true;
+    wakeup();
+  }
+
+  /**
+   * Wakes up the publisher thread that created this request if it is parked.
+   */
+  void wakeup() {
+    LockSupport.unpark(publisherThread);
   }
 
   void setStartTimestamp(long startTimestamp) {
@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.service;
+
+import io.cdap.cdap.proto.id.TopicId;
+import org.apache.twill.common.Cancellable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Keeps track of messages being published to each topic and notifies listeners that are waiting for new messages.
+ * Each topic has a generation number, which is incremented every time messages are committed to the topic.
+ * A listener is registered with the generation observed before a fetch, so that a publish happening between the
+ * fetch and the registration won't be missed.
+ */
+@ThreadSafe
+final class PublishNotifier {
+
+  private final ConcurrentMap<TopicId, TopicListeners> topics = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the current generation of the given topic.
+   */
+  long getGeneration(TopicId topicId) {
+    return getTopicListeners(topicId).getGeneration();
+  }
+
+  /**
+   * Notifies that new messages were committed to the given topic.
+   * All listeners that are currently waiting on the topic will be called from the calling thread.
+   */
+  void published(TopicId topicId) {
+    TopicListeners listeners = topics.get(topicId);
+    if (listeners != null) {
+      listeners.published();
+    }
+  }
+
+  /**
+   * Removes all states of the given topic. Listeners waiting on the topic will be called.
+   */
+  void removeTopic(TopicId topicId) {
+    TopicListeners listeners = topics.remove(topicId);
+    if (listeners != null) {
+      listeners.published();
+    }
+  }
+
+  /**
+   * Adds a listener that will be called once when the generation of the given topic changes. If the generation
+   * is already different from the given one, the listener will be called immediately from the calling thread.
+   *
+   * @param topicId the topic to listen on
+   * @param generation the generation as returned by {@link #getGeneration(TopicId)}
+   * @param listener the {@link Runnable} to call when there are new messages published to the topic
+   * @return a {@link Cancellable} to remove the listener
+   */
+  Cancellable addListener(TopicId topicId, long generation, Runnable listener) {
+    TopicListeners listeners = getTopicListeners(topicId);
+    if (!listeners.add(generation, listener)) {
+      listener.run();
+      return () -> { };
+    }
+    return () -> listeners.remove(listener);
+  }
+
+  private TopicListeners getTopicListeners(TopicId topicId) {
+    return topics.computeIfAbsent(topicId, k -> new TopicListeners());
+  }
+
+  /**
+   * Holds the generation and listeners of a topic.
+   */
+  private static final class TopicListeners {
+
+    private final Set<Runnable> listeners = new LinkedHashSet<>();
+    private long generation;
+
+    synchronized long getGeneration() {
+      return generation;
+    }
+
+    synchronized boolean add(long generation, Runnable listener) {
+      if (this.generation != generation) {
+        return false;
+      }
+      listeners.add(listener);
+      return true;
+    }
+
+    synchronized void remove(Runnable listener) {
+      listeners.remove(listener);
+    }
+
+    void published() {
+      List<Runnable> toCall;
+      synchronized (this) {
+        generation++;
+        if (listeners.isEmpty()) {
+          return;
+        }
+        toCall = new ArrayList<>(listeners);
+        listeners.clear();
+      }
+      toCall.forEach(Runnable::run);
+    }
+  }
+}
@@ -38,6 +38,8 @@ import javax.annotation.Nullable;
  */
 public class DefaultMessageTableCacheProvider implements MessageTableCacheProvider {
 
+  private static final int MIN_OFFHEAP_SEGMENT_SIZE = 4096;
+
   private final CConfiguration cConf;
   private final MetricsCollectionService metricsCollectionService;
   private Map<TopicId, MessageCache<MessageTable.Entry>> topicMessageCaches;
@@ -75,9 +77,16 @@ public class DefaultMessageTableCacheProvider implements MessageTableCacheProvid
               // Have reduce trigger as 70% of the hard limit and min retain as 50% of the hard limit
               // In future, it can be adjusted dynamically based on metrics
               MessageCache.Limits limits = new MessageCache.Limits(hardLimit / 2, hardLimit * 7 / 10, hardLimit);
+              boolean offHeap = cConf.getBoolean(Constants.MessagingSystem.CACHE_OFFHEAP_ENABLED);
+              // Have at least a few segments per topic so that weight reduction doesn't drop the whole cache
+              int segmentSize = (int) Math.max(MIN_OFFHEAP_SEGMENT_SIZE, Math.min(
+                cConf.getInt(Constants.MessagingSystem.CACHE_OFFHEAP_SEGMENT_SIZE_KB) * 1024L, hardLimit / 8));
+
               for (TopicId topic : systemTopics) {
-                caches.put(topic, new MessageCache<>(comparator, weigher, limits,
-                                                     createMetricsContext(cConf, topic, metricsCollectionService)));
+                MetricsContext metricsContext = createMetricsContext(cConf, topic, metricsCollectionService);
+                caches.put(topic, offHeap
+                  ? new OffHeapMessageCache(topic, segmentSize, limits, metricsContext)
+                  : new MessageCache<>(comparator, weigher, limits, metricsContext));
               }
             }
           }
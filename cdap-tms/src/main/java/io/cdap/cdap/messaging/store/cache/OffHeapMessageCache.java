@@ -0,0 +1,643 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.cache;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.AbstractIterator;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.messaging.cache.MessageCache;
+import io.cdap.cdap.messaging.store.MessageFilter;
+import io.cdap.cdap.messaging.store.MessageTable;
+import io.cdap.cdap.proto.id.TopicId;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link MessageCache} for {@link MessageTable.Entry} of a topic that stores the entries in off-heap memory.
+ *
+ * Since entries are always added in strictly increasing order, they are appended to a list of fixed size segments,
+ * each backed by a direct {@link ByteBuffer}. Inside a segment, entry data grows from the beginning of the buffer,
+ * while the offset of each entry grows from the end of the buffer, so that entries can be binary searched.
+ *
+ * - A single writer appends entries to the last segment. The number of entries in a segment is published with
+ *   a volatile write after the entry data is written, hence scanners never see partially written entries.
+ * - Scanning doesn't acquire any lock. A scanner pins a segment through its reference count before reading from it,
+ *   and decodes entries one at a time as it is iterated, so that a scan never copies more entries to the heap than
+ *   what the caller consumes. If a segment is recycled while creating a scanner, it is retried with a new snapshot
+ *   of the segment list. If a segment is recycled before an iterating scanner reaches it, the scan ends there.
+ * - Weight reduction removes whole segments from the head of the list, which is O(1) per segment regardless of the
+ *   number of entries in it. The buffer of a removed segment is reused for new segments once no scanner pins it.
+ *
+ * The weight of this cache is the total capacity of all segments. Only the {@link java.util.Comparator} and the
+ * {@link MessageCache.Limits} of the parent class are used; the on-heap storage of the parent class is not used.
+ */
+final class OffHeapMessageCache extends MessageCache<MessageTable.Entry> {
+
+  private static final String METRICS_WEIGHT = "cache.weight";
+  private static final String METRICS_ENTRIES_ADDED = "cache.entries.added";
+  private static final String METRICS_ENTRIES_REMOVED = "cache.entries.removed";
+  private static final String METRICS_ADD_REQUESTS = "cache.add.requests";
+  private static final String METRICS_ADD_REDUCE_WEIGHT = "cache.add.reduce.weight";
+  private static final String METRICS_SCAN_REQUESTS = "cache.scan.requests";
+  private static final String METRICS_SCAN_REDUCE_WEIGHT = "cache.scan.reduce.weight";
+
+  // Maximum number of times to retry a scan due to concurrent weight reduction
+  private static final int MAX_SCAN_ATTEMPTS = 10;
+
+  // Layout of an entry inside a segment
+  private static final int GENERATION_OFFSET = 0;
+  private static final int PUBLISH_TIMESTAMP_OFFSET = GENERATION_OFFSET + Integer.BYTES;
+  private static final int SEQUENCE_ID_OFFSET = PUBLISH_TIMESTAMP_OFFSET + Long.BYTES;
+  private static final int FLAGS_OFFSET = SEQUENCE_ID_OFFSET + Short.BYTES;
+  private static final int TX_WRITE_POINTER_OFFSET = FLAGS_OFFSET + 1;
+  private static final int PAYLOAD_LENGTH_OFFSET = TX_WRITE_POINTER_OFFSET + Long.BYTES;
+  private static final int PAYLOAD_OFFSET = PAYLOAD_LENGTH_OFFSET + Integer.BYTES;
+  private static final int SLOT_SIZE = Integer.BYTES;
+
+  // Number of bytes used by an entry in a segment in addition to the payload
+  @VisibleForTesting
+  static final int ENTRY_OVERHEAD = PAYLOAD_OFFSET + SLOT_SIZE;
+
+  private static final byte FLAG_TRANSACTIONAL = 1;
+  private static final byte FLAG_PAYLOAD_REFERENCE = 2;
+  private static final byte FLAG_ROLLBACK = 4;
+
+  private final TopicId topicId;
+  private final int segmentSize;
+  private final MetricsContext metricsContext;
+  private final AtomicLong currentWeight;
+  private final AtomicBoolean needReduceWeight;
+  private final AtomicBoolean adding;
+  private final Queue<ByteBuffer> bufferPool;
+  private final AtomicInteger bufferPoolSize;
+  private volatile Segment[] segments;
+
+  /**
+   * Creates a new instance of the cache.
+   *
+   * @param topicId the topic that all entries in this cache belong to
+   * @param segmentSize size in bytes of each segment
+   * @param limits the limits for maintaining cache weight
+   * @param metricsContext a {@link MetricsContext} for emitting metrics about this cache.
+   */
+  OffHeapMessageCache(TopicId topicId, int segmentSize, Limits limits, MetricsContext metricsContext) {
+    super(new MessageTableEntryComparator(), new MessageTableEntryWeigher(), limits, metricsContext);
+    if (segmentSize <= ENTRY_OVERHEAD) {
+      throw new IllegalArgumentException("Segment size is too small: " + segmentSize);
+    }
+    this.topicId = topicId;
+    this.segmentSize = segmentSize;
+    this.metricsContext = metricsContext;
+    this.currentWeight = new AtomicLong();
+    this.needReduceWeight = new AtomicBoolean();
+    this.adding = new AtomicBoolean();
+    this.bufferPool = new ConcurrentLinkedQueue<>();
+    this.bufferPoolSize = new AtomicInteger();
+    this.segments = new Segment[0];
+  }
+
+  @Override
+  public void addAll(Iterator<MessageTable.Entry> entries) {
+    if (!adding.compareAndSet(false, true)) {
+      // This is to guard against bug, otherwise this shouldn't happen
+      throw new ConcurrentModificationException(
+        "The MessageCache.addAll method shouldn't be called concurrently by multiple threads.");
+    }
+
+    try {
+      int entriesAdded = 0;
+      while (entries.hasNext()) {
+        MessageTable.Entry entry = entries.next();
+        byte[] payload = entry.getPayload();
+        int entrySize = PAYLOAD_OFFSET + (payload == null ? 0 : payload.length);
+
+        // Only the writer modifies the last segment, hence it is safe to read its content without pinning
+        Segment[] segments = this.segments;
+        Segment tail = segments.length == 0 ? null : segments[segments.length - 1];
+
+        // Make sure new entries are in strictly increasing order
+        if (tail != null && tail.count > 0 && compare(tail.buffer, tail.offset(tail.count - 1), entry) >= 0) {
+          // Clear the cache to reset state. This is just for precaution, as this shouldn't happen,
+          // unless there is bug in the TMS system (from the caller side).
+          clear();
+          throw new IllegalArgumentException("Cache entry must be in strictly increasing order. " +
+                                               "Entry " + entry + " is smaller than or equal to the last entry");
+        }
+
+        if (tail == null || !tail.hasRoom(entrySize)) {
+          tail = addSegment(entrySize);
+        }
+        tail.append(entry, payload);
+        entriesAdded++;
+      }
+
+      long newWeight = currentWeight.get();
+      metricsContext.increment(METRICS_ADD_REQUESTS, 1L);
+      metricsContext.increment(METRICS_ENTRIES_ADDED, entriesAdded);
+      metricsContext.gauge(METRICS_WEIGHT, newWeight);
+
+      if (newWeight > getLimits().getHardLimit()) {
+        reduceWeight();
+        metricsContext.increment(METRICS_ADD_REDUCE_WEIGHT, 1L);
+      } else if (newWeight > getLimits().getReduceTrigger()) {
+        needReduceWeight.compareAndSet(false, true);
+      }
+    } finally {
+      adding.set(false);
+    }
+  }
+
+  @Override
+  public Scanner<MessageTable.Entry> scan(MessageTable.Entry startEntry, boolean includeStart, int limit,
+                                          MessageFilter<MessageTable.Entry> filter) {
+    metricsContext.increment(METRICS_SCAN_REQUESTS, 1L);
+
+    for (int i = 0; i < MAX_SCAN_ATTEMPTS; i++) {
+      Scanner<MessageTable.Entry> scanner = tryScan(segments, startEntry, includeStart, limit, filter);
+      if (scanner != null) {
+        return scanner;
+      }
+    }
+    // Keep failing due to concurrent weight reduction. Just return an empty scanner so that the caller
+    // will read from the table instead.
+    return new OffHeapScanner();
+  }
+
+  @Override
+  public void updateEntries(MessageTable.Entry startEntry, MessageTable.Entry endEntry,
+                            EntryUpdater<MessageTable.Entry> updater) {
+    for (Segment segment : segments) {
+      if (!segment.pin()) {
+        // The segment was removed, hence nothing to update
+        continue;
+      }
+      try {
+        int count = segment.count;
+        ByteBuffer view = segment.buffer.duplicate();
+        for (int idx = segment.search(startEntry, count, true); idx < count; idx++) {
+          int offset = segment.offset(idx);
+          if (compare(segment.buffer, offset, endEntry) > 0) {
+            return;
+          }
+          CachingMessageTable.CacheMessageTableEntry entry = decode(view, offset);
+          try {
+            updater.updateEntry(entry);
+          } catch (RuntimeException e) {
+            clear();
+            throw e;
+          }
+          // Only the rollback state is mutable in the entry
+          if (entry.isRollback()) {
+            byte flags = segment.buffer.get(offset + FLAGS_OFFSET);
+            segment.buffer.put(offset + FLAGS_OFFSET, (byte) (flags | FLAG_ROLLBACK));
+          }
+        }
+      } finally {
+        segment.unpin();
+      }
+    }
+  }
+
+  @Override
+  public void resize(Limits limits) {
+    super.resize(limits);
+    reduceWeight();
+  }
+
+  /**
+   * Returns the current cache weight.
+   */
+  @VisibleForTesting
+  long getWeight() {
+    return currentWeight.get();
+  }
+
+  /**
+   * Scans the cache with the given snapshot of segments. The returned scanner pins the segment that it is reading from
+   * until it moves on to the next segment or is closed.
+   *
+   * @return a {@link Scanner} or {@code null} if some segment in the snapshot was recycled while scanning
+   */
+  @Nullable
+  private Scanner<MessageTable.Entry> tryScan(Segment[] segments, MessageTable.Entry startEntry,
+                                              boolean includeStart, int limit,
+                                              MessageFilter<MessageTable.Entry> filter) {
+    if (segments.length == 0) {
+      return new OffHeapScanner();
+    }
+
+    // Find the first entry in the cache
+    Segment head = segments[0];
+    if (!head.pin()) {
+      return null;
+    }
+    MessageTable.Entry firstInCache;
+    try {
+      firstInCache = head.count == 0 ? null : decode(head.buffer.duplicate(), head.offset(0));
+    } finally {
+      head.unpin();
+    }
+
+    // Find the segment to start scanning from. Most scans are for recent entries, hence search from the last segment.
+    int segmentIdx = segments.length - 1;
+    while (segmentIdx > 0) {
+      Segment segment = segments[segmentIdx];
+      if (!segment.pin()) {
+        return null;
+      }
+      try {
+        if (segment.count > 0 && compare(segment.buffer, segment.offset(0), startEntry) <= 0) {
+          break;
+        }
+      } finally {
+        segment.unpin();
+      }
+      segmentIdx--;
+    }
+
+    // Pin the segment to start from. Entries are only decoded when the scanner is iterated.
+    Segment segment = segments[segmentIdx];
+    if (!segment.pin()) {
+      return null;
+    }
+    return new OffHeapScanner(segments, segmentIdx, segment, startEntry, includeStart, limit, filter, firstInCache);
+  }
+
+  /**
+   * Appends a new segment that can hold an entry of the given size. The cache weight will be reduced first
+   * if adding the segment would make the cache weight go beyond the hard limit.
+   */
+  private synchronized Segment addSegment(int entrySize) {
+    int capacity = Math.max(segmentSize, entrySize + SLOT_SIZE);
+    if (currentWeight.get() + capacity > getLimits().getHardLimit()) {
+      reduceWeight();
+      metricsContext.increment(METRICS_ADD_REDUCE_WEIGHT, 1L);
+    }
+
+    ByteBuffer buffer = capacity == segmentSize ? bufferPool.poll() : null;
+    if (buffer == null) {
+      buffer = ByteBuffer.allocateDirect(capacity);
+    } else {
+      bufferPoolSize.decrementAndGet();
+    }
+
+    Segment segment = new Segment(buffer);
+    Segment[] newSegments = Arrays.copyOf(segments, segments.length + 1);
+    newSegments[newSegments.length - 1] = segment;
+    currentWeight.addAndGet(capacity);
+    segments = newSegments;
+    return segment;
+  }
+
+  /**
+   * Reduces the cache weight. Segments will be removed until the cache weight is smaller than the min retain weight.
+   */
+  private void reduceWeight() {
+    int entriesRemoved = 0;
+    synchronized (this) {
+      Segment[] segments = this.segments;
+      long minRetain = getLimits().getMinRetain();
+      long newWeight = currentWeight.get();
+      int removeCount = 0;
+      while (removeCount < segments.length && newWeight - segments[removeCount].capacity() >= minRetain) {
+        newWeight -= segments[removeCount].capacity();
+        removeCount++;
+      }
+      if (removeCount == 0) {
+        return;
+      }
+
+      this.segments = Arrays.copyOfRange(segments, removeCount, segments.length);
+      currentWeight.set(newWeight);
+      for (int i = 0; i < removeCount; i++) {
+        entriesRemoved += segments[i].count;
+        segments[i].retire();
+      }
+    }
+    metricsContext.increment(METRICS_ENTRIES_REMOVED, entriesRemoved);
+  }
+
+  /**
+   * Returns the buffer of a removed segment to the pool for reuse.
+   */
+  private void recycle(ByteBuffer buffer) {
+    if (buffer.capacity() != segmentSize) {
+      return;
+    }
+    // Only keep enough buffers for growing from min retain to hard limit
+    Limits limits = getLimits();
+    long maxPoolSize = Math.max(1L, (limits.getHardLimit() - limits.getMinRetain()) / segmentSize);
+    if (bufferPoolSize.incrementAndGet() <= maxPoolSize) {
+      bufferPool.add(buffer);
+    } else {
+      bufferPoolSize.decrementAndGet();
+    }
+  }
+
+  /**
+   * Compares the key of the entry stored at the given offset with the key of the given entry.
+   */
+  private static int compare(ByteBuffer buffer, int offset, MessageTable.Entry entry) {
+    int cmp = Integer.compare(buffer.getInt(offset + GENERATION_OFFSET), entry.getGeneration());
+    if (cmp != 0) {
+      return cmp;
+    }
+    cmp = Long.compare(buffer.getLong(offset + PUBLISH_TIMESTAMP_OFFSET), entry.getPublishTimestamp());
+    if (cmp != 0) {
+      return cmp;
+    }
+    return Integer.compare(buffer.getShort(offset + SEQUENCE_ID_OFFSET) & 0xFFFF, entry.getSequenceId() & 0xFFFF);
+  }
+
+  /**
+   * Decodes the entry stored at the given offset to a {@link CachingMessageTable.CacheMessageTableEntry}.
+   *
+   * @param view a {@link ByteBuffer} that shares the content of the segment buffer, which can be modified
+   *             by this method
+   * @param offset the offset of the entry
+   */
+  private CachingMessageTable.CacheMessageTableEntry decode(ByteBuffer view, int offset) {
+    byte flags = view.get(offset + FLAGS_OFFSET);
+    byte[] payload = null;
+    if ((flags & FLAG_PAYLOAD_REFERENCE) == 0) {
+      payload = new byte[view.getInt(offset + PAYLOAD_LENGTH_OFFSET)];
+      view.position(offset + PAYLOAD_OFFSET);
+      view.get(payload);
+    }
+    return new CachingMessageTable.CacheMessageTableEntry(topicId,
+                                                          view.getInt(offset + GENERATION_OFFSET),
+                                                          (flags & FLAG_TRANSACTIONAL) != 0,
+                                                          view.getLong(offset + TX_WRITE_POINTER_OFFSET),
+                                                          payload,
+                                                          view.getLong(offset + PUBLISH_TIMESTAMP_OFFSET),
+                                                          view.getShort(offset + SEQUENCE_ID_OFFSET),
+                                                          (flags & FLAG_ROLLBACK) != 0);
+  }
+
+  /**
+   * A segment of the cache backed by a {@link ByteBuffer}.
+   */
+  private final class Segment {
+
+    private final ByteBuffer buffer;
+    private final ByteBuffer writeView;
+    // Number of scanners that are reading from this segment. It is set to -1 when the segment is recycled.
+    private final AtomicInteger refCount;
+    private volatile boolean retired;
+    private volatile int count;
+    private int dataSize;
+
+    Segment(ByteBuffer buffer) {
+      this.buffer = buffer;
+      this.writeView = buffer.duplicate();
+      this.refCount = new AtomicInteger();
+    }
+
+    int capacity() {
+      return buffer.capacity();
+    }
+
+    /**
+     * Returns the offset of the entry at the given index.
+     */
+    int offset(int idx) {
+      return buffer.getInt(buffer.capacity() - SLOT_SIZE * (idx + 1));
+    }
+
+    /**
+     * Returns {@code true} if this segment has room for an entry of the given size.
+     */
+    boolean hasRoom(int entrySize) {
+      return !retired && dataSize + entrySize + SLOT_SIZE * (count + 1) <= buffer.capacity();
+    }
+
+    /**
+     * Appends an entry to this segment. This method is only called by the writer thread.
+     */
+    void append(MessageTable.Entry entry, @Nullable byte[] payload) {
+      int offset = dataSize;
+      byte flags = 0;
+      if (entry.isTransactional()) {
+        flags |= FLAG_TRANSACTIONAL;
+      }
+      if (payload == null) {
+        flags |= FLAG_PAYLOAD_REFERENCE;
+      }
+      if (entry instanceof CachingMessageTable.CacheMessageTableEntry
+        && ((CachingMessageTable.CacheMessageTableEntry) entry).isRollback()) {
+        flags |= FLAG_ROLLBACK;
+      }
+
+      buffer.putInt(offset + GENERATION_OFFSET, entry.getGeneration());
+      buffer.putLong(offset + PUBLISH_TIMESTAMP_OFFSET, entry.getPublishTimestamp());
+      buffer.putShort(offset + SEQUENCE_ID_OFFSET, entry.getSequenceId());
+      buffer.put(offset + FLAGS_OFFSET, flags);
+      buffer.putLong(offset + TX_WRITE_POINTER_OFFSET, entry.getTransactionWritePointer());
+      buffer.putInt(offset + PAYLOAD_LENGTH_OFFSET, payload == null ? 0 : payload.length);
+      if (payload != null) {
+        writeView.position(offset + PAYLOAD_OFFSET);
+        writeView.put(payload);
+      }
+      dataSize = offset + PAYLOAD_OFFSET + (payload == null ? 0 : payload.length);
+
+      int idx = count;
+      buffer.putInt(buffer.capacity() - SLOT_SIZE * (idx + 1), offset);
+      // The volatile write makes the entry visible to scanners
+      count = idx + 1;
+    }
+
+    /**
+     * Returns the index of the first entry that is larger than (or equal to if inclusive is {@code true})
+     * the given entry, or the given count if there is no such entry.
+     */
+    int search(MessageTable.Entry entry, int count, boolean inclusive) {
+      int low = 0;
+      int high = count;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        int cmp = compare(buffer, offset(mid), entry);
+        if (cmp < 0 || (cmp == 0 && !inclusive)) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+    /**
+     * Pins this segment so that the buffer won't get recycled until {@link #unpin()} is called.
+     *
+     * @return {@code true} if the segment is pinned; {@code false} if the segment was already recycled
+     */
+    boolean pin() {
+      while (true) {
+        int refs = refCount.get();
+        if (refs < 0) {
+          return false;
+        }
+        if (refCount.compareAndSet(refs, refs + 1)) {
+          return true;
+        }
+      }
+    }
+
+    /**
+     * Unpins this segment. If the segment was removed from the cache and this is the last pin, the buffer
+     * will be recycled.
+     */
+    void unpin() {
+      if (refCount.decrementAndGet() == 0 && retired) {
+        tryRecycle();
+      }
+    }
+
+    /**
+     * Marks this segment as removed from the cache. The buffer will be recycled when there is no pin on it.
+     */
+    void retire() {
+      retired = true;
+      tryRecycle();
+    }
+
+    private void tryRecycle() {
+      if (refCount.compareAndSet(0, -1)) {
+        recycle(buffer);
+      }
+    }
+  }
+
+  /**
+   * The {@link Scanner} returned by the {@link #scan} method. Entries are decoded one by one as the scanner is
+   * iterated, going through the segments in the snapshot one at a time. The current segment is pinned, so that
+   * its buffer is not recycled while reading from it. If a later segment is recycled before the scanner reaches it,
+   * the scan ends there, since all entries in it were removed from the cache.
+   */
+  private final class OffHeapScanner extends AbstractIterator<MessageTable.Entry>
+    implements Scanner<MessageTable.Entry> {
+
+    private final Segment[] segments;
+    private final MessageTable.Entry startEntry;
+    private final boolean includeStart;
+    private final MessageFilter<MessageTable.Entry> filter;
+    private final MessageTable.Entry firstInCache;
+    private int remaining;
+    private int segmentIdx;
+    // The pinned segment that is being scanned, or null if there is no more segment to scan
+    private Segment segment;
+    private ByteBuffer view;
+    private int idx;
+    private int count;
+    private boolean closed;
+
+    /**
+     * Creates an empty scanner.
+     */
+    OffHeapScanner() {
+      this(new Segment[0], 0, null, null, false, 0, null, null);
+    }
+
+    OffHeapScanner(Segment[] segments, int segmentIdx, @Nullable Segment pinnedSegment,
+                   @Nullable MessageTable.Entry startEntry, boolean includeStart, int limit,
+                   @Nullable MessageFilter<MessageTable.Entry> filter, @Nullable MessageTable.Entry firstInCache) {
+      this.segments = segments;
+      this.segmentIdx = segmentIdx;
+      this.startEntry = startEntry;
+      this.includeStart = includeStart;
+      this.remaining = limit;
+      this.filter = filter;
+      this.firstInCache = firstInCache;
+      if (pinnedSegment != null) {
+        startSegment(pinnedSegment);
+      }
+    }
+
+    @Override
+    protected MessageTable.Entry computeNext() {
+      while (!closed && remaining > 0 && segment != null) {
+        while (idx < count) {
+          MessageTable.Entry entry = decode(view, segment.offset(idx++));
+          MessageFilter.Result result = filter.apply(entry);
+          if (result == MessageFilter.Result.ACCEPT) {
+            remaining--;
+            return entry;
+          }
+          if (result == MessageFilter.Result.HOLD) {
+            // Hold means not to scan more
+            close();
+            return endOfData();
+          }
+        }
+
+        // Move to the next segment
+        segment.unpin();
+        segment = null;
+        if (++segmentIdx < segments.length) {
+          Segment next = segments[segmentIdx];
+          if (next.pin()) {
+            startSegment(next);
+          }
+        }
+      }
+      close();
+      return endOfData();
+    }
+
+    @Nullable
+    @Override
+    public MessageTable.Entry getFirstInCache() {
+      return firstInCache;
+    }
+
+    @Override
+    public void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      if (segment != null) {
+        segment.unpin();
+        segment = null;
+      }
+      // Use compareAndSet to check if need to reduce weight. There will only be
+      // one winner to proceed with the reduce weight call.
+      if (needReduceWeight.compareAndSet(true, false)) {
+        reduceWeight();
+        metricsContext.increment(METRICS_SCAN_REDUCE_WEIGHT, 1L);
+      }
+    }
+
+    /**
+     * Starts scanning the given segment, which is already pinned.
+     */
+    private void startSegment(Segment segment) {
+      this.segment = segment;
+      this.count = segment.count;
+      this.view = segment.buffer.duplicate();
+      this.idx = segment.search(startEntry, count, includeStart);
+    }
+  }
+}
@@ -30,6 +30,7 @@ import io.cdap.cdap.common.logging.Loggers;
 import io.cdap.cdap.common.service.AbstractRetryableScheduledService;
 import io.cdap.cdap.common.service.RetryStrategy;
 import io.cdap.cdap.common.utils.ImmutablePair;
+import io.cdap.cdap.messaging.context.PollingMessageFetcher;
 import io.cdap.cdap.messaging.data.MessageId;
 import io.cdap.cdap.proto.id.TopicId;
 import org.slf4j.Logger;
@@ -39,6 +40,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import javax.xml.ws.handler.MessageContext;
 
@@ -150,14 +152,19 @@ public abstract class AbstractMessagingPollingService<T> extends AbstractRetryab
   }
 
   /**
-   * Fetching messages from TMS.
+   * Fetching messages from TMS. If the {@link MessageFetcher} supports it, the fetch will wait for up to the
+   * empty fetch delay for new messages to be published.
    */
   protected List<Message> fetchMessages(@Nullable String messageId) throws TopicNotFoundException, IOException {
     List<Message> messages = new ArrayList<>();
     LOG.trace("Fetching from topic '{}' with messageId '{}'", topicId, messageId);
     MessageFetcher messageFetcher = getMessagingContext().getMessageFetcher();
-    try (CloseableIterator<Message> iterator = messageFetcher.fetch(getTopicId().getNamespace(),
-                                                                    getTopicId().getTopic(), fetchSize, messageId)) {
+    String namespace = getTopicId().getNamespace();
+    String topic = getTopicId().getTopic();
+    try (CloseableIterator<Message> iterator = messageFetcher instanceof PollingMessageFetcher
+      ? ((PollingMessageFetcher) messageFetcher).poll(namespace, topic, fetchSize, messageId,
+                                                      emptyFetchDelayMillis, TimeUnit.MILLISECONDS)
+      : messageFetcher.fetch(namespace, topic, fetchSize, messageId)) {
       while (iterator.hasNext() && state() == State.RUNNING) {
         messages.add(iterator.next());
       }
@@ -185,6 +192,7 @@ public abstract class AbstractMessagingPollingService<T> extends AbstractRetryab
     metricsContext.increment("tms.fetch.messages", messages.size());
 
     // Return if stopping or request to sleep for configured number of milliseconds if there is no message fetched.
+    // With polling fetch, the time spent on waiting in the fetch call is deducted from the sleep time.
     if (messages.isEmpty() || state() != State.RUNNING) {
       return Math.max(0L, emptyFetchDelayMillis - (System.currentTimeMillis() - startTime));
     }
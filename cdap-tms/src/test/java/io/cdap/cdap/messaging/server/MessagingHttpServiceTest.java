@@ -16,8 +16,10 @@
 
 package io.cdap.cdap.messaging.server;
 
+import com.google.common.base.Stopwatch;
 import com.google.common.base.Strings;
 import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.Service;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -30,18 +32,31 @@ import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.guice.ConfigModule;
 import io.cdap.cdap.common.guice.InMemoryDiscoveryModule;
+import io.cdap.cdap.common.http.DefaultHttpRequestConfig;
+import io.cdap.cdap.common.internal.remote.RemoteClient;
 import io.cdap.cdap.common.metrics.NoOpMetricsCollectionService;
 import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.MultiTopicMessageFetcher;
 import io.cdap.cdap.messaging.RollbackDetail;
+import io.cdap.cdap.messaging.Schemas;
 import io.cdap.cdap.messaging.StoreRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
 import io.cdap.cdap.messaging.client.ClientMessagingService;
 import io.cdap.cdap.messaging.client.StoreRequestBuilder;
 import io.cdap.cdap.messaging.data.MessageId;
 import io.cdap.cdap.messaging.data.RawMessage;
+import io.cdap.cdap.messaging.data.TopicRawMessage;
 import io.cdap.cdap.messaging.guice.MessagingServerRuntimeModule;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.TopicId;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericArray;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
 import org.apache.tephra.Transaction;
 import org.apache.tephra.TxConstants;
 import org.apache.twill.discovery.DiscoveryServiceClient;
@@ -52,13 +67,22 @@ import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
 import java.net.InetAddress;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -71,7 +95,9 @@ public class MessagingHttpServiceTest {
 
   private static CConfiguration cConf;
   private static MessagingHttpService httpService;
+  private static MessagingService messagingService;
   private static MessagingService client;
+  private static DiscoveryServiceClient discoveryServiceClient;
 
   @BeforeClass
   public static void init() throws IOException {
@@ -94,15 +120,23 @@ public class MessagingHttpServiceTest {
       }
     );
 
+    messagingService = injector.getInstance(MessagingService.class);
+    if (messagingService instanceof Service) {
+      ((Service) messagingService).startAndWait();
+    }
     httpService = injector.getInstance(MessagingHttpService.class);
     httpService.startAndWait();
 
-    client = new ClientMessagingService(injector.getInstance(DiscoveryServiceClient.class));
+    discoveryServiceClient = injector.getInstance(DiscoveryServiceClient.class);
+    client = new ClientMessagingService(discoveryServiceClient);
   }
 
   @AfterClass
   public static void finish() {
     httpService.stopAndWait();
+    if (messagingService instanceof Service) {
+      ((Service) messagingService).stopAndWait();
+    }
   }
 
   @Test
@@ -596,4 +630,165 @@ public class MessagingHttpServiceTest {
                           .map(RawMessage::getPayload)
                           .map(Bytes::toString).collect(Collectors.toList()));
   }
+
+  @Test
+  public void testPollTimeout() throws Exception {
+    TopicId topicId = new NamespaceId("ns1").topic("testPollTimeout");
+    client.createTopic(new TopicMetadata(topicId));
+
+    // Poll on an empty topic should wait for the timeout and return nothing
+    Stopwatch stopwatch = new Stopwatch().start();
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+      .setPollTimeout(500, TimeUnit.MILLISECONDS).fetch()) {
+      Assert.assertFalse(iterator.hasNext());
+    }
+    Assert.assertTrue(stopwatch.elapsedMillis() >= 500);
+
+    // Poll with a long timeout should return as soon as new messages are published
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<List<String>> future = executor.submit(() -> {
+        List<String> payloads = new ArrayList<>();
+        try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+          .setPollTimeout(1, TimeUnit.MINUTES).fetch()) {
+          iterator.forEachRemaining(message -> payloads.add(Bytes.toString(message.getPayload())));
+        }
+        return payloads;
+      });
+
+      // Wait a bit so that the poll request is waiting on the server side
+      TimeUnit.MILLISECONDS.sleep(200);
+      client.publish(StoreRequestBuilder.of(topicId).addPayload("m1").addPayload("m2").build());
+      Assert.assertEquals(Arrays.asList("m1", "m2"), future.get(10, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // Poll on a topic that has messages should return immediately
+    stopwatch.reset().start();
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+      .setPollTimeout(1, TimeUnit.MINUTES).fetch()) {
+      Assert.assertEquals(2, Iterators.size(iterator));
+    }
+    Assert.assertTrue(stopwatch.elapsedMillis() < TimeUnit.MINUTES.toMillis(1));
+
+    client.deleteTopic(topicId);
+  }
+
+  @Test
+  public void testPollWithV1Request() throws Exception {
+    TopicId topicId = new NamespaceId("ns1").topic("testPollWithV1Request");
+    client.createTopic(new TopicMetadata(topicId));
+    client.publish(StoreRequestBuilder.of(topicId).addPayload("m1").addPayload("m2").build());
+
+    // Encode the request with the original V1 schema, as done by older clients
+    Schema requestSchema = new Schema.Parser().parse(
+      "{\"type\":\"record\",\"name\":\"ConsumeRequest\",\"fields\":["
+        + "{\"name\":\"startFrom\",\"type\":[\"bytes\",\"long\",\"null\"]},"
+        + "{\"name\":\"inclusive\",\"type\":\"boolean\",\"default\":true},"
+        + "{\"name\":\"limit\",\"type\":[\"int\",\"null\"]},"
+        + "{\"name\":\"transaction\",\"type\":[\"bytes\",\"null\"]}]}");
+    GenericRecord record = new GenericData.Record(requestSchema);
+    record.put("inclusive", true);
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    new GenericDatumWriter<GenericRecord>(requestSchema).write(record,
+                                                               EncoderFactory.get().directBinaryEncoder(body, null));
+
+    // Both without and with the poll timeout query parameter, the request should be decoded
+    RemoteClient remoteClient = new RemoteClient(discoveryServiceClient, Constants.Service.MESSAGING_SERVICE,
+                                                 new DefaultHttpRequestConfig(), "/v1/namespaces/");
+    for (String query : Arrays.asList("", "?pollTimeout=1000")) {
+      HttpURLConnection urlConn = (HttpURLConnection) remoteClient.resolve(
+        topicId.getNamespace() + "/topics/" + topicId.getTopic() + "/poll" + query).openConnection();
+      try {
+        urlConn.setRequestMethod("POST");
+        urlConn.setRequestProperty("Content-Type", "avro/binary");
+        urlConn.setDoOutput(true);
+        try (OutputStream os = urlConn.getOutputStream()) {
+          os.write(body.toByteArray());
+        }
+        Assert.assertEquals(HttpURLConnection.HTTP_OK, urlConn.getResponseCode());
+
+        List<String> payloads = new ArrayList<>();
+        try (InputStream is = urlConn.getInputStream()) {
+          GenericArray<GenericRecord> messages = new GenericDatumReader<GenericArray<GenericRecord>>(
+            Schemas.V1.ConsumeResponse.SCHEMA).read(null, DecoderFactory.get().binaryDecoder(is, null));
+          for (GenericRecord message : messages) {
+            payloads.add(Bytes.toString((ByteBuffer) message.get("payload")));
+          }
+        }
+        Assert.assertEquals(Arrays.asList("m1", "m2"), payloads);
+      } finally {
+        urlConn.disconnect();
+      }
+    }
+
+    client.deleteTopic(topicId);
+  }
+
+  @Test
+  public void testMultiTopicFetch() throws Exception {
+    NamespaceId namespaceId = new NamespaceId("ns1");
+    TopicId topic1 = namespaceId.topic("testMultiTopicFetch1");
+    TopicId topic2 = namespaceId.topic("testMultiTopicFetch2");
+    TopicId topic3 = namespaceId.topic("testMultiTopicFetch3");
+    client.createTopic(new TopicMetadata(topic1));
+    client.createTopic(new TopicMetadata(topic2));
+    client.createTopic(new TopicMetadata(topic3));
+
+    // Publish messages larger than the chunk size so that topic frames span multiple chunks
+    int payloadSize = cConf.getInt(Constants.MessagingSystem.HTTP_SERVER_CONSUME_CHUNK_SIZE) / 2;
+    for (int i = 0; i < 10; i++) {
+      client.publish(StoreRequestBuilder.of(topic1).addPayload(Strings.repeat("a" + i, payloadSize)).build());
+      client.publish(StoreRequestBuilder.of(topic2).addPayload("b" + i).build());
+    }
+
+    // Fetch from all topics, with topic3 being empty
+    MultiTopicMessageFetcher fetcher = client.prepareMultiFetch(namespaceId);
+    fetcher.addTopic(topic1.getTopic());
+    fetcher.addTopic(topic2.getTopic()).setLimit(5);
+    fetcher.addTopic(topic3.getTopic());
+
+    List<TopicRawMessage> messages = new ArrayList<>();
+    try (CloseableIterator<TopicRawMessage> iterator = fetcher.fetch()) {
+      Iterators.addAll(messages, iterator);
+    }
+    Assert.assertEquals(15, messages.size());
+    for (int i = 0; i < 10; i++) {
+      Assert.assertEquals(topic1, messages.get(i).getTopicId());
+      Assert.assertEquals(Strings.repeat("a" + i, payloadSize), Bytes.toString(messages.get(i).getPayload()));
+    }
+    for (int i = 0; i < 5; i++) {
+      Assert.assertEquals(topic2, messages.get(10 + i).getTopicId());
+      Assert.assertEquals("b" + i, Bytes.toString(messages.get(10 + i).getPayload()));
+    }
+
+    // Fetch again starting after the last fetched message of each topic
+    fetcher = client.prepareMultiFetch(namespaceId);
+    fetcher.addTopic(topic1.getTopic()).setStartMessage(messages.get(9).getId(), false);
+    fetcher.addTopic(topic2.getTopic()).setStartMessage(messages.get(14).getId(), false);
+    try (CloseableIterator<TopicRawMessage> iterator = fetcher.fetch()) {
+      List<String> payloads = new ArrayList<>();
+      iterator.forEachRemaining(message -> {
+        Assert.assertEquals(topic2, message.getTopicId());
+        payloads.add(Bytes.toString(message.getPayload()));
+      });
+      Assert.assertEquals(Arrays.asList("b5", "b6", "b7", "b8", "b9"), payloads);
+    }
+
+    // Fetching from a non-existing topic should fail
+    fetcher = client.prepareMultiFetch(namespaceId);
+    fetcher.addTopic(topic1.getTopic());
+    fetcher.addTopic("nonExisting");
+    try {
+      fetcher.fetch();
+      Assert.fail("Expected TopicNotFoundException");
+    } catch (TopicNotFoundException e) {
+      Assert.assertEquals("nonExisting", e.getTopic());
+    }
+
+    client.deleteTopic(topic1);
+    client.deleteTopic(topic2);
+    client.deleteTopic(topic3);
+  }
 }
@@ -22,6 +22,7 @@ import com.google.common.collect.ListMultimap;
 import com.google.common.util.concurrent.Uninterruptibles;
 import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.metrics.MetricsCollector;
+import io.cdap.cdap.api.metrics.NoopMetricsContext;
 import io.cdap.cdap.common.utils.TimeProvider;
 import io.cdap.cdap.messaging.StoreRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
@@ -45,6 +46,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
@@ -268,6 +270,58 @@ public class ConcurrentMessageWriterTest {
     }
   }
 
+  @Test
+  public void testManyPublishers() throws Exception {
+    // Publishers outnumbering the batch size, with each write having 1ms of latency, so that publishers are
+    // parked while waiting and batches are handed over between writers.
+    // Throughput of the group commit is measured by ConcurrentMessageWriterBenchmark in cdap-tms-benchmarks.
+    int payloadsPerRequest = 10;
+    int threadCount = 64;
+    int requestPerThread = 8;
+    TopicId topicId = NamespaceId.DEFAULT.topic("t");
+    TopicMetadata metadata = new TopicMetadata(topicId, new HashMap<String, String>(), 1);
+
+    List<String> payload = new ArrayList<>(payloadsPerRequest);
+    for (int i = 0; i < payloadsPerRequest; i++) {
+      payload.add(Integer.toString(i));
+    }
+
+    TestStoreRequestWriter testWriter = new TestStoreRequestWriter(new TimeProvider.IncrementalTimeProvider(), 1L);
+    ConcurrentMessageWriter writer = new ConcurrentMessageWriter(testWriter, new NoopMetricsContext(), 16, 0L);
+
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    CyclicBarrier barrier = new CyclicBarrier(threadCount);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < threadCount; i++) {
+      futures.add(executor.submit(() -> {
+        barrier.await();
+        for (int j = 0; j < requestPerThread; j++) {
+          writer.persist(new TestStoreRequest(topicId, payload), metadata);
+        }
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get(1, TimeUnit.MINUTES);
+    }
+    executor.shutdown();
+    writer.close();
+
+    // All messages are written, with the payloads of each request kept together and message ids sorted
+    List<RawMessage> messages = testWriter.getMessages().get(topicId);
+    Assert.assertEquals(payloadsPerRequest * requestPerThread * threadCount, messages.size());
+    RawMessage lastMessage = null;
+    int expectedPayload = 0;
+    for (RawMessage message : messages) {
+      if (lastMessage != null) {
+        Assert.assertTrue(Bytes.compareTo(lastMessage.getId(), message.getId()) < 0);
+      }
+      Assert.assertEquals(expectedPayload, Integer.parseInt(Bytes.toString(message.getPayload())));
+      expectedPayload = (expectedPayload + 1) % payloadsPerRequest;
+      lastMessage = message;
+    }
+  }
+
   /**
    * A {@link StoreRequestWriter} that turns all payloads to {@link RawMessage} and stores it in a List.
    */
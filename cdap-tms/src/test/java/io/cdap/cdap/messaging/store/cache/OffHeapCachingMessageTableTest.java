@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.cache;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import io.cdap.cdap.api.metrics.NoopMetricsContext;
+import io.cdap.cdap.messaging.TopicMetadata;
+import io.cdap.cdap.messaging.cache.MessageCache;
+import io.cdap.cdap.messaging.store.MessageTable;
+import io.cdap.cdap.messaging.store.leveldb.LevelDBMessageTableTest;
+import io.cdap.cdap.proto.id.TopicId;
+import org.junit.BeforeClass;
+
+/**
+ * Unit test for {@link CachingMessageTable} using the {@link OffHeapMessageCache}.
+ */
+public class OffHeapCachingMessageTableTest extends LevelDBMessageTableTest {
+
+  private static MessageTableCacheProvider cacheProvider;
+
+  @BeforeClass
+  public static void initCache() {
+    final LoadingCache<TopicId, MessageCache<MessageTable.Entry>> caches = CacheBuilder
+      .newBuilder()
+      .build(new CacheLoader<TopicId, MessageCache<MessageTable.Entry>>() {
+        @Override
+        public MessageCache<MessageTable.Entry> load(TopicId key) throws Exception {
+          return new OffHeapMessageCache(key, 4096, new MessageCache.Limits(8192, 12288, 16384),
+                                         new NoopMetricsContext());
+        }
+      });
+
+    cacheProvider = new MessageTableCacheProvider() {
+      @Override
+      public MessageCache<MessageTable.Entry> getMessageCache(TopicId topicId) {
+        return caches.getUnchecked(topicId);
+      }
+
+      @Override
+      public void clear() {
+        caches.invalidateAll();
+      }
+    };
+  }
+
+  @Override
+  protected MessageTable getMessageTable(TopicMetadata topicMetadata) throws Exception {
+    MessageTable messageTable = super.getMessageTable(topicMetadata);
+    return new CachingMessageTable(cConf, messageTable, cacheProvider);
+  }
+}
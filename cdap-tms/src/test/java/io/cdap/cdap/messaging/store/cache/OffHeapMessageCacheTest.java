@@ -0,0 +1,333 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.messaging.store.cache;
+
+import com.google.common.collect.Lists;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.metrics.NoopMetricsContext;
+import io.cdap.cdap.messaging.cache.MessageCache;
+import io.cdap.cdap.messaging.store.MessageFilter;
+import io.cdap.cdap.messaging.store.MessageTable;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.TopicId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * Unit test for {@link OffHeapMessageCache}.
+ */
+public class OffHeapMessageCacheTest {
+
+  private static final TopicId TOPIC = NamespaceId.SYSTEM.topic("test");
+  private static final MessageFilter<MessageTable.Entry> ACCEPT_ALL = MessageFilter.alwaysAccept();
+
+  @Test
+  public void testBasic() {
+    OffHeapMessageCache cache = new OffHeapMessageCache(TOPIC, 1024, new MessageCache.Limits(4096, 8192, 16384),
+                                                        new NoopMetricsContext());
+
+    List<MessageTable.Entry> entries = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      entries.add(createEntry(1, i, 0, Bytes.toBytes("Payload " + i)));
+    }
+    // A transactional entry with payload reference
+    entries.add(createEntry(1, 10, 0, null));
+    cache.addAll(entries.iterator());
+    Assert.assertEquals(1024, cache.getWeight());
+
+    // Scan everything
+    try (MessageCache.Scanner<MessageTable.Entry> scanner = cache.scan(createEntry(1, 0, 0, null), true,
+                                                                       100, ACCEPT_ALL)) {
+      assertEntry(entries.get(0), scanner.getFirstInCache());
+      List<MessageTable.Entry> scanned = Lists.newArrayList(scanner);
+      Assert.assertEquals(entries.size(), scanned.size());
+      for (int i = 0; i < entries.size(); i++) {
+        assertEntry(entries.get(i), scanned.get(i));
+      }
+    }
+
+    // Scan with exclusive start and limit
+    try (MessageCache.Scanner<MessageTable.Entry> scanner = cache.scan(createEntry(1, 3, 0, null), false,
+                                                                       3, ACCEPT_ALL)) {
+      List<MessageTable.Entry> scanned = Lists.newArrayList(scanner);
+      Assert.assertEquals(3, scanned.size());
+      for (int i = 0; i < 3; i++) {
+        assertEntry(entries.get(i + 4), scanned.get(i));
+      }
+    }
+
+    // Scan with a start that is larger than everything
+    try (MessageCache.Scanner<MessageTable.Entry> scanner = cache.scan(createEntry(2, 0, 0, null), true,
+                                                                       100, ACCEPT_ALL)) {
+      assertEntry(entries.get(0), scanner.getFirstInCache());
+      Assert.assertFalse(scanner.hasNext());
+    }
+
+    // Scan with a filter that holds at the sixth entry
+    MessageFilter<MessageTable.Entry> filter = new MessageFilter<MessageTable.Entry>() {
+      @Override
+      public Result apply(MessageTable.Entry entry) {
+        return entry.getPublishTimestamp() >= 5 ? Result.HOLD : Result.ACCEPT;
+      }
+    };
+    try (MessageCache.Scanner<MessageTable.Entry> scanner = cache.scan(createEntry(1, 0, 0, null), true,
+                                                                       100, filter)) {
+      Assert.assertEquals(5, Lists.newArrayList(scanner).size());
+    }
+
+    // Adding an entry that is not larger than the last entry should fail
+    try {
+      cache.addAll(Collections.singleton(createEntry(1, 10, 0, null)).iterator());
+      Assert.fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+    // The cache should be cleared
+    Assert.assertEquals(0, cache.getWeight());
+    try (MessageCache.Scanner<MessageTable.Entry> scanner = cache.scan(createEntry(1, 0, 0, null), true,
+                                                                       100, ACCEPT_ALL)) {
+      Assert.assertNull(scanner.getFirstInCache());
+      Assert.assertFalse(scanner.hasNext());
+    }
+  }
+
+  @Test
+  public void testReduceWeight() {
+    // Each segment can hold 4 entries of 100 bytes payload
+    int segmentSize = 4 * (100 + OffHeapMessageCache.ENTRY_OVERHEAD);
+    OffHeapMessageCache cache = new OffHeapMessageCache(TOPIC, segmentSize,
+                                                        new MessageCache.Limits(segmentSize * 2, segmentSize * 3,
+                                                                                segmentSize * 4),
+                                                        new NoopMetricsContext());
+
+    // Add 12 entries, which needs three segments
+    long timestamp = 0;
+    for (; timestamp < 12; timestamp++) {
+      cache.addAll(Collections.singleton(createEntry(1, timestamp, 0, new byte[100])).iterator());
+    }
+    Assert.assertEquals(segmentSize * 3, cache.getWeight());
+
+    // Add 4 more entries, which makes the cache weight larger than the reduce trigger
+    for (; timestamp < 16; timestamp++) {
+      cache.addAll(Collections.singleton(createEntry(1, timestamp, 0, new byte[100])).iterator());
+    }
+    Assert.assertEquals(segmentSize * 4, cache.getWeight());
+
+    // Scanning should reduce the weight down to the min retain when the scanner is closed
+    try (MessageCache.Scanner<MessageTable.Entry> scanner = cache.scan(createEntry(1, 0, 0, null), true,
+                                                                       100, ACCEPT_ALL)) {
+      Assert.assertEquals(0L, scanner.getFirstInCache().getPublishTimestamp());
+      Assert.assertEquals(16, Lists.newArrayList(scanner).size());
+    }
+    Assert.assertEquals(segmentSize * 2, cache.getWeight());
+    try (MessageCache.Scanner<MessageTable.Entry> scanner = cache.scan(createEntry(1, 0, 0, null), true,
+                                                                       100, ACCEPT_ALL)) {
+      Assert.assertEquals(8L, scanner.getFirstInCache().getPublishTimestamp());
+      Assert.assertEquals(8, Lists.newArrayList(scanner).size());
+    }
+
+    // Add more entries until hitting the hard limit, which should reduce the weight on add
+    for (; timestamp < 25; timestamp++) {
+      cache.addAll(Collections.singleton(createEntry(1, timestamp, 0, new byte[100])).iterator());
+    }
+    Assert.assertEquals(segmentSize * 3, cache.getWeight());
+    try (MessageCache.Scanner<MessageTable.Entry> scanner = cache.scan(createEntry(1, 0, 0, null), true,
+                                                                       100, ACCEPT_ALL)) {
+      Assert.assertEquals(16L, scanner.getFirstInCache().getPublishTimestamp());
+    }
+
+    // An entry larger than the segment size should still be cached
+    cache.addAll(Collections.singleton(createEntry(1, timestamp, 0, new byte[segmentSize * 2])).iterator());
+    try (MessageCache.Scanner<MessageTable.Entry> scanner = cache.scan(createEntry(1, timestamp, 0, null), true,
+                                                                       100, ACCEPT_ALL)) {
+      List<MessageTable.Entry> scanned = Lists.newArrayList(scanner);
+      Assert.assertEquals(1, scanned.size());
+      Assert.assertEquals(segmentSize * 2, scanned.get(0).getPayload().length);
+    }
+
+    // Clear the cache
+    cache.clear();
+    Assert.assertEquals(0, cache.getWeight());
+  }
+
+  @Test
+  public void testLazyScan() {
+    // Each segment can hold 4 entries of 100 bytes payload
+    int segmentSize = 4 * (100 + OffHeapMessageCache.ENTRY_OVERHEAD);
+    OffHeapMessageCache cache = new OffHeapMessageCache(TOPIC, segmentSize,
+                                                        new MessageCache.Limits(segmentSize * 2, segmentSize * 3,
+                                                                                segmentSize * 4),
+                                                        new NoopMetricsContext());
+    for (long timestamp = 0; timestamp < 12; timestamp++) {
+      cache.addAll(Collections.singleton(createEntry(1, timestamp, 0, createPayload(timestamp))).iterator());
+    }
+
+    // Entries are only decoded when iterated, hence the filter is only called for the entries consumed
+    AtomicInteger filtered = new AtomicInteger();
+    MessageFilter<MessageTable.Entry> filter = new MessageFilter<MessageTable.Entry>() {
+      @Override
+      public Result apply(MessageTable.Entry entry) {
+        filtered.incrementAndGet();
+        return Result.ACCEPT;
+      }
+    };
+    try (MessageCache.Scanner<MessageTable.Entry> scanner = cache.scan(createEntry(1, 0, 0, null), true,
+                                                                       Integer.MAX_VALUE, filter)) {
+      Assert.assertEquals(0, filtered.get());
+      for (long timestamp = 0; timestamp < 2; timestamp++) {
+        Assert.assertEquals(timestamp, Bytes.toLong(scanner.next().getPayload()));
+      }
+      Assert.assertEquals(2, filtered.get());
+
+      // Remove all segments. The pinned segment can still be read, while the scan ends at the next segment.
+      cache.clear();
+      Assert.assertEquals(0, cache.getWeight());
+      List<MessageTable.Entry> scanned = Lists.newArrayList(scanner);
+      Assert.assertEquals(2, scanned.size());
+      for (int i = 0; i < scanned.size(); i++) {
+        Assert.assertEquals(i + 2L, Bytes.toLong(scanned.get(i).getPayload()));
+      }
+    }
+
+    // Closing the scanner unpins the segment, so that its buffer is reused
+    for (long timestamp = 12; timestamp < 16; timestamp++) {
+      cache.addAll(Collections.singleton(createEntry(1, timestamp, 0, createPayload(timestamp))).iterator());
+    }
+    try (MessageCache.Scanner<MessageTable.Entry> scanner = cache.scan(createEntry(1, 0, 0, null), true,
+                                                                       Integer.MAX_VALUE, ACCEPT_ALL)) {
+      List<MessageTable.Entry> scanned = Lists.newArrayList(scanner);
+      Assert.assertEquals(4, scanned.size());
+      for (int i = 0; i < scanned.size(); i++) {
+        Assert.assertEquals(i + 12L, Bytes.toLong(scanned.get(i).getPayload()));
+      }
+    }
+  }
+
+  @Test
+  public void testRollback() {
+    OffHeapMessageCache cache = new OffHeapMessageCache(TOPIC, 1024, new MessageCache.Limits(4096, 8192, 16384),
+                                                        new NoopMetricsContext());
+    List<MessageTable.Entry> entries = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      entries.add(createEntry(1, i, 0, null));
+    }
+    cache.addAll(entries.iterator());
+
+    cache.updateEntries(createEntry(1, 3, 0, null), createEntry(1, 6, 0, null),
+                        new MessageCache.EntryUpdater<MessageTable.Entry>() {
+      @Override
+      public void updateEntry(MessageTable.Entry entry) {
+        ((CachingMessageTable.CacheMessageTableEntry) entry).rollback();
+      }
+    });
+
+    try (MessageCache.Scanner<MessageTable.Entry> scanner = cache.scan(createEntry(1, 0, 0, null), true,
+                                                                       100, ACCEPT_ALL)) {
+      List<MessageTable.Entry> scanned = Lists.newArrayList(scanner);
+      Assert.assertEquals(10, scanned.size());
+      for (MessageTable.Entry entry : scanned) {
+        long timestamp = entry.getPublishTimestamp();
+        Assert.assertEquals(timestamp >= 3 && timestamp <= 6,
+                            ((CachingMessageTable.CacheMessageTableEntry) entry).isRollback());
+      }
+    }
+  }
+
+  @Test
+  public void testConcurrentScan() throws Exception {
+    // Small segments with small limits so that segments are being removed and recycled frequently
+    int segmentSize = 4096;
+    final OffHeapMessageCache cache = new OffHeapMessageCache(TOPIC, segmentSize,
+                                                              new MessageCache.Limits(segmentSize * 2,
+                                                                                      segmentSize * 3,
+                                                                                      segmentSize * 4),
+                                                              new NoopMetricsContext());
+    final AtomicBoolean stopped = new AtomicBoolean();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        futures.add(executor.submit(() -> {
+          int scans = 0;
+          while (!stopped.get()) {
+            try (MessageCache.Scanner<MessageTable.Entry> scanner = cache.scan(createEntry(1, 0, 0, null), true,
+                                                                               1000, ACCEPT_ALL)) {
+              // Entries must be contiguous and the payload must match the timestamp
+              long expected = -1;
+              while (scanner.hasNext()) {
+                MessageTable.Entry entry = scanner.next();
+                if (expected >= 0) {
+                  Assert.assertEquals(expected, entry.getPublishTimestamp());
+                }
+                Assert.assertEquals(entry.getPublishTimestamp(), Bytes.toLong(entry.getPayload()));
+                expected = entry.getPublishTimestamp() + 1;
+              }
+            }
+            scans++;
+          }
+          return scans;
+        }));
+      }
+
+      for (long timestamp = 0; timestamp < 100000; timestamp++) {
+        cache.addAll(Collections.singleton(createEntry(1, timestamp, 0, Bytes.toBytes(timestamp))).iterator());
+      }
+      stopped.set(true);
+
+      for (Future<Integer> future : futures) {
+        Assert.assertTrue(future.get(10, TimeUnit.SECONDS) > 0);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Creates a payload of 100 bytes that starts with the given timestamp.
+   */
+  private byte[] createPayload(long timestamp) {
+    return Arrays.copyOf(Bytes.toBytes(timestamp), 100);
+  }
+
+  private MessageTable.Entry createEntry(int generation, long timestamp, int sequenceId, @Nullable byte[] payload) {
+    return new CachingMessageTable.CacheMessageTableEntry(TOPIC, generation, payload == null, timestamp,
+                                                          payload, timestamp, (short) sequenceId, false);
+  }
+
+  private void assertEntry(MessageTable.Entry expected, MessageTable.Entry actual) {
+    Assert.assertEquals(expected.getTopicId(), actual.getTopicId());
+    Assert.assertEquals(expected.getGeneration(), actual.getGeneration());
+    Assert.assertEquals(expected.getPublishTimestamp(), actual.getPublishTimestamp());
+    Assert.assertEquals(expected.getSequenceId(), actual.getSequenceId());
+    Assert.assertEquals(expected.isTransactional(), actual.isTransactional());
+    Assert.assertEquals(expected.getTransactionWritePointer(), actual.getTransactionWritePointer());
+    Assert.assertEquals(expected.isPayloadReference(), actual.isPayloadReference());
+    Assert.assertTrue(Arrays.equals(expected.getPayload(), actual.getPayload()));
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.api.metrics;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * The values recorded for a {@link MetricType#DISTRIBUTION} metric, counted in fixed log-linear buckets.
+ *
+ * Values below 8 each have their own bucket, and every power of two range above is split into 8 buckets of equal
+ * width, hence a value is estimated from its bucket with a relative error of at most 1/16 and there are at most
+ * {@link #BUCKET_COUNT} buckets. Since the bucket boundaries are the same for all distributions, distributions are
+ * merged by adding the counts of the same buckets. This is how they are aggregated over time and tags in the metrics
+ * store, where each bucket is stored as a counter named by {@link #getBucketMetricName(String, int)}.
+ */
+public final class MetricDistribution {
+
+  /**
+   * Separates the metric name from the bucket in the name of the counter of a bucket.
+   */
+  public static final String BUCKET_SEPARATOR = "#";
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * Number of buckets needed to count all non-negative long values.
+   */
+  public static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+  // Non-empty buckets in ascending order, and their counts
+  private final int[] buckets;
+  private final long[] counts;
+
+  /**
+   * Creates a distribution from the counts of non-empty buckets.
+   *
+   * @param buckets the buckets in ascending order
+   * @param counts the count of each bucket
+   */
+  public MetricDistribution(int[] buckets, long[] counts) {
+    Preconditions.checkArgument(buckets.length == counts.length,
+                                "Number of buckets %s and counts %s are different", buckets.length, counts.length);
+    this.buckets = buckets;
+    this.counts = counts;
+  }
+
+  public int[] getBuckets() {
+    return buckets;
+  }
+
+  public long[] getCounts() {
+    return counts;
+  }
+
+  /**
+   * Returns the number of recorded values.
+   */
+  public long getCount() {
+    long count = 0;
+    for (long c : counts) {
+      count += c;
+    }
+    return count;
+  }
+
+  /**
+   * Returns the estimated value at the given percentile of the recorded values, or 0 if there is no value.
+   *
+   * @param percentile the percentile, between 0 and 100
+   */
+  public long getPercentile(double percentile) {
+    Preconditions.checkArgument(percentile >= 0 && percentile <= 100,
+                                "Percentile %s is not between 0 and 100", percentile);
+    long count = getCount();
+    if (count == 0) {
+      return 0;
+    }
+    // the rank of the value at the percentile, starting from 1
+    long rank = Math.max(1L, (long) Math.ceil(percentile / 100 * count));
+    long seen = 0;
+    for (int i = 0; i < buckets.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return getBucketValue(buckets[i]);
+      }
+    }
+    return getBucketValue(buckets[buckets.length - 1]);
+  }
+
+  /**
+   * Returns the bucket of the given value.
+   */
+  public static int getBucket(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) Math.max(0L, value);
+    }
+    int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) & (SUB_BUCKET_COUNT - 1));
+  }
+
+  /**
+   * Returns the smallest value of the given bucket.
+   */
+  public static long getLowerBound(int bucket) {
+    if (bucket < SUB_BUCKET_COUNT) {
+      return bucket;
+    }
+    int shift = (bucket >> SUB_BUCKET_BITS) - 1;
+    return (long) (SUB_BUCKET_COUNT + (bucket & (SUB_BUCKET_COUNT - 1))) << shift;
+  }
+
+  /**
+   * Returns the largest value of the given bucket.
+   */
+  public static long getUpperBound(int bucket) {
+    if (bucket < SUB_BUCKET_COUNT) {
+      return bucket;
+    }
+    return getLowerBound(bucket) + (1L << ((bucket >> SUB_BUCKET_BITS) - 1)) - 1;
+  }
+
+  /**
+   * Returns the value used as the estimate of the values in the given bucket, which is the middle of the bucket.
+   */
+  public static long getBucketValue(int bucket) {
+    long lowerBound = getLowerBound(bucket);
+    return lowerBound + (getUpperBound(bucket) - lowerBound) / 2;
+  }
+
+  /**
+   * Returns the name of the counter of the given bucket of a distribution metric.
+   */
+  public static String getBucketMetricName(String metricName, int bucket) {
+    return metricName + BUCKET_SEPARATOR + bucket;
+  }
+
+  /**
+   * Returns the bucket from the name of a bucket counter of the given distribution metric, or {@code -1} if the
+   * name is not the name of a bucket counter of that metric.
+   */
+  public static int parseBucket(String bucketMetricName, String metricName) {
+    int idx = bucketMetricName.lastIndexOf(BUCKET_SEPARATOR);
+    if (idx != metricName.length() || !bucketMetricName.startsWith(metricName)) {
+      return -1;
+    }
+    try {
+      int bucket = Integer.parseInt(bucketMetricName.substring(idx + 1));
+      return bucket >= 0 && bucket < BUCKET_COUNT ? bucket : -1;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Returns {@code true} if the given metric name is the name of a bucket counter of a distribution metric.
+   */
+  public static boolean isBucketMetricName(String metricName) {
+    return metricName.contains(BUCKET_SEPARATOR);
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+      .add("buckets", Arrays.toString(buckets))
+      .add("counts", Arrays.toString(counts))
+      .toString();
+  }
+}
@@ -61,6 +61,11 @@ public interface MetricStore {
    */
   void deleteTTLExpired();
 
+  /**
+   * Rolls up the metric data of closed time windows from the finer resolution tables into the coarser ones.
+   */
+  void rollup();
+
   /**
    * Deletes all metric data specified by the {@link MetricDeleteQuery}
    * @param query specifies what to delete
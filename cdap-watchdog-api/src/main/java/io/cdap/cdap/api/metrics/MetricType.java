@@ -16,9 +16,10 @@
 package io.cdap.cdap.api.metrics;
 
 /**
- * MetricType - COUNTER or GAUGE type
+ * MetricType - COUNTER, GAUGE or DISTRIBUTION type
  */
 public enum MetricType {
   COUNTER,
-  GAUGE
+  GAUGE,
+  DISTRIBUTION
 }
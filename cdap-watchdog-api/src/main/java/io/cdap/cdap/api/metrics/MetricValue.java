@@ -17,14 +17,19 @@ package io.cdap.cdap.api.metrics;
 
 import com.google.common.base.Objects;
 
+import javax.annotation.Nullable;
+
 /**
- * Carries the "raw" emitted metric data point: metric name, type, and value
+ * Carries the "raw" emitted metric data point: metric name, type, and value. For a
+ * {@link MetricType#DISTRIBUTION} metric, the value is the number of recorded values and the recorded values are
+ * carried by a {@link MetricDistribution}.
  */
 public class MetricValue {
 
   String name;
   MetricType type;
   long value;
+  MetricDistribution distribution;
 
   public MetricValue (String name, MetricType type, long value) {
     this.name = name;
@@ -32,6 +37,11 @@ public class MetricValue {
     this.value = value;
   }
 
+  public MetricValue(String name, MetricDistribution distribution) {
+    this(name, MetricType.DISTRIBUTION, distribution.getCount());
+    this.distribution = distribution;
+  }
+
   public String getName() {
     return name;
   }
@@ -44,12 +54,21 @@ public class MetricValue {
     return value;
   }
 
+  /**
+   * Returns the recorded values of a {@link MetricType#DISTRIBUTION} metric, or {@code null} for other types.
+   */
+  @Nullable
+  public MetricDistribution getDistribution() {
+    return distribution;
+  }
+
   @Override
   public String toString() {
     return Objects.toStringHelper(this)
       .add("name", name)
       .add("type", type)
       .add("value", value)
+      .add("distribution", distribution)
       .toString();
   }
 }
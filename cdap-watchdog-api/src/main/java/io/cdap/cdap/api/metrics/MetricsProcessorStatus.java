@@ -33,4 +33,11 @@ public class MetricsProcessorStatus {
     this.lastProcessedTimestamp = lastProcessedTimestamp;
     this.messagesProcessed = messagesProcessed;
   }
+
+  /**
+   * @return the timestamp in seconds before which all the metrics published to the topic are processed
+   */
+  public long getLastProcessedTimestamp() {
+    return lastProcessedTimestamp;
+  }
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.logging.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.spi.ThrowableProxy;
+import io.cdap.cdap.logging.serialize.LoggingEventSerializer;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for encoding and decoding logging events, which the log appenders and the log pipelines do for every
+ * log event.
+ *
+ * <ul>
+ *   <li>{@link #legacyEncode} and {@link #legacyDecodeAndFilter} measure encoding and decoding through a
+ *   {@link GenericRecord}, which is what the {@link LoggingEventSerializer} did before.</li>
+ *   <li>{@link #encode} and {@link #decodeAndFilter} measure the {@link LoggingEventSerializer}.</li>
+ * </ul>
+ *
+ * The decode benchmarks only access the timestamp, level and MDC of the events, like a log pipeline filter does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class LoggingEventSerializerBenchmark {
+
+  private static final int EVENTS = 1024;
+
+  /**
+   * Percentage of events with an exception.
+   */
+  @Param({"0", "10"})
+  public int exceptionPercent;
+
+  private LoggingEventSerializer serializer;
+  private Schema schema;
+  private ILoggingEvent[] events;
+  private ByteBuffer[] encoded;
+  private int index;
+
+  @Setup
+  public void setup() {
+    serializer = new LoggingEventSerializer();
+    schema = serializer.getAvroSchema();
+    events = new ILoggingEvent[EVENTS];
+    encoded = new ByteBuffer[EVENTS];
+
+    Map<String, String> mdc = new HashMap<>();
+    mdc.put(".namespaceId", "default");
+    mdc.put(".applicationId", "PurchaseHistory");
+    mdc.put(".programType", "SERVICE");
+    mdc.put(".programId", "PurchaseHistoryService");
+    mdc.put(".runId", "b1a4c6e0-5f2e-11e9-8a3c-000000a5c1a2");
+    mdc.put(".instanceId", "0");
+
+    Level[] levels = { Level.DEBUG, Level.INFO, Level.INFO, Level.WARN, Level.ERROR };
+    for (int i = 0; i < EVENTS; i++) {
+      LoggingEvent event = new LoggingEvent();
+      event.setTimeStamp(1555555555000L + i);
+      event.setLevel(levels[i % levels.length]);
+      event.setThreadName("executor-" + (i % 8));
+      event.setLoggerName("io.cdap.cdap.examples.purchase.PurchaseHistoryService");
+      event.setMessage("Processed purchase {} of customer {} in {} ms");
+      event.setArgumentArray(new Object[] { "purchase-" + i, "customer-" + (i % 100), i % 50 });
+      event.setMDCPropertyMap(mdc);
+      if (i % 100 < exceptionPercent) {
+        event.setThrowableProxy(new ThrowableProxy(new IOException("Failed to process purchase " + i,
+                                                                   new IllegalStateException("Invalid state"))));
+      }
+      event.prepareForDeferredProcessing();
+      events[i] = event;
+      encoded[i] = ByteBuffer.wrap(serializer.toBytes(event));
+    }
+  }
+
+  @Benchmark
+  public byte[] legacyEncode() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(out, null);
+    GenericDatumWriter<GenericRecord> writer = new GenericDatumWriter<>(schema);
+    writer.write(serializer.toGenericRecord(nextEvent()), encoder);
+    return out.toByteArray();
+  }
+
+  @Benchmark
+  public byte[] encode() {
+    return serializer.toBytes(nextEvent());
+  }
+
+  @Benchmark
+  public void legacyDecodeAndFilter(Blackhole blackhole) throws IOException {
+    ByteBuffer buffer = nextEncoded();
+    GenericDatumReader<GenericRecord> reader = new GenericDatumReader<>(schema);
+    GenericRecord record = reader.read(null, DecoderFactory.get().binaryDecoder(
+      buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), null));
+    consume(new io.cdap.cdap.logging.serialize.LoggingEvent(record, buffer), blackhole);
+  }
+
+  @Benchmark
+  public void decodeAndFilter(Blackhole blackhole) throws IOException {
+    consume(serializer.fromBytes(nextEncoded()), blackhole);
+  }
+
+  private void consume(ILoggingEvent event, Blackhole blackhole) {
+    blackhole.consume(event.getTimeStamp());
+    blackhole.consume(event.getLevel().isGreaterOrEqual(Level.INFO));
+    blackhole.consume(event.getMDCPropertyMap().get(".runId"));
+  }
+
+  private ILoggingEvent nextEvent() {
+    index = (index + 1) % EVENTS;
+    return events[index];
+  }
+
+  private ByteBuffer nextEncoded() {
+    index = (index + 1) % EVENTS;
+    return encoded[index];
+  }
+}
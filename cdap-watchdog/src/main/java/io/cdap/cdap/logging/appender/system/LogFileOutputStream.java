@@ -19,9 +19,11 @@ package io.cdap.cdap.logging.appender.system;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import com.google.common.io.Closeables;
 import io.cdap.cdap.common.io.ByteBuffers;
+import io.cdap.cdap.common.io.Locations;
 import io.cdap.cdap.common.io.Syncable;
 import io.cdap.cdap.logging.serialize.LoggingEvent;
 import io.cdap.cdap.logging.serialize.LoggingEventSerializer;
+import io.cdap.cdap.logging.write.LogFileIndex;
 import org.apache.avro.Schema;
 import org.apache.avro.file.DataFileWriter;
 import org.apache.avro.generic.GenericDatumWriter;
@@ -41,23 +43,33 @@ import java.nio.ByteBuffer;
  *
  * Since there is no way to check the state of the underlying file on an exception,
  * all methods of this class assume that the file state is bad on any exception and close the file.
+ *
+ * Avro blocks are written by this class instead of by the {@link DataFileWriter} based on the sync interval, so that
+ * a {@link LogFileIndex} entry is kept for every block. The index is written next to the file when it is closed.
  */
 
 class LogFileOutputStream implements Closeable, Flushable, Syncable {
   private static final Logger LOG = LoggerFactory.getLogger(LogFileOutputStream.class);
+  private static final int MAX_WRITER_SYNC_INTERVAL = 1 << 30;
 
   private final Location location;
+  private final String filePermissions;
+  private final int syncIntervalBytes;
   private final long createTime;
   private final Closeable closeable;
   private final LoggingEventSerializer serializer;
 
   private OutputStream outputStream;
   private DataFileWriter<GenericRecord> dataFileWriter;
+  private LogFileIndex.Builder indexBuilder;
   private long fileSize;
+  private long blockSize;
 
   LogFileOutputStream(Location location, String filePermissions,
                       int syncIntervalBytes, long createTime, Closeable closeable) throws IOException {
     this.location = location;
+    this.filePermissions = filePermissions;
+    this.syncIntervalBytes = syncIntervalBytes;
     this.closeable = closeable;
     this.serializer = new LoggingEventSerializer();
 
@@ -67,9 +79,12 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
         filePermissions.isEmpty() ? location.getOutputStream() : location.getOutputStream(filePermissions);
       this.dataFileWriter = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(schema));
       this.dataFileWriter.create(schema, outputStream);
-      this.dataFileWriter.setSyncInterval(syncIntervalBytes);
+      // Blocks are written by the sync() call in append, hence never let the writer decide on block boundaries
+      this.dataFileWriter.setSyncInterval(MAX_WRITER_SYNC_INTERVAL);
+      this.indexBuilder = new LogFileIndex.Builder(dataFileWriter.sync());
       this.createTime = createTime;
       this.fileSize = 0;
+      this.blockSize = 0;
     } catch (IOException e) {
       Closeables.closeQuietly(outputStream);
       Closeables.closeQuietly(dataFileWriter);
@@ -82,18 +97,30 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   }
 
   void append(ILoggingEvent event) throws IOException {
+    ByteBuffer encoded = encode(event);
+    blockSize += encoded.remaining();
+    dataFileWriter.appendEncoded(encoded);
+    indexBuilder.add(event);
+
+    if (blockSize >= syncIntervalBytes) {
+      flush();
+    }
+  }
+
+  /**
+   * Encodes the given event with the logging event schema.
+   */
+  private ByteBuffer encode(ILoggingEvent event) {
     // If the event is already a LoggingEvent, we don't need to re-encode.
     if (event instanceof LoggingEvent) {
       ByteBuffer encoded = ((LoggingEvent) event).getEncoded();
       if (encoded != null) {
+        // The DataFileWriter.appendEncoded ignores the array offset, hence only need to copy if there is one.
         // TODO: CDAP-8735 Remove the copying after upgraded to Avro 1.7.4+
-        dataFileWriter.appendEncoded(ByteBuffers.copy(encoded));
-      } else {
-        dataFileWriter.append(((LoggingEvent) event).getRecord());
+        return encoded.hasArray() && encoded.arrayOffset() == 0 ? encoded : ByteBuffers.copy(encoded);
       }
-      return;
     }
-    dataFileWriter.append(serializer.toGenericRecord(event));
+    return serializer.encode(event);
   }
 
   /**
@@ -115,6 +142,8 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   @Override
   public void flush() throws IOException {
     fileSize = dataFileWriter.sync();
+    indexBuilder.sync(fileSize);
+    blockSize = 0;
   }
 
   @Override
@@ -135,5 +164,25 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
     } finally {
       closeable.close();
     }
+    writeIndex();
+  }
+
+  /**
+   * Writes the {@link LogFileIndex} of the file. Failure is only logged, since readers can read files without index.
+   */
+  private void writeIndex() {
+    Location indexLocation = null;
+    try {
+      indexLocation = LogFileIndex.getIndexLocation(location);
+      try (OutputStream os = filePermissions.isEmpty() ? indexLocation.getOutputStream()
+                                                       : indexLocation.getOutputStream(filePermissions)) {
+        indexBuilder.build().write(os);
+      }
+    } catch (IOException e) {
+      LOG.warn("Failed to write index for log file {}", location, e);
+      if (indexLocation != null) {
+        Locations.deleteQuietly(indexLocation);
+      }
+    }
   }
 }
@@ -17,6 +17,8 @@
 package io.cdap.cdap.logging.clean;
 
 import io.cdap.cdap.common.io.Locations;
+import io.cdap.cdap.logging.write.LogFileIndex;
+import org.apache.twill.filesystem.Location;
 import org.apache.twill.filesystem.LocationFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,7 +57,10 @@ public class LogCleaner implements Runnable {
     int failureCount = 0;
     for (FileMetadataCleaner.DeletedEntry deletedEntry : deleteEntries) {
       try {
-        boolean status = Locations.getLocationFromAbsolutePath(locationFactory, deletedEntry.getPath()).delete();
+        Location location = Locations.getLocationFromAbsolutePath(locationFactory, deletedEntry.getPath());
+        boolean status = location.delete();
+        // The index is only an optimization for reads, hence failing to delete it doesn't fail the file deletion
+        Locations.deleteQuietly(LogFileIndex.getIndexLocation(location));
         if (!status) {
           failureCount++;
           LOG.warn("File {} delete failed", deletedEntry.getPath());
@@ -17,6 +17,7 @@
 package io.cdap.cdap.logging.filter;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
+import io.cdap.cdap.logging.write.LogFileIndex;
 
 /**
  * Represents a generic filter to filter ILoggingEvent objects.
@@ -24,6 +25,14 @@ import ch.qos.logback.classic.spi.ILoggingEvent;
 public interface Filter {
   boolean match(ILoggingEvent event);
 
+  /**
+   * Returns {@code false} if no event in the given indexed block can match this filter, so that the block can be
+   * skipped without decoding its events.
+   */
+  default boolean mayMatch(LogFileIndex.Block block) {
+    return true;
+  }
+
   Filter EMPTY_FILTER = new EmptyFilter();
 
   /**
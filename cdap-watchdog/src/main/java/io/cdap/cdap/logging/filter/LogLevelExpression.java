@@ -18,6 +18,7 @@ package io.cdap.cdap.logging.filter;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.spi.ILoggingEvent;
+import io.cdap.cdap.logging.write.LogFileIndex;
 
 /**
  * Represents an expression that matches log level.
@@ -34,6 +35,11 @@ public class LogLevelExpression implements Filter {
     return event.getLevel().isGreaterOrEqual(getLevel());
   }
 
+  @Override
+  public boolean mayMatch(LogFileIndex.Block block) {
+    return block.mayContainLevel(getLevel());
+  }
+
   public Level getLevel() {
     return level;
   }
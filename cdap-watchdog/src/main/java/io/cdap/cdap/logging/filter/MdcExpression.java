@@ -18,6 +18,7 @@ package io.cdap.cdap.logging.filter;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import com.google.common.base.Objects;
+import io.cdap.cdap.logging.write.LogFileIndex;
 
 /**
  * Represents an expression that can match a key,value in MDC.
@@ -37,6 +38,11 @@ public class MdcExpression implements Filter {
     return value != null && value.equals(getValue());
   }
 
+  @Override
+  public boolean mayMatch(LogFileIndex.Block block) {
+    return block.mayContainMdc(getKey(), getValue());
+  }
+
   public String getKey() {
     return key;
   }
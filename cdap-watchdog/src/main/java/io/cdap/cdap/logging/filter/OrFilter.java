@@ -19,6 +19,7 @@ package io.cdap.cdap.logging.filter;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
+import io.cdap.cdap.logging.write.LogFileIndex;
 
 import java.util.List;
 
@@ -42,6 +43,16 @@ public class OrFilter implements Filter {
     return false;
   }
 
+  @Override
+  public boolean mayMatch(LogFileIndex.Block block) {
+    for (Filter expression : expressions) {
+      if (expression.mayMatch(block)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @Override
   public String toString() {
     return Objects.toStringHelper(this)
@@ -20,11 +20,13 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.spi.IThrowableProxy;
 import ch.qos.logback.classic.spi.LoggerContextVO;
+import com.google.common.base.Throwables;
 import io.cdap.cdap.logging.LoggingUtil;
 import org.apache.avro.generic.GenericArray;
 import org.apache.avro.generic.GenericRecord;
 import org.slf4j.Marker;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Map;
@@ -32,11 +34,15 @@ import javax.annotation.Nullable;
 
 /**
 * Class used to serialize/de-serialize ILoggingEvent.
+*
+* An instance is either backed by a {@link GenericRecord}, or by the encoded bytes only, in which case fields are
+* decoded when they are first accessed.
 */
 public final class LoggingEvent implements ILoggingEvent {
 
   private final ByteBuffer encoded;
-  private final GenericRecord record;
+  private final LoggingEventFieldDecoder fieldDecoder;
+  private GenericRecord record;
 
   private boolean threadNamePreserved;
   private String threadName;
@@ -83,6 +89,31 @@ public final class LoggingEvent implements ILoggingEvent {
   public LoggingEvent(GenericRecord record, @Nullable ByteBuffer encoded) {
     this.record = record;
     this.encoded = encoded;
+    this.fieldDecoder = null;
+  }
+
+  /**
+   * Creates an instance that decodes fields lazily from the given encoded buffer.
+   *
+   * @param encoded the encoded event
+   * @param timestamp the event timestamp, which is already decoded
+   */
+  LoggingEvent(ByteBuffer encoded, long timestamp) {
+    this.encoded = encoded;
+    this.fieldDecoder = new LoggingEventFieldDecoder(encoded);
+    this.timestamp = timestamp;
+    this.timestampPreserved = true;
+  }
+
+  /**
+   * Validates that all fields of a lazily decoded event can be decoded.
+   *
+   * @throws IOException if the encoded buffer is truncated or corrupted
+   */
+  void validate() throws IOException {
+    if (fieldDecoder != null) {
+      fieldDecoder.validate();
+    }
   }
 
   /**
@@ -98,13 +129,34 @@ public final class LoggingEvent implements ILoggingEvent {
    * Returns the {@link GenericRecord} that this event is constructed from.
    */
   public GenericRecord getRecord() {
+    if (record == null) {
+      try {
+        record = fieldDecoder.getRecord();
+      } catch (IOException e) {
+        throw Throwables.propagate(e);
+      }
+    }
     return record;
   }
 
+  /**
+   * Returns the value of the given field, either from the record or decoded from the encoded buffer.
+   */
+  private Object get(String field) {
+    if (record != null) {
+      return record.get(field);
+    }
+    try {
+      return fieldDecoder.get(field);
+    } catch (IOException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
   @Override
   public String getThreadName() {
     if (!threadNamePreserved) {
-      threadName = LoggingUtil.stringOrNull(record.get("threadName"));
+      threadName = LoggingUtil.stringOrNull(get("threadName"));
       threadNamePreserved = true;
     }
     return threadName;
@@ -113,7 +165,7 @@ public final class LoggingEvent implements ILoggingEvent {
   @Override
   public Level getLevel() {
     if (!levelPreserved) {
-      level = Level.toLevel((Integer) record.get("level"));
+      level = Level.toLevel((Integer) get("level"));
       levelPreserved = true;
     }
     return level;
@@ -122,7 +174,7 @@ public final class LoggingEvent implements ILoggingEvent {
   @Override
   public String getMessage() {
     if (!messagePreserved) {
-      message = LoggingUtil.stringOrNull(record.get("message"));
+      message = LoggingUtil.stringOrNull(get("message"));
       messagePreserved = true;
     }
     return message;
@@ -131,7 +183,7 @@ public final class LoggingEvent implements ILoggingEvent {
   @Override
   public Object[] getArgumentArray() {
     if (!argumentArrayPreserved) {
-      GenericArray<?> argArray = (GenericArray<?>) record.get("argumentArray");
+      GenericArray<?> argArray = (GenericArray<?>) get("argumentArray");
       if (argArray != null) {
         argumentArray = new String[argArray.size()];
         int i = 0;
@@ -147,7 +199,7 @@ public final class LoggingEvent implements ILoggingEvent {
   @Override
   public String getFormattedMessage() {
     if (!formattedMessagePreserved) {
-      formattedMessage = LoggingUtil.stringOrNull(record.get("formattedMessage"));
+      formattedMessage = LoggingUtil.stringOrNull(get("formattedMessage"));
       formattedMessagePreserved = true;
     }
     return formattedMessage;
@@ -156,7 +208,7 @@ public final class LoggingEvent implements ILoggingEvent {
   @Override
   public String getLoggerName() {
     if (!loggerNamePreserved) {
-      loggerName = LoggingUtil.stringOrNull(record.get("loggerName"));
+      loggerName = LoggingUtil.stringOrNull(get("loggerName"));
       loggerNamePreserved = true;
     }
     return loggerName;
@@ -165,7 +217,7 @@ public final class LoggingEvent implements ILoggingEvent {
   @Override
   public LoggerContextVO getLoggerContextVO() {
     if (!loggerContextVOPreserved) {
-      loggerContextVO =  LoggerContextSerializer.decode((GenericRecord) record.get("loggerContextVO"));
+      loggerContextVO =  LoggerContextSerializer.decode((GenericRecord) get("loggerContextVO"));
       loggerContextVOPreserved = true;
     }
     return loggerContextVO;
@@ -174,7 +226,7 @@ public final class LoggingEvent implements ILoggingEvent {
   @Override
   public IThrowableProxy getThrowableProxy() {
     if (!throwableProxyPreserved) {
-      throwableProxy = ThrowableProxySerializer.decode((GenericRecord) record.get("throwableProxy"));
+      throwableProxy = ThrowableProxySerializer.decode((GenericRecord) get("throwableProxy"));
       throwableProxyPreserved = true;
     }
     return throwableProxy;
@@ -184,7 +236,7 @@ public final class LoggingEvent implements ILoggingEvent {
   public StackTraceElement[] getCallerData() {
     if (!callerDataPreserved) {
       //noinspection unchecked
-      callerData = CallerDataSerializer.decode((GenericArray<GenericRecord>) record.get("callerData"));
+      callerData = CallerDataSerializer.decode((GenericArray<GenericRecord>) get("callerData"));
       callerDataPreserved = true;
     }
     return callerData;
@@ -193,7 +245,7 @@ public final class LoggingEvent implements ILoggingEvent {
   @Override
   public boolean hasCallerData() {
     if (!hasCallerDataPreserved) {
-      hasCallerData = (Boolean) record.get("hasCallerData");
+      hasCallerData = (Boolean) get("hasCallerData");
       hasCallerDataPreserved = true;
     }
     return hasCallerData;
@@ -208,7 +260,7 @@ public final class LoggingEvent implements ILoggingEvent {
   @Override
   public Map<String, String> getMDCPropertyMap() {
     if (!mdcPreserved) {
-      mdc = LoggingUtil.decodeMDC((Map<?, ?>) record.get("mdc"));
+      mdc = LoggingUtil.decodeMDC((Map<?, ?>) get("mdc"));
       mdcPreserved = true;
     }
     return mdc;
@@ -222,7 +274,7 @@ public final class LoggingEvent implements ILoggingEvent {
   @Override
   public long getTimeStamp() {
     if (!timestampPreserved) {
-      timestamp = (Long) record.get("timestamp");
+      timestamp = (Long) get("timestamp");
       timestampPreserved = true;
     }
     return timestamp;
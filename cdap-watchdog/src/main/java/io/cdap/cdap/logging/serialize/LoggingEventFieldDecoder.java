@@ -0,0 +1,225 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.logging.serialize;
+
+import io.cdap.cdap.api.common.Bytes;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Decodes individual fields of a logging event encoded with the {@link LogSchema.LoggingEvent#SCHEMA}.
+ *
+ * Fields are decoded on demand. The fields before a requested field are skipped instead of decoded, and the start
+ * position of each field is remembered so that fields can be decoded in any order without rescanning.
+ * This class is not thread safe.
+ */
+final class LoggingEventFieldDecoder {
+
+  private static final Schema SCHEMA = LogSchema.LoggingEvent.SCHEMA;
+  private static final List<Schema.Field> FIELDS = SCHEMA.getFields();
+  private static final GenericDatumReader<GenericRecord> RECORD_READER = new GenericDatumReader<>(SCHEMA);
+  // Readers for the nested records, keyed by the record schema
+  private static final Map<Schema, GenericDatumReader<GenericRecord>> RECORD_READERS = createRecordReaders();
+
+  private final ByteBuffer encoded;
+  private final PositionedInputStream input;
+  private final BinaryDecoder decoder;
+  private final int[] fieldPositions;
+  private int knownPositions;
+
+  LoggingEventFieldDecoder(ByteBuffer encoded) {
+    this.encoded = encoded;
+    if (encoded.hasArray()) {
+      this.input = new PositionedInputStream(encoded.array(), encoded.arrayOffset() + encoded.position(),
+                                             encoded.remaining());
+    } else {
+      this.input = new PositionedInputStream(Bytes.toBytes(encoded), 0, encoded.remaining());
+    }
+    // Use a direct decoder so that the position of the input stream is the position of the decoder
+    this.decoder = DecoderFactory.get().directBinaryDecoder(input, null);
+    this.fieldPositions = new int[FIELDS.size()];
+    this.fieldPositions[0] = input.position();
+    this.knownPositions = 1;
+  }
+
+  /**
+   * Validates that the encoded buffer contains a complete event by skipping through all the fields. The start
+   * positions of all fields are remembered, so that fields can be decoded later without skipping again.
+   *
+   * @throws IOException if the buffer is truncated or corrupted
+   */
+  void validate() throws IOException {
+    try {
+      input.seek(fieldPositions[knownPositions - 1]);
+      for (int i = knownPositions - 1; i < FIELDS.size(); i++) {
+        LoggingEventSerializer.skip(FIELDS.get(i).schema(), decoder);
+        if (i + 1 < FIELDS.size()) {
+          fieldPositions[i + 1] = input.position();
+          knownPositions = i + 2;
+        }
+      }
+    } catch (RuntimeException e) {
+      // Corrupted data can fail with unchecked exceptions, e.g. negative length or invalid union index
+      throw new IOException("Failed to decode logging event", e);
+    }
+  }
+
+  /**
+   * Decodes the value of the given field. The value is of the same type as the one returned by
+   * {@link GenericRecord#get(String)} of a record decoded by a generic datum reader, except that strings
+   * outside of nested records are decoded as {@link String} instead of {@link org.apache.avro.util.Utf8}.
+   */
+  @Nullable
+  Object get(String fieldName) throws IOException {
+    Schema.Field field = SCHEMA.getField(fieldName);
+    if (field == null) {
+      throw new IllegalArgumentException("Unknown logging event field " + fieldName);
+    }
+    int pos = field.pos();
+    while (knownPositions <= pos) {
+      input.seek(fieldPositions[knownPositions - 1]);
+      LoggingEventSerializer.skip(FIELDS.get(knownPositions - 1).schema(), decoder);
+      fieldPositions[knownPositions++] = input.position();
+    }
+    input.seek(fieldPositions[pos]);
+    return read(field.schema());
+  }
+
+  /**
+   * Decodes all the fields into a {@link GenericRecord}.
+   */
+  GenericRecord getRecord() throws IOException {
+    ByteBuffer buffer = encoded.duplicate();
+    if (buffer.hasArray()) {
+      return RECORD_READER.read(null, DecoderFactory.get().binaryDecoder(buffer.array(),
+                                                                         buffer.arrayOffset() + buffer.position(),
+                                                                         buffer.remaining(), null));
+    }
+    return RECORD_READER.read(null, DecoderFactory.get().binaryDecoder(Bytes.toBytes(buffer), null));
+  }
+
+  /**
+   * Reads a value of the given schema. Values other than records are read directly from the decoder, which avoids
+   * the overhead of resolving schema in the generic datum reader for the common fields, e.g. strings and MDC.
+   */
+  @Nullable
+  private Object read(Schema schema) throws IOException {
+    switch (schema.getType()) {
+      case NULL:
+        decoder.readNull();
+        return null;
+      case BOOLEAN:
+        return decoder.readBoolean();
+      case INT:
+        return decoder.readInt();
+      case LONG:
+        return decoder.readLong();
+      case STRING:
+        return decoder.readString();
+      case UNION:
+        return read(schema.getTypes().get(decoder.readIndex()));
+      case ARRAY: {
+        GenericData.Array<Object> array = new GenericData.Array<>(0, schema);
+        for (long count = decoder.readArrayStart(); count != 0; count = decoder.arrayNext()) {
+          for (long i = 0; i < count; i++) {
+            array.add(read(schema.getElementType()));
+          }
+        }
+        return array;
+      }
+      case MAP: {
+        Map<String, Object> map = new HashMap<>();
+        for (long count = decoder.readMapStart(); count != 0; count = decoder.mapNext()) {
+          for (long i = 0; i < count; i++) {
+            map.put(decoder.readString(), read(schema.getValueType()));
+          }
+        }
+        return map;
+      }
+      case RECORD:
+        return RECORD_READERS.get(schema).read(null, decoder);
+      default:
+        // This shouldn't happen as the logging event schema doesn't use other types
+        throw new IOException("Unsupported schema type " + schema.getType() + " in logging event schema");
+    }
+  }
+
+  private static Map<Schema, GenericDatumReader<GenericRecord>> createRecordReaders() {
+    Map<Schema, GenericDatumReader<GenericRecord>> readers = new IdentityHashMap<>();
+    Deque<Schema> schemas = new ArrayDeque<>();
+    for (Schema.Field field : FIELDS) {
+      schemas.add(field.schema());
+    }
+    while (!schemas.isEmpty()) {
+      Schema schema = schemas.poll();
+      switch (schema.getType()) {
+        case UNION:
+          schemas.addAll(schema.getTypes());
+          break;
+        case ARRAY:
+          schemas.add(schema.getElementType());
+          break;
+        case MAP:
+          schemas.add(schema.getValueType());
+          break;
+        case RECORD:
+          // Records are read as a whole by the reader, hence no need to look into the record fields
+          if (!readers.containsKey(schema)) {
+            readers.put(schema, new GenericDatumReader<GenericRecord>(schema));
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    return readers;
+  }
+
+  /**
+   * A {@link ByteArrayInputStream} that can tell and change its position.
+   */
+  private static final class PositionedInputStream extends ByteArrayInputStream {
+
+    PositionedInputStream(byte[] buf, int offset, int length) {
+      super(buf, offset, length);
+    }
+
+    int position() {
+      return pos;
+    }
+
+    void seek(int position) {
+      pos = position;
+    }
+  }
+}
@@ -17,36 +17,49 @@
 package io.cdap.cdap.logging.serialize;
 
 import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ClassPackagingData;
 import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.LoggerContextVO;
+import ch.qos.logback.classic.spi.StackTraceElementProxy;
 import com.google.common.base.Throwables;
 import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.logging.LoggingUtil;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericArray;
 import org.apache.avro.generic.GenericData;
-import org.apache.avro.generic.GenericDatumReader;
-import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.BinaryEncoder;
 import org.apache.avro.io.Decoder;
 import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.Encoder;
 import org.apache.avro.io.EncoderFactory;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Map;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
 /**
  * Avro serializer for ILoggingEvent.
  * Method of this class is not thread safe, hence cannot be called from multiple threads concurrently.
+ *
+ * Events are encoded field by field to a {@link BinaryEncoder} over a buffer that is reused across calls, without
+ * creating an intermediate {@link GenericRecord}. Decoded events are backed by the encoded bytes and only decode
+ * the fields that are accessed.
  */
 @NotThreadSafe
 public final class LoggingEventSerializer {
 
-  private final GenericDatumReader<GenericRecord> datumReader = new GenericDatumReader<>(getAvroSchema());
+  // Buffers larger than this size, e.g. after encoding an event with a long stack trace, are not kept for reuse
+  private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
   private BinaryDecoder decoder;
+  private EncodeBuffer encodeBuffer;
+  private BinaryEncoder encoder;
 
   /**
    * Returns the {@link Schema} for logging event, which is the same as {@link LogSchema.LoggingEvent#SCHEMA}.
@@ -59,28 +72,51 @@ public final class LoggingEventSerializer {
    * Encodes a {@link ILoggingEvent} to byte array.
    */
   public byte[] toBytes(ILoggingEvent event) {
-    ByteArrayOutputStream out = new ByteArrayOutputStream();
-    BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(out, null);
-    GenericDatumWriter<GenericRecord> writer = new GenericDatumWriter<>(getAvroSchema());
+    return Bytes.toBytes(encode(event));
+  }
+
+  /**
+   * Encodes a {@link ILoggingEvent} to a {@link ByteBuffer}. The returned buffer is backed by a buffer owned by this
+   * serializer, hence it is only valid until the next call to this serializer.
+   */
+  public ByteBuffer encode(ILoggingEvent event) {
+    if (encodeBuffer == null || encodeBuffer.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+      encodeBuffer = new EncodeBuffer();
+    }
+    encodeBuffer.reset();
+    encoder = EncoderFactory.get().directBinaryEncoder(encodeBuffer, encoder);
     try {
-      writer.write(toGenericRecord(event), encoder);
+      writeEvent(event, encoder);
     } catch (IOException e) {
       // This shouldn't happen since we are writing to byte array output stream.
       throw Throwables.propagate(e);
     }
-    return out.toByteArray();
+    return encodeBuffer.toByteBuffer();
   }
 
   /**
    * Decodes the content of the given {@link ByteBuffer} into {@link ILoggingEvent}, based on the
    * schema returned by the {@link #getAvroSchema()} method.
    *
+   * Only the timestamp is decoded upfront, while other fields are decoded when they are first accessed.
+   * The whole buffer is still validated, so that a truncated or corrupted event fails here instead of
+   * failing on field access. The returned event keeps the encoded bytes until it is discarded. If the buffer
+   * is a slice of a larger array, e.g. a message in a Kafka fetch buffer, the bytes are copied so that the
+   * event doesn't hold on to the larger array.
+   *
    * @param buffer the buffer to decode
    * @return a new instance of {@link ILoggingEvent} decoded from the buffer
    * @throws IOException if fail to decode
    */
   public ILoggingEvent fromBytes(ByteBuffer buffer) throws IOException {
-    return new LoggingEvent(toGenericRecord(buffer), buffer);
+    ByteBuffer encoded = buffer;
+    if (!buffer.hasArray() || buffer.arrayOffset() + buffer.position() != 0
+      || buffer.remaining() != buffer.array().length) {
+      encoded = ByteBuffer.wrap(Bytes.toBytes(buffer));
+    }
+    LoggingEvent event = new LoggingEvent(encoded, decodeEventTimestamp(encoded));
+    event.validate();
+    return event;
   }
 
   /**
@@ -118,18 +154,6 @@ public final class LoggingEventSerializer {
     return decoder;
   }
 
-  /**
-   * Decodes the content of the given {@link ByteBuffer} into {@link GenericRecord}, based on the schema
-   * returned by the {@link #getAvroSchema()} method.
-   *
-   * @param buffer the buffer to decode
-   * @return a {@link GenericRecord} representing the decoded content.
-   * @throws IOException if fail to decode
-   */
-  private GenericRecord toGenericRecord(ByteBuffer buffer) throws IOException {
-    return datumReader.read(null, getDecoder(buffer));
-  }
-
   /**
    * Creates a new {@link GenericRecord} that represents the given {@link ILoggingEvent}.
    */
@@ -168,10 +192,169 @@ public final class LoggingEventSerializer {
     return datum;
   }
 
+  /**
+   * Writes the given event with the {@link LogSchema.LoggingEvent#SCHEMA}. It writes the same content as writing
+   * the record returned by {@link #toGenericRecord(ILoggingEvent)} with a generic datum writer.
+   */
+  private void writeEvent(ILoggingEvent event, Encoder encoder) throws IOException {
+    encoder.writeLong(event.getTimeStamp());
+    encoder.writeInt(event.getLevel() == null ? Level.ERROR_INT : event.getLevel().toInt());
+    writeStringMap(event.getMDCPropertyMap(), encoder);
+    // Marker is not serialized
+    encoder.writeIndex(0);
+    writeString(event.getThreadName(), encoder);
+    writeString(event.getMessage(), encoder);
+
+    Object[] arguments = event.getArgumentArray();
+    if (arguments == null) {
+      encoder.writeIndex(0);
+    } else {
+      encoder.writeIndex(1);
+      encoder.writeArrayStart();
+      encoder.setItemCount(arguments.length);
+      for (Object argument : arguments) {
+        encoder.startItem();
+        writeString(argument == null ? null : argument.toString(), encoder);
+      }
+      encoder.writeArrayEnd();
+    }
+
+    writeString(event.getFormattedMessage(), encoder);
+    writeString(event.getLoggerName(), encoder);
+
+    LoggerContextVO loggerContext = event.getLoggerContextVO();
+    if (loggerContext == null) {
+      encoder.writeIndex(0);
+    } else {
+      encoder.writeIndex(1);
+      writeString(loggerContext.getName(), encoder);
+      writeStringMap(loggerContext.getPropertyMap(), encoder);
+      encoder.writeLong(loggerContext.getBirthTime());
+    }
+
+    writeThrowableProxy(event.getThrowableProxy(), encoder);
+
+    boolean hasCallerData = event.hasCallerData();
+    encoder.writeBoolean(hasCallerData);
+    StackTraceElement[] callerData = hasCallerData ? event.getCallerData() : null;
+    if (callerData == null) {
+      encoder.writeIndex(0);
+    } else {
+      encoder.writeIndex(1);
+      encoder.writeArrayStart();
+      encoder.setItemCount(callerData.length);
+      for (StackTraceElement element : callerData) {
+        encoder.startItem();
+        writeStackTraceElement(element, encoder);
+      }
+      encoder.writeArrayEnd();
+    }
+  }
+
+  /**
+   * Writes a nullable {@link IThrowableProxy} with the ThrowableProxyVO schema.
+   */
+  private void writeThrowableProxy(@Nullable IThrowableProxy throwableProxy, Encoder encoder) throws IOException {
+    if (throwableProxy == null) {
+      encoder.writeIndex(0);
+      return;
+    }
+    encoder.writeIndex(1);
+    writeString(throwableProxy.getClassName(), encoder);
+    writeString(throwableProxy.getMessage(), encoder);
+    encoder.writeInt(throwableProxy.getCommonFrames());
+
+    StackTraceElementProxy[] elementProxies = throwableProxy.getStackTraceElementProxyArray();
+    if (elementProxies == null) {
+      encoder.writeIndex(0);
+    } else {
+      encoder.writeIndex(1);
+      encoder.writeArrayStart();
+      encoder.setItemCount(elementProxies.length);
+      for (StackTraceElementProxy elementProxy : elementProxies) {
+        encoder.startItem();
+        writeStackTraceElement(elementProxy.getStackTraceElement(), encoder);
+        ClassPackagingData packagingData = elementProxy.getClassPackagingData();
+        if (packagingData == null) {
+          encoder.writeIndex(0);
+        } else {
+          encoder.writeIndex(1);
+          writeString(packagingData.getCodeLocation(), encoder);
+          writeString(packagingData.getVersion(), encoder);
+          encoder.writeBoolean(packagingData.isExact());
+        }
+      }
+      encoder.writeArrayEnd();
+    }
+
+    writeThrowableProxy(throwableProxy.getCause(), encoder);
+
+    IThrowableProxy[] suppressed = throwableProxy.getSuppressed();
+    if (suppressed == null) {
+      encoder.writeIndex(0);
+    } else {
+      encoder.writeIndex(1);
+      encoder.writeArrayStart();
+      encoder.setItemCount(suppressed.length);
+      for (IThrowableProxy proxy : suppressed) {
+        encoder.startItem();
+        writeThrowableProxy(proxy, encoder);
+      }
+      encoder.writeArrayEnd();
+    }
+  }
+
+  /**
+   * Writes a nullable {@link StackTraceElement} with the StackTraceElement schema.
+   */
+  private void writeStackTraceElement(@Nullable StackTraceElement element, Encoder encoder) throws IOException {
+    if (element == null) {
+      encoder.writeIndex(0);
+      return;
+    }
+    encoder.writeIndex(1);
+    writeString(element.getClassName(), encoder);
+    writeString(element.getMethodName(), encoder);
+    writeString(element.getFileName(), encoder);
+    encoder.writeInt(element.getLineNumber());
+  }
+
+  /**
+   * Writes a nullable map with nullable string values, with the {@code null} key encoded the same way as
+   * {@link LoggingUtil#encodeMDC(Map)}.
+   */
+  private void writeStringMap(@Nullable Map<String, String> map, Encoder encoder) throws IOException {
+    if (map == null) {
+      encoder.writeIndex(0);
+      return;
+    }
+    encoder.writeIndex(1);
+    encoder.writeMapStart();
+    encoder.setItemCount(map.size());
+    for (Map.Entry<String, String> entry : map.entrySet()) {
+      encoder.startItem();
+      encoder.writeString(entry.getKey() == null ? LoggingUtil.MDC_NULL_KEY : entry.getKey());
+      writeString(entry.getValue(), encoder);
+    }
+    encoder.writeMapEnd();
+  }
+
+  /**
+   * Writes a nullable string with the union of null and string schema.
+   */
+  private void writeString(@Nullable String value, Encoder encoder) throws IOException {
+    if (value == null) {
+      encoder.writeIndex(0);
+    } else {
+      encoder.writeIndex(1);
+      encoder.writeString(value);
+    }
+  }
+
   /**
    * Skips data from the decoder based on the schema.
    */
-  private void skip(Schema schema, Decoder decoder) throws IOException {
+  static void skip(Schema schema, Decoder decoder) throws IOException {
     switch (schema.getType()) {
       case RECORD:
         for (Schema.Field f : schema.getFields()) {
@@ -197,7 +380,7 @@ public final class LoggingEventSerializer {
         }
         break;
       case UNION:
-        decoder.readIndex();
+        skip(schema.getTypes().get(decoder.readIndex()), decoder);
         break;
       case FIXED:
         decoder.skipFixed(schema.getFixedSize());
@@ -228,4 +411,18 @@ public final class LoggingEventSerializer {
         break;
     }
   }
+
+  /**
+   * A {@link ByteArrayOutputStream} that exposes its content as a {@link ByteBuffer} without copying.
+   */
+  private static final class EncodeBuffer extends ByteArrayOutputStream {
+
+    int capacity() {
+      return buf.length;
+    }
+
+    ByteBuffer toByteBuffer() {
+      return ByteBuffer.wrap(buf, 0, count);
+    }
+  }
 }
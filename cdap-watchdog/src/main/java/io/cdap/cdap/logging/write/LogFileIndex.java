@@ -0,0 +1,349 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.logging.write;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.common.io.Locations;
+import org.apache.twill.filesystem.Location;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A sparse index of a saved Avro log file. For each Avro block in the file, the index records the position right
+ * after the sync marker that precedes the block, the number of events, the min and max event timestamps, the set of
+ * log levels and a bloom filter of the MDC entries. Readers use it to seek directly to the first block of a time
+ * range and to skip blocks that cannot contain events matching a filter.
+ *
+ * The index is written next to the log file, with the {@link #SUFFIX} appended to the log file name.
+ */
+public final class LogFileIndex {
+
+  public static final String SUFFIX = ".idx";
+
+  private static final int MAGIC = 0x4c494458;
+  private static final int VERSION = 1;
+  private static final int BLOOM_FILTER_WORDS = 16;
+  private static final int BLOOM_FILTER_HASHES = 3;
+  private static final HashFunction BLOOM_HASH = Hashing.murmur3_128();
+
+  // Standard logback levels, the bit index of a level in the level bitmap is the index in this array
+  private static final Level[] LEVELS = {
+    Level.ALL, Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR, Level.OFF
+  };
+  // Bit for levels that are not one of the standard levels
+  private static final int OTHER_LEVEL_BIT = 1 << LEVELS.length;
+
+  private final List<Block> blocks;
+
+  private LogFileIndex(List<Block> blocks) {
+    this.blocks = ImmutableList.copyOf(blocks);
+  }
+
+  /**
+   * Returns the list of indexed blocks, ordered by position in the log file.
+   */
+  public List<Block> getBlocks() {
+    return blocks;
+  }
+
+  /**
+   * Returns the {@link Location} of the index of the given log file.
+   */
+  public static Location getIndexLocation(Location logLocation) throws IOException {
+    Location parent = Locations.getParent(logLocation);
+    if (parent == null) {
+      throw new IOException("Cannot determine the index location of log file " + logLocation);
+    }
+    return parent.append(logLocation.getName() + SUFFIX);
+  }
+
+  /**
+   * Reads an index from the given {@link InputStream}.
+   *
+   * @throws IOException if failed to read or if the content is not a valid index
+   */
+  public static LogFileIndex read(InputStream is) throws IOException {
+    DataInputStream input = new DataInputStream(is);
+    if (input.readInt() != MAGIC) {
+      throw new IOException("Invalid log file index");
+    }
+    int version = input.readInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported log file index version " + version);
+    }
+    int bloomFilterWords = input.readInt();
+    int size = input.readInt();
+    if (bloomFilterWords <= 0 || size < 0) {
+      throw new IOException("Corrupted log file index");
+    }
+
+    List<Block> blocks = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      long position = input.readLong();
+      int events = input.readInt();
+      long minTimestamp = input.readLong();
+      long maxTimestamp = input.readLong();
+      int levels = input.readInt();
+      long[] bloomFilter = new long[bloomFilterWords];
+      for (int j = 0; j < bloomFilterWords; j++) {
+        bloomFilter[j] = input.readLong();
+      }
+      blocks.add(new Block(position, events, minTimestamp, maxTimestamp, levels, bloomFilter));
+    }
+    return new LogFileIndex(blocks);
+  }
+
+  /**
+   * Writes this index to the given {@link OutputStream}.
+   */
+  public void write(OutputStream os) throws IOException {
+    DataOutputStream output = new DataOutputStream(os);
+    output.writeInt(MAGIC);
+    output.writeInt(VERSION);
+    output.writeInt(BLOOM_FILTER_WORDS);
+    output.writeInt(blocks.size());
+    for (Block block : blocks) {
+      output.writeLong(block.getPosition());
+      output.writeInt(block.getEvents());
+      output.writeLong(block.getMinTimestamp());
+      output.writeLong(block.getMaxTimestamp());
+      output.writeInt(block.levels);
+      for (long word : block.bloomFilter) {
+        output.writeLong(word);
+      }
+    }
+    output.flush();
+  }
+
+  /**
+   * Summary of one Avro block in a log file.
+   */
+  public static final class Block {
+    private final long position;
+    private final int events;
+    private final long minTimestamp;
+    private final long maxTimestamp;
+    private final int levels;
+    private final long[] bloomFilter;
+
+    private Block(long position, int events, long minTimestamp, long maxTimestamp, int levels, long[] bloomFilter) {
+      this.position = position;
+      this.events = events;
+      this.minTimestamp = minTimestamp;
+      this.maxTimestamp = maxTimestamp;
+      this.levels = levels;
+      this.bloomFilter = bloomFilter;
+    }
+
+    /**
+     * Returns the sync position of the block, which can be used to seek the Avro reader.
+     */
+    public long getPosition() {
+      return position;
+    }
+
+    /**
+     * Returns the number of events in the block.
+     */
+    public int getEvents() {
+      return events;
+    }
+
+    public long getMinTimestamp() {
+      return minTimestamp;
+    }
+
+    public long getMaxTimestamp() {
+      return maxTimestamp;
+    }
+
+    /**
+     * Returns {@code false} if the block has no event with a level greater than or equal to the given level.
+     */
+    public boolean mayContainLevel(Level level) {
+      if ((levels & OTHER_LEVEL_BIT) != 0) {
+        return true;
+      }
+      for (int i = 0; i < LEVELS.length; i++) {
+        if ((levels & (1 << i)) != 0 && LEVELS[i].isGreaterOrEqual(level)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Returns {@code false} if the block has no event with the given MDC entry. A {@code true} value may be
+     * a false positive.
+     */
+    public boolean mayContainMdc(String key, @Nullable String value) {
+      if (value == null) {
+        return true;
+      }
+      byte[] hash = hashMdc(key, value);
+      long hash1 = Bytes.toLong(hash, 0);
+      long hash2 = Bytes.toLong(hash, Bytes.SIZEOF_LONG);
+      for (int i = 0; i < BLOOM_FILTER_HASHES; i++) {
+        int bit = bloomFilterBit(hash1, hash2, i, bloomFilter.length);
+        if ((bloomFilter[bit >>> 6] & (1L << bit)) == 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public String toString() {
+      return "Block{" +
+        "position=" + position +
+        ", events=" + events +
+        ", minTimestamp=" + minTimestamp +
+        ", maxTimestamp=" + maxTimestamp +
+        ", levels=" + Integer.toBinaryString(levels) +
+        '}';
+    }
+  }
+
+  /**
+   * Builder for {@link LogFileIndex}. Events are added in the order they are written to the log file, and
+   * {@link #sync(long)} is called each time an Avro block is written.
+   */
+  public static final class Builder {
+    private final List<Block> blocks = new ArrayList<>();
+
+    private long position;
+    private int events;
+    private long minTimestamp;
+    private long maxTimestamp;
+    private int levels;
+    private long[] bloomFilter;
+
+    /**
+     * Creates a builder.
+     *
+     * @param position the position right after the Avro file header, which is where the first block starts
+     */
+    public Builder(long position) {
+      this.position = position;
+      reset();
+    }
+
+    /**
+     * Adds an event to the current block.
+     */
+    public Builder add(ILoggingEvent event) {
+      long timestamp = event.getTimeStamp();
+      minTimestamp = Math.min(minTimestamp, timestamp);
+      maxTimestamp = Math.max(maxTimestamp, timestamp);
+      levels |= levelBit(event.getLevel());
+
+      Map<String, String> mdc = event.getMDCPropertyMap();
+      if (mdc != null) {
+        for (Map.Entry<String, String> entry : mdc.entrySet()) {
+          if (entry.getValue() == null) {
+            continue;
+          }
+          byte[] hash = hashMdc(entry.getKey(), entry.getValue());
+          long hash1 = Bytes.toLong(hash, 0);
+          long hash2 = Bytes.toLong(hash, Bytes.SIZEOF_LONG);
+          for (int i = 0; i < BLOOM_FILTER_HASHES; i++) {
+            int bit = bloomFilterBit(hash1, hash2, i, bloomFilter.length);
+            bloomFilter[bit >>> 6] |= 1L << bit;
+          }
+        }
+      }
+      events++;
+      return this;
+    }
+
+    /**
+     * Ends the current block.
+     *
+     * @param nextPosition the sync position of the next block
+     */
+    public Builder sync(long nextPosition) {
+      if (nextPosition == position) {
+        // Nothing was written since the last sync
+        return this;
+      }
+      endBlock();
+      position = nextPosition;
+      return this;
+    }
+
+    /**
+     * Ends the current block and builds the index. The last block ends at the end of the file.
+     */
+    public LogFileIndex build() {
+      endBlock();
+      return new LogFileIndex(blocks);
+    }
+
+    private void endBlock() {
+      if (events > 0) {
+        blocks.add(new Block(position, events, minTimestamp, maxTimestamp, levels, bloomFilter));
+      }
+      reset();
+    }
+
+    private void reset() {
+      events = 0;
+      minTimestamp = Long.MAX_VALUE;
+      maxTimestamp = Long.MIN_VALUE;
+      levels = 0;
+      bloomFilter = new long[BLOOM_FILTER_WORDS];
+    }
+  }
+
+  private static int levelBit(@Nullable Level level) {
+    // Events without level are serialized as ERROR
+    int levelInt = level == null ? Level.ERROR_INT : level.toInt();
+    for (int i = 0; i < LEVELS.length; i++) {
+      if (LEVELS[i].toInt() == levelInt) {
+        return 1 << i;
+      }
+    }
+    return OTHER_LEVEL_BIT;
+  }
+
+  private static byte[] hashMdc(String key, String value) {
+    return BLOOM_HASH.hashString(key + '=' + value, Charsets.UTF_8).asBytes();
+  }
+
+  /**
+   * Computes the i-th bit of a bloom filter with double hashing.
+   */
+  private static int bloomFilterBit(long hash1, long hash2, int i, int words) {
+    long combined = hash1 + i * hash2;
+    return (int) ((combined & Long.MAX_VALUE) % (words * Long.SIZE));
+  }
+}
@@ -42,14 +42,19 @@ import org.apache.twill.filesystem.Location;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.Callable;
+import javax.annotation.Nullable;
 
 /**
  * LogLocation representing a log file and methods to read the file's contents.
@@ -150,6 +155,11 @@ public class LogLocation {
    */
   @SuppressWarnings("WeakerAccess")
   public Collection<LogEvent> readLogPrev(Filter logFilter, long fromTimeMs, final int maxEvents) throws IOException {
+    LogFileIndex index = readIndex();
+    if (index != null) {
+      return readLogPrev(index, logFilter, fromTimeMs, maxEvents);
+    }
+
     Deque<Collection<LogEvent>> logSegments = new LinkedList<>();
     int count = 0;
     try {
@@ -206,6 +216,58 @@ public class LogLocation {
     return Lists.newArrayList(Iterables.skip(Iterables.concat(logSegments), skip));
   }
 
+  /**
+   * Reads the previous log events by going backward through the blocks in the {@link LogFileIndex}, skipping blocks
+   * that start after fromTimeMs or cannot match the filter.
+   */
+  private Collection<LogEvent> readLogPrev(LogFileIndex index, Filter logFilter, long fromTimeMs, int maxEvents) {
+    Deque<Collection<LogEvent>> logSegments = new LinkedList<>();
+    int count = 0;
+    try (DataFileReader<GenericRecord> dataFileReader = createReader()) {
+      List<LogFileIndex.Block> blocks = index.getBlocks();
+      for (int i = blocks.size() - 1; i >= 0 && count < maxEvents; i--) {
+        LogFileIndex.Block block = blocks.get(i);
+        if (block.getMinTimestamp() > fromTimeMs || !logFilter.mayMatch(block)) {
+          continue;
+        }
+        dataFileReader.seek(block.getPosition());
+        List<LogEvent> logSegment = readBlock(dataFileReader, block.getEvents(), logFilter, fromTimeMs);
+        if (!logSegment.isEmpty()) {
+          logSegments.addFirst(logSegment);
+          count = count + logSegment.size();
+        }
+        LOG.trace("Read log events {} from indexed block {}", count, block);
+      }
+    } catch (IOException e) {
+      READ_FAILURE_LOG.warn("Got exception while reading log file {}", location, e);
+    }
+
+    int skip = count >= maxEvents ? count - maxEvents : 0;
+    return Lists.newArrayList(Iterables.skip(Iterables.concat(logSegments), skip));
+  }
+
+  /**
+   * Reads the given number of events of the block the reader is positioned at, stopping at fromTimeMs.
+   */
+  private List<LogEvent> readBlock(DataFileReader<GenericRecord> dataFileReader, int events, Filter logFilter,
+                                   long fromTimeMs) throws IOException {
+    List<LogEvent> logSegment = new ArrayList<>();
+    for (int i = 0; i < events && dataFileReader.hasNext(); i++) {
+      ILoggingEvent loggingEvent = new LoggingEvent(dataFileReader.next());
+      loggingEvent.prepareForDeferredProcessing();
+
+      // Stop when reached fromTimeMs
+      if (loggingEvent.getTimeStamp() > fromTimeMs) {
+        break;
+      }
+      if (logFilter.match(loggingEvent)) {
+        logSegment.add(new LogEvent(loggingEvent,
+                                    new LogOffset(LogOffset.INVALID_KAFKA_OFFSET, loggingEvent.getTimeStamp())));
+      }
+    }
+    return logSegment;
+  }
+
   /**
    *  Read current block in Avro file from current block sync marker to next block sync marker
    */
@@ -259,6 +321,9 @@ public class LogLocation {
     private final long maxEvents;
 
     private DataFileReader<GenericRecord> dataFileReader;
+    // Blocks of the log file index, or null if the file has no index
+    private Iterator<LogFileIndex.Block> blocks;
+    private int blockRemaining;
 
     private ILoggingEvent loggingEvent;
     private GenericRecord datum;
@@ -276,7 +341,10 @@ public class LogLocation {
 
       try {
         dataFileReader = createReader();
-        if (dataFileReader.hasNext()) {
+        LogFileIndex index = readIndex();
+        if (index != null) {
+          blocks = index.getBlocks().iterator();
+        } else if (dataFileReader.hasNext()) {
           datum = dataFileReader.next();
           loggingEvent = new LoggingEvent(datum);
           loggingEvent.prepareForDeferredProcessing();
@@ -315,8 +383,12 @@ public class LogLocation {
     private void computeNext() {
       try {
         // read events from file
-        while (next == null && dataFileReader.hasNext()) {
-          loggingEvent = new LoggingEvent(dataFileReader.next(datum));
+        while (next == null && hasNextRecord()) {
+          datum = dataFileReader.next(datum);
+          if (blocks != null) {
+            blockRemaining--;
+          }
+          loggingEvent = new LoggingEvent(datum);
           loggingEvent.prepareForDeferredProcessing();
 
           if (loggingEvent.getTimeStamp() >= fromTimeMs && logFilter.match(loggingEvent)) {
@@ -338,6 +410,33 @@ public class LogLocation {
       }
     }
 
+    /**
+     * Returns whether there is a record to read. If the file has an index, the reader is moved to the next block
+     * that may have matching events when the current block is exhausted.
+     */
+    private boolean hasNextRecord() throws IOException {
+      if (blocks == null) {
+        return dataFileReader.hasNext();
+      }
+      while (blockRemaining <= 0) {
+        if (!blocks.hasNext()) {
+          return false;
+        }
+        LogFileIndex.Block block = blocks.next();
+        // All events of the block are at or after toTimeMs, hence no more event will be returned
+        if (block.getMinTimestamp() >= toTimeMs && block.getMinTimestamp() > prevTimestamp) {
+          return false;
+        }
+        if (block.getMaxTimestamp() < fromTimeMs || !logFilter.mayMatch(block)) {
+          continue;
+        }
+        LOG.trace("Seeking to indexed block {}", block);
+        dataFileReader.seek(block.getPosition());
+        blockRemaining = block.getEvents();
+      }
+      return dataFileReader.hasNext();
+    }
+
     @Override
     public void close() {
       try {
@@ -371,6 +470,31 @@ public class LogLocation {
     }
   }
 
+  /**
+   * Reads the {@link LogFileIndex} of the log file.
+   *
+   * @return the index or {@code null} if the file has no index or the index cannot be read
+   */
+  @Nullable
+  private LogFileIndex readIndex() {
+    // Files written by the old logging framework don't have index
+    if (VERSION_0.equals(frameworkVersion)) {
+      return null;
+    }
+    try {
+      Location indexLocation = LogFileIndex.getIndexLocation(location);
+      try (InputStream is = new BufferedInputStream(indexLocation.getInputStream())) {
+        return LogFileIndex.read(is);
+      }
+    } catch (FileNotFoundException e) {
+      // The file is still open for writing or was written before index was introduced
+      return null;
+    } catch (IOException e) {
+      READ_FAILURE_LOG.warn("Failed to read index of log file {}. Reading without index.", location, e);
+      return null;
+    }
+  }
+
   private DataFileReader<GenericRecord> createReader() throws IOException {
     boolean shouldImpersonate = this.getFrameworkVersion().equals(VERSION_0);
     return new DataFileReader<>(new LocationSeekableInput(location, namespaceId, impersonator, shouldImpersonate),
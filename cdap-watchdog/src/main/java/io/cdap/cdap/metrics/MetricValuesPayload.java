@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metrics;
+
+import com.google.common.io.ByteStreams;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.data.schema.SchemaHash;
+import io.cdap.cdap.api.metrics.MetricValues;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Defines the format of the {@link MetricValues} payloads published to TMS. A payload starts with a header
+ * consisting of a two bytes marker and the {@link SchemaHash} of the schema used to encode the payload, followed
+ * by the encoded {@link MetricValues}. Payloads published before the header was introduced do not have it and
+ * are always encoded with the {@link #LEGACY_SCHEMA}.
+ */
+public final class MetricValuesPayload {
+
+  /**
+   * The {@link MetricValues} schema used to encode payloads without a header, which is the schema before
+   * the distribution metric type was added.
+   */
+  public static final Schema LEGACY_SCHEMA;
+
+  // A payload without header starts with the union index of the nullable "metrics" field, which is encoded
+  // as the byte 0x00 or 0x02, hence it never starts with this marker.
+  private static final byte[] MARKER = { (byte) 0xC3, 0x01 };
+  private static final int HEADER_SIZE = MARKER.length + 16;
+
+  static {
+    Schema metricValue = Schema.recordOf(
+      "io.cdap.cdap.api.metrics.MetricValue",
+      Schema.Field.of("name", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+      Schema.Field.of("type", Schema.nullableOf(Schema.enumWith("COUNTER", "GAUGE"))),
+      Schema.Field.of("value", Schema.of(Schema.Type.LONG)));
+
+    LEGACY_SCHEMA = Schema.recordOf(
+      "io.cdap.cdap.api.metrics.MetricValues",
+      Schema.Field.of("metrics", Schema.nullableOf(Schema.arrayOf(Schema.nullableOf(metricValue)))),
+      Schema.Field.of("tags", Schema.nullableOf(Schema.mapOf(Schema.of(Schema.Type.STRING),
+                                                             Schema.nullableOf(Schema.of(Schema.Type.STRING))))),
+      Schema.Field.of("timestamp", Schema.of(Schema.Type.LONG)));
+  }
+
+  private MetricValuesPayload() {
+    // no-op
+  }
+
+  /**
+   * Returns the header to write before a {@link MetricValues} encoded with the given schema.
+   */
+  public static byte[] createHeader(Schema schema) {
+    return ByteBuffer.allocate(HEADER_SIZE).put(MARKER).put(schema.getSchemaHash().toByteArray()).array();
+  }
+
+  /**
+   * Reads the header of a payload and returns the schema used to encode it. After this method returns, the given
+   * {@link InputStream} is positioned at the start of the encoded {@link MetricValues}.
+   *
+   * @param input the payload, which must support {@link InputStream#mark(int)}
+   * @param schemas the known writer schemas
+   * @return the schema from {@code schemas} that the payload was encoded with, or the {@link #LEGACY_SCHEMA}
+   *         if the payload does not have a header
+   * @throws IOException if failed to read the payload or the payload was encoded with an unknown schema
+   */
+  public static Schema readWriterSchema(InputStream input, Map<SchemaHash, Schema> schemas) throws IOException {
+    byte[] header = new byte[HEADER_SIZE];
+    input.mark(HEADER_SIZE);
+    if (ByteStreams.read(input, header, 0, HEADER_SIZE) < HEADER_SIZE
+      || header[0] != MARKER[0] || header[1] != MARKER[1]) {
+      input.reset();
+      return LEGACY_SCHEMA;
+    }
+
+    SchemaHash schemaHash = new SchemaHash(ByteBuffer.wrap(header, MARKER.length, HEADER_SIZE - MARKER.length));
+    Schema schema = schemas.get(schemaHash);
+    if (schema == null) {
+      throw new IOException("Payload is encoded with an unknown schema " + schemaHash);
+    }
+    return schema;
+  }
+}
@@ -236,6 +236,11 @@ public abstract class AggregatedMetricsCollectionService extends AbstractExecuti
       emitters.getUnchecked(tags).getUnchecked(metricName).gauge(value);
     }
 
+    @Override
+    public void record(String metricName, long value) {
+      emitters.getUnchecked(tags).getUnchecked(metricName).record(value);
+    }
+
     @Override
     public MetricsContext childContext(String tagName, String tagValue) {
       ImmutableMap<String, String> allTags = ImmutableMap.<String, String>builder()
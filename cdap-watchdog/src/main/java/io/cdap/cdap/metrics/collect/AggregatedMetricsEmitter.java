@@ -15,6 +15,7 @@
  */
 package io.cdap.cdap.metrics.collect;
 
+import io.cdap.cdap.api.metrics.MetricDistribution;
 import io.cdap.cdap.api.metrics.MetricType;
 import io.cdap.cdap.api.metrics.MetricValue;
 import org.slf4j.Logger;
@@ -22,10 +23,14 @@ import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
 
 /**
  * {@link MetricsEmitter} that aggregates  values for a metric
- * during collection and emit the aggregated value when emit.
+ * during collection and emit the aggregated value when emit. Values recorded for a distribution are counted in the
+ * buckets of a {@link MetricDistribution}, which are only allocated for the metrics that record values.
  */
 final class AggregatedMetricsEmitter implements MetricsEmitter {
   private static final Logger LOG = LoggerFactory.getLogger(AggregatedMetricsEmitter.class);
@@ -35,6 +40,8 @@ final class AggregatedMetricsEmitter implements MetricsEmitter {
   private final AtomicLong value;
   // specifies if the metric type is gauge or counter
   private final AtomicBoolean gaugeUsed;
+  // bucket counts of the recorded values
+  private final AtomicReference<AtomicLongArray> distribution;
 
   AggregatedMetricsEmitter(String name) {
     if (name == null || name.isEmpty()) {
@@ -44,6 +51,7 @@ final class AggregatedMetricsEmitter implements MetricsEmitter {
     this.name = name;
     this.value = new AtomicLong();
     this.gaugeUsed = new AtomicBoolean(false);
+    this.distribution = new AtomicReference<>();
   }
 
   void increment(long value) {
@@ -51,8 +59,21 @@ final class AggregatedMetricsEmitter implements MetricsEmitter {
   }
 
 
+  void record(long value) {
+    AtomicLongArray buckets = distribution.get();
+    if (buckets == null) {
+      distribution.compareAndSet(null, new AtomicLongArray(MetricDistribution.BUCKET_COUNT));
+      buckets = distribution.get();
+    }
+    buckets.incrementAndGet(MetricDistribution.getBucket(value));
+  }
+
   @Override
   public MetricValue emit() {
+    MetricDistribution recorded = emitDistribution();
+    if (recorded != null) {
+      return new MetricValue(name, recorded);
+    }
     // todo CDAP-2195 - potential race condition , reseting value and type has to be done together
     long value = this.value.getAndSet(0);
     MetricType type = gaugeUsed.getAndSet(false) ? MetricType.GAUGE : MetricType.COUNTER;
@@ -63,4 +84,37 @@ final class AggregatedMetricsEmitter implements MetricsEmitter {
     this.value.set(value);
     this.gaugeUsed.set(true);
   }
+
+  /**
+   * Resets the bucket counts and returns the recorded values, or {@code null} if no value was recorded.
+   */
+  @Nullable
+  private MetricDistribution emitDistribution() {
+    AtomicLongArray buckets = distribution.get();
+    if (buckets == null) {
+      return null;
+    }
+    long[] counts = new long[buckets.length()];
+    int size = 0;
+    for (int i = 0; i < counts.length; i++) {
+      // buckets are reset one by one, a value recorded concurrently is either emitted now or on the next emit
+      counts[i] = buckets.get(i) == 0 ? 0 : buckets.getAndSet(i, 0);
+      if (counts[i] != 0) {
+        size++;
+      }
+    }
+    if (size == 0) {
+      return null;
+    }
+    int[] nonEmptyBuckets = new int[size];
+    long[] nonEmptyCounts = new long[size];
+    int idx = 0;
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] != 0) {
+        nonEmptyBuckets[idx] = i;
+        nonEmptyCounts[idx++] = counts[i];
+      }
+    }
+    return new MetricDistribution(nonEmptyBuckets, nonEmptyCounts);
+  }
 }
@@ -18,8 +18,10 @@ package io.cdap.cdap.metrics.collect;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import io.cdap.cdap.api.data.schema.UnsupportedTypeException;
 import io.cdap.cdap.api.messaging.TopicNotFoundException;
 import io.cdap.cdap.api.metrics.MetricValues;
 import io.cdap.cdap.common.ServiceUnavailableException;
@@ -30,8 +32,10 @@ import io.cdap.cdap.common.io.DatumWriter;
 import io.cdap.cdap.common.io.Encoder;
 import io.cdap.cdap.common.service.RetryStrategies;
 import io.cdap.cdap.common.service.RetryStrategy;
+import io.cdap.cdap.internal.io.SchemaGenerator;
 import io.cdap.cdap.messaging.MessagingService;
 import io.cdap.cdap.messaging.client.StoreRequestBuilder;
+import io.cdap.cdap.metrics.MetricValuesPayload;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.TopicId;
 import org.slf4j.Logger;
@@ -57,6 +61,7 @@ public class MessagingMetricsCollectionService extends AggregatedMetricsCollecti
 
   private final MessagingService messagingService;
   private final DatumWriter<MetricValues> recordWriter;
+  private final byte[] payloadHeader;
   private final ByteArrayOutputStream encoderOutputStream;
   private final Encoder encoder;
   private final Map<Integer, TopicPayload> topicPayloads;
@@ -64,6 +69,7 @@ public class MessagingMetricsCollectionService extends AggregatedMetricsCollecti
   @Inject
   MessagingMetricsCollectionService(CConfiguration cConf,
                                     MessagingService messagingService,
+                                    SchemaGenerator schemaGenerator,
                                     DatumWriter<MetricValues> recordWriter) {
     super(TimeUnit.SECONDS.toMillis(cConf.getInt(Constants.Metrics.METRICS_MINIMUM_RESOLUTION_SECONDS)));
 
@@ -73,6 +79,13 @@ public class MessagingMetricsCollectionService extends AggregatedMetricsCollecti
     Preconditions.checkArgument(totalTopicNum > 0, "Constants.Metrics.MESSAGING_TOPIC_NUM must be a positive integer");
     this.messagingService = messagingService;
     this.recordWriter = recordWriter;
+    try {
+      // The header carries the hash of the writer schema for the metrics processor to decode the payload with
+      this.payloadHeader = MetricValuesPayload.createHeader(schemaGenerator.generate(MetricValues.class));
+    } catch (UnsupportedTypeException e) {
+      // This should never happen
+      throw Throwables.propagate(e);
+    }
 
     // Parent guarantees the publish method would not get called concurrently, hence safe to reuse the same instances.
     this.encoderOutputStream = new ByteArrayOutputStream(1024);
@@ -92,6 +105,7 @@ public class MessagingMetricsCollectionService extends AggregatedMetricsCollecti
       encoderOutputStream.reset();
       MetricValues metricValues = metrics.next();
       // Encode MetricValues into bytes
+      encoderOutputStream.write(payloadHeader);
       recordWriter.encode(metricValues, encoder);
       TopicPayload topicPayload = topicPayloads.get(Math.abs(metricValues.getTags().hashCode() % size));
       // Calculate the topic number with the hashcode of MetricValues' tags and store the encoded payload in the
@@ -24,6 +24,7 @@ import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.data.schema.SchemaHash;
 import io.cdap.cdap.api.data.schema.UnsupportedTypeException;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.api.metrics.MetricStore;
@@ -43,6 +44,7 @@ import io.cdap.cdap.internal.io.SchemaGenerator;
 import io.cdap.cdap.messaging.MessageFetcher;
 import io.cdap.cdap.messaging.MessagingService;
 import io.cdap.cdap.messaging.data.RawMessage;
+import io.cdap.cdap.metrics.MetricValuesPayload;
 import io.cdap.cdap.metrics.store.MetricDatasetFactory;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.TopicId;
@@ -52,6 +54,7 @@ import org.slf4j.LoggerFactory;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -80,7 +83,8 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
   private final List<TopicId> metricsTopics;
   private final MessagingService messagingService;
   private final DatumReader<MetricValues> metricReader;
-  private final Schema metricSchema;
+  // Schemas of the published payloads that can be decoded, keyed by the schema hash in the payload header
+  private final Map<SchemaHash, Schema> writerSchemas;
   private final MetricStore metricStore;
   private final Map<String, String> metricsContextMap;
   private final int fetcherLimit;
@@ -96,6 +100,9 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
   private final String processMetricName;
   private final String metricsPrefixForDelayMetrics;
   private long metricsProcessedCount;
+  // only the first processor instance rolls up the metrics
+  @Nullable
+  private final MetricsRollupService rollupService;
 
   private MetricsConsumerMetaTable metaTable;
 
@@ -136,8 +143,9 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
       .collect(Collectors.toList());
     this.messagingService = messagingService;
     try {
-      this.metricSchema = schemaGenerator.generate(MetricValues.class);
+      Schema metricSchema = schemaGenerator.generate(MetricValues.class);
       this.metricReader = readerFactory.create(TypeToken.of(MetricValues.class), metricSchema);
+      this.writerSchemas = Collections.singletonMap(metricSchema.getSchemaHash(), metricSchema);
     } catch (UnsupportedTypeException e) {
       // This should never happen
       throw Throwables.propagate(e);
@@ -156,6 +164,22 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
     this.metricsProcessIntervalMillis = metricsProcessIntervalMillis < Constants.Metrics.PROCESS_INTERVAL_MILLIS ?
       metricsProcessIntervalMillis : Constants.Metrics.PROCESS_INTERVAL_MILLIS;
     this.processMetricName = String.format("metrics.%s.process.count", instanceId);
+    this.rollupService = instanceId == 0 && cConf.getBoolean(Constants.Metrics.ROLLUP_ENABLED) ?
+      new MetricsRollupService(metricStore, cConf.getLong(Constants.Metrics.ROLLUP_INTERVAL_SECONDS)) : null;
+  }
+
+  @Override
+  protected void startUp() throws Exception {
+    if (rollupService != null) {
+      rollupService.startAndWait();
+    }
+  }
+
+  @Override
+  protected void shutDown() throws Exception {
+    if (rollupService != null) {
+      rollupService.stopAndWait();
+    }
   }
 
   private MetricsConsumerMetaTable getMetaTable() {
@@ -367,17 +391,24 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
         }
 
         byte[] currentMessageId = null;
+        // the processed timestamp only moves forward once the topic is drained
         TopicProcessMeta localTopicProcessMeta =
           new TopicProcessMeta(lastMessageId, Long.MAX_VALUE, Long.MIN_VALUE, 0,
-                               TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()),
+                               persistMetaInfo == null ? 0L : persistMetaInfo.getLastProcessedTimestamp(),
                                oldestTsMetricName, latestTsMetricName);
+        int fetchedCount = 0;
+        boolean queueFull = false;
+        boolean drained;
         try (CloseableIterator<RawMessage> iterator = fetcher.fetch()) {
           while (iterator.hasNext() && isRunning()) {
             RawMessage input = iterator.next();
+            fetchedCount++;
             try {
               payloadInput.reset(input.getPayload());
-              MetricValues metricValues = metricReader.read(decoder, metricSchema);
+              Schema writerSchema = MetricValuesPayload.readWriterSchema(payloadInput, writerSchemas);
+              MetricValues metricValues = metricReader.read(decoder, writerSchema);
               if (!metricsFromAllTopics.offer(metricValues)) {
+                queueFull = true;
                 break;
               }
               lastMetricTimeSecs = metricValues.getTimestamp();
@@ -390,13 +421,26 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
               LOG.warn("Failed to decode message to MetricValue. Skipped. {}", e.getMessage());
             }
           }
+          // every message published before the fetch started is processed if the fetch did not stop early
+          drained = !queueFull && fetchedCount < fetcherLimit && !iterator.hasNext();
         }
 
+        long processedTimestamp = TimeUnit.MILLISECONDS.toSeconds(startTime);
         if (currentMessageId != null) {
           // update the last processed timestamp in local topic meta and update the topicProcessMetaMap with this
           // local topic meta for the topic
-          localTopicProcessMeta.updateLastProcessedTimestamp();
+          if (drained) {
+            localTopicProcessMeta.updateLastProcessedTimestamp(processedTimestamp);
+          }
           topicProcessMetaMap.put(topicIdMetaKey, localTopicProcessMeta);
+        } else if (drained && persistMetaInfo != null) {
+          // move the processed timestamp of an idle topic forward, so that it does not hold back the rollup
+          topicProcessMetaMap.put(topicIdMetaKey,
+                                  new TopicProcessMeta(persistMetaInfo.getMessageId(),
+                                                       persistMetaInfo.getOldestMetricsTimestamp(),
+                                                       persistMetaInfo.getLatestMetricsTimestamp(),
+                                                       persistMetaInfo.getMessagesProcessed(), processedTimestamp,
+                                                       oldestTsMetricName, latestTsMetricName));
         }
         // Try to persist metrics and messageId's of the last metrics to be persisted if no other thread is persisting
         tryPersist();
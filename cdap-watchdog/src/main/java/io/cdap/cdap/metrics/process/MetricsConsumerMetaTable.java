@@ -35,6 +35,9 @@ public class MetricsConsumerMetaTable {
   private static final byte[] LAST_PROCESS_TIMESTAMP = Bytes.toBytes("lpt");
   private static final byte[] PROCESS_TIMESTAMP_LATEST = Bytes.toBytes("ptl");
 
+  private static final String ROLLUP_KEY_PREFIX = "rollup.";
+  private static final byte[] ROLLUP_CHECKPOINT = Bytes.toBytes("rc");
+
   private final MetricsTable metaTable;
 
   public MetricsConsumerMetaTable(MetricsTable metaTable) {
@@ -80,6 +83,32 @@ public class MetricsConsumerMetaTable {
   }
 
 
+  /**
+   * Gets the rollup checkpoint of the given metrics resolution.
+   *
+   * @return the checkpoint timestamp in seconds or {@code null} if the rollup has not started for the resolution
+   */
+  @Nullable
+  public synchronized Long getRollupCheckpoint(int resolution) {
+    byte[] checkpoint = metaTable.get(getRollupKey(resolution), ROLLUP_CHECKPOINT);
+    return checkpoint == null ? null : Bytes.toLong(checkpoint);
+  }
+
+  /**
+   * Saves the rollup checkpoint of the given metrics resolution.
+   */
+  public void saveRollupCheckpoint(int resolution, long timestamp) {
+    SortedMap<byte[], SortedMap<byte[], byte[]>> updates = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    SortedMap<byte[], byte[]> columns = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    columns.put(ROLLUP_CHECKPOINT, Bytes.toBytes(timestamp));
+    updates.put(getRollupKey(resolution), columns);
+    metaTable.putBytes(updates);
+  }
+
+  private static byte[] getRollupKey(int resolution) {
+    return Bytes.toBytes(ROLLUP_KEY_PREFIX + resolution);
+  }
+
   private synchronized long getLong(byte[] rowKey, byte[] column) {
     byte[] result = metaTable.get(rowKey, column);
     if (result == null) {
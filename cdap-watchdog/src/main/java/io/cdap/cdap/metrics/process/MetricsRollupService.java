@@ -0,0 +1,56 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.metrics.process;
+
+import com.google.common.util.concurrent.AbstractScheduledService;
+import io.cdap.cdap.api.metrics.MetricStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A service that periodically rolls up the closed time windows of the metrics into the coarser resolution tables,
+ * see {@link MetricStore#rollup()}. The rollup progress is checkpointed, hence a restarted service catches up from
+ * where it left off.
+ */
+final class MetricsRollupService extends AbstractScheduledService {
+  private static final Logger LOG = LoggerFactory.getLogger(MetricsRollupService.class);
+
+  private final MetricStore metricStore;
+  private final long intervalSecs;
+
+  MetricsRollupService(MetricStore metricStore, long intervalSecs) {
+    this.metricStore = metricStore;
+    this.intervalSecs = intervalSecs;
+  }
+
+  @Override
+  protected void runOneIteration() {
+    try {
+      metricStore.rollup();
+    } catch (Exception e) {
+      LOG.warn("Failed to rollup metrics, will retry in {} seconds", intervalSecs, e);
+    }
+  }
+
+  @Override
+  protected Scheduler scheduler() {
+    return Scheduler.newFixedDelaySchedule(1, intervalSecs, TimeUnit.SECONDS);
+  }
+}
@@ -17,7 +17,6 @@
 package io.cdap.cdap.metrics.process;
 
 import java.util.Objects;
-import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
@@ -46,7 +45,7 @@ public final class TopicProcessMeta {
    * @param oldestMetricsTimestamp - oldest timestamp among the processed metrics
    * @param latestMetricsTimestamp - latest timestamp among the processed metrics
    * @param messagesProcessed - messages processed in an iteration
-   * @param lastProcessedTimestamp - timestamp when the most recent update happened
+   * @param lastProcessedTimestamp - timestamp before which all the messages of the topic are processed
    * @param oldestMetricsTimestampMetricName - metric name used for oldest metrics timestamp - not serialized
    * @param latestMetricsTimestampMetricName - metric name used for latest metrics timestamp - not serialized
    */
@@ -80,10 +79,11 @@ public final class TopicProcessMeta {
   }
 
   /**
-   * we update the last processed timestamp to the current time in seconds on this call
+   * updates the last processed timestamp, before which every message of the topic is processed
+   * @param timestamp timestamp in seconds
    */
-  void updateLastProcessedTimestamp() {
-    lastProcessedTimestamp = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+  void updateLastProcessedTimestamp(long timestamp) {
+    lastProcessedTimestamp = timestamp;
   }
 
   @Nullable
@@ -18,7 +18,7 @@ package io.cdap.cdap.metrics.query;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
-import com.google.common.base.Predicates;
+import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -31,23 +31,38 @@ import io.cdap.cdap.api.dataset.lib.cube.Interpolator;
 import io.cdap.cdap.api.dataset.lib.cube.Interpolators;
 import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
 import io.cdap.cdap.api.metrics.MetricDataQuery;
+import io.cdap.cdap.api.metrics.MetricDistribution;
 import io.cdap.cdap.api.metrics.MetricSearchQuery;
 import io.cdap.cdap.api.metrics.MetricStore;
 import io.cdap.cdap.api.metrics.MetricTimeSeries;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
 import io.cdap.cdap.api.metrics.TagValue;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.common.utils.TimeMathParser;
+import io.cdap.cdap.metrics.store.MetricsDeleteTracker;
 import io.cdap.cdap.proto.MetricQueryRequest;
 import io.cdap.cdap.proto.MetricQueryResult;
 import io.cdap.cdap.proto.MetricTagValue;
+import io.cdap.cdap.proto.id.NamespaceId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import javax.annotation.Nullable;
 
 /**
@@ -71,8 +86,11 @@ public class MetricsQueryHelper {
   private static final String PARAM_AGGREGATE = "aggregate";
   private static final String PARAM_AUTO_RESOLUTION = "auto";
   private static final String ANY_TAG_VALUE = "*";
+  // a percentile of a distribution metric is queried as "<metric>:p<percentile>", e.g. "system.request.latency:p99"
+  private static final Pattern PERCENTILE_METRIC = Pattern.compile("(.+):p(\\d+(?:\\.\\d+)?)");
 
   private final MetricStore metricStore;
+  private final MetricsQueryResultCache queryResultCache;
   private final int minResolution;
 
   private static final Map<String, String> tagNameToHuman;
@@ -121,8 +139,14 @@ public class MetricsQueryHelper {
   }
 
   @Inject
-  public MetricsQueryHelper(MetricStore metricStore, CConfiguration cConf) {
+  public MetricsQueryHelper(MetricStore metricStore, MetricsDeleteTracker deleteTracker, CConfiguration cConf,
+                            MetricsCollectionService metricsCollectionService) {
     this.metricStore = metricStore;
+    this.queryResultCache = new MetricsQueryResultCache(metricStore, deleteTracker, cConf,
+      metricsCollectionService.getContext(ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE,
+                                                          NamespaceId.SYSTEM.getNamespace(),
+                                                          Constants.Metrics.Tag.COMPONENT,
+                                                          Constants.Service.METRICS)));
     int minimumResolution = cConf.getInt(Constants.Metrics.METRICS_MINIMUM_RESOLUTION_SECONDS);
     this.minResolution = minimumResolution < 60 ? minimumResolution : 60;
   }
@@ -167,7 +191,13 @@ public class MetricsQueryHelper {
     MetricSearchQuery searchQuery =
       new MetricSearchQuery(0, Integer.MAX_VALUE, -1, toTagValues(tagValues));
     Collection<String> metricNames = metricStore.findMetricNames(searchQuery);
-    return Lists.newArrayList(Iterables.filter(metricNames, Predicates.notNull()));
+    // the bucket counters of distribution metrics are only queried through percentiles
+    return Lists.newArrayList(Iterables.filter(metricNames, new Predicate<String>() {
+      @Override
+      public boolean apply(@Nullable String metricName) {
+        return metricName != null && !MetricDistribution.isBucketMetricName(metricName);
+      }
+    }));
   }
 
   private List<TagValue> toTagValues(List<MetricTagValue> tagValues) {
@@ -330,12 +360,35 @@ public class MetricsQueryHelper {
 
     MetricQueryRequest.TimeRange timeRange = queryRequest.getTimeRange();
 
-    MetricDataQuery query = new MetricDataQuery(timeRange.getStart(), timeRange.getEnd(),
-                                                timeRange.getResolutionInSeconds(),
-                                                timeRange.getCount(), toMetrics(queryRequest.getMetrics()),
-                                                tagsSliceBy, transformGroupByTags(queryRequest.getGroupBy()),
-                                                timeRange.getInterpolate());
-    Collection<MetricTimeSeries> queryResult = metricStore.query(query);
+    List<String> metrics = new ArrayList<>();
+    Map<String, ImmutablePair<String, Double>> percentileMetrics = new LinkedHashMap<>();
+    for (String metric : queryRequest.getMetrics()) {
+      Matcher matcher = PERCENTILE_METRIC.matcher(metric);
+      if (!matcher.matches()) {
+        metrics.add(metric);
+        continue;
+      }
+      double percentile = Double.parseDouble(matcher.group(2));
+      if (percentile > 100) {
+        throw new IllegalArgumentException(String.format("Invalid percentile %s in metric %s, it must not be " +
+                                                           "greater than 100", matcher.group(2), metric));
+      }
+      percentileMetrics.put(metric, ImmutablePair.of(matcher.group(1), percentile));
+    }
+
+    List<MetricTimeSeries> queryResult = new ArrayList<>();
+    if (!metrics.isEmpty()) {
+      MetricDataQuery query = new MetricDataQuery(timeRange.getStart(), timeRange.getEnd(),
+                                                  timeRange.getResolutionInSeconds(),
+                                                  timeRange.getCount(), toMetrics(metrics),
+                                                  tagsSliceBy, transformGroupByTags(queryRequest.getGroupBy()),
+                                                  timeRange.getInterpolate());
+      queryResult.addAll(queryResultCache.query(query));
+    }
+    if (!percentileMetrics.isEmpty()) {
+      queryResult.addAll(queryPercentiles(percentileMetrics, tagsSliceBy,
+                                          transformGroupByTags(queryRequest.getGroupBy()), timeRange));
+    }
 
     long endTime = timeRange.getEnd();
     if (timeRange.getResolutionInSeconds() == Integer.MAX_VALUE && endTime == 0) {
@@ -346,6 +399,96 @@ public class MetricsQueryHelper {
     return decorate(queryResult, timeRange.getStart(), endTime, timeRange.getResolutionInSeconds());
   }
 
+  /**
+   * Queries percentiles of distribution metrics by merging the counts of their buckets at each timestamp.
+   *
+   * @param percentileMetrics the requested metric names mapped to the distribution metric name and the percentile
+   */
+  private List<MetricTimeSeries> queryPercentiles(Map<String, ImmutablePair<String, Double>> percentileMetrics,
+                                                  Map<String, String> tagsSliceBy, List<String> groupByTags,
+                                                  MetricQueryRequest.TimeRange timeRange) {
+    Set<String> distributions = new HashSet<>();
+    for (ImmutablePair<String, Double> percentileMetric : percentileMetrics.values()) {
+      distributions.add(percentileMetric.getFirst());
+    }
+
+    // only query the buckets that have values in the time range, which are found by searching the bucket counters
+    List<TagValue> tagValues = new ArrayList<>();
+    for (Map.Entry<String, String> tag : tagsSliceBy.entrySet()) {
+      tagValues.add(new TagValue(tag.getKey(), tag.getValue()));
+    }
+    MetricSearchQuery searchQuery = new MetricSearchQuery(timeRange.getStart(), timeRange.getEnd(),
+                                                          timeRange.getResolutionInSeconds(), -1, tagValues);
+    Map<String, AggregationFunction> bucketMetrics = new HashMap<>();
+    for (String metricName : metricStore.findMetricNames(searchQuery)) {
+      if (metricName != null && MetricDistribution.isBucketMetricName(metricName)
+        && distributions.contains(getDistributionName(metricName))) {
+        bucketMetrics.put(metricName, AggregationFunction.SUM);
+      }
+    }
+    if (bucketMetrics.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    // the limit is applied to the percentiles, since the timestamps of the buckets may differ
+    MetricDataQuery query = new MetricDataQuery(timeRange.getStart(), timeRange.getEnd(),
+                                                timeRange.getResolutionInSeconds(), Integer.MAX_VALUE,
+                                                bucketMetrics, tagsSliceBy, groupByTags, null);
+
+    // bucket counts of each distribution and group of tags, by timestamp and by bucket
+    Map<ImmutablePair<String, Map<String, String>>, SortedMap<Long, SortedMap<Integer, Long>>> bucketCounts =
+      new LinkedHashMap<>();
+    for (MetricTimeSeries series : queryResultCache.query(query)) {
+      String distribution = getDistributionName(series.getMetricName());
+      int bucket = MetricDistribution.parseBucket(series.getMetricName(), distribution);
+      ImmutablePair<String, Map<String, String>> key = ImmutablePair.of(distribution, series.getTagValues());
+      SortedMap<Long, SortedMap<Integer, Long>> counts = bucketCounts.get(key);
+      if (counts == null) {
+        counts = new TreeMap<>();
+        bucketCounts.put(key, counts);
+      }
+      for (TimeValue timeValue : series.getTimeValues()) {
+        SortedMap<Integer, Long> tsCounts = counts.get(timeValue.getTimestamp());
+        if (tsCounts == null) {
+          tsCounts = new TreeMap<>();
+          counts.put(timeValue.getTimestamp(), tsCounts);
+        }
+        tsCounts.put(bucket, timeValue.getValue());
+      }
+    }
+
+    List<MetricTimeSeries> result = new ArrayList<>();
+    for (Map.Entry<String, ImmutablePair<String, Double>> percentileMetric : percentileMetrics.entrySet()) {
+      for (Map.Entry<ImmutablePair<String, Map<String, String>>, SortedMap<Long, SortedMap<Integer, Long>>> entry
+        : bucketCounts.entrySet()) {
+        if (!entry.getKey().getFirst().equals(percentileMetric.getValue().getFirst())) {
+          continue;
+        }
+        List<TimeValue> timeValues = new ArrayList<>();
+        for (Map.Entry<Long, SortedMap<Integer, Long>> tsCounts : entry.getValue().entrySet()) {
+          if (timeValues.size() >= timeRange.getCount()) {
+            break;
+          }
+          int[] buckets = new int[tsCounts.getValue().size()];
+          long[] counts = new long[buckets.length];
+          int idx = 0;
+          for (Map.Entry<Integer, Long> bucketCount : tsCounts.getValue().entrySet()) {
+            buckets[idx] = bucketCount.getKey();
+            counts[idx++] = bucketCount.getValue();
+          }
+          long value = new MetricDistribution(buckets, counts).getPercentile(percentileMetric.getValue().getSecond());
+          timeValues.add(new TimeValue(tsCounts.getKey(), value));
+        }
+        result.add(new MetricTimeSeries(percentileMetric.getKey(), entry.getKey().getSecond(), timeValues));
+      }
+    }
+    return result;
+  }
+
+  private String getDistributionName(String bucketMetricName) {
+    return bucketMetricName.substring(0, bucketMetricName.lastIndexOf(MetricDistribution.BUCKET_SEPARATOR));
+  }
+
   private Map<String, String> transformTagMap(Map<String, String> tags) {
     return Maps.transformValues(tags, new Function<String, String>() {
       @Override
@@ -0,0 +1,311 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metrics.query;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
+import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
+import io.cdap.cdap.api.metrics.MetricDataQuery;
+import io.cdap.cdap.api.metrics.MetricStore;
+import io.cdap.cdap.api.metrics.MetricTimeSeries;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.api.metrics.MetricsProcessorStatus;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.ImmutablePair;
+import io.cdap.cdap.metrics.store.MetricsDeleteTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Caches the results of {@link MetricDataQuery} executed through the {@link MetricsQueryHelper}.
+ *
+ * A time bucket is sealed once the metrics processor has processed the metrics of every topic up to its end, after
+ * which its aggregated values no longer change. Only the sealed buckets are cached, the open tail of the query time
+ * range is always queried from the {@link MetricStore}. Queries are keyed by everything but the start time, hence a
+ * query over a relative time range such as "now-1h" to "now" reuses the cached buckets of the previous poll and only
+ * scans the buckets that were sealed since then, plus the open tail.
+ *
+ * Cached buckets are dropped once metrics are deleted in this process, as tracked by the
+ * {@link MetricsDeleteTracker}. Queries for totals, with an interpolator or without a positive limit are not cached
+ * and always go to the {@link MetricStore}.
+ */
+final class MetricsQueryResultCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MetricsQueryResultCache.class);
+  // how long the processed timestamp read from the metrics processor stats is reused
+  private static final long PROCESSED_TIMESTAMP_REFRESH_SECONDS = 1L;
+
+  private final MetricStore metricStore;
+  private final MetricsDeleteTracker deleteTracker;
+  private final MetricsContext metricsContext;
+  private final Supplier<Long> processedTimestamp;
+  private final LoadingCache<CacheKey, CachedResult> cache;
+
+  MetricsQueryResultCache(MetricStore metricStore, MetricsDeleteTracker deleteTracker, CConfiguration cConf,
+                          MetricsContext metricsContext) {
+    this.metricStore = metricStore;
+    this.deleteTracker = deleteTracker;
+    this.metricsContext = metricsContext;
+    this.processedTimestamp = Suppliers.memoizeWithExpiration(this::getProcessedTimestamp,
+                                                              PROCESSED_TIMESTAMP_REFRESH_SECONDS, TimeUnit.SECONDS);
+    int cacheSize = cConf.getInt(Constants.Metrics.QUERY_CACHE_SIZE);
+    // Entries expire after a fixed time even if they keep being appended to, which bounds how long buckets changed
+    // by metrics deleted in another process are served from the cache
+    this.cache = cacheSize <= 0 ? null : CacheBuilder.newBuilder()
+      .maximumSize(cacheSize)
+      .expireAfterWrite(cConf.getLong(Constants.Metrics.QUERY_CACHE_EXPIRATION_SECONDS), TimeUnit.SECONDS)
+      .build(new CacheLoader<CacheKey, CachedResult>() {
+        @Override
+        public CachedResult load(CacheKey key) {
+          return new CachedResult();
+        }
+      });
+  }
+
+  /**
+   * Executes the given query, using the cached sealed time buckets when possible.
+   */
+  Collection<MetricTimeSeries> query(MetricDataQuery query) {
+    if (cache == null || !isCacheable(query)) {
+      return metricStore.query(query);
+    }
+    return query(query, processedTimestamp.get());
+  }
+
+  /**
+   * Executes the given query, with the metrics processed up to the given timestamp in seconds.
+   */
+  Collection<MetricTimeSeries> query(MetricDataQuery query, long processedTs) {
+    if (cache == null || !isCacheable(query)) {
+      return metricStore.query(query);
+    }
+
+    int resolution = query.getResolution();
+    long startTs = query.getStartTs();
+    long endTs = query.getEndTs();
+    long sealedTs = Math.min(processedTs / resolution * resolution, endTs + 1);
+    if (sealedTs <= startTs) {
+      return metricStore.query(query);
+    }
+
+    Map<ImmutablePair<String, Map<String, String>>, List<TimeValue>> result;
+    // read before scanning, so that a deletion during the scan also invalidates the buckets it returns
+    long deleteGeneration = deleteTracker.getGeneration();
+    CachedResult cached = cache.getUnchecked(new CacheKey(query));
+    // Concurrent identical queries wait here for the first one to fill the cache instead of all scanning the store
+    synchronized (cached) {
+      if (cached.deleteGeneration == deleteGeneration && cached.contains(startTs)) {
+        metricsContext.increment(Constants.Metrics.Query.CACHE_HIT, 1L);
+        if (cached.sealedTs < sealedTs) {
+          cached.append(scan(query, cached.sealedTs, sealedTs - 1, Integer.MAX_VALUE), sealedTs);
+        }
+        cached.trim(startTs);
+      } else {
+        metricsContext.increment(Constants.Metrics.Query.CACHE_MISS, 1L);
+        cached.reset(startTs, deleteGeneration);
+        cached.append(scan(query, startTs, sealedTs - 1, Integer.MAX_VALUE), sealedTs);
+      }
+      result = cached.copy(sealedTs);
+    }
+
+    if (endTs >= sealedTs) {
+      for (MetricTimeSeries series : scan(query, sealedTs, endTs, query.getLimit())) {
+        ImmutablePair<String, Map<String, String>> seriesKey = ImmutablePair.of(series.getMetricName(),
+                                                                                series.getTagValues());
+        List<TimeValue> timeValues = result.get(seriesKey);
+        if (timeValues == null) {
+          timeValues = new ArrayList<>();
+          result.put(seriesKey, timeValues);
+        }
+        timeValues.addAll(series.getTimeValues());
+      }
+    }
+
+    List<MetricTimeSeries> timeSeries = new ArrayList<>(result.size());
+    for (Map.Entry<ImmutablePair<String, Map<String, String>>, List<TimeValue>> entry : result.entrySet()) {
+      List<TimeValue> timeValues = entry.getValue();
+      if (timeValues.size() > query.getLimit()) {
+        timeValues = new ArrayList<>(timeValues.subList(0, query.getLimit()));
+      }
+      timeSeries.add(new MetricTimeSeries(entry.getKey().getFirst(), entry.getKey().getSecond(), timeValues));
+    }
+    return timeSeries;
+  }
+
+  private boolean isCacheable(MetricDataQuery query) {
+    return query.getResolution() != Integer.MAX_VALUE && query.getInterpolator() == null && query.getLimit() > 0;
+  }
+
+  /**
+   * Returns the minimum of the last processed timestamps of all the metrics topics, or {@code 0} if it is unknown.
+   */
+  private long getProcessedTimestamp() {
+    try {
+      Collection<MetricsProcessorStatus> stats = metricStore.getMetricsProcessorStats().values();
+      return stats.isEmpty() ? 0L : stats.stream().mapToLong(MetricsProcessorStatus::getLastProcessedTimestamp).min()
+        .getAsLong();
+    } catch (Exception e) {
+      LOG.debug("Failed to read the metrics processor stats, not using cached metrics query results.", e);
+      return 0L;
+    }
+  }
+
+  private Collection<MetricTimeSeries> scan(MetricDataQuery query, long startTs, long endTs, int limit) {
+    return metricStore.query(new MetricDataQuery(startTs, endTs, query.getResolution(), limit, query.getMetrics(),
+                                                 query.getSliceByTags(), query.getGroupByTags(), null));
+  }
+
+  /**
+   * The sealed time buckets of a query, from {@link #startTs} inclusive to {@link #sealedTs} exclusive, scanned
+   * after the metrics deletion of {@link #deleteGeneration}.
+   */
+  private static final class CachedResult {
+
+    private final Map<ImmutablePair<String, Map<String, String>>, List<TimeValue>> series = new LinkedHashMap<>();
+    private long startTs = Long.MAX_VALUE;
+    private long sealedTs = Long.MIN_VALUE;
+    private long deleteGeneration = -1L;
+
+    boolean contains(long ts) {
+      return startTs <= ts && ts <= sealedTs;
+    }
+
+    void reset(long startTs, long deleteGeneration) {
+      this.series.clear();
+      this.startTs = startTs;
+      this.sealedTs = startTs;
+      this.deleteGeneration = deleteGeneration;
+    }
+
+    /**
+     * Appends the query result of the buckets between the current {@link #sealedTs} and the new one.
+     */
+    void append(Collection<MetricTimeSeries> result, long sealedTs) {
+      for (MetricTimeSeries timeSeries : result) {
+        ImmutablePair<String, Map<String, String>> seriesKey = ImmutablePair.of(timeSeries.getMetricName(),
+                                                                                timeSeries.getTagValues());
+        List<TimeValue> timeValues = series.get(seriesKey);
+        if (timeValues == null) {
+          timeValues = new ArrayList<>();
+          series.put(seriesKey, timeValues);
+        }
+        timeValues.addAll(timeSeries.getTimeValues());
+      }
+      this.sealedTs = sealedTs;
+    }
+
+    /**
+     * Drops the buckets before the given timestamp, which are no longer needed by a sliding time range.
+     */
+    void trim(long startTs) {
+      if (startTs <= this.startTs) {
+        return;
+      }
+      Iterator<List<TimeValue>> iterator = series.values().iterator();
+      while (iterator.hasNext()) {
+        List<TimeValue> timeValues = iterator.next();
+        int idx = 0;
+        while (idx < timeValues.size() && timeValues.get(idx).getTimestamp() < startTs) {
+          idx++;
+        }
+        timeValues.subList(0, idx).clear();
+        if (timeValues.isEmpty()) {
+          iterator.remove();
+        }
+      }
+      this.startTs = startTs;
+    }
+
+    /**
+     * Returns a copy of the cached buckets before the given timestamp.
+     */
+    Map<ImmutablePair<String, Map<String, String>>, List<TimeValue>> copy(long endTs) {
+      Map<ImmutablePair<String, Map<String, String>>, List<TimeValue>> result = new LinkedHashMap<>();
+      for (Map.Entry<ImmutablePair<String, Map<String, String>>, List<TimeValue>> entry : series.entrySet()) {
+        List<TimeValue> timeValues = new ArrayList<>(entry.getValue().size());
+        for (TimeValue timeValue : entry.getValue()) {
+          if (timeValue.getTimestamp() >= endTs) {
+            break;
+          }
+          timeValues.add(timeValue);
+        }
+        if (!timeValues.isEmpty()) {
+          result.put(entry.getKey(), timeValues);
+        }
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Cache key of a {@link MetricDataQuery}. It contains everything but the start time, and the end time is replaced
+   * by the length of the time range, such that relative time ranges map to the same key.
+   */
+  private static final class CacheKey {
+
+    private final int resolution;
+    private final long duration;
+    private final Map<String, AggregationFunction> metrics;
+    private final Map<String, String> sliceByTags;
+    private final List<String> groupByTags;
+    private final int hashCode;
+
+    CacheKey(MetricDataQuery query) {
+      this.resolution = query.getResolution();
+      this.duration = query.getEndTs() - query.getStartTs();
+      this.metrics = new HashMap<>(query.getMetrics());
+      this.sliceByTags = new HashMap<>(query.getSliceByTags());
+      this.groupByTags = new ArrayList<>(query.getGroupByTags());
+      this.hashCode = Objects.hash(resolution, duration, metrics, sliceByTags, groupByTags);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      CacheKey other = (CacheKey) o;
+      return resolution == other.resolution && duration == other.duration
+        && metrics.equals(other.metrics) && sliceByTags.equals(other.sliceByTags)
+        && groupByTags.equals(other.groupByTags);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
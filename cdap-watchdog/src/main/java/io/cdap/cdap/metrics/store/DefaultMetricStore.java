@@ -24,7 +24,6 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.inject.Inject;
-import io.cdap.cdap.api.dataset.lib.cube.Cube;
 import io.cdap.cdap.api.dataset.lib.cube.CubeDeleteQuery;
 import io.cdap.cdap.api.dataset.lib.cube.CubeExploreQuery;
 import io.cdap.cdap.api.dataset.lib.cube.CubeFact;
@@ -35,6 +34,7 @@ import io.cdap.cdap.api.dataset.lib.cube.Measurement;
 import io.cdap.cdap.api.dataset.lib.cube.TimeSeries;
 import io.cdap.cdap.api.metrics.MetricDataQuery;
 import io.cdap.cdap.api.metrics.MetricDeleteQuery;
+import io.cdap.cdap.api.metrics.MetricDistribution;
 import io.cdap.cdap.api.metrics.MetricSearchQuery;
 import io.cdap.cdap.api.metrics.MetricStore;
 import io.cdap.cdap.api.metrics.MetricTimeSeries;
@@ -65,6 +65,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
@@ -90,11 +91,17 @@ public class DefaultMetricStore implements MetricStore {
                     new AggregationAlias(ImmutableMap.of(Constants.Metrics.Tag.RUN_ID,
                                                          Constants.Metrics.Tag.WORKFLOW_RUN_ID)));
 
-  private final Supplier<Cube> cube;
+  private final Supplier<DefaultCube> cube;
   private final Supplier<MetricsConsumerMetaTable> metaTableSupplier;
   private MetricsContext metricsContext;
   private final List<TopicId> metricsTopics;
   private final Map<Integer, Long> resolutionTTLMap;
+  // rollup resolution -> the finer resolution it is rolled up from
+  private final Map<Integer, Integer> rollupSources;
+  private final long rollupDelaySecs;
+  @Nullable
+  private final MetricsRollupCheckpointStore checkpointStore;
+  private final MetricsDeleteTracker deleteTracker;
 
 
   static {
@@ -197,7 +204,8 @@ public class DefaultMetricStore implements MetricStore {
   }
 
   @Inject
-  DefaultMetricStore(MetricDatasetFactory dsFactory, CConfiguration cConf) {
+  DefaultMetricStore(MetricDatasetFactory dsFactory, CConfiguration cConf, MetricsDeleteTracker deleteTracker) {
+    this.deleteTracker = deleteTracker;
     int minimumResolution = cConf.getInt(Constants.Metrics.METRICS_MINIMUM_RESOLUTION_SECONDS);
     int[] resolutions = minimumResolution < 60 ?
       new int[] {minimumResolution, 60, 3600, TOTALS_RESOLUTION} : new int[] {60, 3600, TOTALS_RESOLUTION};
@@ -217,16 +225,31 @@ public class DefaultMetricStore implements MetricStore {
       // TODO: remove roll time from the supplier api, https://issues.cask.co/browse/CDAP-14730
       return dsFactory.getOrCreateFactTable(resolution);
     };
-    this.cube = Suppliers.memoize(new Supplier<Cube>() {
+    this.metaTableSupplier = Suppliers.memoize(dsFactory::createConsumerMeta);
+
+    // The 1-minute and 1-hour resolutions are rolled up from the next finer resolution. The totals are still
+    // written directly since they are never closed.
+    if (cConf.getBoolean(Constants.Metrics.ROLLUP_ENABLED)) {
+      this.rollupSources = minimumResolution < 60 ?
+        ImmutableMap.of(60, minimumResolution, 3600, 60) : ImmutableMap.of(3600, 60);
+      this.checkpointStore = new MetricsRollupCheckpointStore(
+        metaTableSupplier, rollupSources.keySet(), cConf.getLong(Constants.Metrics.ROLLUP_INTERVAL_SECONDS));
+    } else {
+      this.rollupSources = ImmutableMap.of();
+      this.checkpointStore = null;
+    }
+    this.rollupDelaySecs = cConf.getLong(Constants.Metrics.ROLLUP_DELAY_SECONDS);
+
+    this.cube = Suppliers.memoize(new Supplier<DefaultCube>() {
       @Override
-      public Cube get() {
-        DefaultCube cube = new DefaultCube(resolutions, factTableSupplier, AGGREGATIONS, AGGREGATIONS_ALIAS_DIMENSIONS);
+      public DefaultCube get() {
+        DefaultCube cube = new DefaultCube(resolutions, factTableSupplier, AGGREGATIONS, AGGREGATIONS_ALIAS_DIMENSIONS,
+                                           rollupSources, checkpointStore);
         cube.setMetricsCollector(metricsContext);
         return cube;
       }
     });
 
-    this.metaTableSupplier = Suppliers.memoize(dsFactory::createConsumerMeta);
     int topicNumbers = cConf.getInt(Constants.Metrics.MESSAGING_TOPIC_NUM);
     String topicPrefix = cConf.get(Constants.Metrics.TOPIC_PREFIX);
     metricsTopics = new ArrayList<>();
@@ -254,8 +277,19 @@ public class DefaultMetricStore implements MetricStore {
       // todo improve this logic?
       for (MetricValue metric : metricValue.getMetrics()) {
         String measureName = (scope == null ? "system." : scope + ".") + metric.getName();
-        MeasureType type = metric.getType() == MetricType.COUNTER ? MeasureType.COUNTER : MeasureType.GAUGE;
+        MeasureType type = metric.getType() == MetricType.GAUGE ? MeasureType.GAUGE : MeasureType.COUNTER;
         metrics.add(new Measurement(measureName, type, metric.getValue()));
+
+        // a distribution is stored as one counter per bucket, such that it is merged over time and tags by the cube
+        MetricDistribution distribution = metric.getDistribution();
+        if (metric.getType() == MetricType.DISTRIBUTION && distribution != null) {
+          int[] buckets = distribution.getBuckets();
+          long[] counts = distribution.getCounts();
+          for (int i = 0; i < buckets.length; i++) {
+            metrics.add(new Measurement(MetricDistribution.getBucketMetricName(measureName, buckets[i]),
+                                        MeasureType.COUNTER, counts[i]));
+          }
+        }
       }
 
       CubeFact fact = new CubeFact(metricValue.getTimestamp())
@@ -290,6 +324,7 @@ public class DefaultMetricStore implements MetricStore {
       // Delete all data before the timestamp. null for MeasureName indicates match any MeasureName.
       deleteMetricsBeforeTimestamp(timestamp, resolution);
     }
+    deleteTracker.metricsDeleted();
   }
 
   @Override
@@ -300,9 +335,50 @@ public class DefaultMetricStore implements MetricStore {
     }
   }
 
+  @Override
+  public void rollup() {
+    if (checkpointStore == null) {
+      return;
+    }
+    // Always read the latest checkpoints, so that a failed read never restarts the rollup of a resolution
+    checkpointStore.refresh();
+    long currentTime = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    // Never roll up the windows that may still get metrics from a processor that is behind, since that processor
+    // may run on another instance and not see the new checkpoint in time
+    long rollupEndTs = Math.min(currentTime, getProcessedTimestamp()) - rollupDelaySecs;
+    // the finer resolutions are rolled up first since the coarser ones are rolled up from them
+    for (int resolution : new TreeSet<>(rollupSources.keySet())) {
+      if (checkpointStore.getCheckpoint(resolution) == null) {
+        // Starts the rollup after the delay, so that every metrics writer sees the checkpoint
+        // before it writes any metrics after it
+        long checkpoint = (currentTime + rollupDelaySecs + resolution - 1) / resolution * resolution;
+        checkpointStore.saveCheckpoint(resolution, checkpoint);
+        continue;
+      }
+      cube.get().rollup(resolution, rollupEndTs);
+    }
+  }
+
+  /**
+   * Returns the minimum of the persisted processed timestamps of all the metrics topics, before which every metric
+   * published to the topics is persisted. Topics that were never processed are ignored.
+   */
+  private long getProcessedTimestamp() {
+    MetricsConsumerMetaTable metaTable = metaTableSupplier.get();
+    long processedTimestamp = Long.MAX_VALUE;
+    for (TopicId topicId : metricsTopics) {
+      TopicProcessMeta topicProcessMeta = metaTable.getTopicProcessMeta(new TopicIdMetaKey(topicId));
+      if (topicProcessMeta != null) {
+        processedTimestamp = Math.min(processedTimestamp, topicProcessMeta.getLastProcessedTimestamp());
+      }
+    }
+    return processedTimestamp;
+  }
+
   @Override
   public void delete(MetricDeleteQuery query) {
     cube.get().delete(buildCubeDeleteQuery(query));
+    deleteTracker.metricsDeleted();
   }
 
   @Override
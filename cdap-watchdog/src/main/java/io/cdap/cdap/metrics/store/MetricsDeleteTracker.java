@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metrics.store;
+
+import com.google.inject.Singleton;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the deletions of metrics done by this process, so that metrics query results cached before a deletion
+ * can be recognized as stale. Every {@link DefaultMetricStore} of the process calls {@link #metricsDeleted()} after
+ * deleting metrics data.
+ */
+@Singleton
+public class MetricsDeleteTracker {
+
+  private final AtomicLong generation = new AtomicLong();
+
+  /**
+   * Records that metrics data has been deleted.
+   */
+  public void metricsDeleted() {
+    generation.incrementAndGet();
+  }
+
+  /**
+   * @return the current delete generation, which changes every time metrics data is deleted
+   */
+  public long getGeneration() {
+    return generation.get();
+  }
+}
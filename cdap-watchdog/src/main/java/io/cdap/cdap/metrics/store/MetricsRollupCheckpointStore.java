@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.metrics.store;
+
+import com.google.common.base.Supplier;
+import io.cdap.cdap.data2.dataset2.lib.cube.RollupCheckpointStore;
+import io.cdap.cdap.metrics.process.MetricsConsumerMetaTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link RollupCheckpointStore} that persists the checkpoints in the {@link MetricsConsumerMetaTable}. Since the
+ * checkpoints are read for every batch of metrics written, they are cached and only reloaded from the table
+ * periodically. A cached checkpoint never moves backwards.
+ */
+final class MetricsRollupCheckpointStore implements RollupCheckpointStore {
+  private static final Logger LOG = LoggerFactory.getLogger(MetricsRollupCheckpointStore.class);
+
+  private final Supplier<MetricsConsumerMetaTable> metaTableSupplier;
+  private final Set<Integer> resolutions;
+  private final long refreshIntervalMillis;
+  private final Map<Integer, Long> checkpoints;
+  private volatile long lastRefreshTime;
+
+  MetricsRollupCheckpointStore(Supplier<MetricsConsumerMetaTable> metaTableSupplier, Set<Integer> resolutions,
+                               long refreshIntervalSecs) {
+    this.metaTableSupplier = metaTableSupplier;
+    this.resolutions = resolutions;
+    this.refreshIntervalMillis = TimeUnit.SECONDS.toMillis(refreshIntervalSecs);
+    this.checkpoints = new ConcurrentHashMap<>();
+  }
+
+  @Nullable
+  @Override
+  public Long getCheckpoint(int resolution) {
+    if (System.currentTimeMillis() - lastRefreshTime >= refreshIntervalMillis) {
+      try {
+        refresh();
+      } catch (Exception e) {
+        // Keep using the cached checkpoints, the refresh will be retried after the interval
+        LOG.warn("Failed to load the metrics rollup checkpoints, will retry in {} ms", refreshIntervalMillis, e);
+      }
+    }
+    return checkpoints.get(resolution);
+  }
+
+  @Override
+  public void saveCheckpoint(int resolution, long timestamp) {
+    metaTableSupplier.get().saveRollupCheckpoint(resolution, timestamp);
+    checkpoints.merge(resolution, timestamp, Math::max);
+  }
+
+  /**
+   * Reloads the checkpoints from the meta table.
+   *
+   * @throws RuntimeException if failed to read the checkpoints
+   */
+  synchronized void refresh() {
+    lastRefreshTime = System.currentTimeMillis();
+    MetricsConsumerMetaTable metaTable = metaTableSupplier.get();
+    for (int resolution : resolutions) {
+      Long checkpoint = metaTable.getRollupCheckpoint(resolution);
+      if (checkpoint != null) {
+        checkpoints.merge(resolution, checkpoint, Math::max);
+      }
+    }
+  }
+}
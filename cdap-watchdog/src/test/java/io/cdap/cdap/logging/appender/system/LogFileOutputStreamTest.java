@@ -0,0 +1,188 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.cdap.logging.appender.system;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.logging.filter.AndFilter;
+import io.cdap.cdap.logging.filter.Filter;
+import io.cdap.cdap.logging.filter.LogLevelExpression;
+import io.cdap.cdap.logging.filter.MdcExpression;
+import io.cdap.cdap.logging.filter.OrFilter;
+import io.cdap.cdap.logging.read.LogEvent;
+import io.cdap.cdap.logging.write.LogFileIndex;
+import io.cdap.cdap.logging.write.LogLocation;
+import org.apache.twill.filesystem.LocalLocationFactory;
+import org.apache.twill.filesystem.Location;
+import org.apache.twill.filesystem.LocationFactory;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Unit test for {@link LogFileOutputStream} and reading the files it writes with and without {@link LogFileIndex}.
+ */
+public class LogFileOutputStreamTest {
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  private static final int EVENTS = 1000;
+
+  private static LocationFactory locationFactory;
+
+  @BeforeClass
+  public static void init() throws IOException {
+    locationFactory = new LocalLocationFactory(TMP_FOLDER.newFolder());
+  }
+
+  @Test
+  public void testIndex() throws IOException {
+    Location location = writeLogFile("index.avro");
+
+    LogFileIndex index;
+    try (InputStream is = LogFileIndex.getIndexLocation(location).getInputStream()) {
+      index = LogFileIndex.read(is);
+    }
+
+    List<LogFileIndex.Block> blocks = index.getBlocks();
+    Assert.assertTrue(blocks.size() > 1);
+
+    int events = 0;
+    long prevPosition = -1;
+    for (LogFileIndex.Block block : blocks) {
+      Assert.assertTrue(block.getPosition() > prevPosition);
+      Assert.assertTrue(block.getMinTimestamp() <= block.getMaxTimestamp());
+      prevPosition = block.getPosition();
+      events += block.getEvents();
+    }
+    Assert.assertEquals(EVENTS, events);
+
+    // Only few blocks have ERROR events or events of run0
+    Filter errorFilter = new LogLevelExpression("ERROR");
+    Filter runFilter = new MdcExpression("runId", "run0");
+    int errorBlocks = 0;
+    int runBlocks = 0;
+    for (LogFileIndex.Block block : blocks) {
+      errorBlocks += errorFilter.mayMatch(block) ? 1 : 0;
+      runBlocks += runFilter.mayMatch(block) ? 1 : 0;
+      Assert.assertTrue(new LogLevelExpression("TRACE").mayMatch(block));
+    }
+    Assert.assertTrue(errorBlocks > 0 && errorBlocks < blocks.size());
+    Assert.assertTrue(runBlocks > 0 && runBlocks < blocks.size());
+  }
+
+  @Test
+  public void testReadWithIndex() throws IOException {
+    Location location = writeLogFile("read.avro");
+    LogLocation logLocation = new LogLocation(LogLocation.VERSION_1, 0L, 0L, location, "default", null);
+
+    List<Filter> filters = ImmutableList.of(
+      Filter.EMPTY_FILTER,
+      new LogLevelExpression("ERROR"),
+      new MdcExpression("runId", "run3"),
+      new AndFilter(ImmutableList.of(new LogLevelExpression("WARN"), new MdcExpression("runId", "run5"))),
+      new OrFilter(ImmutableList.of(new LogLevelExpression("ERROR"), new MdcExpression("runId", "run8"))),
+      new MdcExpression("runId", "unknown")
+    );
+
+    // Read with the index, then delete the index and make sure the results are the same
+    List<List<List<String>>> indexedResults = new ArrayList<>();
+    for (Filter filter : filters) {
+      indexedResults.add(read(logLocation, filter));
+    }
+
+    Assert.assertTrue(LogFileIndex.getIndexLocation(location).delete());
+    List<List<List<String>>> results = new ArrayList<>();
+    for (Filter filter : filters) {
+      results.add(read(logLocation, filter));
+    }
+
+    Assert.assertEquals(results, indexedResults);
+    // Sanity check on the results of reading the whole file
+    Assert.assertEquals(EVENTS, results.get(0).get(0).size());
+    Assert.assertEquals(200, results.get(1).get(0).size());
+    Assert.assertEquals(100, results.get(2).get(0).size());
+    Assert.assertEquals(0, results.get(5).get(0).size());
+  }
+
+  private List<List<String>> read(LogLocation logLocation, Filter filter) throws IOException {
+    List<List<String>> results = new ArrayList<>();
+    long[][] ranges = { {0L, Long.MAX_VALUE}, {2500L, 6000L}, {9990L, Long.MAX_VALUE}, {20000L, 30000L} };
+    for (long[] range : ranges) {
+      List<String> result = new ArrayList<>();
+      try (CloseableIterator<LogEvent> iterator = logLocation.readLog(filter, range[0], range[1], EVENTS)) {
+        while (iterator.hasNext()) {
+          result.add(iterator.next().getLoggingEvent().getFormattedMessage());
+        }
+      }
+      results.add(result);
+    }
+
+    for (int maxEvents : new int[] { 1, 50, EVENTS }) {
+      for (long fromTime : new long[] { 0L, 5000L, Long.MAX_VALUE }) {
+        List<String> result = new ArrayList<>();
+        Collection<LogEvent> events = logLocation.readLogPrev(filter, fromTime, maxEvents);
+        for (LogEvent event : events) {
+          result.add(event.getLoggingEvent().getFormattedMessage());
+        }
+        results.add(result);
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Writes a log file with events at every 10ms. The log level changes every 100 events and the run id in MDC
+   * changes every 100 events, with an offset of 50 events.
+   */
+  private Location writeLogFile(String name) throws IOException {
+    Location location = locationFactory.create(name);
+    Logger logger = (Logger) LoggerFactory.getLogger(LogFileOutputStreamTest.class);
+    Level[] levels = { Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR };
+
+    try (LogFileOutputStream output = new LogFileOutputStream(location, "", 1024, 0L, () -> { })) {
+      for (int i = 0; i < EVENTS; i++) {
+        LoggingEvent event = new LoggingEvent(getClass().getName(), logger, levels[(i / 100) % levels.length],
+                                              "message " + i, null, null);
+        event.setTimeStamp(i * 10L);
+        event.setMDCPropertyMap(ImmutableMap.of("runId", "run" + ((i + 50) / 100)));
+        output.append(event);
+
+        // Flush the file in between to have blocks that are not full
+        if (i % 77 == 0) {
+          output.flush();
+        }
+      }
+    }
+    return location;
+  }
+}
@@ -183,6 +183,54 @@ public class KafkaLogProcessorPipelineTest {
     Assert.assertNull(appender.getEvents());
   }
 
+  @Test
+  public void testCorruptedMessages() throws Exception {
+    String topic = "testCorrupted";
+    LoggerContext loggerContext = LogPipelineTestUtil.createLoggerContext("WARN",
+                                                                          ImmutableMap.of("test.logger", "INFO"),
+                                                                          MockAppender.class.getName());
+    final MockAppender appender = LogPipelineTestUtil.getAppender(loggerContext.getLogger(Logger.ROOT_LOGGER_NAME),
+                                                                  "Test", MockAppender.class);
+    TestCheckpointManager checkpointManager = new TestCheckpointManager();
+    KafkaPipelineConfig config = new KafkaPipelineConfig(topic, Collections.singleton(0), 1024L, 300L, 1048576, 500L);
+    KAFKA_TESTER.createTopic(topic, 1);
+
+    loggerContext.start();
+    KafkaLogProcessorPipeline pipeline = new KafkaLogProcessorPipeline(
+      new LogProcessorPipelineContext(CConfiguration.create(), "test", loggerContext, NO_OP_METRICS_CONTEXT, 0),
+      checkpointManager,
+      KAFKA_TESTER.getBrokerService(), config);
+
+    pipeline.startAndWait();
+
+    // Publish valid messages with truncated and corrupted messages in between
+    long now = System.currentTimeMillis();
+    LoggingContext context = new GenericLoggingContext(NamespaceId.DEFAULT.getNamespace(), "app", "entity");
+    LoggingEventSerializer serializer = new LoggingEventSerializer();
+    byte[] truncated = serializer.toBytes(new LogMessage(
+      LogPipelineTestUtil.createLoggingEvent("test.logger", Level.INFO, "truncated", now - 900), context));
+    KafkaPublisher.Preparer preparer = KAFKA_TESTER.getKafkaClient()
+      .getPublisher(KafkaPublisher.Ack.LEADER_RECEIVED, Compression.NONE)
+      .prepare(topic);
+    preparer.add(ByteBuffer.wrap(serializer.toBytes(new LogMessage(
+      LogPipelineTestUtil.createLoggingEvent("test.logger", Level.INFO, "0", now - 1000), context))),
+                 context.getLogPartition());
+    preparer.add(ByteBuffer.wrap(truncated, 0, truncated.length / 2), context.getLogPartition());
+    preparer.add(ByteBuffer.wrap(new byte[] { 2, 2, 0, 10 }), context.getLogPartition());
+    preparer.add(ByteBuffer.wrap(serializer.toBytes(new LogMessage(
+      LogPipelineTestUtil.createLoggingEvent("test.logger", Level.INFO, "1", now - 500), context))),
+                 context.getLogPartition());
+    preparer.send();
+
+    // The corrupted messages should be skipped
+    Tasks.waitFor(2, () -> appender.getEvents().size(), 5, TimeUnit.SECONDS, 100, TimeUnit.MILLISECONDS);
+    Assert.assertEquals("0", appender.getEvents().poll().getMessage());
+    Assert.assertEquals("1", appender.getEvents().poll().getMessage());
+
+    pipeline.stopAndWait();
+    loggerContext.stop();
+  }
+
   @Test
   public void testRegularFlush() throws Exception {
     String topic = "testFlush";
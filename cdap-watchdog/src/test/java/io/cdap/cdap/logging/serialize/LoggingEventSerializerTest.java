@@ -29,12 +29,20 @@ import io.cdap.cdap.common.logging.ServiceLoggingContext;
 import io.cdap.cdap.common.logging.logback.TestLoggingContext;
 import io.cdap.cdap.logging.appender.LogMessage;
 import io.cdap.cdap.logging.context.LoggingContextHelper;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
@@ -70,6 +78,90 @@ public class LoggingEventSerializerTest {
 
   @Test
   public void testSerialization() throws Exception {
+    LoggingEventSerializer serializer = new LoggingEventSerializer();
+    ch.qos.logback.classic.spi.LoggingEvent iLoggingEvent = createLoggingEvent();
+
+    // Serialize
+    ILoggingEvent event = new LogMessage(iLoggingEvent, LoggingContextAccessor.getLoggingContext());
+    byte [] serializedBytes = serializer.toBytes(event);
+
+    // De-serialize
+    ILoggingEvent actualEvent = serializer.fromBytes(ByteBuffer.wrap(serializedBytes));
+    System.out.println(actualEvent);
+    assertLoggingEventEquals(iLoggingEvent, actualEvent);
+  }
+
+  @Test
+  public void testGenericRecordCompatibility() throws Exception {
+    LoggingEventSerializer serializer = new LoggingEventSerializer();
+    ch.qos.logback.classic.spi.LoggingEvent iLoggingEvent = createLoggingEvent();
+    ILoggingEvent event = new LogMessage(iLoggingEvent, LoggingContextAccessor.getLoggingContext());
+    Schema schema = serializer.getAvroSchema();
+
+    // Bytes encoded by the serializer can be decoded with a generic datum reader
+    byte[] bytes = serializer.toBytes(event);
+    GenericRecord record = new GenericDatumReader<GenericRecord>(schema).read(
+      null, DecoderFactory.get().binaryDecoder(bytes, null));
+    assertLoggingEventEquals(iLoggingEvent, new LoggingEvent(record));
+
+    // Bytes encoded from the generic record by a generic datum writer can be decoded by the serializer
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(os, null);
+    new GenericDatumWriter<GenericRecord>(schema).write(serializer.toGenericRecord(event), encoder);
+    ILoggingEvent actualEvent = serializer.fromBytes(ByteBuffer.wrap(os.toByteArray()));
+    assertLoggingEventEquals(iLoggingEvent, actualEvent);
+    Assert.assertEquals(record, ((LoggingEvent) actualEvent).getRecord());
+  }
+
+  @Test
+  public void testLazyDecode() throws Exception {
+    LoggingEventSerializer serializer = new LoggingEventSerializer();
+    ch.qos.logback.classic.spi.LoggingEvent iLoggingEvent = createLoggingEvent();
+    ILoggingEvent event = new LogMessage(iLoggingEvent, LoggingContextAccessor.getLoggingContext());
+
+    // Encode into a buffer with array offset and reuse the serializer to make sure encoded buffers are not shared
+    byte[] bytes = serializer.toBytes(event);
+    serializer.toBytes(new LogMessage(createLoggingEvent(), LoggingContextAccessor.getLoggingContext()));
+    byte[] padded = new byte[bytes.length + 10];
+    System.arraycopy(bytes, 0, padded, 5, bytes.length);
+    ByteBuffer buffer = ByteBuffer.wrap(padded, 5, bytes.length).slice();
+
+    // Access fields in the reverse order of the schema
+    ILoggingEvent actualEvent = serializer.fromBytes(buffer);
+    Assert.assertEquals(iLoggingEvent.hasCallerData(), actualEvent.hasCallerData());
+    Assert.assertArrayEquals(iLoggingEvent.getCallerData(), actualEvent.getCallerData());
+    Assert.assertEquals(iLoggingEvent.getLoggerName(), actualEvent.getLoggerName());
+    Assert.assertEquals(iLoggingEvent.getLevel(), actualEvent.getLevel());
+    Assert.assertEquals(iLoggingEvent.getTimeStamp(), actualEvent.getTimeStamp());
+    assertLoggingEventEquals(iLoggingEvent, actualEvent);
+    Assert.assertEquals(bytes.length, buffer.remaining());
+  }
+
+  @Test
+  public void testCorruptedBytes() throws Exception {
+    LoggingEventSerializer serializer = new LoggingEventSerializer();
+    byte[] bytes = serializer.toBytes(new LogMessage(createLoggingEvent(), LoggingContextAccessor.getLoggingContext()));
+
+    // Truncated bytes that still contain the timestamp should fail in decode instead of on field access
+    for (int length : new int[] { bytes.length / 2, bytes.length - 1 }) {
+      try {
+        serializer.fromBytes(ByteBuffer.wrap(bytes, 0, length));
+        Assert.fail("Expected failure in decoding truncated bytes of length " + length);
+      } catch (IOException e) {
+        // expected
+      }
+    }
+
+    // Valid timestamp, level and empty MDC, followed by an invalid union index for the marker
+    try {
+      serializer.fromBytes(ByteBuffer.wrap(new byte[] { 2, 2, 0, 10 }));
+      Assert.fail("Expected failure in decoding corrupted bytes");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  private static ch.qos.logback.classic.spi.LoggingEvent createLoggingEvent() {
     Map<String, String> mdcMap = Maps.newHashMap();
     mdcMap.put("mdc1", "mdc-val1");
     mdcMap.put("mdc2", null);
@@ -80,7 +172,6 @@ public class LoggingEventSerializerTest {
     contextMap.put("p2", null);
     contextMap.put(null, null);
 
-    LoggingEventSerializer serializer = new LoggingEventSerializer();
     ch.qos.logback.classic.spi.LoggingEvent iLoggingEvent = new ch.qos.logback.classic.spi.LoggingEvent();
     iLoggingEvent.setThreadName("threadName1");
     iLoggingEvent.setLevel(Level.INFO);
@@ -107,15 +198,7 @@ public class LoggingEventSerializerTest {
     iLoggingEvent.setMarker(null);
     iLoggingEvent.getMDCPropertyMap().putAll(mdcMap);
     iLoggingEvent.setTimeStamp(1234567890L);
-
-    // Serialize
-    ILoggingEvent event = new LogMessage(iLoggingEvent, LoggingContextAccessor.getLoggingContext());
-    byte [] serializedBytes = serializer.toBytes(event);
-
-    // De-serialize
-    ILoggingEvent actualEvent = serializer.fromBytes(ByteBuffer.wrap(serializedBytes));
-    System.out.println(actualEvent);
-    assertLoggingEventEquals(iLoggingEvent, actualEvent);
+    return iLoggingEvent;
   }
 
 
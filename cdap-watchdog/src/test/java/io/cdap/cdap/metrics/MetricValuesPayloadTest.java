@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metrics;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.reflect.TypeToken;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.data.schema.SchemaHash;
+import io.cdap.cdap.api.metrics.MetricDistribution;
+import io.cdap.cdap.api.metrics.MetricType;
+import io.cdap.cdap.api.metrics.MetricValue;
+import io.cdap.cdap.api.metrics.MetricValues;
+import io.cdap.cdap.common.io.BinaryDecoder;
+import io.cdap.cdap.common.io.BinaryEncoder;
+import io.cdap.cdap.common.io.Encoder;
+import io.cdap.cdap.internal.io.ASMDatumWriterFactory;
+import io.cdap.cdap.internal.io.ASMFieldAccessorFactory;
+import io.cdap.cdap.internal.io.ReflectionDatumReader;
+import io.cdap.cdap.internal.io.ReflectionSchemaGenerator;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link MetricValuesPayload}.
+ */
+public class MetricValuesPayloadTest {
+
+  private static final TypeToken<MetricValues> METRIC_VALUES_TYPE = TypeToken.of(MetricValues.class);
+
+  private static Schema schema;
+  private static Map<SchemaHash, Schema> writerSchemas;
+
+  @BeforeClass
+  public static void init() throws Exception {
+    schema = new ReflectionSchemaGenerator().generate(METRIC_VALUES_TYPE.getType());
+    writerSchemas = Collections.singletonMap(schema.getSchemaHash(), schema);
+  }
+
+  @Test
+  public void testLegacyPayload() throws Exception {
+    // Payloads published before the distribution metric type was added have no header
+    MetricValues metricValues = new MetricValues(ImmutableMap.of("ns", "default"), 1234L,
+                                                 ImmutableList.of(new MetricValue("count", MetricType.COUNTER, 5L),
+                                                                  new MetricValue("size", MetricType.GAUGE, 10L)));
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    encode(metricValues, MetricValuesPayload.LEGACY_SCHEMA, os);
+
+    MetricValues decoded = decode(os.toByteArray());
+    Assert.assertEquals(ImmutableMap.of("ns", "default"), decoded.getTags());
+    Assert.assertEquals(1234L, decoded.getTimestamp());
+    Assert.assertEquals(2, decoded.getMetrics().size());
+
+    Iterator<MetricValue> iterator = decoded.getMetrics().iterator();
+    assertMetricValue(iterator.next(), "count", MetricType.COUNTER, 5L);
+    assertMetricValue(iterator.next(), "size", MetricType.GAUGE, 10L);
+  }
+
+  @Test
+  public void testPayloadWithHeader() throws Exception {
+    MetricDistribution distribution = new MetricDistribution(new int[] { MetricDistribution.getBucket(100L),
+                                                                         MetricDistribution.getBucket(200L) },
+                                                             new long[] { 1L, 1L });
+    MetricValues metricValues = new MetricValues(ImmutableMap.of("ns", "default"), 1234L,
+                                                 ImmutableList.of(new MetricValue("latency", distribution)));
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    os.write(MetricValuesPayload.createHeader(schema));
+    encode(metricValues, schema, os);
+
+    MetricValues decoded = decode(os.toByteArray());
+    Assert.assertEquals(1234L, decoded.getTimestamp());
+    MetricValue metricValue = decoded.getMetrics().iterator().next();
+    assertMetricValue(metricValue, "latency", MetricType.DISTRIBUTION, 2L);
+    Assert.assertNotNull(metricValue.getDistribution());
+    Assert.assertEquals(2L, metricValue.getDistribution().getCount());
+  }
+
+  @Test(expected = IOException.class)
+  public void testUnknownWriterSchema() throws Exception {
+    Schema unknownSchema = Schema.recordOf("unknown", Schema.Field.of("timestamp", Schema.of(Schema.Type.LONG)));
+    MetricValuesPayload.readWriterSchema(new ByteArrayInputStream(MetricValuesPayload.createHeader(unknownSchema)),
+                                         writerSchemas);
+  }
+
+  private void encode(MetricValues metricValues, Schema writerSchema, ByteArrayOutputStream os) throws IOException {
+    Encoder encoder = new BinaryEncoder(os);
+    new ASMDatumWriterFactory(new ASMFieldAccessorFactory()).create(METRIC_VALUES_TYPE, writerSchema)
+      .encode(metricValues, encoder);
+  }
+
+  private MetricValues decode(byte[] payload) throws IOException {
+    ByteArrayInputStream input = new ByteArrayInputStream(payload);
+    Schema writerSchema = MetricValuesPayload.readWriterSchema(input, writerSchemas);
+    return new ReflectionDatumReader<>(schema, METRIC_VALUES_TYPE).read(new BinaryDecoder(input), writerSchema);
+  }
+
+  private void assertMetricValue(MetricValue metricValue, String name, MetricType type, long value) {
+    Assert.assertEquals(name, metricValue.getName());
+    Assert.assertEquals(type, metricValue.getType());
+    Assert.assertEquals(value, metricValue.getValue());
+  }
+}
@@ -17,6 +17,8 @@ package io.cdap.cdap.metrics.collect;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
+import io.cdap.cdap.api.metrics.MetricDistribution;
+import io.cdap.cdap.api.metrics.MetricType;
 import io.cdap.cdap.api.metrics.MetricValue;
 import io.cdap.cdap.api.metrics.MetricValues;
 import io.cdap.cdap.api.metrics.MetricsContext;
@@ -26,9 +28,11 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -139,6 +143,70 @@ public class AggregatedMetricsCollectionServiceTest {
     }
   }
 
+  @Test
+  public void testDistribution() {
+    List<MetricValues> published = new ArrayList<>();
+    AggregatedMetricsCollectionService service = new AggregatedMetricsCollectionService(Long.MAX_VALUE) {
+      @Override
+      protected void publish(Iterator<MetricValues> metrics) {
+        Iterators.addAll(published, metrics);
+      }
+    };
+    service.startAndWait();
+    MetricsContext context = service.getContext(EMPTY_TAGS);
+    for (int i = 1; i <= 1000; i++) {
+      context.record(METRIC, i);
+    }
+    // metrics are flushed when the service stops
+    service.stopAndWait();
+
+    Assert.assertEquals(1, published.size());
+    MetricValue metricValue = null;
+    for (MetricValue value : published.get(0).getMetrics()) {
+      if (METRIC.equals(value.getName())) {
+        metricValue = value;
+      }
+    }
+    Assert.assertNotNull(metricValue);
+    Assert.assertEquals(MetricType.DISTRIBUTION, metricValue.getType());
+    Assert.assertEquals(1000L, metricValue.getValue());
+
+    MetricDistribution distribution = metricValue.getDistribution();
+    Assert.assertNotNull(distribution);
+    Assert.assertEquals(1000L, distribution.getCount());
+    assertPercentile(500, distribution.getPercentile(50));
+    assertPercentile(950, distribution.getPercentile(95));
+    assertPercentile(990, distribution.getPercentile(99));
+    Assert.assertEquals(1L, distribution.getPercentile(0));
+  }
+
+  @Test
+  public void testDistributionBuckets() {
+    // every value falls in a bucket whose bounds contain it, and buckets are contiguous
+    long previousUpperBound = -1L;
+    for (int bucket = 0; bucket < MetricDistribution.BUCKET_COUNT; bucket++) {
+      long lowerBound = MetricDistribution.getLowerBound(bucket);
+      long upperBound = MetricDistribution.getUpperBound(bucket);
+      Assert.assertEquals(previousUpperBound + 1, lowerBound);
+      Assert.assertEquals(bucket, MetricDistribution.getBucket(lowerBound));
+      Assert.assertEquals(bucket, MetricDistribution.getBucket(upperBound));
+      previousUpperBound = upperBound;
+    }
+    Assert.assertEquals(Long.MAX_VALUE, previousUpperBound);
+    Assert.assertEquals(0, MetricDistribution.getBucket(-10L));
+
+    String bucketMetricName = MetricDistribution.getBucketMetricName("system.latency", 17);
+    Assert.assertTrue(MetricDistribution.isBucketMetricName(bucketMetricName));
+    Assert.assertEquals(17, MetricDistribution.parseBucket(bucketMetricName, "system.latency"));
+    Assert.assertEquals(-1, MetricDistribution.parseBucket(bucketMetricName, "system.lat"));
+    Assert.assertFalse(MetricDistribution.isBucketMetricName("system.latency"));
+  }
+
+  private void assertPercentile(long expected, long actual) {
+    // the estimate is within 1/16 of the value
+    Assert.assertTrue("Expected " + expected + " but got " + actual, Math.abs(expected - actual) <= expected / 16);
+  }
+
   private void verifyCounterMetricsValue(BlockingQueue<MetricValues> published,
                                          Map<Integer, Map<String, Long>> expected) throws InterruptedException {
     Map<Integer, Map<String, Long>> received = new HashMap<>();
@@ -21,8 +21,10 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Table;
 import com.google.inject.Module;
 import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.data.schema.SchemaHash;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.api.messaging.TopicNotFoundException;
+import io.cdap.cdap.api.metrics.MetricType;
 import io.cdap.cdap.api.metrics.MetricValue;
 import io.cdap.cdap.api.metrics.MetricValues;
 import io.cdap.cdap.api.metrics.MetricsCollectionService;
@@ -30,7 +32,9 @@ import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.io.BinaryDecoder;
 import io.cdap.cdap.internal.io.ReflectionDatumReader;
+import io.cdap.cdap.internal.io.ReflectionSchemaGenerator;
 import io.cdap.cdap.messaging.data.RawMessage;
+import io.cdap.cdap.metrics.MetricValuesPayload;
 import io.cdap.cdap.metrics.MetricsTestBase;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.TopicId;
@@ -57,6 +61,7 @@ public class MessagingMetricsCollectionServiceTest extends MetricsTestBase {
 
     MetricsCollectionService collectionService = new MessagingMetricsCollectionService(CConfiguration.create(),
                                                                                        messagingService,
+                                                                                       new ReflectionSchemaGenerator(),
                                                                                        recordWriter);
     collectionService.startAndWait();
 
@@ -64,12 +69,17 @@ public class MessagingMetricsCollectionServiceTest extends MetricsTestBase {
     for (int i = 1; i <= 3; i++) {
       collectionService.getContext(ImmutableMap.of("tag", "" + i)).increment("processed", i);
     }
+    // record values of a distribution, which value is the number of recorded values
+    for (int i = 1; i <= 10; i++) {
+      collectionService.getContext(ImmutableMap.of("tag", "1")).record("latency", i * 100);
+    }
 
     collectionService.stopAndWait();
 
     // <Context, metricName, value>
     Table<String, String, Long> expected = HashBasedTable.create();
     expected.put("tag.1", "processed", 1L);
+    expected.put("tag.1", "latency", 10L);
     expected.put("tag.2", "processed", 2L);
     expected.put("tag.3", "processed", 3L);
 
@@ -83,13 +93,16 @@ public class MessagingMetricsCollectionServiceTest extends MetricsTestBase {
 
     // Consume from kafka
     final Map<String, MetricValues> metrics = Maps.newHashMap();
+    Map<SchemaHash, Schema> writerSchemas = Collections.singletonMap(schema.getSchemaHash(), schema);
     for (int i = 0; i < cConf.getInt(Constants.Metrics.MESSAGING_TOPIC_NUM); i++) {
     TopicId topicId = NamespaceId.SYSTEM.topic(TOPIC_PREFIX + i);
       try (CloseableIterator<RawMessage> iterator = messagingService.prepareFetch(topicId).fetch()) {
         while (iterator.hasNext()) {
           RawMessage message = iterator.next();
-          MetricValues metricsRecord = (MetricValues) recordReader.read(
-            new BinaryDecoder(new ByteArrayInputStream(message.getPayload())), schema);
+          ByteArrayInputStream payload = new ByteArrayInputStream(message.getPayload());
+          Schema writerSchema = MetricValuesPayload.readWriterSchema(payload, writerSchemas);
+          Assert.assertEquals(schema, writerSchema);
+          MetricValues metricsRecord = (MetricValues) recordReader.read(new BinaryDecoder(payload), writerSchema);
           StringBuilder flattenContext = new StringBuilder();
           // for verifying expected results, sorting tags
           Map<String, String> tags = Maps.newTreeMap();
@@ -122,6 +135,10 @@ public class MessagingMetricsCollectionServiceTest extends MetricsTestBase {
         for (MetricValue metricValue : metricValues.getMetrics()) {
           if (entry.getKey().equals(metricValue.getName())) {
             Assert.assertEquals(entry.getValue().longValue(), metricValue.getValue());
+            if (metricValue.getType() == MetricType.DISTRIBUTION) {
+              Assert.assertNotNull(metricValue.getDistribution());
+              Assert.assertEquals(metricValue.getValue(), metricValue.getDistribution().getCount());
+            }
             found = true;
             break;
           }
@@ -35,6 +35,7 @@ import io.cdap.cdap.data2.datafabric.dataset.service.executor.DatasetOpExecutorS
 import io.cdap.cdap.internal.io.DatumReaderFactory;
 import io.cdap.cdap.internal.io.SchemaGenerator;
 import io.cdap.cdap.metrics.store.MetricDatasetFactory;
+import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.spi.data.StructuredTableAdmin;
 import io.cdap.cdap.spi.data.table.StructuredTableRegistry;
 import io.cdap.cdap.store.StoreDefinition;
@@ -70,6 +71,7 @@ public class MessagingMetricsProcessorServiceTest extends MetricsProcessorServic
       .boxed().collect(Collectors.toSet());
 
     long startTime = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    MetricsConsumerMetaTable metaTable = injector.getInstance(MetricDatasetFactory.class).createConsumerMeta();
 
     for (int iteration = 0; iteration < 50; iteration++) {
       // First publish all metrics before MessagingMetricsProcessorService starts, so that fetchers of different topics
@@ -116,6 +118,16 @@ public class MessagingMetricsProcessorServiceTest extends MetricsProcessorServic
       // topic metas are not yet persisted. Wait for all topic metas to be persisted
       Tasks.waitFor(true, metricStore::isMetricsProcessorDelayEmitted, 15, TimeUnit.SECONDS);
 
+      // every topic is drained, hence its processed timestamp is persisted with a time after the metrics were published
+      long publishedTime = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+      Tasks.waitFor(true, () -> getMinProcessedTimestamp(metaTable, partitions) >= publishedTime,
+                    15, TimeUnit.SECONDS, 100, TimeUnit.MILLISECONDS);
+      if (iteration == 0) {
+        // the processed timestamp of topics without new metrics keeps moving forward
+        Tasks.waitFor(true, () -> getMinProcessedTimestamp(metaTable, partitions) > publishedTime,
+                      15, TimeUnit.SECONDS, 100, TimeUnit.MILLISECONDS);
+      }
+
       // Clear metricStore and expected results for the next iteration
       metricStore.deleteAll();
       expected.clear();
@@ -124,6 +136,16 @@ public class MessagingMetricsProcessorServiceTest extends MetricsProcessorServic
     }
   }
 
+  private long getMinProcessedTimestamp(MetricsConsumerMetaTable metaTable, Set<Integer> partitions) {
+    long processedTimestamp = Long.MAX_VALUE;
+    for (int partition : partitions) {
+      TopicProcessMeta meta = metaTable.getTopicProcessMeta(
+        new TopicIdMetaKey(NamespaceId.SYSTEM.topic(cConf.get(Constants.Metrics.TOPIC_PREFIX) + partition)));
+      processedTimestamp = Math.min(processedTimestamp, meta == null ? 0L : meta.getLastProcessedTimestamp());
+    }
+    return processedTimestamp;
+  }
+
   private void assertMetricsResult(Map<String, Long> expected, Map<String, Long> actual) {
     for (Map.Entry<String, Long> metric : expected.entrySet()) {
       Long actualValue = actual.get(metric.getKey());
@@ -212,6 +234,11 @@ public class MessagingMetricsProcessorServiceTest extends MetricsProcessorServic
       // no-op
     }
 
+    @Override
+    public void rollup() {
+      // no-op
+    }
+
     @Override
     public void delete(MetricDeleteQuery query) {
       // no-op
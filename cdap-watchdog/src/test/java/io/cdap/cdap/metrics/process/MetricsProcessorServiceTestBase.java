@@ -37,6 +37,7 @@ import io.cdap.cdap.data2.metadata.writer.MetadataPublisher;
 import io.cdap.cdap.data2.metadata.writer.NoOpMetadataPublisher;
 import io.cdap.cdap.explore.guice.ExploreClientModule;
 import io.cdap.cdap.messaging.client.StoreRequestBuilder;
+import io.cdap.cdap.metrics.MetricValuesPayload;
 import io.cdap.cdap.metrics.MetricsTestBase;
 import io.cdap.cdap.metrics.guice.MetricsStoreModule;
 import io.cdap.cdap.proto.id.NamespaceId;
@@ -122,6 +123,7 @@ abstract class MetricsProcessorServiceTestBase extends MetricsTestBase {
       }
     }
 
+    encoderOutputStream.write(MetricValuesPayload.createHeader(schema));
     recordWriter.encode(metric, encoder);
     return metric;
   }
@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metrics.query;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
+import io.cdap.cdap.api.metrics.MetricDistribution;
+import io.cdap.cdap.api.metrics.MetricTimeSeries;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.metrics.NoOpMetricsCollectionService;
+import io.cdap.cdap.common.utils.ImmutablePair;
+import io.cdap.cdap.metrics.store.MetricsDeleteTracker;
+import io.cdap.cdap.proto.MetricQueryResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for querying percentiles of distribution metrics through the {@link MetricsQueryHelper}.
+ */
+public class MetricsQueryHelperTest {
+
+  private static final String METRIC = "system.latency";
+  private static final int LARGE_BUCKET = MetricDistribution.getBucket(1000L);
+
+  // bucket counters of the distribution, and the count of recorded values
+  private static final List<MetricTimeSeries> DATA = ImmutableList.of(
+    new MetricTimeSeries(METRIC, ImmutableMap.of(), ImmutableList.of(new TimeValue(120, 100), new TimeValue(180, 1))),
+    new MetricTimeSeries(MetricDistribution.getBucketMetricName(METRIC, 3), ImmutableMap.of(),
+                         ImmutableList.of(new TimeValue(120, 50), new TimeValue(180, 1))),
+    new MetricTimeSeries(MetricDistribution.getBucketMetricName(METRIC, LARGE_BUCKET), ImmutableMap.of(),
+                         ImmutableList.of(new TimeValue(120, 50)))
+  );
+
+  @Test
+  public void testPercentiles() throws Exception {
+    TestMetricStore metricStore = new TestMetricStore(DATA);
+    MetricsQueryHelper helper = new MetricsQueryHelper(metricStore, new MetricsDeleteTracker(),
+                                                       CConfiguration.create(), new NoOpMetricsCollectionService());
+
+    // the bucket counters are not returned by the search
+    Assert.assertEquals(ImmutableList.of(METRIC), helper.searchMetric(ImmutableList.of()));
+
+    Map<String, List<String>> timeParams = ImmutableMap.of("start", ImmutableList.of("60"),
+                                                           "end", ImmutableList.of("240"),
+                                                           "resolution", ImmutableList.of("1m"));
+    metricStore.getSearches().clear();
+    MetricQueryResult result = helper.executeTagQuery(ImmutableList.of(),
+                                                      ImmutableList.of(METRIC, METRIC + ":p50", METRIC + ":p99"),
+                                                      ImmutableList.of(), timeParams);
+    Map<String, MetricQueryResult.TimeValue[]> series = new HashMap<>();
+    for (MetricQueryResult.TimeSeries timeSeries : result.getSeries()) {
+      series.put(timeSeries.getMetricName(), timeSeries.getData());
+    }
+    Assert.assertEquals(3, series.size());
+    assertTimeValues(series.get(METRIC), 120, 100, 180, 1);
+    assertTimeValues(series.get(METRIC + ":p50"), 120, 3, 180, 3);
+    assertTimeValues(series.get(METRIC + ":p99"), 120, MetricDistribution.getBucketValue(LARGE_BUCKET), 180, 3);
+    // the bucket counters are searched in the queried time range
+    Assert.assertEquals(ImmutableList.of(ImmutablePair.of(60L, 240L)), metricStore.getSearches());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testInvalidPercentile() throws Exception {
+    MetricsQueryHelper helper = new MetricsQueryHelper(new TestMetricStore(DATA), new MetricsDeleteTracker(),
+                                                       CConfiguration.create(), new NoOpMetricsCollectionService());
+    helper.executeTagQuery(ImmutableList.of(), ImmutableList.of(METRIC + ":p101"), ImmutableList.of(),
+                           ImmutableMap.of("start", ImmutableList.of("60"), "end", ImmutableList.of("240")));
+  }
+
+  private void assertTimeValues(MetricQueryResult.TimeValue[] actual, long... expected) {
+    Assert.assertEquals(expected.length / 2, actual.length);
+    for (int i = 0; i < actual.length; i++) {
+      Assert.assertEquals(expected[i * 2], actual[i].getTime());
+      Assert.assertEquals(expected[i * 2 + 1], actual[i].getValue());
+    }
+  }
+}
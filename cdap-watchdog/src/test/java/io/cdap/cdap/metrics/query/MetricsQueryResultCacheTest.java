@@ -0,0 +1,197 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metrics.query;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
+import io.cdap.cdap.api.dataset.lib.cube.Interpolators;
+import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
+import io.cdap.cdap.api.metrics.MetricDataQuery;
+import io.cdap.cdap.api.metrics.MetricTimeSeries;
+import io.cdap.cdap.api.metrics.NoopMetricsContext;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.ImmutablePair;
+import io.cdap.cdap.metrics.store.MetricsDeleteTracker;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link MetricsQueryResultCache}.
+ */
+public class MetricsQueryResultCacheTest {
+
+  private static final int RESOLUTION = 60;
+
+  @Test
+  public void testSlidingTimeRange() {
+    CConfiguration cConf = CConfiguration.create();
+    TestMetricStore metricStore = createMetricStore(0, 100000);
+    MetricsQueryResultCache cache = new MetricsQueryResultCache(metricStore, new MetricsDeleteTracker(), cConf,
+                                                                new NoopMetricsContext());
+
+    long now = 36000;
+    MetricDataQuery query = createQuery(now - 3600, now, 1000);
+    assertQuery(metricStore, cache, query, now - 120);
+    // the first query scans the sealed buckets, then the open tail
+    Assert.assertEquals(ImmutableList.of(ImmutablePair.of(now - 3600, 35879L), ImmutablePair.of(35880L, now)),
+                        metricStore.getScans());
+
+    // a minute later, only the newly sealed bucket and the open tail are scanned
+    now += 60;
+    query = createQuery(now - 3600, now, 1000);
+    assertQuery(metricStore, cache, query, now - 120);
+    Assert.assertEquals(ImmutableList.of(ImmutablePair.of(35880L, 35939L), ImmutablePair.of(35940L, now)),
+                        metricStore.getScans());
+
+    // the limit is applied to the merged result
+    query = createQuery(now - 3600, now, 10);
+    assertQuery(metricStore, cache, query, now - 120);
+    Assert.assertEquals(1, metricStore.getScans().size());
+
+    // a query with an earlier start time than the cached buckets scans the whole range again
+    query = createQuery(now - 7200, now - 3600, 1000);
+    assertQuery(metricStore, cache, query, now - 120);
+    Assert.assertEquals(ImmutableList.of(ImmutablePair.of(now - 7200, now - 3600)), metricStore.getScans());
+  }
+
+  @Test
+  public void testNotCached() {
+    CConfiguration cConf = CConfiguration.create();
+    TestMetricStore metricStore = createMetricStore(0, 100000);
+    MetricsQueryResultCache cache = new MetricsQueryResultCache(metricStore, new MetricsDeleteTracker(), cConf,
+                                                                new NoopMetricsContext());
+
+    long now = 36000;
+    // queries with interpolation are not cached
+    MetricDataQuery query = new MetricDataQuery(now - 3600, now, RESOLUTION, 1000,
+                                                ImmutableMap.of("m", AggregationFunction.SUM),
+                                                ImmutableMap.of(), ImmutableList.of("prg"),
+                                                new Interpolators.Step());
+    cache.query(query, now - 120);
+    cache.query(query, now - 120);
+    Assert.assertEquals(2, metricStore.getScans().size());
+
+    // queries in the open time window only are not cached
+    metricStore.getScans().clear();
+    query = createQuery(now - 60, now, 1000);
+    cache.query(query, now - 120);
+    cache.query(query, now - 120);
+    Assert.assertEquals(2, metricStore.getScans().size());
+
+    // nothing is cached when the cache is disabled
+    cConf.setInt(Constants.Metrics.QUERY_CACHE_SIZE, 0);
+    cache = new MetricsQueryResultCache(metricStore, new MetricsDeleteTracker(), cConf,
+                                                                new NoopMetricsContext());
+    metricStore.getScans().clear();
+    query = createQuery(now - 3600, now, 1000);
+    cache.query(query, now - 120);
+    cache.query(query, now - 120);
+    Assert.assertEquals(2, metricStore.getScans().size());
+  }
+
+  @Test
+  public void testDeleteInvalidates() {
+    TestMetricStore metricStore = createMetricStore(0, 100000);
+    MetricsDeleteTracker deleteTracker = new MetricsDeleteTracker();
+    MetricsQueryResultCache cache = new MetricsQueryResultCache(metricStore, deleteTracker, CConfiguration.create(),
+                                                                new NoopMetricsContext());
+
+    long now = 36000;
+    MetricDataQuery query = createQuery(now - 3600, now, 1000);
+    assertQuery(metricStore, cache, query, now - 120);
+    assertQuery(metricStore, cache, query, now - 120);
+    Assert.assertEquals(ImmutableList.of(ImmutablePair.of(35880L, now)), metricStore.getScans());
+
+    // after a deletion, the sealed buckets are scanned again
+    deleteTracker.metricsDeleted();
+    assertQuery(metricStore, cache, query, now - 120);
+    Assert.assertEquals(ImmutableList.of(ImmutablePair.of(now - 3600, 35879L), ImmutablePair.of(35880L, now)),
+                        metricStore.getScans());
+  }
+
+  @Test
+  public void testProcessedTimestamp() {
+    long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    TestMetricStore metricStore = createMetricStore(now / RESOLUTION * RESOLUTION - 3600, now);
+    MetricsQueryResultCache cache = new MetricsQueryResultCache(metricStore, new MetricsDeleteTracker(),
+                                                                CConfiguration.create(), new NoopMetricsContext());
+
+    // nothing is sealed before the metrics processor has processed any topic
+    MetricDataQuery query = createQuery(now - 3600, now, 1000);
+    cache.query(query);
+    Assert.assertEquals(ImmutableList.of(ImmutablePair.of(now - 3600, now)), metricStore.getScans());
+
+    // the buckets are sealed up to the topic processed the least recently
+    long processedTs = now - 600;
+    metricStore.setProcessedTimestamps(now - 60, processedTs);
+    metricStore.getScans().clear();
+    cache = new MetricsQueryResultCache(metricStore, new MetricsDeleteTracker(), CConfiguration.create(),
+                                        new NoopMetricsContext());
+    cache.query(query);
+    long sealedTs = processedTs / RESOLUTION * RESOLUTION;
+    Assert.assertEquals(ImmutableList.of(ImmutablePair.of(now - 3600, sealedTs - 1), ImmutablePair.of(sealedTs, now)),
+                        metricStore.getScans());
+  }
+
+  /**
+   * Asserts the cached query result is the same as querying the store directly, and leaves only the scans done
+   * through the cache in the {@link TestMetricStore}.
+   */
+  private void assertQuery(TestMetricStore metricStore, MetricsQueryResultCache cache,
+                           MetricDataQuery query, long processedTs) {
+    Map<ImmutablePair<String, Map<String, String>>, List<TimeValue>> expected = toMap(metricStore.query(query));
+    metricStore.getScans().clear();
+    Assert.assertEquals(expected, toMap(cache.query(query, processedTs)));
+  }
+
+  private MetricDataQuery createQuery(long startTs, long endTs, int limit) {
+    return new MetricDataQuery(startTs, endTs, RESOLUTION, limit, ImmutableMap.of("m", AggregationFunction.SUM),
+                               ImmutableMap.of(), ImmutableList.of("prg"), null);
+  }
+
+  private Map<ImmutablePair<String, Map<String, String>>, List<TimeValue>> toMap(Collection<MetricTimeSeries> result) {
+    Map<ImmutablePair<String, Map<String, String>>, List<TimeValue>> map = new HashMap<>();
+    for (MetricTimeSeries series : result) {
+      map.put(ImmutablePair.of(series.getMetricName(), series.getTagValues()), series.getTimeValues());
+    }
+    return map;
+  }
+
+  /**
+   * Creates a {@link TestMetricStore} that has a data point every minute for two programs in the given time range.
+   */
+  private TestMetricStore createMetricStore(long startTs, long endTs) {
+    List<MetricTimeSeries> data = new ArrayList<>();
+    for (String program : ImmutableList.of("p1", "p2")) {
+      List<TimeValue> timeValues = new ArrayList<>();
+      for (long ts = startTs; ts <= endTs; ts += RESOLUTION) {
+        timeValues.add(new TimeValue(ts, ts + program.hashCode()));
+      }
+      data.add(new MetricTimeSeries("m", ImmutableMap.of("prg", program), timeValues));
+    }
+    return new TestMetricStore(data);
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metrics.query;
+
+import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
+import io.cdap.cdap.api.metrics.MetricDataQuery;
+import io.cdap.cdap.api.metrics.MetricDeleteQuery;
+import io.cdap.cdap.api.metrics.MetricSearchQuery;
+import io.cdap.cdap.api.metrics.MetricStore;
+import io.cdap.cdap.api.metrics.MetricTimeSeries;
+import io.cdap.cdap.api.metrics.MetricValues;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.api.metrics.MetricsMessageId;
+import io.cdap.cdap.api.metrics.MetricsProcessorStatus;
+import io.cdap.cdap.api.metrics.TagValue;
+import io.cdap.cdap.common.utils.ImmutablePair;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link MetricStore} that serves a fixed set of time series, and records the time ranges of the queries and
+ * searches made to it.
+ */
+final class TestMetricStore implements MetricStore {
+
+  private final Collection<MetricTimeSeries> data;
+  private final List<ImmutablePair<Long, Long>> scans = new ArrayList<>();
+  private final List<ImmutablePair<Long, Long>> searches = new ArrayList<>();
+  private final Map<String, MetricsProcessorStatus> processorStats = new HashMap<>();
+
+  TestMetricStore(Collection<MetricTimeSeries> data) {
+    this.data = data;
+  }
+
+  /**
+   * Returns the time ranges of the data queries, in the order they were made.
+   */
+  List<ImmutablePair<Long, Long>> getScans() {
+    return scans;
+  }
+
+  /**
+   * Returns the time ranges of the metric name searches, in the order they were made.
+   */
+  List<ImmutablePair<Long, Long>> getSearches() {
+    return searches;
+  }
+
+  /**
+   * Sets the last processed timestamps of the metrics topics, one topic for each given timestamp.
+   */
+  void setProcessedTimestamps(long... processedTimestamps) {
+    processorStats.clear();
+    for (int i = 0; i < processedTimestamps.length; i++) {
+      processorStats.put("topic" + i, new MetricsProcessorStatus(new MetricsMessageId(0L, (short) 0, 0L, (short) 0),
+                                                                 0L, 0L, 1L, processedTimestamps[i]));
+    }
+  }
+
+  @Override
+  public Collection<MetricTimeSeries> query(MetricDataQuery query) {
+    scans.add(ImmutablePair.of(query.getStartTs(), query.getEndTs()));
+    List<MetricTimeSeries> result = new ArrayList<>();
+    for (MetricTimeSeries series : data) {
+      if (!query.getMetrics().containsKey(series.getMetricName()) || !matches(series, query.getSliceByTags())) {
+        continue;
+      }
+      List<TimeValue> timeValues = new ArrayList<>();
+      for (TimeValue timeValue : series.getTimeValues()) {
+        if (timeValues.size() >= query.getLimit()) {
+          break;
+        }
+        if (timeValue.getTimestamp() >= query.getStartTs() && timeValue.getTimestamp() <= query.getEndTs()) {
+          timeValues.add(timeValue);
+        }
+      }
+      if (!timeValues.isEmpty()) {
+        result.add(new MetricTimeSeries(series.getMetricName(), series.getTagValues(), timeValues));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Collection<String> findMetricNames(MetricSearchQuery query) {
+    searches.add(ImmutablePair.of(query.getStartTs(), query.getEndTs()));
+    Set<String> result = new LinkedHashSet<>();
+    for (MetricTimeSeries series : data) {
+      for (TimeValue timeValue : series.getTimeValues()) {
+        if (timeValue.getTimestamp() >= query.getStartTs() && timeValue.getTimestamp() <= query.getEndTs()) {
+          result.add(series.getMetricName());
+          break;
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Map<String, MetricsProcessorStatus> getMetricsProcessorStats() {
+    return processorStats;
+  }
+
+  @Override
+  public void setMetricsContext(MetricsContext metricsContext) {
+    // no-op
+  }
+
+  @Override
+  public void add(MetricValues metricValues) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void add(Collection<? extends MetricValues> metricValues) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void deleteBefore(long timestamp) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void deleteTTLExpired() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void rollup() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void delete(MetricDeleteQuery query) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void deleteAll() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Collection<TagValue> findNextAvailableTags(MetricSearchQuery query) {
+    throw new UnsupportedOperationException();
+  }
+
+  private boolean matches(MetricTimeSeries series, Map<String, String> sliceByTags) {
+    for (Map.Entry<String, String> tag : sliceByTags.entrySet()) {
+      if (tag.getValue() != null && !tag.getValue().equals(series.getTagValues().get(tag.getKey()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}